@@ -0,0 +1,155 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.collection;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the long-keyed collections to the boxed java.util collections they replace, on snowflake-like keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LongMapBenchmark {
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private long[] keys, lookups;
+    private HashMap<Long, Object> hashMap;
+    private LongHashMap<Object> longHashMap;
+    private ConcurrentHashMap<Long, Object> concurrentHashMap;
+    private ConcurrentLongMap<Object> concurrentLongMap;
+    private HashSet<Long> hashSet;
+    private LongHashSet longHashSet;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(9110);
+        keys = new long[size];
+        // Snowflakes: a millisecond timestamp in the high bits, worker, process and increment in the 22 low bits.
+        for (int i = 0; i < size; i++) keys[i] = (1_600_000_000_000L + random.nextLong(100_000_000_000L)) << 22 | random.nextInt(1 << 22);
+        lookups = new long[LOOKUPS];
+        // Three quarters of the lookups hit, the other ones miss.
+        for (int i = 0; i < LOOKUPS; i++) lookups[i] = i % 4 == 0 ? random.nextLong() : keys[random.nextInt(size)];
+
+        hashMap = new HashMap<>();
+        longHashMap = new LongHashMap<>();
+        concurrentHashMap = new ConcurrentHashMap<>();
+        concurrentLongMap = new ConcurrentLongMap<>();
+        hashSet = new HashSet<>();
+        longHashSet = new LongHashSet();
+        for (long key : keys) {
+            hashMap.put(key, Boolean.TRUE);
+            longHashMap.put(key, Boolean.TRUE);
+            concurrentHashMap.put(key, Boolean.TRUE);
+            concurrentLongMap.put(key, Boolean.TRUE);
+            hashSet.add(key);
+            longHashSet.add(key);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getHashMap(Blackhole blackhole) {
+        for (long key : lookups) blackhole.consume(hashMap.get(key));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getLongHashMap(Blackhole blackhole) {
+        for (long key : lookups) blackhole.consume(longHashMap.get(key));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getConcurrentHashMap(Blackhole blackhole) {
+        for (long key : lookups) blackhole.consume(concurrentHashMap.get(key));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getConcurrentLongMap(Blackhole blackhole) {
+        for (long key : lookups) blackhole.consume(concurrentLongMap.get(key));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void containsHashSet(Blackhole blackhole) {
+        for (long key : lookups) blackhole.consume(hashSet.contains(key));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void containsLongHashSet(Blackhole blackhole) {
+        for (long key : lookups) blackhole.consume(longHashSet.contains(key));
+    }
+
+    // Put and remove of the same keys, the way the per-guild bookkeeping churns.
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void churnConcurrentHashMap() {
+        for (long key : lookups) concurrentHashMap.put(key, Boolean.FALSE);
+        for (long key : lookups) concurrentHashMap.remove(key);
+        for (long key : lookups) concurrentHashMap.put(key, Boolean.TRUE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void churnConcurrentLongMap() {
+        for (long key : lookups) concurrentLongMap.put(key, Boolean.FALSE);
+        for (long key : lookups) concurrentLongMap.remove(key);
+        for (long key : lookups) concurrentLongMap.put(key, Boolean.TRUE);
+    }
+
+    // Lookups on four threads, one call in sixteen being a write.
+    @Benchmark
+    @Threads(4)
+    public Object readMostlyConcurrentHashMap(ThreadIndex index) {
+        long key = lookups[index.next()];
+        if ((index.counter & 15) == 0) return concurrentHashMap.put(key, Boolean.TRUE);
+        return concurrentHashMap.get(key);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object readMostlyConcurrentLongMap(ThreadIndex index) {
+        long key = lookups[index.next()];
+        if ((index.counter & 15) == 0) return concurrentLongMap.put(key, Boolean.TRUE);
+        return concurrentLongMap.get(key);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadIndex {
+        private int counter;
+
+        int next() {
+            return counter++ & (LOOKUPS - 1);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker guarding the executor of a command.
+ * The breaker opens after a number of consecutive failed or slow calls and rejects every call until the open duration passes.
+ * After that a single probe call is let through (half-open state): the breaker closes if the probe succeeds and opens again otherwise.
+ * A probe that does not report its result within the slow call threshold (or the open duration when slow calls are not tracked) is
+ * considered lost, and the next call becomes the new probe.
+ * The state is kept in an atomic reference to an immutable status so the check done before every call never takes a lock.
+ */
+public class CircuitBreaker {
+    /**
+     * The fallback message used when none is given through CircuitBreaker#setFallbackMessage(String).
+     */
+    public static final String DEFAULT_FALLBACK_MESSAGE = "This command is temporarily unavailable. Please try again later.";
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * The outcome of CircuitBreaker#tryAcquire(). Calls that were let through shall report their result with the returned Permit.
+     */
+    public enum Permit {
+        /**
+         * The call is rejected and the fallback reply shall be sent instead.
+         */
+        REJECTED,
+        /**
+         * The call is let through while the breaker is closed.
+         */
+        CALL,
+        /**
+         * The call is the single probe let through while the breaker is half-open.
+         */
+        PROBE
+    }
+
+    private static final Status CLOSED = new Status(State.CLOSED, 0);
+
+    private final int failureThreshold;
+    private final long slowCallNanos, openNanos, probeTimeoutNanos;
+    /* The state and the System#nanoTime() it was entered at, replaced as a whole so that only the thread winning a transition sets
+     * its time. While half-open the time is the start of the running probe. */
+    private final AtomicReference<Status> status = new AtomicReference<>(CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder(), failures = new LongAdder(), opened = new LongAdder();
+    // Source of the System#nanoTime() values, replaced by the tests.
+    private final LongSupplier clock;
+    private volatile String fallbackMessage = DEFAULT_FALLBACK_MESSAGE;
+
+    /**
+     * @param failureThreshold The number of consecutive failed or slow calls that open the breaker.
+     * @param slowCallThreshold The duration after which a successful call is counted as a failure. Zero or less disables slow call tracking.
+     * @param openDuration      The duration the breaker rejects calls for before a probe call is let through.
+     * @param unit              The TimeUnit of both durations.
+     */
+    public CircuitBreaker(int failureThreshold, long slowCallThreshold, long openDuration, @NotNull TimeUnit unit) {
+        this(failureThreshold, slowCallThreshold, openDuration, unit, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, long slowCallThreshold, long openDuration, TimeUnit unit, LongSupplier clock) {
+        if (failureThreshold < 1) throw new IllegalArgumentException("failureThreshold must be at least 1");
+        if (openDuration <= 0) throw new IllegalArgumentException("openDuration must be positive");
+        this.failureThreshold = failureThreshold;
+        this.slowCallNanos = slowCallThreshold <= 0 ? Long.MAX_VALUE : unit.toNanos(slowCallThreshold);
+        this.openNanos = unit.toNanos(openDuration);
+        this.probeTimeoutNanos = slowCallThreshold <= 0 ? openNanos : slowCallNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * Method used to set the message replied to the calls rejected while the breaker is open.
+     * The message is stored once and sent as it is, so rejected calls do not need any work besides the reply.
+     *
+     * @param fallbackMessage The fallback message.
+     * @return The same CircuitBreaker instance.
+     */
+    public CircuitBreaker setFallbackMessage(@NotNull String fallbackMessage) {
+        this.fallbackMessage = fallbackMessage;
+        return this;
+    }
+
+    /**
+     * @return The message replied to the calls rejected while the breaker is open.
+     */
+    @NotNull
+    public String getFallbackMessage() {
+        return fallbackMessage;
+    }
+
+    /**
+     * Method used to check whether a call may be executed. The method never blocks.
+     *
+     * @return The Permit of the call. Unless the call is REJECTED, its result shall be reported through CircuitBreaker#release(Permit, boolean, long).
+     */
+    @NotNull
+    public Permit tryAcquire() {
+        Status current = status.get();
+        if (current.state == State.CLOSED) return Permit.CALL;
+        long now = clock.getAsLong();
+        // Open: rejecting until the open duration passed. Half-open: rejecting while the probe runs, replacing it once it is lost.
+        long wait = current.state == State.OPEN ? openNanos : probeTimeoutNanos;
+        if (now - current.since >= wait && status.compareAndSet(current, new Status(State.HALF_OPEN, now))) {
+            // This thread moved the breaker to half-open, it owns the probe.
+            return Permit.PROBE;
+        }
+        rejected.increment();
+        return Permit.REJECTED;
+    }
+
+    /**
+     * Method used to report the result of a call let through by CircuitBreaker#tryAcquire().
+     *
+     * @param permit       The Permit returned for the call.
+     * @param failed       Whether the call failed.
+     * @param elapsedNanos The duration of the call in nanoseconds. Calls slower than the slow call threshold count as failed.
+     */
+    public void release(@NotNull Permit permit, boolean failed, long elapsedNanos) {
+        if (permit == Permit.REJECTED) return;
+        boolean failure = failed || elapsedNanos >= slowCallNanos;
+        if (failure) failures.increment();
+
+        if (permit == Permit.PROBE) {
+            if (failure) open(State.HALF_OPEN);
+            else {
+                consecutiveFailures.set(0);
+                Status current = status.get();
+                if (current.state == State.HALF_OPEN) status.compareAndSet(current, CLOSED);
+            }
+            return;
+        }
+
+        if (!failure) {
+            // Avoid writing the shared counter on every successful call.
+            if (consecutiveFailures.get() != 0) consecutiveFailures.set(0);
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) open(State.CLOSED);
+    }
+
+    // Late results of calls made in an earlier state do not reopen, or extend the open duration of, a breaker that moved on.
+    private void open(State from) {
+        Status current = status.get();
+        if (current.state == from && status.compareAndSet(current, new Status(State.OPEN, clock.getAsLong()))) {
+            consecutiveFailures.set(0);
+            opened.increment();
+        }
+    }
+
+    /**
+     * Method used to close the breaker manually, for example once the backend of the command is known to be back.
+     */
+    public void reset() {
+        consecutiveFailures.set(0);
+        status.set(CLOSED);
+    }
+
+    /**
+     * @return The current State of the breaker.
+     */
+    @NotNull
+    public State getState() {
+        return status.get().state;
+    }
+
+    /**
+     * @return The number of calls rejected since the breaker was created.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return The number of failed or slow calls since the breaker was created.
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * @return The number of times the breaker opened since it was created, including the reopenings after a failed probe.
+     */
+    public long getOpenCount() {
+        return opened.sum();
+    }
+
+    private static final class Status {
+        private final State state;
+        private final long since;
+
+        private Status(State state, long since) {
+            this.state = state;
+            this.since = since;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Platform independent view of a command used by the routing of the calls.
+ * It only exposes what is needed to find the command and the command at the end of a call path, without any executor or permission.
+ */
+public interface CommandNode {
+
+    /**
+     * @return The lowercase name identifier of the command.
+     */
+    @NotNull
+    String getName();
+
+    /**
+     * @return The lowercase aliases of the command or an empty List.
+     */
+    List<String> getAliases();
+
+    /**
+     * @return The priority class of the calls of the command.
+     */
+    @NotNull
+    CommandPriority getPriority();
+
+    /**
+     * Method used to obtain a sub-command of the command.
+     *
+     * @param name The name identifier of the sub-command, case insensitive.
+     * @return The sub-command registered with the given name or null if the command has no such sub-command.
+     */
+    default CommandNode getChild(String name) {
+        return null;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core;
+
+/**
+ * Priority classes of commands. Under load, calls of commands with a higher priority are executed before
+ * the calls of commands with a lower priority, regardless of the guild they were called in.
+ */
+public enum CommandPriority {
+    /**
+     * Commands that can wait, such as fun or informational commands.
+     */
+    LOW,
+    /**
+     * The default priority of commands.
+     */
+    NORMAL,
+    /**
+     * Commands that should be executed before the general ones.
+     */
+    HIGH,
+    /**
+     * Administration and moderation commands. These calls jump ahead of every other call.
+     */
+    MODERATION
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Registry of the commands found at the top of the command hierarchies.
+ * The registry is an immutable snapshot replaced on every registration, so the lookups never lock and a single registry can be shared
+ * by all the threads receiving calls. The aliases of the commands are indexed when the command is registered.
+ *
+ * @param <T> The type of the registered commands.
+ */
+public class CommandRegistry<T extends TopLevelCommand> {
+    private volatile Snapshot<T> snapshot = new Snapshot<>(new HashMap<>());
+    private int nextIndex = 0;
+
+    /**
+     * Method used to register a command.
+     *
+     * @param command The command to register.
+     * @param onIndex Receives the index given to the command. It is called before the command becomes visible to the lookups.
+     * @return Whether or not the command was registered. false if a command is already registered with the same name.
+     */
+    public synchronized boolean register(@NotNull T command, @NotNull IntConsumer onIndex) {
+        if (snapshot.commands.containsKey(command.getName())) return false;
+        onIndex.accept(nextIndex++);
+        HashMap<String, T> commands = new HashMap<>(snapshot.commands);
+        commands.put(command.getName(), command);
+        snapshot = new Snapshot<>(commands);
+        return true;
+    }
+
+    /**
+     * @param name The name identifier of the command, case insensitive.
+     * @return The command registered with the given name or null.
+     */
+    public T get(@NotNull String name) {
+        return snapshot.commands.get(name.toLowerCase());
+    }
+
+    /**
+     * @param key The name identifier or one of the aliases of the command, case insensitive.
+     * @return The command registered with the given name or alias or null. Names take precedence over the aliases of other commands.
+     */
+    public T getIncludingAliases(@NotNull String key) {
+        return snapshot.keys.get(key.toLowerCase());
+    }
+
+    /**
+     * @return The unmodifiable Set of the names of the registered commands.
+     */
+    public Set<String> getNames() {
+        return snapshot.commands.keySet();
+    }
+
+    /**
+     * @return The unmodifiable collection of the registered commands.
+     */
+    public Collection<T> getCommands() {
+        return snapshot.commands.values();
+    }
+
+    /**
+     * The version is increased every time a command is registered.
+     *
+     * @return The number of registered commands.
+     */
+    public int getVersion() {
+        return snapshot.commands.size();
+    }
+
+    private static final class Snapshot<T extends TopLevelCommand> {
+        private final Map<String, T> commands;
+        private final Map<String, T> keys;
+
+        private Snapshot(HashMap<String, T> commands) {
+            this.commands = Collections.unmodifiableMap(commands);
+            HashMap<String, T> keys = new HashMap<>(commands);
+            commands.values().forEach(cmd -> cmd.getAliases().forEach(alias -> keys.putIfAbsent(alias.toLowerCase(), cmd)));
+            this.keys = keys;
+        }
+    }
+}
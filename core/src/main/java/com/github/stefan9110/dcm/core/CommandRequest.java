@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Platform independent description of a command call, built by the platform adapter from the event that delivered the call.
+ */
+public final class CommandRequest {
+    private static final String[] NO_ARGS = new String[0];
+
+    /**
+     * The way a command was called.
+     */
+    public enum Type {
+        MESSAGE, SLASH
+    }
+
+    private final Type type;
+    private final long guildId, eventId, receivedAt;
+    private final String name;
+    private final String[] args;
+
+    private CommandRequest(Type type, long guildId, long eventId, String name, String[] args, long receivedAt) {
+        this.type = type;
+        this.guildId = guildId;
+        this.eventId = eventId;
+        this.name = name;
+        this.args = args;
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * @param guildId    The ID of the guild the message was sent in.
+     * @param messageId  The ID of the message.
+     * @param tokens     The name of the called command followed by the arguments, as returned by CommandRouter#tokenize(String, String).
+     * @param receivedAt The System#nanoTime() value at which the call was received.
+     * @return The request of a message call.
+     */
+    public static CommandRequest message(long guildId, long messageId, @NotNull String[] tokens, long receivedAt) {
+        String[] args = NO_ARGS;
+        if (tokens.length > 1) {
+            args = new String[tokens.length - 1];
+            System.arraycopy(tokens, 1, args, 0, args.length);
+        }
+        return new CommandRequest(Type.MESSAGE, guildId, messageId, tokens[0], args, receivedAt);
+    }
+
+    /**
+     * @param guildId       The ID of the guild the interaction was used in.
+     * @param interactionId The ID of the interaction.
+     * @param name          The name of the SlashCommand.
+     * @param args          The sub-command name, if any, followed by the values of the options.
+     * @param receivedAt    The System#nanoTime() value at which the call was received.
+     * @return The request of a SlashCommand call.
+     */
+    public static CommandRequest slash(long guildId, long interactionId, @NotNull String name, String[] args, long receivedAt) {
+        return new CommandRequest(Type.SLASH, guildId, interactionId, name, args == null ? NO_ARGS : args, receivedAt);
+    }
+
+    public @NotNull Type getType() {
+        return type;
+    }
+
+    public long getGuildId() {
+        return guildId;
+    }
+
+    /**
+     * @return The ID of the message or interaction that delivered the call.
+     */
+    public long getEventId() {
+        return eventId;
+    }
+
+    /**
+     * @return The name the command was called with, as written by the caller.
+     */
+    public @NotNull String getName() {
+        return name;
+    }
+
+    public @NotNull String[] getArgs() {
+        return args;
+    }
+
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core;
+
+import com.github.stefan9110.dcm.core.dispatch.DuplicateEventFilter;
+import com.github.stefan9110.dcm.core.dispatch.ShardStatistics;
+import com.github.stefan9110.dcm.core.guild.GuildCommandToggles;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Platform independent routing of the command calls: it finds the called command in the registry and decides whether the call should
+ * be executed, based on the type of the call, the commands disabled in the guild and the events that were already delivered.
+ *
+ * @param <T> The type of the registered commands.
+ */
+public class CommandRouter<T extends TopLevelCommand> {
+    private final CommandRegistry<T> registry;
+    private final GuildCommandToggles toggles;
+    private volatile DuplicateEventFilter duplicateFilter;
+
+    /**
+     * @param registry        The registry of the commands.
+     * @param toggles         The commands disabled per guild.
+     * @param duplicateFilter The filter of the events delivered more than once.
+     */
+    public CommandRouter(@NotNull CommandRegistry<T> registry, @NotNull GuildCommandToggles toggles, @NotNull DuplicateEventFilter duplicateFilter) {
+        this.registry = registry;
+        this.toggles = toggles;
+        this.duplicateFilter = duplicateFilter;
+    }
+
+    /**
+     * Method used to split a message into the name of the called command followed by the arguments of the call.
+     *
+     * @param content The content of the message.
+     * @param prefix  The lowercase command prefix.
+     * @return The name of the command followed by the arguments or null if the message is not a command call.
+     */
+    public static String[] tokenize(@NotNull String content, @NotNull String prefix) {
+        // Checking if the call message starts with the command prefix in order to differentiate between normal message and command calls.
+        if (!content.toLowerCase().startsWith(prefix)) return null;
+        String message = content.substring(prefix.length());
+        // Special case: if the call message only contained the command prefix we do not validate the call.
+        if (message.equals("")) return null;
+        return message.split(" ");
+    }
+
+    /**
+     * Method used to obtain the priority of a call without executing it.
+     * The highest CommandPriority found on the path of sub-commands selected by the arguments is returned.
+     *
+     * @param command The called command.
+     * @param args    The arguments of the call.
+     * @return The CommandPriority the call should be scheduled with.
+     */
+    public static CommandPriority resolvePriority(@NotNull CommandNode command, @NotNull String[] args) {
+        CommandPriority priority = command.getPriority();
+        CommandNode current = command;
+        for (String arg : args) {
+            current = current.getChild(arg);
+            if (current == null) break;
+            if (current.getPriority().compareTo(priority) > 0) priority = current.getPriority();
+        }
+        return priority;
+    }
+
+    /**
+     * Method used to route a call. Calls that are routed are remembered by the duplicate filter.
+     * Message calls find the command by name or alias and ignore the SlashCommands, SlashCommand calls find the command by name.
+     *
+     * @param request    The call.
+     * @param statistics The statistics the call is recorded in.
+     * @return The Route of the call.
+     */
+    public Route<T> route(@NotNull CommandRequest request, @NotNull ShardStatistics statistics) {
+        if (request.getType() == CommandRequest.Type.MESSAGE) {
+            T command = registry.getIncludingAliases(request.getName());
+            if (command == null) return Route.notFound();
+            /*
+                Message-called commands and slash-commands are treated separately for the time being, it is possible that in the future
+                all slash-commands will be accessible through legacy message calls.
+             */
+            if (command.isSlashCommand()) return Route.notCallable();
+            if (toggles.isDisabled(request.getGuildId(), command.getIndex())) return new Route<>(Route.Result.DISABLED, command);
+            statistics.recordReceived();
+            return route(request, command, statistics);
+        }
+
+        T command = registry.get(request.getName());
+        if (command == null) return Route.notFound();
+        statistics.recordReceived();
+        // Interactions delivered a second time are ignored, the first delivery is already being answered.
+        Route<T> route = route(request, command, statistics);
+        // SlashCommands disabled in the guild may still be called until the guild slash commands are updated.
+        if (route.getResult() == Route.Result.ROUTED && toggles.isDisabled(request.getGuildId(), command.getIndex()))
+            return new Route<>(Route.Result.DISABLED, command);
+        return route;
+    }
+
+    private Route<T> route(CommandRequest request, T command, ShardStatistics statistics) {
+        if (duplicateFilter.markSeen(request.getEventId())) return new Route<>(Route.Result.ROUTED, command);
+        statistics.recordDuplicate();
+        return new Route<>(Route.Result.DUPLICATE, command);
+    }
+
+    /**
+     * Method used to check the event of a call that is handled outside of the registry (for example custom commands) against the
+     * duplicate filter.
+     *
+     * @param eventId The ID of the message or interaction.
+     * @return Whether or not the event is delivered for the first time.
+     */
+    public boolean markSeen(long eventId) {
+        return duplicateFilter.markSeen(eventId);
+    }
+
+    public void setDuplicateFilter(@NotNull DuplicateEventFilter duplicateFilter) {
+        this.duplicateFilter = duplicateFilter;
+    }
+
+    public @NotNull CommandRegistry<T> getRegistry() {
+        return registry;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maximum execution time of the executor of a command.
+ * When an invocation runs past its timeout, its CancellationToken is cancelled, its thread is interrupted unless disabled through
+ * CommandTimeout#setInterrupt(boolean), and SlashCommand calls are answered with the timeout message in place of their response.
+ * The timeout of a command also applies to its sub-commands that have none of their own.
+ */
+public class CommandTimeout {
+    /**
+     * The message used when none is given through CommandTimeout#setMessage(String).
+     */
+    public static final String DEFAULT_MESSAGE = "This command took too long to respond. Please try again later.";
+
+    private final long timeoutNanos;
+    private volatile boolean interrupt = true;
+    private volatile String message = DEFAULT_MESSAGE;
+
+    /**
+     * @param timeout The maximum execution time of the executor.
+     * @param unit    The TimeUnit of the timeout.
+     */
+    public CommandTimeout(long timeout, @NotNull TimeUnit unit) {
+        if (timeout <= 0) throw new IllegalArgumentException("The timeout must be positive.");
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Method used to choose whether the thread of an invocation that timed out is interrupted.
+     * Executors that are not interrupted shall check their CancellationToken. Invocations are interrupted by default.
+     *
+     * @param interrupt Whether or not the thread is interrupted.
+     * @return The same CommandTimeout instance.
+     */
+    public CommandTimeout setInterrupt(boolean interrupt) {
+        this.interrupt = interrupt;
+        return this;
+    }
+
+    /**
+     * Method used to set the message SlashCommand calls that timed out are answered with.
+     * The message replaces the deferred or sent response of the call, or is replied as an ephemeral message if the call was not
+     * answered yet. Note that interactions must be answered within 3 seconds, longer timeouts require a deferred reply.
+     *
+     * @param message The timeout message.
+     * @return The same CommandTimeout instance.
+     */
+    public CommandTimeout setMessage(@NotNull String message) {
+        this.message = message;
+        return this;
+    }
+
+    /**
+     * @return The maximum execution time, in nanoseconds.
+     */
+    public long getTimeoutNanos() {
+        return timeoutNanos;
+    }
+
+    /**
+     * @return Whether or not the thread of an invocation that timed out is interrupted.
+     */
+    public boolean isInterrupt() {
+        return interrupt;
+    }
+
+    /**
+     * @return The message SlashCommand calls that timed out are answered with.
+     */
+    @NotNull
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Trie mapping String prefixes to values, used to find the value registered for the longest prefix of a key in a single pass.
+ * <p>
+ * Every node keeps its children in a sorted array searched with a binary search. Children arrays are replaced instead of modified,
+ * so the lookups never lock while the updates are serialized.
+ * <p>
+ * The trie is Serializable as long as its values are.
+ *
+ * @param <V> The type of the values.
+ */
+public class PrefixTrie<V> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Node<V> root = new Node<>();
+    private int size;
+
+    /**
+     * Method used to map a prefix to a value.
+     *
+     * @param prefix The prefix.
+     * @param value  The value.
+     * @return The value previously mapped to the prefix or null.
+     */
+    public synchronized V put(@NotNull String prefix, @NotNull V value) {
+        Node<V> node = root;
+        for (int i = 0; i < prefix.length(); i++) node = node.childOrCreate(prefix.charAt(i));
+        V previous = node.value;
+        node.value = value;
+        if (previous == null) size++;
+        return previous;
+    }
+
+    /**
+     * Method used to remove the value mapped to a prefix.
+     *
+     * @param prefix The prefix.
+     * @return The removed value or null if no value was mapped to the prefix.
+     */
+    public synchronized V remove(@NotNull String prefix) {
+        Node<?>[] path = new Node<?>[prefix.length() + 1];
+        Node<V> node = root;
+        path[0] = node;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.child(prefix.charAt(i));
+            if (node == null) return null;
+            path[i + 1] = node;
+        }
+        V previous = node.value;
+        if (previous == null) return null;
+        node.value = null;
+        size--;
+        // Nodes left without a value and without children are removed.
+        for (int i = prefix.length(); i > 0 && path[i].isEmpty(); i--) path[i - 1].removeChild(prefix.charAt(i - 1));
+        return previous;
+    }
+
+    /**
+     * Method used to remove all the values matching a condition.
+     *
+     * @param filter The condition of the removed values.
+     * @return The number of removed values.
+     */
+    public synchronized int removeIf(@NotNull Predicate<? super V> filter) {
+        int removed = removeIf(root, filter);
+        size -= removed;
+        return removed;
+    }
+
+    private int removeIf(Node<V> node, Predicate<? super V> filter) {
+        int removed = 0;
+        if (node.value != null && filter.test(node.value)) {
+            node.value = null;
+            removed++;
+        }
+        Children<V> children = node.children;
+        for (int i = 0; i < children.nodes.length; i++) {
+            Node<V> child = children.node(i);
+            removed += removeIf(child, filter);
+            if (child.isEmpty()) node.removeChild(children.keys[i]);
+        }
+        return removed;
+    }
+
+    /**
+     * Method used to find the value mapped to the longest prefix of a key.
+     *
+     * @param key    The key, for example a component custom ID.
+     * @param accept Condition of the values that can be returned. Values that do not match it are skipped in favor of shorter prefixes.
+     * @return The value mapped to the longest accepted prefix of the key or null.
+     */
+    public V longestMatch(@NotNull CharSequence key, @NotNull Predicate<? super V> accept) {
+        Node<V> node = root;
+        V match = acceptable(node.value, accept) ? node.value : null;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.child(key.charAt(i));
+            if (node == null) break;
+            V value = node.value;
+            if (acceptable(value, accept)) match = value;
+        }
+        return match;
+    }
+
+    private static <V> boolean acceptable(V value, Predicate<? super V> accept) {
+        return value != null && accept.test(value);
+    }
+
+    /**
+     * @return The number of prefixes mapped to a value.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private static final class Node<V> implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private volatile V value;
+        private volatile Children<V> children = Children.empty();
+
+        private Node<V> child(char c) {
+            Children<V> current = children;
+            int index = Arrays.binarySearch(current.keys, c);
+            return index < 0 ? null : current.node(index);
+        }
+
+        private Node<V> childOrCreate(char c) {
+            Children<V> current = children;
+            int index = Arrays.binarySearch(current.keys, c);
+            if (index >= 0) return current.node(index);
+            Node<V> child = new Node<>();
+            children = current.with(-index - 1, c, child);
+            return child;
+        }
+
+        private void removeChild(char c) {
+            Children<V> current = children;
+            int index = Arrays.binarySearch(current.keys, c);
+            if (index >= 0) children = current.without(index);
+        }
+
+        private boolean isEmpty() {
+            return value == null && children.keys.length == 0;
+        }
+    }
+
+    // Immutable sorted children of a node.
+    private static final class Children<V> implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private static final Children<?> EMPTY = new Children<>(new char[0], new Node<?>[0]);
+
+        private final char[] keys;
+        // Arrays of a generic type cannot be created, the nodes are read through Children#node(int).
+        private final Node<?>[] nodes;
+
+        private Children(char[] keys, Node<?>[] nodes) {
+            this.keys = keys;
+            this.nodes = nodes;
+        }
+
+        // Safe: the empty children do not hold any node.
+        @SuppressWarnings("unchecked")
+        private static <V> Children<V> empty() {
+            return (Children<V>) EMPTY;
+        }
+
+        // Safe: only the nodes given to Children#with(int, char, Node), holding V values, are stored in the array.
+        @SuppressWarnings("unchecked")
+        private Node<V> node(int index) {
+            return (Node<V>) nodes[index];
+        }
+
+        private Children<V> with(int index, char key, Node<V> node) {
+            char[] newKeys = new char[keys.length + 1];
+            Node<?>[] newNodes = new Node<?>[nodes.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(nodes, 0, newNodes, 0, index);
+            newKeys[index] = key;
+            newNodes[index] = node;
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(nodes, index, newNodes, index + 1, nodes.length - index);
+            return new Children<>(newKeys, newNodes);
+        }
+
+        private Children<V> without(int index) {
+            if (keys.length == 1) return empty();
+            char[] newKeys = new char[keys.length - 1];
+            Node<?>[] newNodes = new Node<?>[nodes.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(nodes, 0, newNodes, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(nodes, index + 1, newNodes, index, nodes.length - index - 1);
+            return new Children<>(newKeys, newNodes);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core;
+
+/**
+ * The outcome of routing a CommandRequest.
+ *
+ * @param <T> The type of the registered commands.
+ */
+public final class Route<T extends TopLevelCommand> {
+    private static final Route<?> NOT_FOUND = new Route<>(Result.NOT_FOUND, null), NOT_CALLABLE = new Route<>(Result.NOT_CALLABLE, null);
+
+    public enum Result {
+        /**
+         * The call should be executed.
+         */
+        ROUTED,
+        /**
+         * No command is registered with the called name.
+         */
+        NOT_FOUND,
+        /**
+         * The command exists but cannot be called this way (message calls of SlashCommands).
+         */
+        NOT_CALLABLE,
+        /**
+         * The command is disabled in the guild of the call.
+         */
+        DISABLED,
+        /**
+         * The event of the call was already delivered.
+         */
+        DUPLICATE
+    }
+
+    private final Result result;
+    private final T command;
+
+    Route(Result result, T command) {
+        this.result = result;
+        this.command = command;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends TopLevelCommand> Route<T> notFound() {
+        return (Route<T>) NOT_FOUND;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends TopLevelCommand> Route<T> notCallable() {
+        return (Route<T>) NOT_CALLABLE;
+    }
+
+    public Result getResult() {
+        return result;
+    }
+
+    /**
+     * @return The called command or null if no command was found.
+     */
+    public T getCommand() {
+        return command;
+    }
+}
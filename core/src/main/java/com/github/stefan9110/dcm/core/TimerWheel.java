@@ -0,0 +1,133 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Hashed timer wheel expiring items by their deadline without a scheduled task per item.
+ * <p>
+ * Every item is placed in the slot of the tick its deadline falls in. Advancing the wheel only looks at the slots of the ticks that
+ * passed. The deadline of an item is read again when its slot comes up, so deadlines may be extended at any time without touching
+ * the wheel: items whose deadline moved are simply placed again. Items further away than one rotation are placed again once per
+ * rotation.
+ *
+ * @param <T> The type of the items.
+ */
+public class TimerWheel<T> {
+    private final ArrayList<T>[] slots;
+    private final int mask;
+    private final long tickNanos;
+    private final ToLongFunction<T> deadline;
+    // Last tick processed by TimerWheel#advance(), only written under the lock of its slot. Items are never placed in the slot of a
+    // processed tick.
+    private volatile long processedTick = Long.MIN_VALUE;
+
+    /**
+     * @param slots    The number of slots, rounded up to a power of two.
+     * @param tick     The duration covered by a slot.
+     * @param unit     The TimeUnit of the tick.
+     * @param deadline Function reading the current deadline of an item, as a System#nanoTime() value.
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(int slots, long tick, @NotNull TimeUnit unit, @NotNull ToLongFunction<T> deadline) {
+        int size = Integer.highestOneBit(Math.max(2, slots) - 1) << 1;
+        this.slots = new ArrayList[size];
+        for (int i = 0; i < size; i++) this.slots[i] = new ArrayList<>();
+        this.mask = size - 1;
+        this.tickNanos = Math.max(1, unit.toNanos(tick));
+        this.deadline = deadline;
+    }
+
+    /**
+     * Method used to add an item to the wheel. May be called from any thread.
+     *
+     * @param item The item, expiring at the deadline returned by the deadline function.
+     */
+    public void schedule(@NotNull T item) {
+        long deadlineTick = Math.floorDiv(deadline.applyAsLong(item), tickNanos);
+        while (true) {
+            long processed = processedTick;
+            // Items due in a tick that was already processed go to the next tick instead of waiting for the next rotation.
+            long tick = processed != Long.MIN_VALUE && deadlineTick <= processed ? processed + 1 : deadlineTick;
+            ArrayList<T> slot = slots[(int) (tick & mask)];
+            synchronized (slot) {
+                // The tick was processed since it was chosen, the item is placed again in the next tick.
+                if (processedTick != Long.MIN_VALUE && tick <= processedTick) continue;
+                slot.add(item);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Method used to remove an item before its deadline, so that it is no longer referenced by the wheel. May be called from any
+     * thread. The item is looked up from the slot of its current deadline back to the next tick to process.
+     *
+     * @param item The item.
+     * @return Whether or not the item was found in the wheel.
+     */
+    public boolean remove(@NotNull T item) {
+        long processed = processedTick;
+        long tick = Math.floorDiv(deadline.applyAsLong(item), tickNanos);
+        long first = processed == Long.MIN_VALUE ? tick - mask : Math.max(processed + 1, tick - mask);
+        // Extending the deadline does not move the item, it is still in the slot of the deadline it had when it was placed.
+        for (tick = Math.max(tick, first); tick >= first; tick--) {
+            ArrayList<T> slot = slots[(int) (tick & mask)];
+            synchronized (slot) {
+                for (int i = slot.size() - 1; i >= 0; i--) {
+                    if (slot.get(i) != item) continue;
+                    // The order of the items in a slot does not matter.
+                    slot.set(i, slot.get(slot.size() - 1));
+                    slot.remove(slot.size() - 1);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method used to expire the items whose deadline passed. Shall only be called from a single thread at a time.
+     *
+     * @param now       The current System#nanoTime() value.
+     * @param onExpired Consumer receiving the expired items. The items are removed from the wheel before being passed.
+     */
+    public void advance(long now, @NotNull Consumer<T> onExpired) {
+        long currentTick = Math.floorDiv(now, tickNanos);
+        long firstTick = processedTick == Long.MIN_VALUE ? currentTick - mask : Math.max(processedTick + 1, currentTick - mask);
+        for (long tick = firstTick; tick <= currentTick; tick++) {
+            ArrayList<T> slot = slots[(int) (tick & mask)];
+            ArrayList<T> items;
+            synchronized (slot) {
+                processedTick = tick;
+                if (slot.isEmpty()) continue;
+                items = new ArrayList<>(slot);
+                slot.clear();
+            }
+            for (T item : items) {
+                if (deadline.applyAsLong(item) - now <= 0) onExpired.accept(item);
+                else schedule(item);
+            }
+        }
+    }
+}
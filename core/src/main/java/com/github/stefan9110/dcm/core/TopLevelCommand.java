@@ -0,0 +1,33 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core;
+
+/**
+ * A command registered at the top of a command hierarchy in a CommandRegistry.
+ */
+public interface TopLevelCommand extends CommandNode {
+
+    /**
+     * @return The dense index given to the command when it was registered, starting from 0.
+     */
+    int getIndex();
+
+    /**
+     * @return Whether or not the command is called through SlashCommand interactions instead of messages.
+     */
+    boolean isSlashCommand();
+}
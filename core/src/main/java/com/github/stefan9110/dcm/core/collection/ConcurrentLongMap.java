@@ -0,0 +1,263 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.collection;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongFunction;
+
+/**
+ * Thread-safe map of long keys (usually snowflake IDs) to objects, without boxing the keys.
+ * <p>
+ * The keys are spread over segments, each one being a LongHashMap guarded by its own StampedLock. Reads are optimistic and only take
+ * the read lock of their segment when they raced with a write. Writes lock a single segment. Functions passed to the compute methods
+ * run under the lock of the segment and shall be short.
+ * <p>
+ * Null values are not supported: a null value means that the key is absent.
+ *
+ * @param <V> The type of the values.
+ */
+public class ConcurrentLongMap<V> {
+    private static final int DEFAULT_CONCURRENCY = 16;
+
+    private final LongHashMap<V>[] segments;
+    private final StampedLock[] locks;
+    private final int segmentMask;
+
+    public ConcurrentLongMap() {
+        this(16, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * @param expectedSize The number of entries the map should hold without being resized.
+     */
+    public ConcurrentLongMap(int expectedSize) {
+        this(expectedSize, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * @param expectedSize The number of entries the map should hold without being resized.
+     * @param concurrency  The number of segments, rounded up to a power of two.
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongMap(int expectedSize, int concurrency) {
+        int count = Integer.highestOneBit(Math.max(1, Math.min(concurrency, 1 << 16)) * 2 - 1);
+        segments = new LongHashMap[count];
+        locks = new StampedLock[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new LongHashMap<>(Math.max(1, expectedSize / count));
+            locks[i] = new StampedLock();
+        }
+        segmentMask = count - 1;
+    }
+
+    // The segment is chosen with the low bits of the mixed key, the slot inside the segment with its high bits.
+    private int segment(long key) {
+        return (int) LongHashing.mix(key) & segmentMask;
+    }
+
+    /**
+     * @param key The key.
+     * @return The value of the key or null if the key is absent.
+     */
+    public V get(long key) {
+        int index = segment(key);
+        StampedLock lock = locks[index];
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                V value = segments[index].get(key);
+                if (lock.validate(stamp)) return value;
+            } catch (RuntimeException ignored) {
+                // The segment was resized under the optimistic read, the read lock below gives a consistent view.
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return segments[index].get(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public V getOrDefault(long key, V defaultValue) {
+        V value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return The previous value of the key or null if the key was absent.
+     */
+    public V put(long key, @NotNull V value) {
+        int index = segment(key);
+        long stamp = locks[index].writeLock();
+        try {
+            return segments[index].put(key, value);
+        } finally {
+            locks[index].unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return The current value of the key or null if the value was put.
+     */
+    public V putIfAbsent(long key, @NotNull V value) {
+        int index = segment(key);
+        long stamp = locks[index].writeLock();
+        try {
+            return segments[index].putIfAbsent(key, value);
+        } finally {
+            locks[index].unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return The removed value or null if the key was absent.
+     */
+    public V remove(long key) {
+        int index = segment(key);
+        long stamp = locks[index].writeLock();
+        try {
+            return segments[index].remove(key);
+        } finally {
+            locks[index].unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the key only if it is mapped to a value equal to the given one.
+     *
+     * @return Whether or not the key was removed.
+     */
+    public boolean remove(long key, Object value) {
+        int index = segment(key);
+        long stamp = locks[index].writeLock();
+        try {
+            return segments[index].remove(key, value);
+        } finally {
+            locks[index].unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @param key      The key.
+     * @param function Function creating the value of an absent key, called at most once under the lock of the segment.
+     * @return The current or the created value of the key.
+     */
+    public V computeIfAbsent(long key, @NotNull LongFunction<? extends V> function) {
+        V current = get(key);
+        if (current != null) return current;
+        int index = segment(key);
+        long stamp = locks[index].writeLock();
+        try {
+            return segments[index].computeIfAbsent(key, function);
+        } finally {
+            locks[index].unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @param key      The key.
+     * @param function Function receiving the key and its current value (null if absent) and returning the new value, called under
+     *                 the lock of the segment. The key is removed if the function returns null.
+     * @return The new value of the key.
+     */
+    public V compute(long key, @NotNull LongObjectFunction<? super V, ? extends V> function) {
+        int index = segment(key);
+        long stamp = locks[index].writeLock();
+        try {
+            return segments[index].compute(key, function);
+        } finally {
+            locks[index].unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return The number of entries. Not a snapshot when the map is modified concurrently.
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < segments.length; i++) {
+            long stamp = locks[i].readLock();
+            try {
+                size += segments[i].size();
+            } finally {
+                locks[i].unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i < segments.length; i++) {
+            long stamp = locks[i].writeLock();
+            try {
+                segments[i].clear();
+            } finally {
+                locks[i].unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Method used to iterate over the entries of the map, one segment at a time under its read lock. The action shall not modify the
+     * map.
+     *
+     * @param action The action called for every key and its value.
+     */
+    public void forEach(@NotNull LongObjectConsumer<? super V> action) {
+        for (int i = 0; i < segments.length; i++) {
+            long stamp = locks[i].readLock();
+            try {
+                segments[i].forEach(action);
+            } finally {
+                locks[i].unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * @return The keys of the map, in no particular order.
+     */
+    public long[] keys() {
+        LongHashSet keys = new LongHashSet();
+        forEach((key, value) -> keys.add(key));
+        return keys.toArray();
+    }
+
+    /**
+     * Method used to copy the map to a boxed Map, for the public API methods exposing java.util collections.
+     *
+     * @return A new HashMap holding the entries of the map.
+     */
+    public Map<Long, V> toMap() {
+        Map<Long, V> map = new HashMap<>();
+        forEach(map::put);
+        return map;
+    }
+}
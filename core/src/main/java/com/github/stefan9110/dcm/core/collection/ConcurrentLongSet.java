@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.collection;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Thread-safe set of long values (usually snowflake IDs) without boxing, backed by a ConcurrentLongMap.
+ */
+public class ConcurrentLongSet {
+    private final ConcurrentLongMap<Boolean> map;
+
+    public ConcurrentLongSet() {
+        map = new ConcurrentLongMap<>();
+    }
+
+    /**
+     * @param expectedSize The number of values the set should hold without being resized.
+     */
+    public ConcurrentLongSet(int expectedSize) {
+        map = new ConcurrentLongMap<>(expectedSize);
+    }
+
+    public boolean contains(long value) {
+        return map.containsKey(value);
+    }
+
+    /**
+     * @return Whether or not the value was absent from the set.
+     */
+    public boolean add(long value) {
+        return map.putIfAbsent(value, Boolean.TRUE) == null;
+    }
+
+    /**
+     * @return Whether or not the value was present in the set.
+     */
+    public boolean remove(long value) {
+        return map.remove(value) != null;
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    /**
+     * Method used to iterate over the values of the set, in no particular order. The action shall not modify the set.
+     */
+    public void forEach(@NotNull LongConsumer action) {
+        map.forEach((value, present) -> action.accept(value));
+    }
+
+    /**
+     * @return The values of the set, in no particular order.
+     */
+    public long[] toArray() {
+        return map.keys();
+    }
+}
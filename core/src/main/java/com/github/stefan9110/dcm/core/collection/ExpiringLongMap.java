@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.collection;
+
+import com.github.stefan9110.dcm.core.TimerWheel;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongFunction;
+
+/**
+ * Thread-safe map of long keys (usually snowflake IDs) to objects whose entries expire after a period without being accessed.
+ * <p>
+ * Expired entries are never returned. They are removed from memory by a TimerWheel which is advanced by the writes, or explicitly
+ * with ExpiringLongMap#purgeExpired(), so the map needs no thread of its own. Every access pushes the deadline of the entry back.
+ *
+ * @param <V> The type of the values.
+ */
+public class ExpiringLongMap<V> {
+    private final ConcurrentLongMap<Entry<V>> map;
+    private final TimerWheel<Entry<V>> wheel;
+    private final AtomicBoolean purging = new AtomicBoolean();
+    private final long ttlNanos, tickNanos;
+    private volatile long nextPurge;
+
+    /**
+     * @param ttl  The time an entry is kept after its last access.
+     * @param unit The TimeUnit of the ttl.
+     */
+    public ExpiringLongMap(long ttl, @NotNull TimeUnit unit) {
+        this(16, ttl, unit);
+    }
+
+    /**
+     * @param expectedSize The number of entries the map should hold without being resized.
+     * @param ttl          The time an entry is kept after its last access.
+     * @param unit         The TimeUnit of the ttl.
+     */
+    public ExpiringLongMap(int expectedSize, long ttl, @NotNull TimeUnit unit) {
+        if (ttl <= 0) throw new IllegalArgumentException("The ttl must be positive.");
+        this.map = new ConcurrentLongMap<>(expectedSize);
+        this.ttlNanos = unit.toNanos(ttl);
+        // 64 slots of a sixteenth of the ttl: an entry is removed at most a sixteenth of the ttl after expiring.
+        this.tickNanos = Math.max(1, ttlNanos / 16);
+        this.wheel = new TimerWheel<>(64, tickNanos, TimeUnit.NANOSECONDS, entry -> entry.expiresAt);
+        this.nextPurge = System.nanoTime() + tickNanos;
+    }
+
+    /**
+     * @param key The key.
+     * @return The value of the key or null if the key is absent or expired. Extends the life of the entry.
+     */
+    public V get(long key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) return null;
+        long now = System.nanoTime();
+        if (entry.expiresAt - now <= 0) return null;
+        entry.expiresAt = now + ttlNanos;
+        return entry.value;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return The previous value of the key or null if the key was absent or expired.
+     */
+    public V put(long key, @NotNull V value) {
+        long now = System.nanoTime();
+        Entry<V> entry = new Entry<>(key, value, now + ttlNanos);
+        Entry<V> previous = map.put(key, entry);
+        wheel.schedule(entry);
+        purgeIfDue(now);
+        return previous == null || previous.expiresAt - now <= 0 ? null : previous.value;
+    }
+
+    /**
+     * @param key      The key.
+     * @param function Function creating the value of an absent or expired key.
+     * @return The current or the created value of the key. Extends the life of the entry.
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(long key, @NotNull LongFunction<? extends V> function) {
+        V current = get(key);
+        if (current != null) return current;
+        long now = System.nanoTime();
+        Entry<V>[] created = new Entry[1];
+        Entry<V> entry = map.compute(key, (id, existing) -> {
+            if (existing != null && existing.expiresAt - now > 0) return existing;
+            V value = function.apply(id);
+            if (value == null) return null;
+            return created[0] = new Entry<>(id, value, now + ttlNanos);
+        });
+        if (created[0] != null) wheel.schedule(created[0]);
+        purgeIfDue(now);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * @return The removed value or null if the key was absent or expired.
+     */
+    public V remove(long key) {
+        Entry<V> entry = map.remove(key);
+        return entry == null || entry.expiresAt - System.nanoTime() <= 0 ? null : entry.value;
+    }
+
+    /**
+     * @return The number of entries, including the expired ones which were not purged yet.
+     */
+    public int size() {
+        return map.size();
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    /**
+     * Method used to iterate over the live entries of the map, in no particular order. Does not extend the life of the entries.
+     */
+    public void forEach(@NotNull LongObjectConsumer<? super V> action) {
+        long now = System.nanoTime();
+        map.forEach((key, entry) -> {
+            if (entry.expiresAt - now > 0) action.accept(key, entry.value);
+        });
+    }
+
+    /**
+     * Method used to remove the expired entries from memory. Called by the writes at most once per tick of the wheel.
+     */
+    public void purgeExpired() {
+        if (!purging.compareAndSet(false, true)) return;
+        try {
+            long now = System.nanoTime();
+            nextPurge = now + tickNanos;
+            // The entry is removed only if it is still the one mapped to its key, a newer entry of the same key stays.
+            wheel.advance(now, entry -> map.remove(entry.key, entry));
+        } finally {
+            purging.set(false);
+        }
+    }
+
+    private void purgeIfDue(long now) {
+        if (now - nextPurge >= 0) purgeExpired();
+    }
+
+    private static final class Entry<V> {
+        private final long key;
+        private final V value;
+        private volatile long expiresAt;
+
+        private Entry(long key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
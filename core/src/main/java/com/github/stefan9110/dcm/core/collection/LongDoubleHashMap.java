@@ -0,0 +1,166 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.core.collection;
+
+import java.util.Arrays;
+
+/**
+ * Map of long keys (usually snowflake IDs) to double values, stored in two parallel primitive arrays with open addressing and linear
+ * probing. Neither the keys nor the values are boxed. The map is not thread-safe.
+ */
+public class LongDoubleHashMap {
+    // The key 0 marks the empty slots, the value of the key 0 itself is stored apart.
+    long[] keys;
+    private double[] values;
+    private boolean hasZero;
+    private double zeroValue;
+    private int size, mask, maxFill;
+
+    public LongDoubleHashMap() {
+        this(8);
+    }
+
+    /**
+     * @param expectedSize The number of entries the map should hold without being resized.
+     */
+    public LongDoubleHashMap(int expectedSize) {
+        allocate(LongHashing.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new double[capacity];
+        mask = capacity - 1;
+        maxFill = capacity / 2 + capacity / 4;
+    }
+
+    private int slot(long key) {
+        return (int) (LongHashing.mix(key) >>> 32) & mask;
+    }
+
+    /**
+     * @param key          The key.
+     * @param defaultValue The value returned if the key is absent.
+     * @return The value of the key or the default value if the key is absent.
+     */
+    public double get(long key, double defaultValue) {
+        if (key == 0) return hasZero ? zeroValue : defaultValue;
+        for (int index = slot(key); keys[index] != 0; index = (index + 1) & mask)
+            if (keys[index] == key) return values[index];
+        return defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) return hasZero;
+        for (int index = slot(key); keys[index] != 0; index = (index + 1) & mask)
+            if (keys[index] == key) return true;
+        return false;
+    }
+
+    /**
+     * @param key   The key.
+     * @param value The new value of the key.
+     */
+    public void put(long key, double value) {
+        if (key == 0) {
+            if (!hasZero) size++;
+            hasZero = true;
+            zeroValue = value;
+            return;
+        }
+        int index = slot(key);
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > maxFill) resize();
+    }
+
+    /**
+     * @param key The key.
+     * @return Whether or not the key was present.
+     */
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!hasZero) return false;
+            hasZero = false;
+            size--;
+            return true;
+        }
+        int index = slot(key);
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                size--;
+                shiftBack(index);
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    // Deletion without tombstones: the following entries of the cluster are moved back to keep every probe sequence unbroken.
+    private void shiftBack(int index) {
+        int free = index;
+        int current = (index + 1) & mask;
+        while (keys[current] != 0) {
+            int home = slot(keys[current]);
+            // The entry may move to the free slot only if the free slot lies between its home slot and its current slot.
+            if (((current - home) & mask) >= ((current - free) & mask)) {
+                keys[free] = keys[current];
+                values[free] = values[current];
+                free = current;
+            }
+            current = (current + 1) & mask;
+        }
+        keys[free] = 0;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == 0) continue;
+            int index = slot(key);
+            while (keys[index] != 0) index = (index + 1) & mask;
+            keys[index] = key;
+            values[index] = oldValues[i];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        hasZero = false;
+        size = 0;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.collection;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+/**
+ * Map of long keys (usually snowflake IDs) to objects, stored in two parallel arrays with open addressing and linear probing.
+ * Keys are never boxed. The map is not thread-safe, see ConcurrentLongMap for the thread-safe variant.
+ * <p>
+ * Null values are not supported: a null value means that the key is absent.
+ *
+ * @param <V> The type of the values.
+ */
+public class LongHashMap<V> {
+    // The key 0 marks the empty slots, the value of the key 0 itself is stored apart.
+    long[] keys;
+    Object[] values;
+    private Object zeroValue;
+    private int size, mask, maxFill;
+
+    public LongHashMap() {
+        this(8);
+    }
+
+    /**
+     * @param expectedSize The number of entries the map should hold without being resized.
+     */
+    public LongHashMap(int expectedSize) {
+        allocate(LongHashing.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        maxFill = capacity / 2 + capacity / 4;
+    }
+
+    private int slot(long key) {
+        return (int) (LongHashing.mix(key) >>> 32) & mask;
+    }
+
+    /**
+     * @param key The key.
+     * @return The value of the key or null if the key is absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) return (V) zeroValue;
+        long[] keys = this.keys;
+        Object[] values = this.values;
+        int mask = keys.length - 1;
+        int index = (int) (LongHashing.mix(key) >>> 32) & mask;
+        // The probe is bounded by the length of the table so a read racing with a writer (see ConcurrentLongMap) always ends.
+        for (int probes = 0; probes <= mask; probes++) {
+            long current = keys[index];
+            if (current == key) return (V) values[index];
+            if (current == 0) return null;
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    public V getOrDefault(long key, V defaultValue) {
+        V value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @param key   The key.
+     * @param value The new value of the key.
+     * @return The previous value of the key or null if the key was absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, @NotNull V value) {
+        if (value == null) throw new NullPointerException("LongHashMap does not support null values.");
+        if (key == 0) {
+            Object previous = zeroValue;
+            zeroValue = value;
+            if (previous == null) size++;
+            return (V) previous;
+        }
+        int index = slot(key);
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                Object previous = values[index];
+                values[index] = value;
+                return (V) previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > maxFill) resize();
+        return null;
+    }
+
+    public V putIfAbsent(long key, @NotNull V value) {
+        V current = get(key);
+        if (current == null) put(key, value);
+        return current;
+    }
+
+    /**
+     * @param key      The key.
+     * @param function Function creating the value of an absent key. The key stays absent if the function returns null.
+     * @return The current or the created value of the key.
+     */
+    public V computeIfAbsent(long key, @NotNull LongFunction<? extends V> function) {
+        V current = get(key);
+        if (current != null) return current;
+        V created = function.apply(key);
+        if (created != null) put(key, created);
+        return created;
+    }
+
+    /**
+     * @param key      The key.
+     * @param function Function receiving the key and its current value (null if absent) and returning the new value.
+     *                 The key is removed if the function returns null.
+     * @return The new value of the key.
+     */
+    public V compute(long key, @NotNull LongObjectFunction<? super V, ? extends V> function) {
+        V current = get(key);
+        V updated = function.apply(key, current);
+        if (updated != null) put(key, updated);
+        else if (current != null) remove(key);
+        return updated;
+    }
+
+    /**
+     * @param key The key.
+     * @return The removed value or null if the key was absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == 0) {
+            Object previous = zeroValue;
+            if (previous != null) size--;
+            zeroValue = null;
+            return (V) previous;
+        }
+        int index = slot(key);
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                Object previous = values[index];
+                size--;
+                shiftBack(index);
+                return (V) previous;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Removes the key only if it is mapped to a value equal to the given one.
+     *
+     * @return Whether or not the key was removed.
+     */
+    public boolean remove(long key, Object value) {
+        V current = get(key);
+        if (current == null || !current.equals(value)) return false;
+        remove(key);
+        return true;
+    }
+
+    // Deletion without tombstones: the following entries of the cluster are moved back to keep every probe sequence unbroken.
+    private void shiftBack(int index) {
+        int free = index;
+        int current = (index + 1) & mask;
+        while (keys[current] != 0) {
+            int home = slot(keys[current]);
+            // The entry may move to the free slot only if the free slot lies between its home slot and its current slot.
+            if (((current - home) & mask) >= ((current - free) & mask)) {
+                keys[free] = keys[current];
+                values[free] = values[current];
+                free = current;
+            }
+            current = (current + 1) & mask;
+        }
+        keys[free] = 0;
+        values[free] = null;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        int capacity = oldKeys.length * 2;
+        long[] newKeys = new long[capacity];
+        Object[] newValues = new Object[capacity];
+        int newMask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == 0) continue;
+            int index = (int) (LongHashing.mix(key) >>> 32) & newMask;
+            while (newKeys[index] != 0) index = (index + 1) & newMask;
+            newKeys[index] = key;
+            newValues[index] = oldValues[i];
+        }
+        // The filled arrays are published last so that a racing reader never sees an incomplete table.
+        mask = newMask;
+        maxFill = capacity / 2 + capacity / 4;
+        values = newValues;
+        keys = newKeys;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        zeroValue = null;
+        size = 0;
+    }
+
+    /**
+     * Method used to iterate over the entries of the map, in no particular order.
+     *
+     * @param action The action called for every key and its value.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(@NotNull LongObjectConsumer<? super V> action) {
+        if (zeroValue != null) action.accept(0, (V) zeroValue);
+        long[] keys = this.keys;
+        Object[] values = this.values;
+        for (int i = 0; i < keys.length; i++) if (keys[i] != 0) action.accept(keys[i], (V) values[i]);
+    }
+
+    /**
+     * @return The keys of the map, in no particular order.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int[] position = {0};
+        forEach((key, value) -> result[position[0]++] = key);
+        return result;
+    }
+}
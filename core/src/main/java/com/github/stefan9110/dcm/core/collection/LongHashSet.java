@@ -0,0 +1,165 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.collection;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Set of long values (usually snowflake IDs) stored in an array with open addressing and linear probing, without boxing.
+ * The set is not thread-safe, see ConcurrentLongSet for the thread-safe variant.
+ */
+public class LongHashSet {
+    // The value 0 marks the empty slots, its presence in the set is stored apart.
+    private long[] values;
+    private boolean containsZero;
+    private int size, mask, maxFill;
+
+    public LongHashSet() {
+        this(8);
+    }
+
+    /**
+     * @param expectedSize The number of values the set should hold without being resized.
+     */
+    public LongHashSet(int expectedSize) {
+        allocate(LongHashing.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        values = new long[capacity];
+        mask = capacity - 1;
+        maxFill = capacity / 2 + capacity / 4;
+    }
+
+    private int slot(long value) {
+        return (int) (LongHashing.mix(value) >>> 32) & mask;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) return containsZero;
+        int index = slot(value);
+        while (values[index] != 0) {
+            if (values[index] == value) return true;
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return Whether or not the value was absent from the set.
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int index = slot(value);
+        while (values[index] != 0) {
+            if (values[index] == value) return false;
+            index = (index + 1) & mask;
+        }
+        values[index] = value;
+        if (++size > maxFill) resize();
+        return true;
+    }
+
+    /**
+     * @return Whether or not the value was present in the set.
+     */
+    public boolean remove(long value) {
+        if (value == 0) {
+            if (!containsZero) return false;
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int index = slot(value);
+        while (values[index] != 0) {
+            if (values[index] == value) {
+                size--;
+                shiftBack(index);
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    // Same deletion as LongHashMap: the following values of the cluster are moved back instead of leaving a tombstone.
+    private void shiftBack(int index) {
+        int free = index;
+        int current = (index + 1) & mask;
+        while (values[current] != 0) {
+            int home = slot(values[current]);
+            if (((current - home) & mask) >= ((current - free) & mask)) {
+                values[free] = values[current];
+                free = current;
+            }
+            current = (current + 1) & mask;
+        }
+        values[free] = 0;
+    }
+
+    private void resize() {
+        long[] old = values;
+        allocate(old.length * 2);
+        for (long value : old) {
+            if (value == 0) continue;
+            int index = slot(value);
+            while (values[index] != 0) index = (index + 1) & mask;
+            values[index] = value;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    /**
+     * Method used to iterate over the values of the set, in no particular order.
+     */
+    public void forEach(@NotNull LongConsumer action) {
+        if (containsZero) action.accept(0);
+        for (long value : values) if (value != 0) action.accept(value);
+    }
+
+    /**
+     * @return The values of the set, in no particular order.
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int position = 0;
+        if (containsZero) result[position++] = 0;
+        for (long value : values) if (value != 0) result[position++] = value;
+        return result;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.collection;
+
+/**
+ * Hashing shared by the long-keyed collections.
+ */
+final class LongHashing {
+    private LongHashing() {
+    }
+
+    /**
+     * Spreads the bits of a key over the whole long (finalizer of MurmurHash3). The bits of a snowflake are far from uniform:
+     * the high bits hold a timestamp and the low bits a counter.
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * @return The power of two capacity holding the expected number of elements below the maximum load factor of 0.75.
+     */
+    static int capacityFor(int expected) {
+        long needed = Math.max(4, (long) Math.ceil(expected / 0.75));
+        if (needed > 1 << 30) return 1 << 30;
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.collection;
+
+/**
+ * Function of a long key and an object value, used by the long-keyed maps to avoid boxing the key.
+ *
+ * @param <V> The type of the value.
+ * @param <R> The type of the result.
+ */
+@FunctionalInterface
+public interface LongObjectFunction<V, R> {
+    R apply(long key, V value);
+}
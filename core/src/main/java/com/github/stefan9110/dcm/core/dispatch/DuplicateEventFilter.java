@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.dispatch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter remembering the snowflake IDs of the recently dispatched messages and interactions, used to ignore events that are
+ * delivered a second time (gateway resumes, overlapping processes during deploys).
+ * <p>
+ * The IDs are spread by their hash over up to 16 stripes, each guarded by its own lock, so that the shards checking their events
+ * at the same time rarely wait for each other. Every stripe stores its IDs in an open-addressing table of primitive longs and in a
+ * ring keeping their insertion order and time. An ID is forgotten once it is older than the time window, or when the stripe is full
+ * and it is the oldest ID of the stripe. The stripes hold their even share of the capacity plus a margin of four standard deviations,
+ * so that the IDs of a window, spread by their hash, fit in their stripes. The memory used is fixed at construction and checking an
+ * ID never allocates.
+ */
+public class DuplicateEventFilter {
+    private static final int MAX_STRIPES = 16, MIN_STRIPE_CAPACITY = 64;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    /**
+     * @param capacity The minimum number of IDs remembered by the filter during the time window.
+     * @param window   The time the IDs are remembered for.
+     * @param unit     The TimeUnit of the window parameter.
+     */
+    public DuplicateEventFilter(int capacity, long window, TimeUnit unit) {
+        if (capacity < 1) throw new IllegalArgumentException("The capacity of the filter must be positive.");
+        // Filters too small to be striped hold exactly their capacity in a single stripe.
+        int stripeCount = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, capacity / MIN_STRIPE_CAPACITY)));
+        int share = (capacity + stripeCount - 1) / stripeCount;
+        int stripeCapacity = stripeCount == 1 ? capacity : share + (int) Math.ceil(4 * Math.sqrt(share));
+        stripes = new Stripe[stripeCount];
+        stripeMask = stripeCount - 1;
+        for (int i = 0; i < stripeCount; i++) stripes[i] = new Stripe(stripeCapacity, unit.toNanos(window));
+    }
+
+    /**
+     * Method used to check an event ID against the filter and remember it.
+     *
+     * @param id The snowflake ID of the message or interaction. IDs lower or equal to 0 are never filtered.
+     * @return true if the ID was not seen during the time window, false if the event is a duplicate.
+     */
+    public boolean markSeen(long id) {
+        if (id <= 0) return true;
+        long hash = mix(id);
+        // The high bits select the stripe, the low bits the slot in the table of the stripe.
+        return stripes[(int) (hash >>> 32) & stripeMask].markSeen(id);
+    }
+
+    // Snowflakes share their high timestamp bits, the bits are mixed before being used as a table index.
+    private static long mix(long id) {
+        id ^= id >>> 33;
+        id *= 0xff51afd7ed558ccdL;
+        id ^= id >>> 33;
+        return id;
+    }
+
+    private static final class Stripe {
+        // Open-addressing table of the remembered IDs, kept at most half full to keep the probe sequences short.
+        private final long[] table;
+        // Ring of the remembered IDs and of the times they were inserted at, from the oldest (head) to the newest.
+        private final long[] ids, times;
+        private final int mask;
+        private final long window;
+        private int head, count;
+
+        private Stripe(int capacity, long window) {
+            int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+            table = new long[Math.max(2, tableSize)];
+            mask = table.length - 1;
+            ids = new long[capacity];
+            times = new long[capacity];
+            this.window = window;
+        }
+
+        private synchronized boolean markSeen(long id) {
+            long now = System.nanoTime();
+            while (count > 0 && now - times[head] >= window) forgetOldest();
+
+            for (int slot = slot(id); table[slot] != 0; slot = (slot + 1) & mask)
+                if (table[slot] == id) return false;
+            if (count == ids.length) forgetOldest();
+
+            int slot = slot(id);
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = id;
+            int tail = (head + count) % ids.length;
+            ids[tail] = id;
+            times[tail] = now;
+            count++;
+            return true;
+        }
+
+        private void forgetOldest() {
+            long id = ids[head];
+            head = (head + 1) % ids.length;
+            count--;
+
+            int slot = slot(id);
+            while (table[slot] != id) slot = (slot + 1) & mask;
+            // Backward shift deletion: the following IDs of the probe sequence are moved back so that no lookup stops early.
+            for (int next = (slot + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+                if (((next - slot(table[next])) & mask) >= ((next - slot) & mask)) {
+                    table[slot] = table[next];
+                    slot = next;
+                }
+            }
+            table[slot] = 0;
+        }
+
+        private int slot(long id) {
+            return (int) mix(id) & mask;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.dispatch;
+
+import com.github.stefan9110.dcm.core.collection.ConcurrentLongMap;
+import com.github.stefan9110.dcm.core.collection.ExpiringLongMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the thread CPU time and the allocated bytes of every executed command call, using the per-thread counters of the
+ * ThreadMXBean, and aggregates them per command and per guild.
+ * <p>
+ * Guilds can be given a ResourceQuota: a budget for a rolling window. The CommandDispatcher checks the budget of a guild
+ * when a call is submitted and throttles or deprioritizes the calls of the guilds that went over it.
+ * <p>
+ * The accounting can be turned on and off at any time. Reading the counters costs in the order of microseconds per call depending on
+ * the JVM and the operating system, the time actually spent in the accounting is measured and available through
+ * ResourceAccounting#getAverageOverheadNanos().
+ */
+public class ResourceAccounting {
+    private final ThreadMXBean threadBean;
+    private final com.sun.management.ThreadMXBean allocationBean;
+    private final boolean cpuTimeSupported;
+    private volatile boolean enabled;
+
+    private final ConcurrentHashMap<String, ResourceUsage> commandUsage = new ConcurrentHashMap<>();
+    private final ConcurrentLongMap<ResourceUsage> guildUsage = new ConcurrentLongMap<>();
+    private final LongAdder overheadNanos = new LongAdder(), measuredCalls = new LongAdder();
+
+    private volatile ResourceQuota quota;
+    private final ConcurrentLongMap<ResourceQuota> guildQuotas = new ConcurrentLongMap<>();
+    // The budget of a guild is dropped once the guild made no call for the longest window of the quotas: it would be empty anyway.
+    private volatile ExpiringLongMap<Budget> budgets = new ExpiringLongMap<>(1, TimeUnit.MINUTES);
+    private long budgetTtlNanos = TimeUnit.MINUTES.toNanos(1);
+
+    public ResourceAccounting() {
+        threadBean = ManagementFactory.getThreadMXBean();
+        boolean cpu = threadBean.isCurrentThreadCpuTimeSupported();
+        try {
+            if (cpu && !threadBean.isThreadCpuTimeEnabled()) threadBean.setThreadCpuTimeEnabled(true);
+        } catch (UnsupportedOperationException | SecurityException e) {
+            cpu = false;
+        }
+        cpuTimeSupported = cpu;
+        allocationBean = allocationBean(threadBean);
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean(ThreadMXBean bean) {
+        try {
+            if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+            com.sun.management.ThreadMXBean result = (com.sun.management.ThreadMXBean) bean;
+            if (!result.isThreadAllocatedMemorySupported()) return null;
+            if (!result.isThreadAllocatedMemoryEnabled()) result.setThreadAllocatedMemoryEnabled(true);
+            return result;
+        } catch (LinkageError | UnsupportedOperationException | SecurityException e) {
+            // The JVM does not provide the HotSpot extension of the ThreadMXBean.
+            return null;
+        }
+    }
+
+    /**
+     * Method used to turn the accounting on or off. Calls already being measured when the accounting is turned off are still recorded.
+     *
+     * @param enabled Whether or not the command calls should be measured.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Whether or not the JVM can measure the CPU time of the current thread.
+     */
+    public boolean isCpuTimeSupported() {
+        return cpuTimeSupported;
+    }
+
+    /**
+     * @return Whether or not the JVM can measure the bytes allocated by the current thread.
+     */
+    public boolean isAllocationSupported() {
+        return allocationBean != null;
+    }
+
+    /**
+     * Method used to create the Probe measuring the calls executed by the current thread.
+     * A Probe shall only be used by the thread that created it.
+     *
+     * @return A new Probe bound to this ResourceAccounting.
+     */
+    @NotNull
+    public Probe newProbe() {
+        return new Probe(Thread.currentThread().getId());
+    }
+
+    /**
+     * Method used to set the quota applied to every guild that has no quota of its own.
+     * The quota shall be fully configured before being set. Budgets are only consumed while the accounting is enabled.
+     *
+     * @param quota The ResourceQuota or null to remove the quotas.
+     */
+    public void setQuota(ResourceQuota quota) {
+        this.quota = quota;
+        synchronized (guildQuotas) {
+            if (quota != null) budgetTtlNanos = Math.max(budgetTtlNanos, quota.getWindowNanos());
+            budgets = new ExpiringLongMap<>(budgetTtlNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Method used to set the quota of a single guild, replacing the quota set through ResourceAccounting#setQuota().
+     *
+     * @param guildId The ID of the guild.
+     * @param quota   The ResourceQuota of the guild or null to use the general quota again.
+     */
+    public void setGuildQuota(long guildId, ResourceQuota quota) {
+        if (quota == null) guildQuotas.remove(guildId);
+        else guildQuotas.put(guildId, quota);
+        synchronized (guildQuotas) {
+            // A longer window needs budgets that live longer, the budgets of the other guilds are restarted.
+            if (quota != null && quota.getWindowNanos() > budgetTtlNanos) {
+                budgetTtlNanos = quota.getWindowNanos();
+                budgets = new ExpiringLongMap<>(budgetTtlNanos, TimeUnit.NANOSECONDS);
+            } else budgets.remove(guildId);
+        }
+    }
+
+    /**
+     * @param guildId The ID of the guild.
+     * @return The ResourceQuota applied to the guild or null if its calls are not limited.
+     */
+    public ResourceQuota getQuota(long guildId) {
+        ResourceQuota guildQuota = guildQuotas.get(guildId);
+        return guildQuota == null ? quota : guildQuota;
+    }
+
+    /**
+     * Method used to check whether a guild is over its budget.
+     *
+     * @param guildId The ID of the guild.
+     * @return The Action to take for the calls of the guild or null if the guild is within its budget.
+     */
+    public ResourceQuota.Action checkQuota(long guildId) {
+        ResourceQuota guildQuota = getQuota(guildId);
+        if (guildQuota == null) return null;
+        Budget budget = budgets.get(guildId);
+        return budget != null && budget.isExceeded(guildQuota, System.nanoTime()) ? guildQuota.getAction() : null;
+    }
+
+    private void record(String commandName, long guildId, long cpu, long allocated) {
+        commandUsage.computeIfAbsent(commandName, name -> new ResourceUsage()).record(cpu, allocated);
+        guildUsage.computeIfAbsent(guildId, id -> new ResourceUsage()).record(cpu, allocated);
+        ResourceQuota guildQuota = getQuota(guildId);
+        if (guildQuota != null) budgets.computeIfAbsent(guildId, id -> new Budget()).add(guildQuota, System.nanoTime(), cpu, allocated);
+    }
+
+    /**
+     * @param commandName The name identifier of the top of the hierarchy command.
+     * @return The ResourceUsage of the command or null if none of its calls was measured.
+     */
+    public ResourceUsage getCommandUsage(@NotNull String commandName) {
+        return commandUsage.get(commandName.toLowerCase());
+    }
+
+    /**
+     * @param guildId The ID of the guild.
+     * @return The ResourceUsage of the guild or null if none of its calls was measured.
+     */
+    public ResourceUsage getGuildUsage(long guildId) {
+        return guildUsage.get(guildId);
+    }
+
+    /**
+     * @return The ResourceUsage of every measured command, mapped by the command name.
+     */
+    public Map<String, ResourceUsage> getCommandUsages() {
+        return Collections.unmodifiableMap(commandUsage);
+    }
+
+    /**
+     * @return A snapshot of the ResourceUsage of every guild with measured calls, mapped by the guild ID.
+     */
+    public Map<Long, ResourceUsage> getGuildUsages() {
+        return Collections.unmodifiableMap(guildUsage.toMap());
+    }
+
+    /**
+     * @return The number of calls measured since the accounting was created or reset.
+     */
+    public long getMeasuredCalls() {
+        return measuredCalls.sum();
+    }
+
+    /**
+     * @return The total time spent reading the counters and recording the results, in nanoseconds.
+     */
+    public long getOverheadNanos() {
+        return overheadNanos.sum();
+    }
+
+    /**
+     * @return The average time the accounting added to a measured call, in nanoseconds.
+     */
+    public long getAverageOverheadNanos() {
+        long calls = measuredCalls.sum();
+        return calls == 0 ? 0 : overheadNanos.sum() / calls;
+    }
+
+    /**
+     * Method used to clear the recorded usage, the budgets and the overhead measurements.
+     */
+    public void reset() {
+        commandUsage.clear();
+        guildUsage.clear();
+        budgets.clear();
+        overheadNanos.reset();
+        measuredCalls.reset();
+    }
+
+    /**
+     * Measures the calls executed by a single thread. The Probe keeps the counter values read when a call starts, so measuring
+     * a call does not allocate.
+     */
+    public final class Probe {
+        private final long threadId;
+        private long cpuStart, allocatedStart, startOverhead;
+        private boolean active;
+
+        private Probe(long threadId) {
+            this.threadId = threadId;
+        }
+
+        /**
+         * Method called right before a call is executed. Does nothing while the accounting is disabled.
+         */
+        public void start() {
+            active = enabled;
+            if (!active) return;
+            long start = System.nanoTime();
+            cpuStart = cpuTime();
+            allocatedStart = allocatedBytes();
+            startOverhead = System.nanoTime() - start;
+        }
+
+        /**
+         * Method called right after a call was executed.
+         *
+         * @param commandName The name identifier of the top of the hierarchy command that was called.
+         * @param guildId     The ID of the guild the call was made in.
+         */
+        public void stop(@NotNull String commandName, long guildId) {
+            if (!active) return;
+            active = false;
+            long start = System.nanoTime();
+            long cpu = cpuTime() - cpuStart, allocated = allocatedBytes() - allocatedStart;
+            record(commandName, guildId, cpu, allocated);
+            overheadNanos.add(startOverhead + System.nanoTime() - start);
+            measuredCalls.increment();
+        }
+
+        private long cpuTime() {
+            return cpuTimeSupported ? threadBean.getCurrentThreadCpuTime() : 0;
+        }
+
+        private long allocatedBytes() {
+            return allocationBean == null ? 0 : allocationBean.getThreadAllocatedBytes(threadId);
+        }
+    }
+
+    /**
+     * Usage of a guild within the rolling window of its quota, kept in a ring of buckets each covering a tenth of the window.
+     */
+    private static final class Budget {
+        private static final int BUCKETS = 10;
+        private final long[] cpu = new long[BUCKETS], allocated = new long[BUCKETS];
+        private long bucket = Long.MIN_VALUE;
+        // Only written under the lock, read without it so guilds within their budget are checked without locking.
+        private volatile boolean exceeded;
+
+        synchronized void add(ResourceQuota quota, long now, long cpuNanos, long allocatedBytes) {
+            advance(quota, now);
+            int index = (int) Math.floorMod(bucket, (long) BUCKETS);
+            cpu[index] += cpuNanos;
+            allocated[index] += allocatedBytes;
+            exceeded = isOver(quota);
+        }
+
+        boolean isExceeded(ResourceQuota quota, long now) {
+            if (!exceeded) return false;
+            synchronized (this) {
+                advance(quota, now);
+                exceeded = isOver(quota);
+                return exceeded;
+            }
+        }
+
+        private void advance(ResourceQuota quota, long now) {
+            long current = Math.floorDiv(now, Math.max(1, quota.getWindowNanos() / BUCKETS));
+            if (bucket == Long.MIN_VALUE) {
+                bucket = current;
+                return;
+            }
+            // Clear the buckets that left the window since the last update.
+            for (long i = bucket + 1; i <= current && i <= bucket + BUCKETS; i++) {
+                int index = (int) Math.floorMod(i, (long) BUCKETS);
+                cpu[index] = 0;
+                allocated[index] = 0;
+            }
+            if (current > bucket) bucket = current;
+        }
+
+        private boolean isOver(ResourceQuota quota) {
+            long cpuSum = 0, allocatedSum = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                cpuSum += cpu[i];
+                allocatedSum += allocated[i];
+            }
+            return (quota.getCpuNanos() > 0 && cpuSum > quota.getCpuNanos())
+                    || (quota.getAllocatedBytes() > 0 && allocatedSum > quota.getAllocatedBytes());
+        }
+    }
+}
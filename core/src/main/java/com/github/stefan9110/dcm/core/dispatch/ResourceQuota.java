@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.dispatch;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Budget of thread CPU time and allocated bytes a guild may spend within a rolling window.
+ * Guilds going over their budget are throttled or deprioritized by the CommandDispatcher, depending on the Action of the quota.
+ */
+public class ResourceQuota {
+    public enum Action {
+        /**
+         * Calls of a guild over its budget are scheduled with the lowest CommandPriority, behind the calls of every other guild.
+         */
+        DEPRIORITIZE,
+        /**
+         * Calls of a guild over its budget are dropped like the calls shed under load.
+         */
+        THROTTLE
+    }
+
+    private final long windowNanos;
+    private long cpuNanos, allocatedBytes;
+    private Action action = Action.DEPRIORITIZE;
+
+    /**
+     * Creates a quota without any limit. The limits are set through ResourceQuota#setCpuTime() and ResourceQuota#setAllocatedBytes().
+     *
+     * @param window The length of the rolling window the budget applies to.
+     * @param unit   The TimeUnit of the window.
+     */
+    public ResourceQuota(long window, @NotNull TimeUnit unit) {
+        if (window <= 0) throw new IllegalArgumentException("The window of a quota must be positive.");
+        this.windowNanos = unit.toNanos(window);
+    }
+
+    /**
+     * @param cpuTime The thread CPU time a guild may use within the window. Zero or less removes the limit.
+     * @param unit    The TimeUnit of the CPU time.
+     * @return The same ResourceQuota instance.
+     */
+    public ResourceQuota setCpuTime(long cpuTime, @NotNull TimeUnit unit) {
+        this.cpuNanos = cpuTime <= 0 ? 0 : unit.toNanos(cpuTime);
+        return this;
+    }
+
+    /**
+     * @param allocatedBytes The number of bytes a guild may allocate within the window. Zero or less removes the limit.
+     * @return The same ResourceQuota instance.
+     */
+    public ResourceQuota setAllocatedBytes(long allocatedBytes) {
+        this.allocatedBytes = Math.max(0, allocatedBytes);
+        return this;
+    }
+
+    /**
+     * @param action The Action taken for the calls of guilds over their budget.
+     * @return The same ResourceQuota instance.
+     */
+    public ResourceQuota setAction(@NotNull Action action) {
+        this.action = action;
+        return this;
+    }
+
+    public long getWindowNanos() {
+        return windowNanos;
+    }
+
+    /**
+     * @return The thread CPU time a guild may use within the window, in nanoseconds, or 0 if it is not limited.
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    /**
+     * @return The number of bytes a guild may allocate within the window or 0 if it is not limited.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @NotNull
+    public Action getAction() {
+        return action;
+    }
+}
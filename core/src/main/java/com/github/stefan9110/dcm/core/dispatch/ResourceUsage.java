@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.dispatch;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread CPU time and allocated bytes spent executing the calls of a command or of a guild, recorded by the ResourceAccounting.
+ */
+public class ResourceUsage {
+    private final LongAdder calls = new LongAdder(), cpuNanos = new LongAdder(), allocatedBytes = new LongAdder();
+
+    void record(long cpu, long allocated) {
+        calls.increment();
+        if (cpu > 0) cpuNanos.add(cpu);
+        if (allocated > 0) allocatedBytes.add(allocated);
+    }
+
+    /**
+     * @return The number of measured calls.
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * @return The thread CPU time spent executing the measured calls, in nanoseconds.
+     */
+    public long getCpuNanos() {
+        return cpuNanos.sum();
+    }
+
+    /**
+     * @return The number of bytes allocated on the heap by the measured calls.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceUsage{calls=" + getCalls() + ", cpuNanos=" + getCpuNanos() + ", allocatedBytes=" + getAllocatedBytes() + "}";
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.dispatch;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the command calls received through a single JDA shard.
+ * Every shard records its calls in its own instance, so the shards never update the same counters.
+ */
+public class ShardStatistics {
+    private final int shardId;
+    private final LongAdder received = new LongAdder(), duplicates = new LongAdder(), dispatched = new LongAdder(), shed = new LongAdder(),
+            executed = new LongAdder(), failed = new LongAdder(), executionTime = new LongAdder(), components = new LongAdder();
+
+    /**
+     * @param shardId The ID of the shard, 0 when the manager is attached to a single JDA instance.
+     */
+    public ShardStatistics(int shardId) {
+        this.shardId = shardId;
+    }
+
+    public void recordReceived() {
+        received.increment();
+    }
+
+    public void recordDuplicate() {
+        duplicates.increment();
+    }
+
+    public void recordDispatched() {
+        dispatched.increment();
+    }
+
+    /**
+     * Method used to record a component interaction or session message handed to the dispatcher.
+     */
+    public void recordComponent() {
+        components.increment();
+    }
+
+    public void recordShed() {
+        shed.increment();
+    }
+
+    /**
+     * @param nanos  The time spent executing the call, in nanoseconds.
+     * @param failed Whether or not the execution threw an exception.
+     */
+    public void recordExecuted(long nanos, boolean failed) {
+        executed.increment();
+        executionTime.add(nanos);
+        if (failed) this.failed.increment();
+    }
+
+    public int getShardId() {
+        return shardId;
+    }
+
+    /**
+     * @return The number of command calls received, including the ones that were not dispatched.
+     */
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    /**
+     * @return The number of calls ignored because their event was delivered a second time.
+     */
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    /**
+     * @return The number of calls admitted by the CommandDispatcher.
+     */
+    public long getDispatchedCount() {
+        return dispatched.sum();
+    }
+
+    /**
+     * @return The number of calls dropped by the CommandDispatcher.
+     */
+    public long getShedCount() {
+        return shed.sum();
+    }
+
+    /**
+     * @return The number of calls that were executed.
+     */
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    /**
+     * @return The number of executed calls that threw an exception.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * @return The total time spent executing the calls of the shard, in nanoseconds.
+     */
+    public long getExecutionTime() {
+        return executionTime.sum();
+    }
+
+    /**
+     * @return The number of component interactions and session messages handled through the shard.
+     */
+    public long getComponentCount() {
+        return components.sum();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.dispatch;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the command calls dropped by the CommandDispatcher, kept for every top of the hierarchy command.
+ */
+public class ShedStatistics {
+    private final ConcurrentHashMap<String, LongAdder> shedCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Method used to register a dropped call of the given command.
+     *
+     * @param commandName The name identifier of the command that was dropped.
+     */
+    public void record(@NotNull String commandName) {
+        shedCounts.computeIfAbsent(commandName, name -> new LongAdder()).increment();
+    }
+
+    /**
+     * @param commandName The name identifier of the requested command.
+     * @return The number of calls of the given command that were dropped since the manager was initialized.
+     */
+    public long getShedCount(@NotNull String commandName) {
+        LongAdder counter = shedCounts.get(commandName.toLowerCase());
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * @return The number of dropped calls of every command that was dropped at least once, mapped by the command name.
+     */
+    public Map<String, Long> getShedCounts() {
+        Map<String, Long> result = new HashMap<>();
+        shedCounts.forEach((name, counter) -> result.put(name, counter.sum()));
+        return result;
+    }
+
+    /**
+     * @return The total number of dropped calls.
+     */
+    public long getTotalShedCount() {
+        long total = 0;
+        for (LongAdder counter : shedCounts.values()) total += counter.sum();
+        return total;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.core.guild;
+
+import com.github.stefan9110.dcm.core.collection.ConcurrentLongMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-guild sets of the disabled top of the hierarchy commands.
+ * Every registered ParentCommand has a dense index (see ParentCommand#getIndex()) and every guild that disabled at least one
+ * command keeps a bitset over these indexes. Guilds without disabled commands use no memory at all.
+ * <p>
+ * Bitsets are copied on write so that checking a command never locks.
+ */
+public class GuildCommandToggles {
+    private final ConcurrentLongMap<long[]> disabledCommands = new ConcurrentLongMap<>();
+
+    /**
+     * @param guildId      The ID of the guild.
+     * @param commandIndex The index of the command.
+     * @return Whether or not the command is disabled in the given guild.
+     */
+    public boolean isDisabled(long guildId, int commandIndex) {
+        long[] bits = disabledCommands.get(guildId);
+        int word = commandIndex >>> 6;
+        return bits != null && word < bits.length && (bits[word] & (1L << commandIndex)) != 0;
+    }
+
+    /**
+     * Method used to enable or disable a command in the given guild.
+     *
+     * @param guildId      The ID of the guild.
+     * @param commandIndex The index of the command.
+     * @param disabled     Whether the command should be disabled or enabled.
+     */
+    public void setDisabled(long guildId, int commandIndex, boolean disabled) {
+        if (commandIndex < 0) throw new IllegalArgumentException("The command is not registered.");
+        disabledCommands.compute(guildId, (id, bits) -> {
+            int word = commandIndex >>> 6;
+            if (bits == null) {
+                if (!disabled) return null;
+                bits = new long[word + 1];
+            } else {
+                if (!disabled && word >= bits.length) return bits;
+                bits = Arrays.copyOf(bits, Math.max(bits.length, word + 1));
+            }
+            if (disabled) bits[word] |= 1L << commandIndex;
+            else bits[word] &= ~(1L << commandIndex);
+            return isEmpty(bits) ? null : bits;
+        });
+    }
+
+    /**
+     * @param guildId The ID of the guild.
+     * @return The indexes of the commands disabled in the given guild.
+     */
+    public List<Integer> getDisabled(long guildId) {
+        List<Integer> result = new ArrayList<>();
+        long[] bits = disabledCommands.get(guildId);
+        if (bits == null) return result;
+        for (int word = 0; word < bits.length; word++) {
+            long remaining = bits[word];
+            while (remaining != 0) {
+                result.add((word << 6) + Long.numberOfTrailingZeros(remaining));
+                remaining &= remaining - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Method used to enable all the commands in the given guild.
+     *
+     * @param guildId The ID of the guild.
+     */
+    public void clear(long guildId) {
+        disabledCommands.remove(guildId);
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        for (long word : bits) if (word != 0) return false;
+        return true;
+    }
+}
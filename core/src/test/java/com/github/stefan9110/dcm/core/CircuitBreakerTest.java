@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.core;
+
+import com.github.stefan9110.dcm.core.CircuitBreaker.Permit;
+import com.github.stefan9110.dcm.core.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+    private static final long SLOW = 100, OPEN = 1000;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(3, SLOW, OPEN, TimeUnit.NANOSECONDS, clock::get);
+
+    private void open() {
+        for (int i = 0; i < 3; i++) breaker.release(breaker.tryAcquire(), true, 0);
+        assertEquals(State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void consecutiveFailuresOpenTheBreaker() {
+        breaker.release(breaker.tryAcquire(), true, 0);
+        breaker.release(breaker.tryAcquire(), true, 0);
+        // A success resets the count, a slow call counts as a failure.
+        breaker.release(breaker.tryAcquire(), false, 0);
+        breaker.release(breaker.tryAcquire(), true, 0);
+        breaker.release(breaker.tryAcquire(), false, SLOW);
+        assertEquals(State.CLOSED, breaker.getState());
+        breaker.release(breaker.tryAcquire(), true, 0);
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(Permit.REJECTED, breaker.tryAcquire());
+        assertEquals(1, breaker.getRejectedCount());
+        assertEquals(5, breaker.getFailureCount());
+    }
+
+    @Test
+    void concurrentFailuresOpenTheBreakerOnce() throws Exception {
+        int threads = 8;
+        CircuitBreaker breaker = new CircuitBreaker(3, SLOW, OPEN, TimeUnit.NANOSECONDS, clock::get);
+        for (int round = 0; round < 1000; round++) {
+            // Every call is let through before any failure is reported, as for calls running at the same time.
+            Permit[] permits = new Permit[threads];
+            for (int i = 0; i < threads; i++) permits[i] = breaker.tryAcquire();
+            CyclicBarrier start = new CyclicBarrier(threads);
+            Thread[] workers = new Thread[threads];
+            for (int i = 0; i < threads; i++) {
+                Permit permit = permits[i];
+                workers[i] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    breaker.release(permit, true, 0);
+                });
+                workers[i].start();
+            }
+            for (Thread worker : workers) worker.join();
+            assertEquals(State.OPEN, breaker.getState());
+            assertEquals(round + 1, breaker.getOpenCount());
+            breaker.reset();
+        }
+    }
+
+    @Test
+    void lateFailuresDoNotExtendTheOpenDuration() {
+        Permit late = breaker.tryAcquire();
+        open();
+        clock.addAndGet(OPEN - 1);
+        breaker.release(late, true, 0);
+        clock.addAndGet(1);
+        assertEquals(Permit.PROBE, breaker.tryAcquire());
+        assertEquals(1, breaker.getOpenCount());
+    }
+
+    @Test
+    void successfulProbeClosesTheBreaker() {
+        open();
+        clock.addAndGet(OPEN - 1);
+        assertEquals(Permit.REJECTED, breaker.tryAcquire());
+        clock.addAndGet(1);
+        Permit probe = breaker.tryAcquire();
+        assertEquals(Permit.PROBE, probe);
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        // A single probe runs at a time.
+        assertEquals(Permit.REJECTED, breaker.tryAcquire());
+        breaker.release(probe, false, SLOW - 1);
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(Permit.CALL, breaker.tryAcquire());
+    }
+
+    @Test
+    void slowProbeReopensTheBreaker() {
+        open();
+        clock.addAndGet(OPEN);
+        Permit probe = breaker.tryAcquire();
+        assertEquals(Permit.PROBE, probe);
+        clock.addAndGet(SLOW);
+        breaker.release(probe, false, SLOW);
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getOpenCount());
+        // The open duration starts again from the failed probe.
+        clock.addAndGet(OPEN - 1);
+        assertEquals(Permit.REJECTED, breaker.tryAcquire());
+        clock.addAndGet(1);
+        assertEquals(Permit.PROBE, breaker.tryAcquire());
+    }
+
+    @Test
+    void lostProbeIsReplaced() {
+        open();
+        clock.addAndGet(OPEN);
+        Permit lost = breaker.tryAcquire();
+        assertEquals(Permit.PROBE, lost);
+        clock.addAndGet(SLOW - 1);
+        assertEquals(Permit.REJECTED, breaker.tryAcquire());
+        // The probe timed out without reporting its result, the next call becomes the probe.
+        clock.addAndGet(1);
+        Permit probe = breaker.tryAcquire();
+        assertEquals(Permit.PROBE, probe);
+        breaker.release(probe, false, 0);
+        assertEquals(State.CLOSED, breaker.getState());
+        // The result of the lost probe arriving late does not reopen the closed breaker.
+        breaker.release(lost, true, 0);
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(1, breaker.getOpenCount());
+    }
+}
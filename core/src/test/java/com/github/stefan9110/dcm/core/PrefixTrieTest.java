@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixTrieTest {
+    private final PrefixTrie<String> trie = new PrefixTrie<>();
+
+    @Test
+    void longestPrefixWins() {
+        trie.put("page:", "page");
+        trie.put("page:next", "next");
+        trie.put("", "root");
+        assertEquals("next", trie.longestMatch("page:next:2", value -> true));
+        assertEquals("page", trie.longestMatch("page:prev", value -> true));
+        assertEquals("page", trie.longestMatch("page:next:2", value -> !value.equals("next")));
+        assertEquals("root", trie.longestMatch("other", value -> true));
+        assertEquals(3, trie.size());
+    }
+
+    @Test
+    void removedPrefixesNoLongerMatch() {
+        trie.put("a", "a");
+        trie.put("abc", "abc");
+        assertNull(trie.remove("ab"));
+        assertEquals("abc", trie.remove("abc"));
+        assertEquals("a", trie.longestMatch("abcd", value -> true));
+        assertEquals(1, trie.removeIf(value -> value.equals("a")));
+        assertNull(trie.longestMatch("abcd", value -> true));
+        assertEquals(0, trie.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void serializedTrieKeepsItsValues() throws IOException, ClassNotFoundException {
+        trie.put("b", "b");
+        trie.put("ba", "ba");
+        trie.put("c", "c");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(trie);
+        }
+        PrefixTrie<String> copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (PrefixTrie<String>) in.readObject();
+        }
+        assertEquals(3, copy.size());
+        assertEquals("ba", copy.longestMatch("bar", value -> true));
+        assertEquals("c", copy.longestMatch("cd", value -> true));
+        copy.put("bar", "bar");
+        assertEquals("bar", copy.longestMatch("bark", value -> true));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+    private static final long TICK = 10;
+
+    private static final class Item {
+        private long deadline;
+
+        private Item(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    private final TimerWheel<Item> wheel = new TimerWheel<>(8, TICK, TimeUnit.NANOSECONDS, item -> item.deadline);
+    private final List<Item> expired = new ArrayList<>();
+
+    @Test
+    void expiresItemsOnceTheirDeadlinePassed() {
+        Item item = new Item(100);
+        wheel.schedule(item);
+        wheel.advance(95, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advance(105, expired::add);
+        assertEquals(List.of(item), expired);
+        wheel.advance(200, expired::add);
+        assertEquals(1, expired.size());
+    }
+
+    @Test
+    void extendedDeadlinesAreScheduledAgain() {
+        Item item = new Item(100);
+        wheel.schedule(item);
+        // The deadline is moved without touching the wheel, the item is placed again when its old slot comes up.
+        item.deadline = 300;
+        wheel.advance(105, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advance(295, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advance(305, expired::add);
+        assertEquals(List.of(item), expired);
+    }
+
+    @Test
+    void itemsBeyondOneRotationWaitForTheirDeadline() {
+        // 8 slots of 10 nanoseconds: the deadline lies more than six rotations ahead.
+        Item item = new Item(500);
+        wheel.schedule(item);
+        for (long now = 0; now < 500; now += TICK) {
+            wheel.advance(now, expired::add);
+            assertTrue(expired.isEmpty(), "expired at " + now);
+        }
+        wheel.advance(500, expired::add);
+        assertEquals(List.of(item), expired);
+    }
+
+    @Test
+    void itemsScheduledInAProcessedTickExpireOnTheNextTick() {
+        wheel.advance(100, expired::add);
+        Item late = new Item(50);
+        wheel.schedule(late);
+        wheel.advance(110, expired::add);
+        assertEquals(List.of(late), expired);
+    }
+
+    @Test
+    void removedItemsAreNotExpired() {
+        Item removed = new Item(100), extended = new Item(100), kept = new Item(100);
+        wheel.schedule(removed);
+        wheel.schedule(extended);
+        wheel.schedule(kept);
+        assertTrue(wheel.remove(removed));
+        assertFalse(wheel.remove(removed));
+        // The extended item is still in the slot of its old deadline.
+        extended.deadline = 150;
+        assertTrue(wheel.remove(extended));
+        wheel.advance(200, expired::add);
+        assertEquals(List.of(kept), expired);
+    }
+
+    @Test
+    void itemsScheduledWhileTheirTickIsProcessedAreNotDelayedByARotation() throws Exception {
+        wheel.advance(90, expired::add);
+        Item item = new Item(100);
+        Field field = TimerWheel.class.getDeclaredField("slots");
+        field.setAccessible(true);
+        Object slot = ((Object[]) field.get(wheel))[10 & 7];
+        Thread scheduler = new Thread(() -> wheel.schedule(item));
+        // The scheduler chooses tick 10 and waits for its slot while the tick is processed.
+        synchronized (slot) {
+            scheduler.start();
+            while (scheduler.getState() != Thread.State.BLOCKED) Thread.onSpinWait();
+            wheel.advance(100, expired::add);
+        }
+        scheduler.join();
+        assertTrue(expired.isEmpty());
+        wheel.advance(110, expired::add);
+        assertEquals(List.of(item), expired);
+    }
+}
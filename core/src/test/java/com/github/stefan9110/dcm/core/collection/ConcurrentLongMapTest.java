@@ -0,0 +1,74 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.core.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentLongMapTest {
+    private static final int STABLE_KEYS = 1_000, ADDED_KEYS = 200_000, READERS = 4;
+
+    @Test
+    void optimisticReadsSeeEveryKeyDuringResizes() throws InterruptedException {
+        // A single segment starting small, so every put of the writer may resize the table the readers are probing.
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>(1, 1);
+        for (long key = 1; key <= STABLE_KEYS; key++) map.put(key, key);
+
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicLong reads = new AtomicLong();
+        Thread writer = new Thread(() -> {
+            for (long key = STABLE_KEYS + 1; key <= STABLE_KEYS + ADDED_KEYS; key++) map.put(key, key);
+        });
+        Thread[] readers = new Thread[READERS];
+        for (int i = 0; i < READERS; i++) {
+            readers[i] = new Thread(() -> {
+                long key = 1;
+                while (writer.isAlive() && failure.get() == null) {
+                    Long value = map.get(key);
+                    if (value == null || value != key) failure.compareAndSet(null, "key " + key + " read as " + value);
+                    key = key % STABLE_KEYS + 1;
+                    reads.incrementAndGet();
+                }
+            });
+        }
+        for (Thread reader : readers) reader.start();
+        writer.start();
+        writer.join();
+        for (Thread reader : readers) reader.join();
+
+        assertNull(failure.get(), failure.get());
+        assertTrue(reads.get() > 0);
+        assertEquals(STABLE_KEYS + ADDED_KEYS, map.size());
+        for (long key = 1; key <= STABLE_KEYS + ADDED_KEYS; key++) assertEquals(Long.valueOf(key), map.get(key));
+    }
+
+    @Test
+    void removeOnlyMatchingValue() {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        map.put(42, "a");
+        assertFalse(map.remove(42, "b"));
+        assertEquals("a", map.get(42));
+        assertTrue(map.remove(42, "a"));
+        assertNull(map.get(42));
+        assertTrue(map.isEmpty());
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.core.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringLongMapTest {
+    private static final long TTL_MILLIS = 100;
+
+    @Test
+    void expiredEntriesAreNotReturned() throws InterruptedException {
+        ExpiringLongMap<String> map = new ExpiringLongMap<>(TTL_MILLIS, TimeUnit.MILLISECONDS);
+        map.put(1, "a");
+        assertEquals("a", map.get(1));
+        Thread.sleep(TTL_MILLIS * 2);
+        assertNull(map.get(1));
+        assertFalse(map.containsKey(1));
+        // The previous value of an expired key is not reported either.
+        assertNull(map.put(1, "b"));
+        assertEquals("b", map.get(1));
+    }
+
+    @Test
+    void accessesExtendTheLifeOfEntries() throws InterruptedException {
+        ExpiringLongMap<String> map = new ExpiringLongMap<>(TTL_MILLIS * 3, TimeUnit.MILLISECONDS);
+        map.put(1, "a");
+        for (int i = 0; i < 8; i++) {
+            Thread.sleep(TTL_MILLIS);
+            assertEquals("a", map.get(1), "access " + i);
+        }
+    }
+
+    @Test
+    void purgeRemovesOnlyExpiredEntries() throws InterruptedException {
+        ExpiringLongMap<String> map = new ExpiringLongMap<>(TTL_MILLIS, TimeUnit.MILLISECONDS);
+        map.put(1, "old");
+        map.put(2, "replaced");
+        Thread.sleep(TTL_MILLIS * 2);
+        // The new entry of the key must survive the purge of the expired entry it replaced.
+        map.put(2, "new");
+        map.purgeExpired();
+        assertEquals(1, map.size());
+        assertNull(map.get(1));
+        assertEquals("new", map.get(2));
+    }
+
+    @Test
+    void computeIfAbsentReplacesExpiredEntries() throws InterruptedException {
+        ExpiringLongMap<String> map = new ExpiringLongMap<>(TTL_MILLIS, TimeUnit.MILLISECONDS);
+        assertEquals("a", map.computeIfAbsent(1, key -> "a"));
+        assertEquals("a", map.computeIfAbsent(1, key -> "b"));
+        Thread.sleep(TTL_MILLIS * 2);
+        assertEquals("c", map.computeIfAbsent(1, key -> "c"));
+        assertNull(map.computeIfAbsent(2, key -> null));
+        assertFalse(map.containsKey(2));
+    }
+}
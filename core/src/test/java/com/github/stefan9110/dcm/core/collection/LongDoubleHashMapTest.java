@@ -0,0 +1,64 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.core.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongDoubleHashMapTest {
+    @Test
+    void absentKeysReturnTheDefaultValue() {
+        LongDoubleHashMap map = new LongDoubleHashMap();
+        assertEquals(1.5, map.get(42, 1.5));
+        assertEquals(1.5, map.get(0, 1.5));
+        map.put(0, 2);
+        map.put(42, 3);
+        assertEquals(2.0, map.get(0, 1.5));
+        assertEquals(3.0, map.get(42, 1.5));
+        assertTrue(map.remove(0));
+        assertFalse(map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        SplittableRandom random = new SplittableRandom(9110);
+        LongDoubleHashMap map = new LongDoubleHashMap();
+        Map<Long, Double> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            // A small key range keeps the clusters long and mixes the zero key and negative keys in.
+            long key = random.nextLong(-512, 512);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                double value = random.nextDouble();
+                expected.put(key, value);
+                map.put(key, value);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value.doubleValue(), map.get(key, Double.NaN)));
+        for (long key = -512; key < 512; key++) assertEquals(expected.containsKey(key), map.containsKey(key));
+    }
+}
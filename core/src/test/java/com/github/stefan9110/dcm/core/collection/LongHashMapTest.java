@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.core.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashMapTest {
+    // Keys sharing the home slot of the first one, in a table of the given capacity.
+    private static List<Long> collidingKeys(int capacity, int count) {
+        int mask = capacity - 1;
+        List<Long> keys = new ArrayList<>();
+        int home = -1;
+        for (long key = 1; keys.size() < count; key++) {
+            int slot = (int) (LongHashing.mix(key) >>> 32) & mask;
+            if (home == -1) home = slot;
+            if (slot == home) keys.add(key);
+        }
+        return keys;
+    }
+
+    @Test
+    void removeShiftsTheClusterBack() {
+        LongHashMap<String> map = new LongHashMap<>(16);
+        int capacity = map.keys.length;
+        List<Long> keys = collidingKeys(capacity, 5);
+        for (long key : keys) map.put(key, "v" + key);
+
+        // Removing from the start and from the middle of the cluster must not cut the probe sequence of the following keys.
+        map.remove(keys.get(0));
+        map.remove(keys.get(2));
+        assertEquals(3, map.size());
+        assertNull(map.get(keys.get(0)));
+        assertNull(map.get(keys.get(2)));
+        for (int i : new int[]{1, 3, 4}) assertEquals("v" + keys.get(i), map.get(keys.get(i)));
+
+        // No tombstones are left: the remaining keys occupy exactly as many slots as there are entries.
+        int occupied = 0;
+        for (long key : map.keys) if (key != 0) occupied++;
+        assertEquals(3, occupied);
+        assertEquals(capacity, map.keys.length);
+    }
+
+    @Test
+    void removeKeepsKeysWrappingAroundTheTable() {
+        LongHashMap<Long> map = new LongHashMap<>(16);
+        int mask = map.keys.length - 1;
+        // Keys whose home is the last slot wrap around to the start of the table.
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < 4; key++) if (((int) (LongHashing.mix(key) >>> 32) & mask) == mask) keys.add(key);
+        for (long key : keys) map.put(key, key);
+
+        map.remove(keys.get(1));
+        for (int i : new int[]{0, 2, 3}) assertEquals(keys.get(i), map.get(keys.get(i)));
+        map.remove(keys.get(0));
+        for (int i : new int[]{2, 3}) assertEquals(keys.get(i), map.get(keys.get(i)));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        SplittableRandom random = new SplittableRandom(9110);
+        LongHashMap<Long> map = new LongHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            // A small key range keeps the clusters long and mixes the zero key and negative keys in.
+            long key = random.nextLong(-512, 512);
+            if (random.nextInt(3) == 0) assertEquals(expected.remove(key), map.remove(key));
+            else assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        map.forEach((key, value) -> assertEquals(expected.get(key), value));
+    }
+
+    @Test
+    void rejectsNullValues() {
+        assertThrows(NullPointerException.class, () -> new LongHashMap<>().put(1, null));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.core.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateEventFilterTest {
+    // Snowflake of 2021-01-01, consecutive events of a bot are a few milliseconds and a few increments apart.
+    private static final long EPOCH_2021 = (1609459200000L - 1420070400000L) << 22;
+
+    private static long snowflake(int i) {
+        return EPOCH_2021 + ((long) i * 3 << 22) + (i & 0xfff);
+    }
+
+    @Test
+    void capacityIdsAreRememberedAcrossStripes() {
+        for (int capacity : new int[]{1, 4, 63, 64, 1000, 4096, 65536}) {
+            DuplicateEventFilter filter = new DuplicateEventFilter(capacity, 1, TimeUnit.HOURS);
+            for (int i = 0; i < capacity; i++) assertTrue(filter.markSeen(snowflake(i)));
+            for (int i = 0; i < capacity; i++) assertFalse(filter.markSeen(snowflake(i)), "forgot " + i + " of " + capacity);
+        }
+    }
+
+    @Test
+    void lastCapacityIdsAreRememberedOnceTheStripesAreFull() {
+        int capacity = 4096;
+        DuplicateEventFilter filter = new DuplicateEventFilter(capacity, 1, TimeUnit.HOURS);
+        // Every stripe forgets its oldest IDs many times over.
+        int total = capacity * 10;
+        for (int i = 0; i < total; i++) assertTrue(filter.markSeen(snowflake(i)));
+        for (int i = total - capacity; i < total; i++) assertFalse(filter.markSeen(snowflake(i)), "forgot " + i);
+        // The stripes do not hold much more than their share of the capacity.
+        int remembered = 0;
+        for (int i = 0; i < total - capacity; i++) if (!filter.markSeen(snowflake(i))) remembered++;
+        assertTrue(remembered < capacity / 2, remembered + " old IDs remembered");
+    }
+
+    @Test
+    void sequentialIdsAreRememberedAcrossStripes() {
+        DuplicateEventFilter filter = new DuplicateEventFilter(65536, 1, TimeUnit.HOURS);
+        for (long id = 1; id <= 65536; id++) assertTrue(filter.markSeen(id));
+        for (long id = 1; id <= 65536; id++) assertFalse(filter.markSeen(id), "forgot " + id);
+    }
+
+    @Test
+    void idsAreForgottenAfterTheWindow() throws InterruptedException {
+        DuplicateEventFilter filter = new DuplicateEventFilter(64, 20, TimeUnit.MILLISECONDS);
+        assertTrue(filter.markSeen(snowflake(1)));
+        assertFalse(filter.markSeen(snowflake(1)));
+        Thread.sleep(50);
+        assertTrue(filter.markSeen(snowflake(1)));
+        assertFalse(filter.markSeen(snowflake(1)));
+    }
+
+    @Test
+    void invalidIdsAreNeverFiltered() {
+        DuplicateEventFilter filter = new DuplicateEventFilter(64, 1, TimeUnit.HOURS);
+        assertTrue(filter.markSeen(0));
+        assertTrue(filter.markSeen(0));
+        assertTrue(filter.markSeen(-1));
+        assertTrue(filter.markSeen(-1));
+    }
+}
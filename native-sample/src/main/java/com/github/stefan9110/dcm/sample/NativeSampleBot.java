@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.sample;
+
+import com.github.stefan9110.dcm.CommandManagerAPI;
+import com.github.stefan9110.dcm.ExampleAnnotatedCommands;
+import com.github.stefan9110.dcm.ExampleAnnotatedCommandsRegistration;
+import com.github.stefan9110.dcm.ExampleCommandBuild;
+import com.github.stefan9110.dcm.command.ParentCommand;
+import com.github.stefan9110.dcm.command.compact.CommandFreezer;
+import com.github.stefan9110.dcm.core.CommandRegistry;
+import com.github.stefan9110.dcm.core.CommandRequest;
+import com.github.stefan9110.dcm.core.CommandRouter;
+import com.github.stefan9110.dcm.core.Route;
+import com.github.stefan9110.dcm.core.dispatch.DuplicateEventFilter;
+import com.github.stefan9110.dcm.core.dispatch.ShardStatistics;
+import com.github.stefan9110.dcm.core.guild.GuildCommandToggles;
+import com.github.stefan9110.dcm.permission.DiscordPermission;
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.events.ReadyEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.jetbrains.annotations.NotNull;
+
+import javax.security.auth.login.LoginException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sample bot made of the examples of the library, built as a GraalVM native image by the native-sample project.
+ * <p>
+ * Started with --check, the bot builds, registers and routes the example commands without connecting to Discord, which is what the
+ * nativeStartupCheck task runs. Otherwise it logs in with the token of the DCM_TOKEN environment variable.
+ */
+public class NativeSampleBot {
+    public static void main(String[] args) throws LoginException {
+        if (args.length > 0 && args[0].equals("--check")) {
+            System.exit(check() ? 0 : 1);
+            return;
+        }
+
+        String token = System.getenv("DCM_TOKEN");
+        if (token == null) {
+            System.err.println("Set the DCM_TOKEN environment variable to the token of the bot, or start with --check.");
+            System.exit(2);
+            return;
+        }
+        JDABuilder.createDefault(token).addEventListeners(new ListenerAdapter() {
+            @Override
+            public void onReady(@NotNull ReadyEvent event) {
+                ExampleCommandBuild examples = new ExampleCommandBuild();
+                CommandManagerAPI.registerAPI(event.getJDA(), "s!")
+                        .registerCommand(examples.buildCommand())
+                        .registerCommand(examples.builtSlashCommand())
+                        .updateGlobalSlashCommands();
+                new ExampleAnnotatedCommands().register();
+            }
+        }).build();
+    }
+
+    // Exercises the startup path of a bot without a Discord connection.
+    private static boolean check() {
+        long start = System.nanoTime();
+        ExampleCommandBuild examples = new ExampleCommandBuild();
+        examples.buildParentCommand().register(false);
+        ((ParentCommand) CommandFreezer.freeze(examples.buildCommand())).register(false);
+        examples.builtSlashCommand().register(true);
+
+        // The annotated examples declare another "say" command, they are routed through a registry of their own.
+        List<ParentCommand> annotated = ExampleAnnotatedCommandsRegistration.build(new ExampleAnnotatedCommands());
+        CommandRegistry<ParentCommand> annotatedRegistry = new CommandRegistry<>();
+        annotated.forEach(command -> annotatedRegistry.register(command, index -> {
+        }));
+
+        boolean ok = route(ParentCommand.getRegistry(), "s!cc", "coolcommand")
+                && route(ParentCommand.getRegistry(), "s!say greetings", "say")
+                && route(annotatedRegistry, "s!say hi", "say")
+                && DiscordPermission.of(Permission.KICK_MEMBERS) == DiscordPermission.of(Permission.KICK_MEMBERS);
+        if (ok) System.out.println("DCM native sample started in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms, "
+                + (ParentCommand.getRegistry().getVersion() + annotatedRegistry.getVersion()) + " commands registered.");
+        return ok;
+    }
+
+    private static boolean route(CommandRegistry<ParentCommand> registry, String message, String expected) {
+        CommandRouter<ParentCommand> router = new CommandRouter<>(registry, new GuildCommandToggles(),
+                new DuplicateEventFilter(1024, 1, TimeUnit.MINUTES));
+        String[] tokens = CommandRouter.tokenize(message, "s!");
+        Route<ParentCommand> route = router.route(CommandRequest.message(1, System.nanoTime(), tokens, System.nanoTime()), new ShardStatistics(0));
+        if (route.getResult() == Route.Result.ROUTED && route.getCommand().getName().equals(expected)) return true;
+        System.err.println("Could not route `" + message + "`: " + route.getResult());
+        return false;
+    }
+}
@@ -19,16 +19,34 @@ package com.github.stefan9110.dcm;
 
 import com.github.stefan9110.dcm.command.Command;
 import com.github.stefan9110.dcm.command.ParentCommand;
-import com.github.stefan9110.dcm.permission.DiscordPermission;
+import com.github.stefan9110.dcm.command.exceptions.CommandAlreadyExistsException;
+import com.github.stefan9110.dcm.command.lazy.LazyParentCommand;
+import com.github.stefan9110.dcm.core.dispatch.ResourceAccounting;
+import com.github.stefan9110.dcm.core.dispatch.ResourceQuota;
+import com.github.stefan9110.dcm.core.dispatch.ShardStatistics;
+import com.github.stefan9110.dcm.exceptions.APIAlreadyInitializedException;
+import com.github.stefan9110.dcm.exceptions.CommandNotParentInstanceException;
 import com.github.stefan9110.dcm.manager.CommandManager;
+import com.github.stefan9110.dcm.manager.audit.AuditLog;
+import com.github.stefan9110.dcm.manager.component.ComponentRouter;
+import com.github.stefan9110.dcm.manager.custom.CustomCommandStore;
+import com.github.stefan9110.dcm.manager.dispatch.CommandScheduler;
 import com.github.stefan9110.dcm.manager.executor.SlashExecutor;
-import com.github.stefan9110.dcm.exceptions.APIAlreadyInitializedException;
+import com.github.stefan9110.dcm.manager.session.SessionStatistics;
+import com.github.stefan9110.dcm.manager.session.SessionStore;
+import com.github.stefan9110.dcm.manager.settings.GuildSettingsStore;
+import com.github.stefan9110.dcm.permission.DiscordPermission;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.sharding.ShardManager;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class CommandManagerAPI {
     // Global instance of the API
@@ -42,6 +60,11 @@ public class CommandManagerAPI {
         this.commandManager = new CommandManager(jda, commandPrefix);
     }
 
+    private CommandManagerAPI(ShardManager shardManager, String commandPrefix) {
+        this.commandPrefix = commandPrefix;
+        this.commandManager = new CommandManager(shardManager, commandPrefix);
+    }
+
     /**
      * Method used to obtain the registered command prefix.
      *
@@ -60,8 +83,7 @@ public class CommandManagerAPI {
      */
     public CommandManagerAPI registerCommand(@NotNull Command parentCommand) {
         if (!(parentCommand instanceof ParentCommand)) return this;
-        ((ParentCommand) parentCommand).register(parentCommand.getExecutor() instanceof SlashExecutor);
-        return this;
+        return registerCommand((ParentCommand) parentCommand);
     }
 
     /**
@@ -71,7 +93,37 @@ public class CommandManagerAPI {
      * @param parentCommand The ParentCommand to register
      */
     public CommandManagerAPI registerCommand(@NotNull ParentCommand parentCommand) {
+        if (parentCommand instanceof LazyParentCommand) return registerLazyCommand((LazyParentCommand) parentCommand);
         parentCommand.register(parentCommand.getExecutor() instanceof SlashExecutor);
+        commandManager.onCommandRegistered(parentCommand);
+        return this;
+    }
+
+    /**
+     * Method used to register a command stub whose sub-command tree is built on its first call.
+     * The command is registered with the metadata of the stub and is not built during the registration.
+     *
+     * @param lazyCommand The LazyParentCommand to register
+     * @see LazyParentCommand
+     */
+    public CommandManagerAPI registerLazyCommand(@NotNull LazyParentCommand lazyCommand) {
+        lazyCommand.register(lazyCommand.isDeclaredSlashCommand());
+        commandManager.onCommandRegistered(lazyCommand);
+        return this;
+    }
+
+    /**
+     * Method used to warm up the command call path before the bot starts handling real calls.
+     * Synthetic message and SlashCommand calls of the registered commands are routed through the manager without executing the commands
+     * and without sending anything to Discord. Call this method after registering the commands. Events received while the warm-up
+     * runs wait until it is finished.
+     *
+     * @param iterations  The maximum number of times every synthetic call is routed.
+     * @param maxDuration The maximum duration of the warm-up.
+     * @param unit        The TimeUnit of the maxDuration parameter.
+     */
+    public CommandManagerAPI warmUp(int iterations, long maxDuration, @NotNull TimeUnit unit) {
+        commandManager.warmUp(iterations, unit.toNanos(maxDuration));
         return this;
     }
 
@@ -93,14 +145,154 @@ public class CommandManagerAPI {
      * @param guild The guild the slash commands should be updated to.
      */
     public CommandManagerAPI updateSlashCommands(@NotNull Guild guild) {
-        List<CommandData> slashCommands = commandManager.getSlashCommands();
+        List<CommandData> slashCommands = commandManager.getSlashCommands(guild.getIdLong());
         if (!slashCommands.isEmpty()) guild.updateCommands().addCommands(slashCommands).queue();
         return this;
     }
 
+    /**
+     * Method used to enable or disable a top of the hierarchy command in the given guild.
+     * Disabled message commands are ignored, while disabled SlashCommands are hidden the next time
+     * CommandManagerAPI#updateSlashCommands(Guild) is called for the guild.
+     *
+     * @param guildId     The ID of the guild.
+     * @param commandName The name identifier of the registered ParentCommand.
+     * @param enabled     Whether the command should be enabled or disabled.
+     * @throws CommandNotParentInstanceException if there is no ParentCommand registered with the given name.
+     */
+    public CommandManagerAPI setCommandEnabled(long guildId, @NotNull String commandName, boolean enabled) {
+        ParentCommand command = ParentCommand.getParentCommand(commandName);
+        if (command == null) throw new CommandNotParentInstanceException(commandName);
+        commandManager.getCommandToggles().setDisabled(guildId, command.getIndex(), !enabled);
+        commandManager.getSettingsStore().update(guildId, settings -> settings.withCommandDisabled(command.getName(), !enabled));
+        return this;
+    }
+
+    /**
+     * @param guildId     The ID of the guild.
+     * @param commandName The name identifier of the registered ParentCommand.
+     * @return Whether or not the command can be used in the given guild.
+     */
+    public boolean isCommandEnabled(long guildId, @NotNull String commandName) {
+        ParentCommand command = ParentCommand.getParentCommand(commandName);
+        return command != null && !commandManager.getCommandToggles().isDisabled(guildId, command.getIndex());
+    }
+
+    /**
+     * Method used to set the ephemeral message SlashCommands disabled in a guild are replied with.
+     *
+     * @param message The String containing the message.
+     */
+    public CommandManagerAPI setDisabledCommandMessage(@NotNull String message) {
+        commandManager.setDisabledCommandMessage(message);
+        return this;
+    }
+
+    /**
+     * Method used to set the store of the per-guild settings (command prefix, disabled commands and no-permission message).
+     * By default the settings are kept in memory only. Use a GuildSettingsStore with a FileSettingsBackend to persist them
+     * in a local file, or implement your own SettingsBackend.
+     *
+     * @param store The GuildSettingsStore used by the manager.
+     */
+    public CommandManagerAPI setSettingsStore(@NotNull GuildSettingsStore store) {
+        commandManager.setSettingsStore(store);
+        return this;
+    }
+
+    /**
+     * Method used to set the command prefix of a guild, replacing the global command prefix in the given guild.
+     *
+     * @param guildId The ID of the guild.
+     * @param prefix  The prefix of the non-slash commands in the guild or null to use the global prefix.
+     */
+    public CommandManagerAPI setGuildPrefix(long guildId, String prefix) {
+        commandManager.getSettingsStore().update(guildId, settings -> settings.withPrefix(prefix));
+        return this;
+    }
+
+    /**
+     * Method used to obtain the command prefix used in a guild.
+     *
+     * @param guildId The ID of the guild.
+     * @return The prefix of the guild or the global command prefix if the guild did not set its own prefix.
+     */
+    public String getGuildPrefix(long guildId) {
+        String prefix = commandManager.getSettingsStore().getPrefix(guildId);
+        return prefix == null ? commandPrefix : prefix;
+    }
+
+    /**
+     * Method used to set the no-permission message for the DiscordPermission class in a guild.
+     * Use {perm} in your String for it to be replaced with the name of the permission. The other ResponseTemplate placeholders,
+     * such as {user} or {guild}, are replaced as well. Messages containing %perm% are read as before templates were supported:
+     * %perm% is replaced with the name of the permission and braces are kept as written.
+     *
+     * @param guildId The ID of the guild.
+     * @param message The String containing the no-permission message or null to use the global message.
+     */
+    public CommandManagerAPI setGuildNoPermissionMessage(long guildId, String message) {
+        commandManager.getSettingsStore().update(guildId, settings -> settings.withNoPermissionMessage(message));
+        return this;
+    }
+
+    /**
+     * Method used to enable the custom commands created by the guilds.
+     * Custom commands are message commands answered with a text template. They are only looked up when no registered command matches the call.
+     *
+     * @param store The CustomCommandStore containing the custom commands.
+     */
+    public CommandManagerAPI setCustomCommandStore(@NotNull CustomCommandStore store) {
+        commandManager.setCustomCommandStore(store);
+        return this;
+    }
+
+    /**
+     * Method used to create or replace a custom command of a guild.
+     *
+     * @param guildId  The ID of the guild.
+     * @param name     The name of the custom command.
+     * @param template The response of the command, may contain the placeholders supported by ResponseTemplate.
+     * @throws IllegalStateException         if no CustomCommandStore was set.
+     * @throws CommandAlreadyExistsException if a registered command uses the given name.
+     * @throws UncheckedIOException          if the custom command cannot be stored.
+     */
+    public CommandManagerAPI setCustomCommand(long guildId, @NotNull String name, @NotNull String template) {
+        CustomCommandStore store = commandManager.getCustomCommandStore();
+        if (store == null) throw new IllegalStateException("Custom commands are not enabled, set a CustomCommandStore first.");
+        if (ParentCommand.getParentIncludingAliases(name) != null) throw new CommandAlreadyExistsException(name);
+        try {
+            store.put(guildId, name, template);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Method used to delete a custom command of a guild.
+     *
+     * @param guildId The ID of the guild.
+     * @param name    The name of the custom command.
+     * @throws IllegalStateException if no CustomCommandStore was set.
+     * @throws UncheckedIOException  if the change cannot be stored.
+     */
+    public CommandManagerAPI removeCustomCommand(long guildId, @NotNull String name) {
+        CustomCommandStore store = commandManager.getCustomCommandStore();
+        if (store == null) throw new IllegalStateException("Custom commands are not enabled, set a CustomCommandStore first.");
+        try {
+            store.remove(guildId, name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
     /**
      * Method used to set the no-permission message for the DiscordPermission class
-     * Use %perm% in your String for it to be replaced with the name of the permission.
+     * Use {perm} in your String for it to be replaced with the name of the permission. The other ResponseTemplate placeholders,
+     * such as {user} or {guild}, are replaced as well. Messages containing %perm% are read as before templates were supported:
+     * %perm% is replaced with the name of the permission and braces are kept as written.
      *
      * @param message The String containing the no-permission message.
      */
@@ -109,6 +301,200 @@ public class CommandManagerAPI {
         return this;
     }
 
+    /**
+     * Method used to set the maximum number of command calls that may wait to be executed.
+     * Calls received while the queue is saturated are dropped: SlashCommands are replied with the busy message
+     * and message commands are ignored.
+     *
+     * @param maxQueueDepth The maximum number of waiting calls.
+     */
+    public CommandManagerAPI setMaxQueueDepth(int maxQueueDepth) {
+        commandManager.getDispatcher().setMaxQueueDepth(maxQueueDepth);
+        return this;
+    }
+
+    /**
+     * Method used to set the maximum time command calls may wait before being executed.
+     * Calls that are not expected to be executed before their deadline are dropped early.
+     *
+     * @param slashDeadline   The deadline of SlashCommand calls, in milliseconds. Should stay below the 3 seconds interaction limit.
+     * @param messageDeadline The deadline of message command calls, in milliseconds.
+     */
+    public CommandManagerAPI setCommandDeadlines(long slashDeadline, long messageDeadline) {
+        commandManager.setDeadlines(slashDeadline, messageDeadline);
+        return this;
+    }
+
+    /**
+     * Method used to set the ephemeral message dropped SlashCommand calls are replied with.
+     *
+     * @param message The String containing the busy message.
+     */
+    public CommandManagerAPI setBusyMessage(@NotNull String message) {
+        commandManager.getDispatcher().setBusyMessage(message);
+        return this;
+    }
+
+    /**
+     * Method used to set the execution time after which the stack trace of a running command call is logged, once per call.
+     * By default calls running for more than 10 seconds are reported.
+     *
+     * @param stallThreshold The stall threshold.
+     * @param unit           The TimeUnit of the threshold.
+     */
+    public CommandManagerAPI setStallThreshold(long stallThreshold, @NotNull TimeUnit unit) {
+        commandManager.getDispatcher().setStallThreshold(stallThreshold, unit);
+        return this;
+    }
+
+    /**
+     * @return The number of command calls cancelled after running past their CommandTimeout.
+     */
+    public long getTimedOutCount() {
+        return commandManager.getDispatcher().getTimedOutCount();
+    }
+
+    /**
+     * Method used to set the number of threads executing the commands.
+     *
+     * @param threads The number of worker threads.
+     */
+    public CommandManagerAPI setDispatchThreads(int threads) {
+        commandManager.setDispatchThreads(threads);
+        return this;
+    }
+
+    /**
+     * Method used to set the CommandScheduler deciding the order in which the waiting command calls are executed.
+     * By default calls are ordered by their CommandPriority and the guilds are served through a FairCommandScheduler,
+     * so that a single guild cannot starve the others.
+     *
+     * @param scheduler The CommandScheduler used by the manager.
+     */
+    public CommandManagerAPI setCommandScheduler(@NotNull CommandScheduler scheduler) {
+        commandManager.setScheduler(scheduler);
+        return this;
+    }
+
+    /**
+     * Method used to configure the filter ignoring messages and interactions delivered more than once.
+     * By default the IDs of the last 65536 command calls are remembered for 10 minutes.
+     *
+     * @param capacity     The minimum number of command call IDs remembered. The memory used is about 16 bytes per ID.
+     * @param windowMillis The time the IDs are remembered for, in milliseconds.
+     */
+    public CommandManagerAPI setDuplicateEventWindow(int capacity, long windowMillis) {
+        commandManager.setDuplicateEventWindow(capacity, windowMillis);
+        return this;
+    }
+
+    /**
+     * Method used to obtain the number of dropped calls of a command registered as top of the hierarchy.
+     *
+     * @param commandName The name identifier of the command.
+     * @return The number of calls dropped due to load shedding.
+     */
+    public long getShedCount(@NotNull String commandName) {
+        return commandManager.getShedStatistics().getShedCount(commandName);
+    }
+
+    /**
+     * @return The number of dropped calls of every command that was dropped at least once, mapped by the command name.
+     */
+    public Map<String, Long> getShedCounts() {
+        return commandManager.getShedStatistics().getShedCounts();
+    }
+
+    /**
+     * Method used to record the command calls admitted by the manager in an AuditLog: the guild, channel, user and command of
+     * every call. Recording a call never waits for the storage, see AuditLog for what happens when the log cannot keep up.
+     *
+     * @param auditLog The AuditLog or null to stop recording the calls.
+     */
+    public CommandManagerAPI setAuditLog(AuditLog auditLog) {
+        commandManager.setAuditLog(auditLog);
+        return this;
+    }
+
+    /**
+     * Method used to turn on or off the measurement of the thread CPU time and allocated bytes of every executed command call.
+     * The accounting can be toggled at any time and is disabled by default.
+     *
+     * @param enabled Whether or not the executed calls should be measured.
+     */
+    public CommandManagerAPI setResourceAccounting(boolean enabled) {
+        commandManager.getResourceAccounting().setEnabled(enabled);
+        return this;
+    }
+
+    /**
+     * Method used to set the budget of CPU time and allocations every guild may spend within a rolling window.
+     * The calls of guilds over their budget are deprioritized or dropped, depending on the action of the quota.
+     * Budgets are only consumed while the resource accounting is enabled.
+     *
+     * @param quota The ResourceQuota applied to every guild or null to remove it.
+     */
+    public CommandManagerAPI setGuildQuota(ResourceQuota quota) {
+        commandManager.getResourceAccounting().setQuota(quota);
+        return this;
+    }
+
+    /**
+     * Method used to obtain the CPU time and allocations recorded per command and per guild, as well as the measured overhead
+     * of the accounting itself.
+     *
+     * @return The ResourceAccounting of the manager.
+     */
+    public ResourceAccounting getResourceAccounting() {
+        return commandManager.getResourceAccounting();
+    }
+
+    /**
+     * Method used to obtain the router of the button and selection menu interactions.
+     * Register the handlers of the components sent by your commands in the router instead of adding your own JDA listeners.
+     *
+     * @return The ComponentRouter of the manager.
+     */
+    public ComponentRouter getComponentRouter() {
+        return commandManager.getComponentRouter();
+    }
+
+    /**
+     * Method used to obtain the store of the conversation sessions of multi-step commands. Open a Session from an executor to
+     * receive the next messages and component interactions of the member without keeping the state in the executor.
+     *
+     * @return The SessionStore of the manager.
+     */
+    public SessionStore getSessionStore() {
+        return commandManager.getSessionStore();
+    }
+
+    /**
+     * @return The counters of the open, ended, expired and rejected sessions and of the interactions routed to them.
+     */
+    public SessionStatistics getSessionStatistics() {
+        return commandManager.getSessionStore().getStatistics();
+    }
+
+    /**
+     * Method used to obtain the call statistics of every shard. The API registered with a single JDA instance records its calls as shard 0.
+     *
+     * @return The ShardStatistics of every shard that received calls, mapped by the shard ID.
+     */
+    public Map<Integer, ShardStatistics> getShardStatistics() {
+        return commandManager.getShardStatistics();
+    }
+
+    /**
+     * Method used to send the slash command data to Discord as global commands, available in every guild of the bot.
+     * The data is sent once for all the shards: it is safe to call the method in the ReadyEvent of every shard.
+     * Note that global commands do not take the commands disabled per guild into account.
+     */
+    public CommandManagerAPI updateGlobalSlashCommands() {
+        commandManager.updateGlobalSlashCommands();
+        return this;
+    }
+
     /**
      * Method used to initialize the CommandManagerAPI. Use this method only once at the bot startup.
      * Make sure that the JDA object is initialized. It is recommended to initialize the API in the onReady() event
@@ -124,6 +510,21 @@ public class CommandManagerAPI {
         return commandManagerAPI;
     }
 
+    /**
+     * Method used to initialize the CommandManagerAPI for a sharded bot. Use this method only once at the bot startup.
+     * The registered commands are shared by all the shards, every shard having its own listener and call statistics.
+     *
+     * @param shardManager  The not null ShardManager of the bot
+     * @param commandPrefix The prefix for the non-slash commands. (example: h!)
+     * @return The registered CommandManagerAPI.
+     * @throws APIAlreadyInitializedException if the method is used a second time after the API was initialized.
+     */
+    public static CommandManagerAPI registerAPI(@NotNull ShardManager shardManager, @NotNull String commandPrefix) {
+        if (commandManagerAPI != null) throw new APIAlreadyInitializedException();
+        commandManagerAPI = new CommandManagerAPI(shardManager, commandPrefix);
+        return commandManagerAPI;
+    }
+
     public static CommandManagerAPI getAPI() {
         return commandManagerAPI;
     }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.annotation;
+
+import com.github.stefan9110.dcm.core.CommandPriority;
+import net.dv8tion.jda.api.Permission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method as the executor of a top of the hierarchy ParentCommand.
+ * The CommandProcessor generates, at compile time, a {@code <ClassName>Registration} class building and registering the
+ * annotated commands of the class, calling the annotated methods directly.
+ * <p>
+ * The method must not be private and must have one of the following signatures:
+ * <ul>
+ *     <li>{@code void name(Member member, String[] args, GuildMessageReceivedEvent event)} for message commands</li>
+ *     <li>{@code InteractionResponse name(Member member, String[] args, SlashCommandEvent event)} for SlashCommands</li>
+ * </ul>
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface Command {
+    /**
+     * @return The name identifier of the command.
+     */
+    String name();
+
+    String description() default "";
+
+    String usage() default "";
+
+    String[] aliases() default {};
+
+    /**
+     * @return The Discord permission required to execute the command. Only the first value is used, leave empty for no permission.
+     */
+    Permission[] permission() default {};
+
+    CommandPriority priority() default CommandPriority.NORMAL;
+}
@@ -20,7 +20,11 @@ import com.github.stefan9110.dcm.command.Command;
 import com.github.stefan9110.dcm.command.CommandArgument;
 import com.github.stefan9110.dcm.command.ParentCommand;
 import com.github.stefan9110.dcm.command.SubCommand;
+import com.github.stefan9110.dcm.command.compact.CommandFreezer;
 import com.github.stefan9110.dcm.command.exceptions.CommandAlreadyExistsException;
+import com.github.stefan9110.dcm.core.CircuitBreaker;
+import com.github.stefan9110.dcm.core.CommandPriority;
+import com.github.stefan9110.dcm.core.CommandTimeout;
 import com.github.stefan9110.dcm.manager.executor.Executor;
 import com.github.stefan9110.dcm.permission.CustomPermission;
 import org.jetbrains.annotations.NotNull;
@@ -29,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The CommandBuilder class is used for easier initialization of the two different subtypes of the Command interface.
@@ -39,6 +44,9 @@ public class CommandBuilder {
     private String description, usage;
     private Executor executor;
     private CustomPermission requiredPermission;
+    private CommandPriority priority = CommandPriority.NORMAL;
+    private CircuitBreaker circuitBreaker;
+    private CommandTimeout timeout;
     private final HashMap<String, Command> subCommands;
     private final List<CommandArgument> arguments;
     private final List<String> aliases;
@@ -168,6 +176,56 @@ public class CommandBuilder {
         return this;
     }
 
+    /**
+     * Sets the priority class of the built Command.
+     * Under load, calls of commands with a higher priority are executed first (for example moderation commands before fun commands).
+     *
+     * @param priority The CommandPriority of the Command.
+     * @return The same CommandBuilder instance containing the modified data.
+     */
+    public CommandBuilder setPriority(@NotNull CommandPriority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * Sets the CircuitBreaker guarding the Executor of the built Command.
+     * Once the breaker opens after repeated failed or slow calls, calls are answered right away with the fallback message
+     * of the breaker instead of waiting for a backend that is down.
+     *
+     * @param circuitBreaker The CircuitBreaker of the Command or null to remove it.
+     * @return The same CommandBuilder instance containing the modified data.
+     */
+    public CommandBuilder setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+        return this;
+    }
+
+    /**
+     * Sets the maximum execution time of the Executor of the built Command.
+     * Invocations running past the timeout are cancelled through their CancellationToken and interrupted, and SlashCommand
+     * calls are answered with the timeout message. Sub-commands without a timeout of their own use the timeout of their parent.
+     *
+     * @param timeout The CommandTimeout of the Command or null to remove it.
+     * @return The same CommandBuilder instance containing the modified data.
+     */
+    public CommandBuilder setTimeout(CommandTimeout timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Sets the maximum execution time of the Executor of the built Command, with the default timeout message.
+     *
+     * @param timeout The maximum execution time.
+     * @param unit    The TimeUnit of the timeout.
+     * @return The same CommandBuilder instance containing the modified data.
+     * @see CommandBuilder#setTimeout(CommandTimeout)
+     */
+    public CommandBuilder setTimeout(long timeout, @NotNull TimeUnit unit) {
+        return setTimeout(new CommandTimeout(timeout, unit));
+    }
+
     /**
      * Builds the Command given the data through the builder.
      *
@@ -201,6 +259,21 @@ public class CommandBuilder {
                     public @NotNull Executor getExecutor() {
                         return executor;
                     }
+
+                    @Override
+                    public @NotNull CommandPriority getPriority() {
+                        return priority;
+                    }
+
+                    @Override
+                    public CircuitBreaker getCircuitBreaker() {
+                        return circuitBreaker;
+                    }
+
+                    @Override
+                    public CommandTimeout getTimeout() {
+                        return timeout;
+                    }
                 } :
                 new SubCommand(name, arguments) {
                     @Override
@@ -227,9 +300,37 @@ public class CommandBuilder {
                     public @NotNull Executor getExecutor() {
                         return executor;
                     }
+
+                    @Override
+                    public @NotNull CommandPriority getPriority() {
+                        return priority;
+                    }
+
+                    @Override
+                    public CircuitBreaker getCircuitBreaker() {
+                        return circuitBreaker;
+                    }
+
+                    @Override
+                    public CommandTimeout getTimeout() {
+                        return timeout;
+                    }
                 };
     }
 
+    /**
+     * Builds the Command given the data through the builder in its compact immutable representation.
+     * Compact commands use less memory than the ones returned by CommandBuilder#build(boolean) and are recommended for
+     * large command hierarchies. Sub-commands and arguments can no longer be added to the returned Command.
+     *
+     * @param parentCommand Whether or not the Command created should be considered a ParentCommand or not
+     * @return CompactParentCommand instance of Command if the parentCommand boolean is true or CompactSubCommand instance otherwise
+     * @see CommandFreezer#freeze(Command)
+     */
+    public Command buildCompact(boolean parentCommand) {
+        return CommandFreezer.freeze(build(parentCommand));
+    }
+
     /**
      * Method used to create a new CommandBuilder. The instance shall be used to collect the data
      * necessary to create a Command instance.
@@ -16,6 +16,10 @@
 
 package com.github.stefan9110.dcm.command;
 
+import com.github.stefan9110.dcm.core.CircuitBreaker;
+import com.github.stefan9110.dcm.core.CommandNode;
+import com.github.stefan9110.dcm.core.CommandPriority;
+import com.github.stefan9110.dcm.core.CommandTimeout;
 import com.github.stefan9110.dcm.manager.executor.Executor;
 import org.jetbrains.annotations.NotNull;
 
@@ -26,7 +30,7 @@ import java.util.List;
  * Later in this block we will refer to the instances of the interface as `command registered through the interface`
  * representing any descendant class / variable instance that uses the class to store data.
  */
-public interface Command {
+public interface Command extends CommandNode {
 
     /**
      * Method used to obtain the name of the command registered through the interface.
@@ -84,4 +88,35 @@ public interface Command {
      * @return List of CommandArgument used for the SlashCommand identification of the command registered through the interface.
      */
     List<CommandArgument> getArguments();
+
+    /**
+     * Method used to obtain the priority class of the command registered through the interface.
+     * The priority is used to order the waiting calls when the command manager is under load.
+     *
+     * @return The CommandPriority of the command registered through the interface. Commands are of NORMAL priority by default.
+     */
+    @NotNull
+    default CommandPriority getPriority() {
+        return CommandPriority.NORMAL;
+    }
+
+    /**
+     * Method used to obtain the CircuitBreaker guarding the Executor of the command registered through the interface.
+     * While the breaker is open the Executor is not called and the fallback message of the breaker is replied instead.
+     *
+     * @return The CircuitBreaker of the command registered through the interface or null if the command has none.
+     */
+    default CircuitBreaker getCircuitBreaker() {
+        return null;
+    }
+
+    /**
+     * Method used to obtain the maximum execution time of the Executor of the command registered through the interface.
+     * Sub-commands without a timeout of their own use the timeout of their parent command.
+     *
+     * @return The CommandTimeout of the command registered through the interface or null if the command has none.
+     */
+    default CommandTimeout getTimeout() {
+        return null;
+    }
 }
@@ -18,6 +18,8 @@ package com.github.stefan9110.dcm.command;
 
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 
+import java.util.Objects;
+
 public class CommandArgument {
     private final OptionType type;
     private final String name, description;
@@ -66,4 +68,17 @@ public class CommandArgument {
     public OptionType getType() {
         return type;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CommandArgument)) return false;
+        CommandArgument other = (CommandArgument) o;
+        return required == other.required && type == other.type && name.equals(other.name) && Objects.equals(description, other.description);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, name, description, required);
+    }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.command;
+
+import com.github.stefan9110.dcm.core.CircuitBreaker;
+import com.github.stefan9110.dcm.manager.executor.Executor;
+import com.github.stefan9110.dcm.manager.executor.ResolvingExecutor;
+import com.github.stefan9110.dcm.manager.jfr.PermissionCheckEvent;
+import com.github.stefan9110.dcm.permission.CustomPermission;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.Event;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
+
+/**
+ * Calls the Executor of a command through the CircuitBreaker of the command, if it has one, and checks the permissions of the
+ * commands of the hierarchy. Used by ParentCommand#execute() and SubCommand#execute().
+ */
+final class CommandInvocation {
+    private CommandInvocation() {
+    }
+
+    static boolean hasPermission(Command command, CustomPermission permission, Member member) {
+        if (permission == null) return true;
+        PermissionCheckEvent permissionEvent = new PermissionCheckEvent();
+        permissionEvent.begin();
+        boolean granted = permission.hasPermission(member);
+        permissionEvent.setGranted(granted).complete(command.getName(), member == null ? 0 : member.getGuild().getIdLong());
+        return granted;
+    }
+
+    static void invoke(Command command, Member member, String[] args, Event event) {
+        CircuitBreaker breaker = command.getCircuitBreaker();
+        if (breaker == null) {
+            call(command, member, args, event);
+            return;
+        }
+
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        if (permit == CircuitBreaker.Permit.REJECTED) {
+            replyFallback(breaker.getFallbackMessage(), event);
+            return;
+        }
+
+        boolean failed = true;
+        long start = System.nanoTime();
+        try {
+            call(command, member, args, event);
+            failed = false;
+        } finally {
+            breaker.release(permit, failed, System.nanoTime() - start);
+        }
+    }
+
+    // ResolvingExecutors parse the call with the arguments of the called command, as one executor may be set on several commands.
+    private static void call(Command command, Member member, String[] args, Event event) {
+        Executor executor = command.getExecutor();
+        if (executor instanceof ResolvingExecutor) ((ResolvingExecutor) executor).onCommand(member, command.getArguments(), args, event);
+        else executor.onCommand(member, args, event);
+    }
+
+    private static void replyFallback(String message, Event event) {
+        if (event instanceof SlashCommandEvent)
+            ((SlashCommandEvent) event).reply(message).setEphemeral(true).queue();
+        else if (event instanceof GuildMessageReceivedEvent)
+            ((GuildMessageReceivedEvent) event).getChannel().sendMessage(message).queue();
+    }
+}
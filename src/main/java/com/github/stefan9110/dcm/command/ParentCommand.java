@@ -17,6 +17,10 @@
 package com.github.stefan9110.dcm.command;
 
 import com.github.stefan9110.dcm.command.exceptions.CommandAlreadyExistsException;
+import com.github.stefan9110.dcm.core.CommandPriority;
+import com.github.stefan9110.dcm.core.CommandRegistry;
+import com.github.stefan9110.dcm.core.CommandRouter;
+import com.github.stefan9110.dcm.core.TopLevelCommand;
 import com.github.stefan9110.dcm.permission.CustomPermission;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.events.Event;
@@ -26,16 +30,28 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
 
-public abstract class ParentCommand implements Command {
-    /**
-     * HashMap used for caching the main ParentCommands found at the top of any Command -> Sub-Command hierarchy.
-     */
-    private static final HashMap<String, ParentCommand> parentCommandCache = new HashMap<>();
-
+public abstract class ParentCommand implements Command, TopLevelCommand {
     private final String name;
     private final HashMap<String, Command> subCommands;
+    private final Map<String, Command> subCommandView;
     private final List<CommandArgument> commandArguments;
     private boolean isSlashCommand;
+    private int index = -1;
+
+    /**
+     * Constructor used by the ParentCommand implementations that store their sub-commands themselves.
+     * Such implementations must override every method accessing the sub-commands: getSubCommands(), getSubCommandView(),
+     * addSubCommand(), getSubCommand() and identifySubCommand().
+     *
+     * @param name      The name of the ParentCommand respecting the Command interface name limitation.
+     * @param arguments List of CommandArguments used for the JDA SlashCommand registration of the command.
+     */
+    protected ParentCommand(@NotNull String name, @NotNull List<CommandArgument> arguments) {
+        this.name = name.toLowerCase();
+        this.subCommands = null;
+        this.subCommandView = null;
+        this.commandArguments = arguments;
+    }
 
     /**
      * Private constructor for the ParentCommand class.
@@ -49,6 +65,7 @@ public abstract class ParentCommand implements Command {
     protected ParentCommand(@NotNull String name, @NotNull HashMap<String, Command> subCommands, @NotNull List<CommandArgument> arguments) {
         this.name = name.toLowerCase();
         this.subCommands = subCommands;
+        this.subCommandView = Collections.unmodifiableMap(subCommands);
         this.commandArguments = arguments;
     }
 
@@ -77,21 +94,42 @@ public abstract class ParentCommand implements Command {
     /**
      * @return Whether or not the ParentCommand should be registered through JDA as a SlashCommand or not.
      */
+    @Override
     public boolean isSlashCommand() {
         return isSlashCommand;
     }
 
+    /**
+     * Top of the hierarchy ParentCommands receive a dense index when they are registered, starting from 0.
+     * The index is used to store per-guild command data compactly, such as the set of disabled commands.
+     *
+     * @return The index of the ParentCommand or -1 if the command is not registered as top of the hierarchy.
+     */
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
     /**
      * The method returns the contents of the sub-commands of the ParentCommand as a dictionary
      * presented in a HashMap of String -> Command, where the String represents the sub-command name
      * and the Command is the sub-command registered itself.
      *
-     * @return HashMap dictionary of the sub-commands registered in the ParentCommand.
+     * @return HashMap dictionary of the sub-commands registered in the ParentCommand. Immutable implementations return a copy.
      */
     public HashMap<String, Command> getSubCommands() {
         return subCommands;
     }
 
+    /**
+     * Method used to read the sub-commands of the ParentCommand without copying them, whichever way they are stored.
+     *
+     * @return A read-only Map view of the sub-commands registered in the ParentCommand, by sub-command name.
+     */
+    public Map<String, Command> getSubCommandView() {
+        return subCommandView;
+    }
+
     /**
      * Method used to register a new sub-command in the ParentCommand instance.
      *
@@ -114,6 +152,11 @@ public abstract class ParentCommand implements Command {
         return subCommands.get(name.toLowerCase());
     }
 
+    @Override
+    public Command getChild(String name) {
+        return getSubCommand(name);
+    }
+
     /**
      * Method used to add a new CommandArgument to the List of arguments used for the SlashCommand implementation of the ParentCommand instance.
      *
@@ -152,61 +195,71 @@ public abstract class ParentCommand implements Command {
      * @param executeEvent   The event that registered tha call through the JDA event system.
      */
     public void execute(Member memberExecutor, String[] args, Event executeEvent) {
-        if (getRequiredPermission() != null && !getRequiredPermission().hasPermission(memberExecutor)) {
+        if (!CommandInvocation.hasPermission(this, getRequiredPermission(), memberExecutor)) {
             if (executeEvent instanceof SlashCommandEvent)
-                ((SlashCommandEvent) executeEvent).reply(getRequiredPermission().noPermissionMessage()).setEphemeral(true).queue();
+                ((SlashCommandEvent) executeEvent).reply(getRequiredPermission().noPermissionMessage(memberExecutor)).setEphemeral(true).queue();
             return;
         }
-        if (args.length > 0 && subCommands.containsKey(args[0].toLowerCase())) {
-            Command toExecute = identifySubCommand(args[0].toLowerCase());
+        Command toExecute = args.length > 0 ? getSubCommand(args[0]) : null;
+        if (toExecute != null) {
             if (toExecute instanceof ParentCommand)
                 ((ParentCommand) toExecute).execute(memberExecutor, Arrays.copyOfRange(args, 1, args.length), executeEvent);
             else if (toExecute instanceof SubCommand)
                 ((SubCommand) toExecute).execute(memberExecutor, Arrays.copyOfRange(args, 1, args.length), executeEvent);
             else
-                toExecute.getExecutor().onCommand(memberExecutor, Arrays.copyOfRange(args, 1, args.length), executeEvent);
+                CommandInvocation.invoke(toExecute, memberExecutor, Arrays.copyOfRange(args, 1, args.length), executeEvent);
             return;
         }
-        getExecutor().onCommand(memberExecutor, args, executeEvent);
+        CommandInvocation.invoke(this, memberExecutor, args, executeEvent);
+    }
+
+    /**
+     * Method used to obtain the priority of a call without executing it.
+     * The highest CommandPriority found on the path of sub-commands selected by the arguments is returned.
+     *
+     * @param args The arguments presented in the initial call.
+     * @return The CommandPriority the call should be scheduled with.
+     */
+    public CommandPriority resolvePriority(String[] args) {
+        return CommandRouter.resolvePriority(this, args);
     }
 
     /**
      * Method used to register the ParentCommand as a top of the hierarchy ParentCommand.
-     * This method also caches the ParentCommand in the HashMap cache of the hierarchy commands.
+     * This method also caches the ParentCommand in the CommandRegistry of the hierarchy commands.
      *
      * @param slashCommand Whether or not the ParentCommand should be registered with a SlashCommand implementation requirement.
      * @throws CommandAlreadyExistsException if the ParentCommand instance is already registered or there already exists a Command with the
      *                                       given name identifier.
      */
     public void register(boolean slashCommand) {
-        if (parentCommandCache.containsKey(name)) throw new CommandAlreadyExistsException(name);
-        isSlashCommand = slashCommand;
-        parentCommandCache.put(name, this);
+        boolean registered = Registry.INSTANCE.register(this, index -> {
+            this.isSlashCommand = slashCommand;
+            this.index = index;
+        });
+        if (!registered) throw new CommandAlreadyExistsException(getName());
     }
 
     /**
-     * Method used to obtain any top of the hierarchy ParentCommand by its identifier from the HashMap cache.
+     * Method used to obtain any top of the hierarchy ParentCommand by its identifier from the CommandRegistry.
      *
      * @param name The name identifier String of the ParentCommand that shall be obtained. This identifier is case insensitive.
      * @return The ParentCommand registered in the cache with the give name identifier. If there is no such command registered with this
      * identifier the method will return null.
      */
     public static ParentCommand getParentCommand(String name) {
-        return parentCommandCache.get(name.toLowerCase());
+        return Registry.INSTANCE.get(name);
     }
 
     /**
-     * Method used to obtain any top of the hierarchy ParentCommand by its identifier or by one of its aliases from the HashMap cache.
+     * Method used to obtain any top of the hierarchy ParentCommand by its identifier or by one of its aliases from the CommandRegistry.
      *
      * @param key The name identifier or one of the ParentCommand aliases that it should be identified by.
      * @return The ParentCommand registered in the cache with the given name identifier or the ParentCommand that contains in one of its
      * aliases list the given key parameter. If there is no such ParentCommand found in the cache the method will return null.
      */
     public static ParentCommand getParentIncludingAliases(String key) {
-        for (ParentCommand cmd : parentCommandCache.values()) {
-            if (cmd.getName().equals(key.toLowerCase()) || cmd.getAliases().contains(key.toLowerCase())) return cmd;
-        }
-        return null;
+        return Registry.INSTANCE.getIncludingAliases(key);
     }
 
     /**
@@ -215,7 +268,7 @@ public abstract class ParentCommand implements Command {
      * @return The requested Set of Strings.
      */
     public static Set<String> getParentCommandNames() {
-        return parentCommandCache.keySet();
+        return Registry.INSTANCE.getNames();
     }
 
     /**
@@ -224,6 +277,22 @@ public abstract class ParentCommand implements Command {
      * @return The requested List of ParentCommand.
      */
     public static List<ParentCommand> getParentCommands() {
-        return new ArrayList<>(parentCommandCache.values());
+        return new ArrayList<>(Registry.INSTANCE.getCommands());
+    }
+
+    /**
+     * @return The registry shared by all the top of the hierarchy ParentCommands.
+     */
+    public static CommandRegistry<ParentCommand> getRegistry() {
+        return Registry.INSTANCE;
+    }
+
+    /**
+     * Holder of the registry of the main ParentCommands found at the top of any Command -> Sub-Command hierarchy.
+     * The registry is process state: keeping it out of the static initializer of ParentCommand lets command classes be initialized
+     * at native-image build time while the registry itself is always created at run time.
+     */
+    private static final class Registry {
+        private static final CommandRegistry<ParentCommand> INSTANCE = new CommandRegistry<>();
     }
 }
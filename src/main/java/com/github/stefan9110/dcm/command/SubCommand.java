@@ -76,11 +76,11 @@ public abstract class SubCommand implements Command {
      * @param executeEvent The event that triggered the command.
      */
     public void execute(Member memberExecutor, String[] args, Event executeEvent) {
-        if (getRequiredPermission() != null && !getRequiredPermission().hasPermission(memberExecutor)) {
+        if (!CommandInvocation.hasPermission(this, getRequiredPermission(), memberExecutor)) {
             if (executeEvent instanceof SlashCommandEvent)
-                ((SlashCommandEvent) executeEvent).reply(getRequiredPermission().noPermissionMessage()).setEphemeral(true).queue();
+                ((SlashCommandEvent) executeEvent).reply(getRequiredPermission().noPermissionMessage(memberExecutor)).setEphemeral(true).queue();
             return;
         }
-        getExecutor().onCommand(memberExecutor, args, executeEvent);
+        CommandInvocation.invoke(this, memberExecutor, args, executeEvent);
     }
 }
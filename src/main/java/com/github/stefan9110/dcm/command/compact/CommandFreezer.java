@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.command.compact;
+
+import com.github.stefan9110.dcm.command.Command;
+import com.github.stefan9110.dcm.command.CommandArgument;
+import com.github.stefan9110.dcm.command.ParentCommand;
+import com.github.stefan9110.dcm.command.SubCommand;
+import com.github.stefan9110.dcm.permission.CustomPermission;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * The CommandFreezer converts a Command hierarchy into its compact immutable representation.
+ * <p>
+ * Compact commands keep their sub-commands in sorted arrays instead of HashMaps, share a single empty List for missing aliases and
+ * arguments, and reuse a single instance of every equal String, CommandArgument and List of arguments found in the hierarchy.
+ * They keep no reference to the CommandBuilder or to the mutable collections they were created from.
+ */
+public class CommandFreezer {
+    private final Map<Object, Object> canonical = new HashMap<>();
+
+    private CommandFreezer() {
+    }
+
+    /**
+     * Method used to obtain the compact immutable representation of a Command and of its whole sub-command hierarchy.
+     * Freeze the commands before registering them: a frozen ParentCommand is a new instance.
+     *
+     * @param command The Command built through the CommandBuilder.
+     * @return A CompactParentCommand if the given command is a ParentCommand, a CompactSubCommand otherwise.
+     */
+    public static Command freeze(@NotNull Command command) {
+        if (command instanceof CompactParentCommand || command instanceof CompactSubCommand) return command;
+        return new CommandFreezer().convert(command);
+    }
+
+    private Command convert(Command command) {
+        String name = string(command.getName());
+        List<CommandArgument> arguments = arguments(command.getArguments());
+        List<String> aliases = aliases(command.getAliases());
+        String description = string(command.getDescription()), usage = string(command.getUsage());
+
+        if (command instanceof ParentCommand) {
+            // Children are sorted by name for the binary search of CompactParentCommand#getSubCommand().
+            TreeMap<String, Command> sorted = new TreeMap<>(((ParentCommand) command).getSubCommandView());
+            String[] childNames = new String[sorted.size()];
+            Command[] children = new Command[sorted.size()];
+            int i = 0;
+            for (Map.Entry<String, Command> entry : sorted.entrySet()) {
+                childNames[i] = string(entry.getKey());
+                children[i++] = convert(entry.getValue());
+            }
+            return new CompactParentCommand(name, arguments, childNames, children, aliases, description, usage, command.getExecutor(),
+                    ((ParentCommand) command).getRequiredPermission(), command.getPriority(), command.getCircuitBreaker(),
+                    command.getTimeout());
+        }
+        CustomPermission permission = command instanceof SubCommand ? ((SubCommand) command).getRequiredPermission() : null;
+        return new CompactSubCommand(name, arguments, aliases, description, usage, command.getExecutor(), permission, command.getPriority(),
+                command.getCircuitBreaker(), command.getTimeout());
+    }
+
+    private List<CommandArgument> arguments(List<CommandArgument> arguments) {
+        if (arguments == null || arguments.isEmpty()) return Collections.emptyList();
+        CommandArgument[] result = new CommandArgument[arguments.size()];
+        for (int i = 0; i < result.length; i++) result[i] = canonical(arguments.get(i));
+        return canonical(Collections.unmodifiableList(Arrays.asList(result)));
+    }
+
+    private List<String> aliases(List<String> aliases) {
+        if (aliases == null || aliases.isEmpty()) return Collections.emptyList();
+        String[] result = new String[aliases.size()];
+        for (int i = 0; i < result.length; i++) result[i] = string(aliases.get(i).toLowerCase());
+        return canonical(Collections.unmodifiableList(Arrays.asList(result)));
+    }
+
+    private String string(String value) {
+        return value == null ? null : canonical(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T canonical(T value) {
+        Object existing = canonical.putIfAbsent(value, value);
+        return existing == null ? value : (T) existing;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.command.compact;
+
+import com.github.stefan9110.dcm.command.Command;
+import com.github.stefan9110.dcm.command.CommandArgument;
+import com.github.stefan9110.dcm.command.ParentCommand;
+import com.github.stefan9110.dcm.core.CircuitBreaker;
+import com.github.stefan9110.dcm.core.CommandPriority;
+import com.github.stefan9110.dcm.core.CommandTimeout;
+import com.github.stefan9110.dcm.manager.executor.Executor;
+import com.github.stefan9110.dcm.permission.CustomPermission;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Immutable ParentCommand storing its sub-commands in a sorted array instead of a HashMap.
+ * Sub-commands are found through a binary search over their names. Instances are created through CommandFreezer#freeze(Command).
+ */
+public final class CompactParentCommand extends ParentCommand {
+    private final String[] childNames;
+    private final Command[] children;
+    private final Map<String, Command> subCommandView = new SubCommandView();
+    private final List<String> aliases;
+    private final String description, usage;
+    private final Executor executor;
+    private final CustomPermission requiredPermission;
+    private final CommandPriority priority;
+    private final CircuitBreaker circuitBreaker;
+    private final CommandTimeout timeout;
+
+    CompactParentCommand(String name, List<CommandArgument> arguments, String[] childNames, Command[] children, List<String> aliases,
+                         String description, String usage, Executor executor, CustomPermission requiredPermission, CommandPriority priority,
+                         CircuitBreaker circuitBreaker, CommandTimeout timeout) {
+        super(name, arguments);
+        this.childNames = childNames;
+        this.children = children;
+        this.aliases = aliases;
+        this.description = description;
+        this.usage = usage;
+        this.executor = executor;
+        this.requiredPermission = requiredPermission;
+        this.priority = priority;
+        this.circuitBreaker = circuitBreaker;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public CustomPermission getRequiredPermission() {
+        return requiredPermission;
+    }
+
+    @Override
+    public List<String> getAliases() {
+        return aliases;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String getUsage() {
+        return usage;
+    }
+
+    @Override
+    public @NotNull Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public @NotNull CommandPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return A new HashMap holding the sub-commands of the ParentCommand. Changing it does not change the immutable command, use
+     * getSubCommandView() to read the sub-commands without copying them.
+     */
+    @Override
+    public HashMap<String, Command> getSubCommands() {
+        return new HashMap<>(subCommandView);
+    }
+
+    /**
+     * @return A read-only view of the sub-commands of the ParentCommand, backed by its sorted arrays. The same instance is returned
+     * by every call.
+     */
+    @Override
+    public Map<String, Command> getSubCommandView() {
+        return subCommandView;
+    }
+
+    /**
+     * @throws UnsupportedOperationException as compact commands are immutable.
+     */
+    @Override
+    public void addSubCommand(Command cmd) {
+        throw new UnsupportedOperationException("The command " + getName() + " is immutable.");
+    }
+
+    /**
+     * @throws UnsupportedOperationException as compact commands are immutable.
+     */
+    @Override
+    public ParentCommand addArgument(CommandArgument type) {
+        throw new UnsupportedOperationException("The command " + getName() + " is immutable.");
+    }
+
+    @Override
+    public Command getSubCommand(String name) {
+        int index = Arrays.binarySearch(childNames, name.toLowerCase());
+        return index < 0 ? null : children[index];
+    }
+
+    @Override
+    public Command identifySubCommand(String key) {
+        Command cmd = getSubCommand(key);
+        if (cmd != null) return cmd;
+        for (Command child : children) if (child.getAliases().contains(key.toLowerCase())) return child;
+        return null;
+    }
+
+    @Override
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @Override
+    public CommandTimeout getTimeout() {
+        return timeout;
+    }
+
+    // Read-only Map over the sorted arrays: lookups use the binary search and nothing is copied.
+    private final class SubCommandView extends AbstractMap<String, Command> {
+        @Override
+        public Command get(Object key) {
+            if (!(key instanceof String)) return null;
+            int index = Arrays.binarySearch(childNames, key);
+            return index < 0 ? null : children[index];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return children.length;
+        }
+
+        @Override
+        public Set<Entry<String, Command>> entrySet() {
+            return new AbstractSet<Entry<String, Command>>() {
+                @Override
+                public Iterator<Entry<String, Command>> iterator() {
+                    return new Iterator<Entry<String, Command>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < children.length;
+                        }
+
+                        @Override
+                        public Entry<String, Command> next() {
+                            if (next >= children.length) throw new NoSuchElementException();
+                            Entry<String, Command> entry = new SimpleImmutableEntry<>(childNames[next], children[next]);
+                            next++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return children.length;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.command.compact;
+
+import com.github.stefan9110.dcm.command.CommandArgument;
+import com.github.stefan9110.dcm.command.SubCommand;
+import com.github.stefan9110.dcm.core.CircuitBreaker;
+import com.github.stefan9110.dcm.core.CommandPriority;
+import com.github.stefan9110.dcm.core.CommandTimeout;
+import com.github.stefan9110.dcm.manager.executor.Executor;
+import com.github.stefan9110.dcm.permission.CustomPermission;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Immutable SubCommand holding only its own data. Instances are created through CommandFreezer#freeze(Command).
+ */
+public final class CompactSubCommand extends SubCommand {
+    private final List<String> aliases;
+    private final String description, usage;
+    private final Executor executor;
+    private final CustomPermission requiredPermission;
+    private final CommandPriority priority;
+    private final CircuitBreaker circuitBreaker;
+    private final CommandTimeout timeout;
+
+    CompactSubCommand(String name, List<CommandArgument> arguments, List<String> aliases, String description, String usage,
+                      Executor executor, CustomPermission requiredPermission, CommandPriority priority,
+                      CircuitBreaker circuitBreaker, CommandTimeout timeout) {
+        super(name, arguments);
+        this.aliases = aliases;
+        this.description = description;
+        this.usage = usage;
+        this.executor = executor;
+        this.requiredPermission = requiredPermission;
+        this.priority = priority;
+        this.circuitBreaker = circuitBreaker;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public CustomPermission getRequiredPermission() {
+        return requiredPermission;
+    }
+
+    @Override
+    public List<String> getAliases() {
+        return aliases;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String getUsage() {
+        return usage;
+    }
+
+    @Override
+    public @NotNull Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public @NotNull CommandPriority getPriority() {
+        return priority;
+    }
+
+    @Override
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @Override
+    public CommandTimeout getTimeout() {
+        return timeout;
+    }
+}
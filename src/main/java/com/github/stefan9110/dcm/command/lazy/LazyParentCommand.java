@@ -0,0 +1,223 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.command.lazy;
+
+import com.github.stefan9110.dcm.command.Command;
+import com.github.stefan9110.dcm.command.CommandArgument;
+import com.github.stefan9110.dcm.command.ParentCommand;
+import com.github.stefan9110.dcm.core.CircuitBreaker;
+import com.github.stefan9110.dcm.core.CommandPriority;
+import com.github.stefan9110.dcm.core.CommandTimeout;
+import com.github.stefan9110.dcm.manager.executor.Executor;
+import com.github.stefan9110.dcm.permission.CustomPermission;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.Event;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Lightweight stand-in for a top of the hierarchy ParentCommand whose sub-command tree is only built on its first call.
+ * <p>
+ * The stub only holds the metadata needed to register the command: its name, description, aliases, priority and arguments.
+ * The SlashCommand data of a lazy command is obtained from the stub as well, so it is declared as a command without sub-commands.
+ * The real command, with its executors and their dependencies, is obtained from the loader the first time the command is executed.
+ * Concurrent first calls wait for a single build. If the loader fails, the exception is thrown to the caller and the next call tries again.
+ */
+public class LazyParentCommand extends ParentCommand {
+    private final String description;
+    private final boolean slashCommand;
+    private final Supplier<? extends Command> loader;
+    private List<String> aliases = Collections.emptyList();
+    private String usage;
+    private CommandPriority priority = CommandPriority.NORMAL;
+    private volatile ParentCommand command;
+
+    /**
+     * @param name         The name of the command. Must be the name of the command returned by the loader.
+     * @param description  The description of the command.
+     * @param slashCommand Whether or not the command should be registered as a SlashCommand.
+     * @param loader       Supplier building the real ParentCommand, for example through CommandBuilder#build(boolean).
+     */
+    public LazyParentCommand(@NotNull String name, String description, boolean slashCommand, @NotNull Supplier<? extends Command> loader) {
+        super(name, new ArrayList<>());
+        this.description = description;
+        this.slashCommand = slashCommand;
+        this.loader = loader;
+    }
+
+    /**
+     * Method used to set the aliases the stub can be called with before the command is built.
+     * The aliases must be set before the command is registered.
+     *
+     * @param aliases The aliases of the command.
+     * @return The instance of the LazyParentCommand containing the modified data.
+     */
+    public LazyParentCommand setAliases(@NotNull String... aliases) {
+        List<String> result = new ArrayList<>(aliases.length);
+        for (String alias : aliases) result.add(alias.toLowerCase());
+        this.aliases = Collections.unmodifiableList(result);
+        return this;
+    }
+
+    /**
+     * @param usage The usage of the command.
+     * @return The instance of the LazyParentCommand containing the modified data.
+     */
+    public LazyParentCommand setUsage(String usage) {
+        this.usage = usage;
+        return this;
+    }
+
+    /**
+     * Method used to set the priority the calls of the command are scheduled with until the command is built.
+     *
+     * @param priority The CommandPriority of the command.
+     * @return The instance of the LazyParentCommand containing the modified data.
+     */
+    public LazyParentCommand setPriority(@NotNull CommandPriority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * @return Whether or not the command was declared as a SlashCommand. Used when the command is registered.
+     */
+    public boolean isDeclaredSlashCommand() {
+        return slashCommand;
+    }
+
+    /**
+     * @return Whether or not the real command was already built.
+     */
+    public boolean isLoaded() {
+        return command != null;
+    }
+
+    /**
+     * Method used to obtain the real command, building it if this is the first request.
+     *
+     * @return The ParentCommand returned by the loader.
+     * @throws IllegalStateException if the loader does not return a ParentCommand with the name of the stub.
+     */
+    public ParentCommand getCommand() {
+        ParentCommand result = command;
+        if (result != null) return result;
+        synchronized (this) {
+            if (command == null) {
+                Command loaded = loader.get();
+                if (!(loaded instanceof ParentCommand) || !loaded.getName().equalsIgnoreCase(getName()))
+                    throw new IllegalStateException("The loader of the lazy command " + getName() + " did not return the ParentCommand " + getName() + ".");
+                command = (ParentCommand) loaded;
+            }
+            return command;
+        }
+    }
+
+    @Override
+    public List<String> getAliases() {
+        return aliases;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String getUsage() {
+        return usage;
+    }
+
+    @Override
+    public @NotNull CommandPriority getPriority() {
+        return priority;
+    }
+
+    @Override
+    public @NotNull Executor getExecutor() {
+        return getCommand().getExecutor();
+    }
+
+    @Override
+    public CustomPermission getRequiredPermission() {
+        return getCommand().getRequiredPermission();
+    }
+
+    @Override
+    public CircuitBreaker getCircuitBreaker() {
+        return getCommand().getCircuitBreaker();
+    }
+
+    @Override
+    public CommandTimeout getTimeout() {
+        return getCommand().getTimeout();
+    }
+
+    /**
+     * The sub-commands of a lazy command are not part of its registration data.
+     *
+     * @return An empty HashMap, whether or not the command was built.
+     */
+    @Override
+    public HashMap<String, Command> getSubCommands() {
+        return new HashMap<>();
+    }
+
+    /**
+     * The sub-commands of a lazy command are not part of its registration data.
+     *
+     * @return An empty Map, whether or not the command was built.
+     */
+    @Override
+    public Map<String, Command> getSubCommandView() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * @throws UnsupportedOperationException as the sub-commands are added by the loader.
+     */
+    @Override
+    public void addSubCommand(Command cmd) {
+        throw new UnsupportedOperationException("The sub-commands of the lazy command " + getName() + " are added by its loader.");
+    }
+
+    @Override
+    public Command getSubCommand(String name) {
+        return getCommand().getSubCommand(name);
+    }
+
+    @Override
+    public Command identifySubCommand(String key) {
+        return getCommand().identifySubCommand(key);
+    }
+
+    @Override
+    public void execute(Member memberExecutor, String[] args, Event executeEvent) {
+        getCommand().execute(memberExecutor, args, executeEvent);
+    }
+
+    /**
+     * The priority of a call is resolved without building the command: until the first call, the priority of the stub is used.
+     */
+    @Override
+    public CommandPriority resolvePriority(String[] args) {
+        ParentCommand result = command;
+        return result == null ? priority : result.resolvePriority(args);
+    }
+}
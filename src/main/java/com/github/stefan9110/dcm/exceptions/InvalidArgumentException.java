@@ -0,0 +1,33 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.exceptions;
+
+public class InvalidArgumentException extends RuntimeException {
+    private final String argument;
+
+    public InvalidArgumentException(String argument, String reason) {
+        super("Invalid argument `" + argument + "`: " + reason);
+        this.argument = argument;
+    }
+
+    /**
+     * @return The name of the invalid argument.
+     */
+    public String getArgument() {
+        return argument;
+    }
+}
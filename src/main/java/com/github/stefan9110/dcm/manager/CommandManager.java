@@ -18,75 +18,373 @@ package com.github.stefan9110.dcm.manager;
 
 import com.github.stefan9110.dcm.command.Command;
 import com.github.stefan9110.dcm.command.ParentCommand;
+import com.github.stefan9110.dcm.core.CommandRequest;
+import com.github.stefan9110.dcm.core.CommandRouter;
+import com.github.stefan9110.dcm.core.Route;
+import com.github.stefan9110.dcm.core.dispatch.DuplicateEventFilter;
+import com.github.stefan9110.dcm.core.dispatch.ResourceAccounting;
+import com.github.stefan9110.dcm.core.dispatch.ShardStatistics;
+import com.github.stefan9110.dcm.core.dispatch.ShedStatistics;
+import com.github.stefan9110.dcm.core.guild.GuildCommandToggles;
+import com.github.stefan9110.dcm.manager.audit.AuditLog;
+import com.github.stefan9110.dcm.manager.component.ComponentRouter;
+import com.github.stefan9110.dcm.manager.custom.CustomCommandStore;
+import com.github.stefan9110.dcm.manager.dispatch.CommandDispatcher;
+import com.github.stefan9110.dcm.manager.dispatch.CommandScheduler;
+import com.github.stefan9110.dcm.manager.dispatch.DispatchTask;
+import com.github.stefan9110.dcm.manager.dispatch.FairCommandScheduler;
+import com.github.stefan9110.dcm.manager.executor.reply.ResponseTemplate;
+import com.github.stefan9110.dcm.manager.executor.reply.TemplateContext;
+import com.github.stefan9110.dcm.manager.jfr.PrefixMatchEvent;
+import com.github.stefan9110.dcm.manager.jfr.RoutingEvent;
+import com.github.stefan9110.dcm.manager.session.Session;
+import com.github.stefan9110.dcm.manager.session.SessionStore;
+import com.github.stefan9110.dcm.manager.settings.GuildSettingsStore;
+import com.github.stefan9110.dcm.permission.DiscordPermission;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.interaction.ButtonClickEvent;
+import net.dv8tion.jda.api.events.interaction.GenericComponentInteractionCreateEvent;
+import net.dv8tion.jda.api.events.interaction.SelectionMenuEvent;
 import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
 import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Listener routing the messages and interactions of the bot to the registered commands.
+ * <p>
+ * A single CommandManager is supported per JVM, the one created by CommandManagerAPI: the command registry, the global no-permission
+ * message and the per-guild no-permission messages of DiscordPermission are static and shared by every manager.
+ */
 public class CommandManager extends ListenerAdapter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommandManager.class);
+    // Whether or not a manager installed its per-guild no-permission messages in DiscordPermission.
+    private static final AtomicBoolean noPermissionMessagesInstalled = new AtomicBoolean();
+
     private Guild registeredGuild;
     private final String commandPrefix;
+    private final ShedStatistics shedStatistics = new ShedStatistics();
+    private final ResourceAccounting resourceAccounting = new ResourceAccounting();
+    private final GuildCommandToggles commandToggles = new GuildCommandToggles();
+    private String disabledCommandMessage = "This command is disabled in this server.";
+    private volatile GuildSettingsStore settingsStore = new GuildSettingsStore();
+    private volatile CustomCommandStore customCommandStore;
+    private volatile AuditLog auditLog;
+    private volatile CommandDispatcher dispatcher;
+    private final JDA jda;
+    private final ShardManager shardManager;
+    private final Map<Integer, ShardStatistics> shardStatistics = new ConcurrentHashMap<>();
+    // Statistics of the single JDA instance, null when the manager is attached to a ShardManager.
+    private final ShardStatistics singleStatistics;
+    private final AtomicInteger syncedRegistryVersion = new AtomicInteger(-1);
+    private final ComponentRouter componentRouter = new ComponentRouter();
+    private final SessionStore sessionStore = new SessionStore();
+    private volatile CountDownLatch warmUpGate;
+    private final CommandRouter<ParentCommand> router = new CommandRouter<>(ParentCommand.getRegistry(), commandToggles,
+            new DuplicateEventFilter(65536, 10, TimeUnit.MINUTES));
+    // Maximum time a call may wait before being executed, in nanoseconds. SlashCommand interactions expire after 3 seconds.
+    private long slashDeadline = TimeUnit.MILLISECONDS.toNanos(2500), messageDeadline = TimeUnit.SECONDS.toNanos(10);
 
     public CommandManager(JDA jda, String commandPrefix) {
+        this.commandPrefix = commandPrefix;
+        this.jda = jda;
+        this.shardManager = null;
+        this.singleStatistics = getShardStatistics(0);
+        this.dispatcher = new CommandDispatcher(Runtime.getRuntime().availableProcessors(), new FairCommandScheduler(), shedStatistics,
+                resourceAccounting);
+        installNoPermissionMessages();
         jda.addEventListener(this);
+    }
+
+    /**
+     * Constructor used to attach the manager to every shard of a ShardManager, including the shards started later.
+     * Every shard receives its own listener and its own ShardStatistics, while the commands, settings and dispatcher are shared.
+     *
+     * @param shardManager  The ShardManager of the bot.
+     * @param commandPrefix The global command prefix.
+     */
+    public CommandManager(ShardManager shardManager, String commandPrefix) {
         this.commandPrefix = commandPrefix;
+        this.jda = null;
+        this.shardManager = shardManager;
+        this.singleStatistics = null;
+        this.dispatcher = new CommandDispatcher(Runtime.getRuntime().availableProcessors(), new FairCommandScheduler(), shedStatistics,
+                resourceAccounting);
+        installNoPermissionMessages();
+        shardManager.addEventListeners(shardId -> new ShardListener(this, getShardStatistics(shardId)));
+    }
+
+    /* The per-guild no permission messages are read from the settings store of the manager, including the stores set later.
+     * DiscordPermission holds a single lookup: the last manager created wins. */
+    private void installNoPermissionMessages() {
+        if (!noPermissionMessagesInstalled.compareAndSet(false, true))
+            LOGGER.warn("A second CommandManager was created, the per-guild no-permission messages are now read from its settings.");
+        DiscordPermission.setGuildNoPermissionMessages(guildId -> settingsStore.get(guildId).getNoPermissionTemplate());
     }
 
     /* Message method of calling a command through the commandPrefix String */
     @Override
     public void onGuildMessageReceived(@Nonnull GuildMessageReceivedEvent e) {
+        onGuildMessageReceived(e, singleStatistics);
+        super.onGuildMessageReceived(e);
+    }
+
+    /* SlashCommand implementation method of calling a command */
+    @Override
+    public void onSlashCommand(@Nonnull SlashCommandEvent e) {
+        onSlashCommand(e, singleStatistics);
+        super.onSlashCommand(e);
+    }
+
+    @Override
+    public void onButtonClick(@Nonnull ButtonClickEvent e) {
+        onButtonClick(e, singleStatistics);
+        super.onButtonClick(e);
+    }
+
+    @Override
+    public void onSelectionMenu(@Nonnull SelectionMenuEvent e) {
+        onSelectionMenu(e, singleStatistics);
+        super.onSelectionMenu(e);
+    }
+
+    // Message calls received by any shard, recorded in the statistics of the shard.
+    void onGuildMessageReceived(GuildMessageReceivedEvent e, ShardStatistics statistics) {
         // If the command is not called in the registered guild we don't want to run the command.
         if (registeredGuild != null && !registeredGuild.getId().equals(e.getGuild().getId())) return;
         // If the member is null (mostly WebHook cases) or the member is a bot we don't want to run the command.
         if (e.getMember() == null || e.getMember().getUser().isBot()) return;
-
-        // Checking if the call message starts with the command prefix in order to differentiate between normal message and command calls.
-        if (!e.getMessage().getContentDisplay().toLowerCase().startsWith(commandPrefix)) return;
+        awaitWarmUp();
 
         // Building the command hierarchy from the initial message
-        String message = e.getMessage().getContentDisplay().substring(commandPrefix.length());
-        String[] messageFormatted = message.split(" ");
-
-        // Special case: if the call message only contained the command prefix we do not validate the call.
-        if (message.equals("")) return;
-
-        // Calling the Executor of the command
-        ParentCommand cmd = ParentCommand.getParentIncludingAliases(messageFormatted[0]);
-        /*
-            Make sure that the command with the name identifier given exists and checking if the command is not a SlashCommand type.
-            We are treating message-called commands and slash-commands separately for the time being, it is possible that in the future
-            we will make all slash-commands accessible through legacy message calls.
-         */
-        if (cmd != null && !cmd.isSlashCommand())
-            cmd.execute(e.getMember(), (messageFormatted.length == 1 ? new String[0] : Arrays.copyOfRange(messageFormatted, 1, messageFormatted.length)), e);
+        PrefixMatchEvent prefixEvent = new PrefixMatchEvent();
+        prefixEvent.begin();
+        String[] messageFormatted = CommandRouter.tokenize(e.getMessage().getContentDisplay(), getPrefix(e.getGuild().getIdLong()));
+        boolean matched = messageFormatted != null && messageFormatted.length > 0;
+        prefixEvent.setMatched(matched).complete(matched ? messageFormatted[0] : null, e.getGuild().getIdLong());
+        if (messageFormatted == null) {
+            // Messages that are not command calls may be the answer expected by a multi-step command.
+            Session session = sessionStore.get(e.getGuild().getIdLong(), e.getChannel().getIdLong(), e.getAuthor().getIdLong());
+            if (session != null && router.markSeen(e.getMessageIdLong())) {
+                statistics.recordComponent();
+                if (!dispatcher.execute(e.getAuthor().getIdLong(), () -> sessionStore.handleMessage(session, e)))
+                    statistics.recordShed();
+            }
+            return;
+        }
 
-        super.onGuildMessageReceived(e);
+        CommandRequest request = CommandRequest.message(e.getGuild().getIdLong(), e.getMessageIdLong(), messageFormatted, System.nanoTime());
+        Route<ParentCommand> route = route(request, statistics);
+        if (route.getResult() == Route.Result.ROUTED) {
+            if (dispatcher.submit(new DispatchTask(route.getCommand(), e.getMember(), request.getArgs(), e, request.getReceivedAt(),
+                    request.getReceivedAt() + messageDeadline, statistics)))
+                audit(request, e.getChannel().getIdLong(), e.getAuthor().getIdLong(), false);
+        } else if (route.getResult() == Route.Result.NOT_FOUND) {
+            // The custom commands of the guild are only checked after the registered commands missed.
+            CustomCommandStore store = customCommandStore;
+            if (store != null && store.hasCommands(request.getGuildId()) && router.markSeen(request.getEventId()))
+                dispatchCustomCommand(store, request, e, statistics);
+        }
     }
 
-    /* SlashCommand implementation method of calling a command */
-    @Override
-    public void onSlashCommand(@Nonnull SlashCommandEvent e) {
+    // The commands of the guild may have to be read from the disk, the lookup runs on the callback lanes of the dispatcher.
+    private void dispatchCustomCommand(CustomCommandStore store, CommandRequest request, GuildMessageReceivedEvent e,
+                                       ShardStatistics statistics) {
+        boolean accepted = dispatcher.execute(e.getAuthor().getIdLong(), () -> {
+            ResponseTemplate custom = store.find(request.getGuildId(), request.getName());
+            if (custom == null) return;
+            e.getChannel().sendMessage(custom.render(TemplateContext.of(e.getMember(), e.getChannel(), request.getArgs()))).queue();
+            audit(request, e.getChannel().getIdLong(), e.getAuthor().getIdLong(), false);
+        });
+        if (!accepted) statistics.recordShed();
+    }
+
+    // SlashCommand calls received by any shard, recorded in the statistics of the shard.
+    void onSlashCommand(SlashCommandEvent e, ShardStatistics statistics) {
         // If the command is not called in the registered guild we don't want to run the command.
         if (e.getGuild() == null || (registeredGuild != null && !registeredGuild.getId().equals(e.getGuild().getId())))
             return;
+        awaitWarmUp();
+        long receivedAt = System.nanoTime();
 
         // Registering all the arguments from the SlashCommand implementation
         List<String> args = new ArrayList<>();
         if (e.getSubcommandName() != null) args.add(e.getSubcommandName());
         e.getOptions().forEach(option -> args.add(option.getAsString()));
 
+        CommandRequest request = CommandRequest.slash(e.getGuild().getIdLong(), e.getIdLong(), e.getName(), args.toArray(new String[0]), receivedAt);
+        Route<ParentCommand> route = route(request, statistics);
+        if (route.getResult() == Route.Result.DISABLED) e.reply(disabledCommandMessage).setEphemeral(true).queue();
+        if (route.getResult() != Route.Result.ROUTED) return;
+
         // Calling the top of the hierarchy ParentCommand found at the SlashCommand name with the build arguments.
-        ParentCommand.getParentCommand(e.getName().toLowerCase()).execute(e.getMember(),
-                !args.isEmpty() ? args.toArray(new String[0]) : new String[0], e);
-        super.onSlashCommand(e);
+        if (dispatcher.submit(new DispatchTask(route.getCommand(), e.getMember(), request.getArgs(), e, receivedAt, receivedAt + slashDeadline,
+                statistics)))
+            audit(request, e.getChannel().getIdLong(), e.getUser().getIdLong(), true);
+    }
+
+    // Admitted calls are copied to the audit log, if any. The audit log never blocks the event thread.
+    private void audit(CommandRequest request, long channelId, long userId, boolean slashCommand) {
+        AuditLog log = auditLog;
+        if (log != null) log.record(request.getGuildId(), channelId, userId, slashCommand, request.getName(), request.getArgs());
+    }
+
+    private Route<ParentCommand> route(CommandRequest request, ShardStatistics statistics) {
+        RoutingEvent routingEvent = new RoutingEvent();
+        routingEvent.begin();
+        Route<ParentCommand> route = router.route(request, statistics);
+        routingEvent.setResult(route.getResult().name()).complete(request.getName(), request.getGuildId());
+        return route;
+    }
+
+    // Button clicks received by any shard. Clicks that do not match a registered handler are left to the other listeners.
+    void onButtonClick(ButtonClickEvent e, ShardStatistics statistics) {
+        ComponentRouter.Registration<ButtonClickEvent> registration = componentRouter.findButton(e.getComponentId());
+        if (registration == null) routeToSession(e, statistics);
+        else if (acceptComponent(e, registration)) dispatchComponent(e, statistics, () -> componentRouter.handle(registration, e));
+    }
+
+    // Selection menu interactions received by any shard.
+    void onSelectionMenu(SelectionMenuEvent e, ShardStatistics statistics) {
+        ComponentRouter.Registration<SelectionMenuEvent> registration = componentRouter.findSelectionMenu(e.getComponentId());
+        if (registration == null) routeToSession(e, statistics);
+        else if (acceptComponent(e, registration)) dispatchComponent(e, statistics, () -> componentRouter.handle(registration, e));
+    }
+
+    /* Handlers may render pages or call external services: they run on the callback lanes of the dispatcher instead of the event
+     * thread, in order per user. Interactions that cannot be queued are answered with the busy message, unless another listener
+     * already acknowledged them. */
+    private void dispatchComponent(GenericComponentInteractionCreateEvent e, ShardStatistics statistics, Runnable handler) {
+        statistics.recordComponent();
+        CommandDispatcher current = dispatcher;
+        if (current.execute(e.getUser().getIdLong(), handler)) return;
+        statistics.recordShed();
+        if (!e.isAcknowledged()) e.reply(current.getBusyMessage()).setEphemeral(true).queue();
+    }
+
+    // Components follow the guild restriction and the per-guild toggles of the command that created them.
+    private boolean acceptComponent(GenericComponentInteractionCreateEvent e, ComponentRouter.Registration<?> registration) {
+        if (e.getGuild() == null || (registeredGuild != null && !registeredGuild.getId().equals(e.getGuild().getId()))) return false;
+        awaitWarmUp();
+        if (!router.markSeen(e.getIdLong())) return false;
+        if (registration.getOwner() instanceof ParentCommand) {
+            ParentCommand owner = (ParentCommand) registration.getOwner();
+            if (owner.getIndex() >= 0 && commandToggles.isDisabled(e.getGuild().getIdLong(), owner.getIndex())) {
+                e.reply(disabledCommandMessage).setEphemeral(true).queue();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Components without a registered handler are offered to the session of the user, if any.
+    private void routeToSession(GenericComponentInteractionCreateEvent e, ShardStatistics statistics) {
+        if (e.getGuild() == null || (registeredGuild != null && !registeredGuild.getId().equals(e.getGuild().getId()))) return;
+        Session session = sessionStore.get(e.getGuild().getIdLong(), e.getChannel().getIdLong(), e.getUser().getIdLong());
+        if (session == null) return;
+        awaitWarmUp();
+        if (router.markSeen(e.getIdLong())) dispatchComponent(e, statistics, () -> sessionStore.handleComponent(session, e));
+    }
+
+    public ComponentRouter getComponentRouter() {
+        return componentRouter;
+    }
+
+    public SessionStore getSessionStore() {
+        return sessionStore;
+    }
+
+    /**
+     * Method used to obtain the command prefix used in a guild.
+     *
+     * @param guildId The ID of the guild.
+     * @return The lowercase prefix of the guild or the global prefix if the guild did not set one.
+     */
+    public String getPrefix(long guildId) {
+        // Guilds may use their own prefix instead of the global one.
+        String prefix = settingsStore.getPrefix(guildId);
+        return prefix == null ? commandPrefix : prefix;
+    }
+
+    /**
+     * Method used to run the synthetic calls of a CommandWarmUp through the routing of the manager.
+     * Events received in the meantime wait until the warm-up is finished.
+     *
+     * @param iterations  The maximum number of times every synthetic call is routed.
+     * @param maxDuration The maximum duration of the warm-up, in nanoseconds.
+     * @return The number of iterations executed.
+     */
+    public int warmUp(int iterations, long maxDuration) {
+        CountDownLatch gate = new CountDownLatch(1);
+        warmUpGate = gate;
+        try {
+            return new CommandWarmUp(this, dispatcher.getScheduler()).run(iterations, maxDuration);
+        } finally {
+            warmUpGate = null;
+            gate.countDown();
+        }
+    }
+
+    // Events received while a warm-up is running wait for it to finish.
+    private void awaitWarmUp() {
+        CountDownLatch gate = warmUpGate;
+        if (gate == null) return;
+        try {
+            gate.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Method used to obtain the statistics of a shard. The manager attached to a single JDA instance records its calls as shard 0.
+     *
+     * @param shardId The ID of the shard.
+     * @return The ShardStatistics of the shard, created if the shard did not receive any call yet.
+     */
+    public ShardStatistics getShardStatistics(int shardId) {
+        return shardStatistics.computeIfAbsent(shardId, ShardStatistics::new);
+    }
+
+    /**
+     * @return The statistics of every shard the manager is attached to, mapped by the shard ID.
+     */
+    public Map<Integer, ShardStatistics> getShardStatistics() {
+        return Collections.unmodifiableMap(new TreeMap<>(shardStatistics));
+    }
+
+    /**
+     * Method used to send the SlashCommand data of the registered commands to Discord as global commands.
+     * Global commands are shared by every shard: the data is only sent once, through a single shard, and sent again only if commands
+     * were registered since the last update.
+     *
+     * @return Whether or not the data was sent. The data is not sent while no shard of the ShardManager is available.
+     */
+    public boolean updateGlobalSlashCommands() {
+        // Shards are only cached once they were started: before the login or during a restart there may be none.
+        JDA target = jda != null ? jda : shardManager.getShards().stream().findFirst().orElse(null);
+        if (target == null) return false;
+        int version = ParentCommand.getRegistry().getVersion();
+        if (syncedRegistryVersion.getAndSet(version) == version) return false;
+        target.updateCommands().addCommands(getSlashCommands()).queue();
+        return true;
     }
 
     // Method used to obtain the SlashCommand implementation data from a given ParentCommand
@@ -94,14 +392,15 @@ public class CommandManager extends ListenerAdapter {
         CommandData cmdData = new CommandData(parent.getName(), (parent.getDescription() == null ? parent.getName() : parent.getDescription()));
 
         // If the command doesn't have any sub-commands we will add its own CommandArgument data in the SlashCommand implementation
-        if (parent.getSubCommands().isEmpty()) {
+        Map<String, Command> subCommands = parent.getSubCommandView();
+        if (subCommands.isEmpty()) {
             parent.getArguments().forEach(arg -> cmdData.addOption(arg.getType(), arg.getName(), arg.getDescription(), arg.isRequired()));
             return cmdData;
         }
 
         // Obtaining the SlashCommand implementation data from the sub-commands of the ParentCommand given.
         List<SubcommandData> subCommandData = new ArrayList<>();
-        for (Command sb : parent.getSubCommands().values()) {
+        for (Command sb : subCommands.values()) {
             SubcommandData sbData = new SubcommandData(sb.getName(), sb.getDescription());
             sb.getArguments().forEach(arg -> sbData.addOption(arg.getType(), arg.getName(), arg.getDescription(), arg.isRequired()));
             subCommandData.add(sbData);
@@ -116,6 +415,87 @@ public class CommandManager extends ListenerAdapter {
         registeredGuild = guild;
     }
 
+    /**
+     * Method used to replace the CommandDispatcher with one running the given number of worker threads.
+     * Calls already admitted by the previous dispatcher are executed by the new one, the previous workers stop once their current
+     * call ends.
+     *
+     * @param threads The number of worker threads.
+     */
+    public void setDispatchThreads(int threads) {
+        replaceDispatcher(threads, dispatcher.getScheduler());
+    }
+
+    /**
+     * Method used to replace the CommandScheduler deciding the execution order of the admitted calls.
+     * Calls already admitted through the previous scheduler are moved to the new one and still executed.
+     *
+     * @param scheduler The new CommandScheduler.
+     */
+    public void setScheduler(CommandScheduler scheduler) {
+        replaceDispatcher(dispatcher.getThreadCount(), scheduler);
+    }
+
+    private synchronized void replaceDispatcher(int threads, CommandScheduler scheduler) {
+        CommandDispatcher previous = dispatcher;
+        dispatcher = new CommandDispatcher(threads, scheduler, shedStatistics, resourceAccounting);
+        dispatcher.setMaxQueueDepth(previous.getMaxQueueDepth());
+        dispatcher.setBusyMessage(previous.getBusyMessage());
+        dispatcher.setStallThreshold(previous.getStallThreshold(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        // The workers of the previous dispatcher stop, so that they do not keep polling a scheduler shared with the new dispatcher.
+        previous.handOff(dispatcher);
+    }
+
+    /**
+     * Method used to set the maximum time calls may wait before being executed.
+     * Calls that cannot be executed before their deadline are dropped.
+     *
+     * @param slashDeadline   The deadline of SlashCommand calls, in milliseconds. Should stay below the 3 seconds interaction limit.
+     * @param messageDeadline The deadline of message calls, in milliseconds.
+     */
+    public void setDeadlines(long slashDeadline, long messageDeadline) {
+        this.slashDeadline = TimeUnit.MILLISECONDS.toNanos(slashDeadline);
+        this.messageDeadline = TimeUnit.MILLISECONDS.toNanos(messageDeadline);
+    }
+
+    /**
+     * Method used to replace the filter of redelivered messages and interactions.
+     *
+     * @param capacity     The minimum number of event IDs remembered.
+     * @param windowMillis The time event IDs are remembered for, in milliseconds.
+     */
+    public void setDuplicateEventWindow(int capacity, long windowMillis) {
+        router.setDuplicateFilter(new DuplicateEventFilter(capacity, windowMillis, TimeUnit.MILLISECONDS));
+    }
+
+    public CommandDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public ShedStatistics getShedStatistics() {
+        return shedStatistics;
+    }
+
+    /**
+     * Method used to set the AuditLog the admitted command calls are recorded in.
+     *
+     * @param auditLog The AuditLog or null to stop recording the calls. The previous AuditLog is not closed.
+     */
+    public void setAuditLog(AuditLog auditLog) {
+        this.auditLog = auditLog;
+    }
+
+    public AuditLog getAuditLog() {
+        return auditLog;
+    }
+
+    /**
+     * @return The ResourceAccounting measuring the CPU time and allocations of the executed calls. It is disabled by default.
+     */
+    public ResourceAccounting getResourceAccounting() {
+        return resourceAccounting;
+    }
+
     /**
      * Method used to obtain all the SlashCommand implementation CommandData of the
      * top of the hierarchy ParentCommands registered in the cache.
@@ -129,4 +509,66 @@ public class CommandManager extends ListenerAdapter {
         });
         return slashCommandsList;
     }
+
+    /**
+     * Method used to obtain the SlashCommand implementation CommandData of the top of the hierarchy ParentCommands
+     * that are not disabled in the given guild.
+     *
+     * @param guildId The ID of the guild the data is sent to.
+     * @return List of CommandData to be sent to the Discord API through JDA.
+     */
+    public List<CommandData> getSlashCommands(long guildId) {
+        List<CommandData> slashCommandsList = new ArrayList<>();
+        ParentCommand.getParentCommands().forEach(cmd -> {
+            if (cmd.isSlashCommand() && !commandToggles.isDisabled(guildId, cmd.getIndex())) slashCommandsList.add(getCommandData(cmd));
+        });
+        return slashCommandsList;
+    }
+
+    /**
+     * Method used to replace the store of the per-guild settings.
+     * The commands disabled in the stored settings are disabled in the CommandToggles of the manager.
+     *
+     * @param store The new GuildSettingsStore.
+     */
+    public void setSettingsStore(GuildSettingsStore store) {
+        settingsStore = store;
+        store.forEach((guildId, settings) -> settings.getDisabledCommands().forEach(name -> {
+            ParentCommand command = ParentCommand.getParentCommand(name);
+            if (command != null) commandToggles.setDisabled(guildId, command.getIndex(), true);
+        }));
+    }
+
+    /**
+     * Method called after a ParentCommand is registered as top of the hierarchy.
+     * Applies the stored per-guild toggles of the command.
+     *
+     * @param command The registered ParentCommand.
+     */
+    public void onCommandRegistered(ParentCommand command) {
+        settingsStore.forEach((guildId, settings) -> {
+            if (settings.getDisabledCommands().contains(command.getName()))
+                commandToggles.setDisabled(guildId, command.getIndex(), true);
+        });
+    }
+
+    public void setCustomCommandStore(CustomCommandStore store) {
+        customCommandStore = store;
+    }
+
+    public CustomCommandStore getCustomCommandStore() {
+        return customCommandStore;
+    }
+
+    public GuildSettingsStore getSettingsStore() {
+        return settingsStore;
+    }
+
+    public GuildCommandToggles getCommandToggles() {
+        return commandToggles;
+    }
+
+    public void setDisabledCommandMessage(String disabledCommandMessage) {
+        this.disabledCommandMessage = disabledCommandMessage;
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager;
+
+import com.github.stefan9110.dcm.command.Command;
+import com.github.stefan9110.dcm.command.ParentCommand;
+import com.github.stefan9110.dcm.command.SubCommand;
+import com.github.stefan9110.dcm.command.lazy.LazyParentCommand;
+import com.github.stefan9110.dcm.core.CommandRequest;
+import com.github.stefan9110.dcm.core.CommandRouter;
+import com.github.stefan9110.dcm.core.Route;
+import com.github.stefan9110.dcm.core.dispatch.DuplicateEventFilter;
+import com.github.stefan9110.dcm.core.dispatch.ShardStatistics;
+import com.github.stefan9110.dcm.manager.dispatch.*;
+import com.github.stefan9110.dcm.permission.CustomPermission;
+import com.github.stefan9110.dcm.permission.DiscordPermission;
+import net.dv8tion.jda.api.events.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warm-up of the call path of a CommandManager, run before the manager handles real events so that the JIT compiles the routing
+ * code before the first users call the commands.
+ * <p>
+ * Synthetic message and SlashCommand calls are built from the registered commands and pushed through the real tokenizing, command
+ * lookup, toggles, priority resolution, duplicate filtering, scheduling and no-permission message code. Executors are never called,
+ * nothing is sent to Discord and lazy commands are not built. The permissions themselves are not checked, as that requires a Member.
+ * The duplicate filter and the scheduler used are private instances, so the state of the manager is not changed.
+ */
+class CommandWarmUp {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommandWarmUp.class);
+    // Synthetic guild IDs, used for the per-guild prefix and toggle lookups.
+    private static final long[] GUILD_IDS = {1, 2, 3, 4, 5, 6, 7, 8};
+
+    private final CommandManager manager;
+    private final CommandScheduler scheduler;
+    private final CommandRouter<ParentCommand> router;
+    private final ShardStatistics statistics = new ShardStatistics(0);
+    private final List<String> messageCalls = new ArrayList<>();
+    private final List<String[]> slashCalls = new ArrayList<>();
+    private final List<CustomPermission> permissions = new ArrayList<>();
+    private final Event event = new Event(null, 0) {
+    };
+    private long nextId = 1;
+    // Results of the synthetic calls are accumulated so that the JIT cannot remove the warmed up code.
+    private long sink;
+
+    CommandWarmUp(CommandManager manager, CommandScheduler managerScheduler) {
+        this.manager = manager;
+        this.router = new CommandRouter<>(ParentCommand.getRegistry(), manager.getCommandToggles(), new DuplicateEventFilter(4096, 1, TimeUnit.MINUTES));
+        this.scheduler = managerScheduler instanceof FairCommandScheduler ? new FairCommandScheduler() : new FifoCommandScheduler();
+        for (ParentCommand command : ParentCommand.getParentCommands()) collect(command);
+        // Messages that only contain the prefix or that do not call a registered command.
+        messageCalls.add("");
+        messageCalls.add("hello there");
+    }
+
+    // Method used to build the synthetic calls of a top of the hierarchy command.
+    private void collect(ParentCommand command) {
+        List<String> names = new ArrayList<>(command.getAliases());
+        names.add(command.getName());
+        List<String> paths = new ArrayList<>();
+        paths.add("");
+        command.getSubCommandView().forEach((name, sub) -> {
+            paths.add(name);
+            if (sub instanceof ParentCommand)
+                ((ParentCommand) sub).getSubCommandView().keySet().forEach(child -> paths.add(name + " " + child));
+        });
+
+        for (String path : paths) {
+            String[] args = path.isEmpty() ? new String[]{"argument"} : (path + " argument").split(" ");
+            if (command.isSlashCommand()) {
+                String[] call = new String[args.length + 1];
+                call[0] = command.getName();
+                System.arraycopy(args, 0, call, 1, args.length);
+                slashCalls.add(call);
+            } else for (String name : names) messageCalls.add(name + " " + String.join(" ", args));
+        }
+        if (!(command instanceof LazyParentCommand) || ((LazyParentCommand) command).isLoaded()) collectPermissions(command);
+    }
+
+    private void collectPermissions(Command command) {
+        CustomPermission permission = command instanceof ParentCommand ? ((ParentCommand) command).getRequiredPermission()
+                : command instanceof SubCommand ? ((SubCommand) command).getRequiredPermission() : null;
+        // Only the permissions implemented by the library are used, custom implementations may run code of the bot.
+        if (permission instanceof DiscordPermission && !permissions.contains(permission)) permissions.add(permission);
+        if (command instanceof ParentCommand) ((ParentCommand) command).getSubCommandView().values().forEach(this::collectPermissions);
+    }
+
+    /**
+     * Method used to route the synthetic calls until the given number of iterations is reached or the time runs out.
+     *
+     * @param iterations  The maximum number of iterations.
+     * @param maxDuration The maximum duration of the warm-up, in nanoseconds.
+     * @return The number of iterations executed.
+     */
+    int run(int iterations, long maxDuration) {
+        long start = System.nanoTime();
+        int iteration = 0;
+        while (iteration < iterations && System.nanoTime() - start < maxDuration) {
+            long guildId = GUILD_IDS[iteration & (GUILD_IDS.length - 1)];
+            for (String call : messageCalls) message(guildId, call);
+            // Messages that do not start with the prefix.
+            if (CommandRouter.tokenize("hello there", manager.getPrefix(guildId)) != null) sink++;
+            for (String[] call : slashCalls) slash(guildId, call);
+            for (CustomPermission permission : permissions) sink += permission.noPermissionMessage(null).length();
+            iteration++;
+        }
+        LOGGER.info("Command warm-up finished after {} iterations in {} ms ({} message calls, {} slash calls).", iteration,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), messageCalls.size(), slashCalls.size());
+        return iteration;
+    }
+
+    // Same steps as CommandManager#onGuildMessageReceived(), the task is scheduled and polled instead of being executed.
+    private void message(long guildId, String content) {
+        String prefix = manager.getPrefix(guildId);
+        String[] messageFormatted = CommandRouter.tokenize(prefix + content, prefix);
+        if (messageFormatted == null) return;
+        CommandRequest request = CommandRequest.message(guildId, nextId++, messageFormatted, System.nanoTime());
+        Route<ParentCommand> route = router.route(request, statistics);
+        if (route.getResult() == Route.Result.ROUTED)
+            schedule(new DispatchTask(route.getCommand(), null, request.getArgs(), event, request.getReceivedAt(), request.getReceivedAt()));
+    }
+
+    // Same steps as CommandManager#onSlashCommand().
+    private void slash(long guildId, String[] call) {
+        long receivedAt = System.nanoTime();
+        List<String> args = new ArrayList<>(Arrays.asList(call).subList(1, call.length));
+        CommandRequest request = CommandRequest.slash(guildId, nextId++, call[0], args.toArray(new String[0]), receivedAt);
+        Route<ParentCommand> route = router.route(request, statistics);
+        if (route.getResult() == Route.Result.ROUTED)
+            schedule(new DispatchTask(route.getCommand(), null, request.getArgs(), event, receivedAt, receivedAt));
+    }
+
+    private void schedule(DispatchTask task) {
+        scheduler.add(task);
+        try {
+            DispatchTask polled = scheduler.poll(0, TimeUnit.NANOSECONDS);
+            if (polled != null) sink += polled.getPriority().ordinal() + polled.getArgs().length;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager;
+
+import com.github.stefan9110.dcm.core.dispatch.ShardStatistics;
+import net.dv8tion.jda.api.events.interaction.ButtonClickEvent;
+import net.dv8tion.jda.api.events.interaction.SelectionMenuEvent;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Listener attached to a single shard of a ShardManager. It forwards the calls to the shared CommandManager together with the
+ * statistics of its shard, so the shards only share the immutable command registry and the dispatcher.
+ */
+class ShardListener extends ListenerAdapter {
+    private final CommandManager manager;
+    private final ShardStatistics statistics;
+
+    ShardListener(CommandManager manager, ShardStatistics statistics) {
+        this.manager = manager;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void onGuildMessageReceived(@Nonnull GuildMessageReceivedEvent e) {
+        manager.onGuildMessageReceived(e, statistics);
+    }
+
+    @Override
+    public void onSlashCommand(@Nonnull SlashCommandEvent e) {
+        manager.onSlashCommand(e, statistics);
+    }
+
+    @Override
+    public void onButtonClick(@Nonnull ButtonClickEvent e) {
+        manager.onButtonClick(e, statistics);
+    }
+
+    @Override
+    public void onSelectionMenu(@Nonnull SelectionMenuEvent e) {
+        manager.onSelectionMenu(e, statistics);
+    }
+}
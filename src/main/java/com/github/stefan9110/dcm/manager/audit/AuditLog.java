@@ -0,0 +1,193 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.audit;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Durable record of the command calls admitted by the manager: who called which command, in which guild and channel.
+ * <p>
+ * Recording a call only copies it into a pre-allocated lock-free ring buffer and never waits for I/O. A background thread drains
+ * the buffer in batches into memory-mapped segment files, forcing them to the storage at the flush interval. Full segments are
+ * followed by new ones and the oldest segments are deleted once the configured number of segments is reached.
+ * <p>
+ * Overflow policy: when the buffer is full the new entry is dropped and counted, the calling thread is never blocked.
+ * The writer then adds a DROPPED record holding the number of lost entries, so gaps are visible in the log itself.
+ * <p>
+ * Write failures are logged and retried with a growing delay, up to 30 seconds. Once the log is closed the remaining entries are
+ * retried three times at most, after which they are given up so that closing the log never hangs on a broken storage.
+ * The log can be read through AuditLogReader or exported through AuditLogExporter.
+ */
+public class AuditLog implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuditLog.class);
+    /**
+     * Flag of the entries recorded for SlashCommand calls.
+     */
+    public static final byte FLAG_SLASH_COMMAND = 1;
+    private static final int BATCH_SIZE = 256, CLOSE_ATTEMPTS = 3;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100), MIN_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1),
+            MAX_RETRY_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final AuditRingBuffer buffer;
+    private final AuditSegmentWriter writer;
+    private final long flushIntervalNanos;
+    private final LongAdder written = new LongAdder();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    // Set by the writer while it parks with an empty buffer, so that the producers only wake it up when needed.
+    private volatile boolean idle;
+
+    /**
+     * Creates an audit log with a buffer of 16384 entries, 64 MiB segments, at most 32 segments and a flush every second.
+     *
+     * @param directory The directory of the segment files.
+     * @throws IOException if the first segment cannot be created.
+     */
+    public AuditLog(@NotNull Path directory) throws IOException {
+        this(directory, 16384, 256, 64 << 20, 32, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param directory      The directory of the segment files.
+     * @param bufferCapacity The number of entries the buffer holds, rounded up to a power of two.
+     * @param maxTextBytes   The maximum number of UTF-8 bytes of the command and arguments of an entry, longer calls are truncated.
+     * @param segmentSize    The size of a segment file in bytes.
+     * @param maxSegments    The number of segment files kept. Zero or less keeps every segment.
+     * @param flushInterval  The maximum time written entries stay in memory before being forced to the storage.
+     * @param unit           The TimeUnit of the flush interval.
+     * @throws IOException if the first segment cannot be created.
+     */
+    public AuditLog(@NotNull Path directory, int bufferCapacity, int maxTextBytes, int segmentSize, int maxSegments,
+                    long flushInterval, @NotNull TimeUnit unit) throws IOException {
+        if (maxTextBytes < 1 || maxTextBytes > 0xFFFF) throw new IllegalArgumentException("maxTextBytes must be between 1 and 65535");
+        if (segmentSize < AuditSegmentWriter.HEADER_SIZE + AuditSegmentWriter.INVOCATION_SIZE + maxTextBytes)
+            throw new IllegalArgumentException("The segments are too small to hold an entry.");
+        buffer = new AuditRingBuffer(bufferCapacity, maxTextBytes);
+        writer = new AuditSegmentWriter(directory, segmentSize, maxSegments);
+        flushIntervalNanos = unit.toNanos(flushInterval);
+        writerThread = new Thread(this::write, "DCM-Audit-Writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Method used to record a command call. Never blocks: if the buffer is full the call is dropped and counted.
+     *
+     * @param guildId      The ID of the guild the call was made in.
+     * @param channelId    The ID of the channel the call was made in.
+     * @param userId       The ID of the user that made the call.
+     * @param slashCommand Whether or not the call was made through a SlashCommand.
+     * @param name         The name of the called command.
+     * @param args         The arguments of the call, may be null.
+     * @return Whether or not the call was recorded.
+     */
+    public boolean record(long guildId, long channelId, long userId, boolean slashCommand, @NotNull String name, String[] args) {
+        if (!running) return false;
+        boolean recorded = buffer.offer(System.currentTimeMillis(), guildId, channelId, userId, slashCommand ? FLAG_SLASH_COMMAND : 0,
+                name, args);
+        if (recorded && idle) LockSupport.unpark(writerThread);
+        return recorded;
+    }
+
+    private void write() {
+        long lastFlush = System.nanoTime(), reportedDrops = 0, retryDelay = MIN_RETRY_NANOS;
+        int closeFailures = 0;
+        boolean dirty = false;
+        while (running || !buffer.isEmpty()) {
+            try {
+                int count = buffer.drainTo(writer, BATCH_SIZE);
+                long drops = buffer.getDropped();
+                if (drops != reportedDrops) {
+                    writer.writeDropped(System.currentTimeMillis(), drops - reportedDrops);
+                    reportedDrops = drops;
+                    dirty = true;
+                }
+                if (count > 0) {
+                    written.add(count);
+                    dirty = true;
+                }
+
+                long now = System.nanoTime();
+                if (dirty && now - lastFlush >= flushIntervalNanos) {
+                    writer.flush();
+                    dirty = false;
+                    lastFlush = now;
+                }
+                retryDelay = MIN_RETRY_NANOS;
+                if (count == 0) {
+                    // Parked until a producer records an entry, or until the next flush is due.
+                    idle = true;
+                    if (running && buffer.isEmpty())
+                        LockSupport.parkNanos(this, dirty ? Math.max(0, flushIntervalNanos - (now - lastFlush)) : IDLE_PARK_NANOS);
+                    idle = false;
+                }
+            } catch (IOException | RuntimeException e) {
+                if (!running && ++closeFailures >= CLOSE_ATTEMPTS) {
+                    int lost = buffer.discard();
+                    LOGGER.error("Could not write the audit log while closing it, " + lost + " entries were lost", e);
+                    return;
+                }
+                // The entry that failed is kept in the buffer and written again; new entries are dropped once the buffer is full.
+                LOGGER.error("Could not write the audit log, retrying in " + TimeUnit.NANOSECONDS.toSeconds(retryDelay) + " seconds", e);
+                LockSupport.parkNanos(this, running ? retryDelay : MIN_RETRY_NANOS);
+                retryDelay = Math.min(MAX_RETRY_NANOS, retryDelay * 2);
+            }
+        }
+    }
+
+    /**
+     * @return The number of entries written to the segment files.
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * @return The number of entries dropped because the buffer was full.
+     */
+    public long getDroppedCount() {
+        return buffer.getDropped();
+    }
+
+    /**
+     * Stops recording calls, writes the entries still in the buffer and closes the current segment.
+     * Entries that still cannot be written after three attempts are given up.
+     *
+     * @throws IOException if the current segment cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer.close();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.audit;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+
+/**
+ * Exports an audit log to CSV or JSON lines, the IDs being written as strings in JSON. Can be used from the command line:
+ * {@code java -cp dcm.jar com.github.stefan9110.dcm.manager.audit.AuditLogExporter <directory> [csv|json]}
+ */
+public final class AuditLogExporter {
+    public enum Format {
+        CSV, JSON
+    }
+
+    private AuditLogExporter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: AuditLogExporter <directory> [csv|json]");
+            System.exit(1);
+        }
+        Format format = args.length == 2 ? Format.valueOf(args[1].toUpperCase()) : Format.CSV;
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        export(Paths.get(args[0]), out, format);
+        out.flush();
+    }
+
+    /**
+     * Method used to write every record of an audit log in the given format.
+     *
+     * @param directory The directory of the audit log.
+     * @param out       The Writer receiving the exported records.
+     * @param format    The Format of the export.
+     * @throws IOException if the log cannot be read or the records cannot be written.
+     */
+    public static void export(@NotNull Path directory, @NotNull Writer out, @NotNull Format format) throws IOException {
+        if (format == Format.CSV) out.write("time,type,guild,channel,user,slash,command,dropped\n");
+        try {
+            AuditLogReader.read(directory, record -> {
+                try {
+                    out.write(format == Format.CSV ? csv(record) : json(record));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String csv(AuditRecord record) {
+        return Instant.ofEpochMilli(record.getTimestamp()) + "," + record.getType() + "," + record.getGuildId() + ","
+                + record.getChannelId() + "," + record.getUserId() + "," + record.isSlashCommand() + ","
+                + "\"" + record.getCommand().replace("\"", "\"\"") + "\"," + record.getDroppedCount();
+    }
+
+    private static String json(AuditRecord record) {
+        StringBuilder command = new StringBuilder();
+        for (char c : record.getCommand().toCharArray()) {
+            if (c == '"' || c == '\\') command.append('\\').append(c);
+            else if (c < 0x20) command.append(String.format("\\u%04x", (int) c));
+            else command.append(c);
+        }
+        return "{\"time\":\"" + Instant.ofEpochMilli(record.getTimestamp()) + "\",\"type\":\"" + record.getType()
+                + "\",\"guild\":\"" + record.getGuildId() + "\",\"channel\":\"" + record.getChannelId() + "\",\"user\":\"" + record.getUserId()
+                + "\",\"slash\":" + record.isSlashCommand() + ",\"command\":\"" + command + "\",\"dropped\":" + record.getDroppedCount() + "}";
+    }
+}
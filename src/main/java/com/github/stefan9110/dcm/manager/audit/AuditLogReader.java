@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.audit;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Reads the segment files written by an AuditLog. Segments can be read while the AuditLog is still writing them:
+ * the records written so far are returned.
+ */
+public final class AuditLogReader {
+    private AuditLogReader() {
+    }
+
+    /**
+     * Method used to read every record of the audit log stored in a directory, oldest first.
+     *
+     * @param directory The directory of the audit log.
+     * @param consumer  The Consumer receiving the records.
+     * @throws IOException if a segment cannot be read or is not an audit log segment.
+     */
+    public static void read(@NotNull Path directory, @NotNull Consumer<AuditRecord> consumer) throws IOException {
+        for (Path segment : AuditSegmentWriter.segments(directory)) readSegment(segment, consumer);
+    }
+
+    /**
+     * Method used to read the records of a single segment file.
+     *
+     * @param segment  The segment file.
+     * @param consumer The Consumer receiving the records.
+     * @throws IOException if the segment cannot be read or is not an audit log segment.
+     */
+    public static void readSegment(@NotNull Path segment, @NotNull Consumer<AuditRecord> consumer) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < AuditSegmentWriter.HEADER_SIZE || buffer.getInt() != AuditSegmentWriter.MAGIC)
+            throw new IOException(segment + " is not an audit log segment.");
+        short version = buffer.getShort();
+        if (version != AuditSegmentWriter.VERSION) throw new IOException("Unsupported audit log version " + version + " in " + segment);
+        buffer.position(AuditSegmentWriter.HEADER_SIZE);
+
+        try {
+            while (buffer.hasRemaining()) {
+                byte type = buffer.get();
+                if (type == AuditSegmentWriter.INVOCATION) {
+                    long timestamp = buffer.getLong(), guildId = buffer.getLong(), channelId = buffer.getLong(), userId = buffer.getLong();
+                    byte flags = buffer.get();
+                    byte[] text = new byte[Short.toUnsignedInt(buffer.getShort())];
+                    buffer.get(text);
+                    consumer.accept(new AuditRecord(AuditRecord.Type.INVOCATION, timestamp, guildId, channelId, userId,
+                            (flags & AuditLog.FLAG_SLASH_COMMAND) != 0, new String(text, StandardCharsets.UTF_8), 0));
+                } else if (type == AuditSegmentWriter.DROPPED) {
+                    long timestamp = buffer.getLong(), count = buffer.getLong();
+                    consumer.accept(new AuditRecord(AuditRecord.Type.DROPPED, timestamp, 0, 0, 0, false, "", count));
+                } else return;
+            }
+        } catch (BufferUnderflowException e) {
+            // The last record of the segment was cut, the records before it were returned.
+        }
+    }
+}
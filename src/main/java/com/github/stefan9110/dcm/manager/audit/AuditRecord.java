@@ -0,0 +1,98 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.audit;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A record read from the audit log by the AuditLogReader.
+ */
+public final class AuditRecord {
+    public enum Type {
+        /**
+         * A command call admitted by the manager.
+         */
+        INVOCATION,
+        /**
+         * A marker of the entries dropped because the audit buffer was full.
+         */
+        DROPPED
+    }
+
+    private final Type type;
+    private final long timestamp, guildId, channelId, userId, droppedCount;
+    private final boolean slashCommand;
+    private final String command;
+
+    AuditRecord(Type type, long timestamp, long guildId, long channelId, long userId, boolean slashCommand, String command, long droppedCount) {
+        this.type = type;
+        this.timestamp = timestamp;
+        this.guildId = guildId;
+        this.channelId = channelId;
+        this.userId = userId;
+        this.slashCommand = slashCommand;
+        this.command = command;
+        this.droppedCount = droppedCount;
+    }
+
+    @NotNull
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return The time the entry was recorded at, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getGuildId() {
+        return guildId;
+    }
+
+    public long getChannelId() {
+        return channelId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return Whether or not the call was made through a SlashCommand.
+     */
+    public boolean isSlashCommand() {
+        return slashCommand;
+    }
+
+    /**
+     * @return The command name followed by the arguments of the call, separated by spaces. Long calls are truncated.
+     * Empty for DROPPED records.
+     */
+    @NotNull
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * @return The number of entries dropped before this record was written. Zero for INVOCATION records.
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+}
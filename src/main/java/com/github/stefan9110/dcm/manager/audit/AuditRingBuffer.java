@@ -0,0 +1,184 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.audit;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded multi-producer single-consumer ring buffer of audit entries. Every slot and its text area are allocated up front.
+ * <p>
+ * Every slot carries a sequence number: a producer may claim position p when the sequence of its slot equals p, and publishes the
+ * entry by setting the sequence to p + 1. The consumer reads position p once the sequence equals p + 1 and frees the slot by setting
+ * it to p + capacity. A producer finding its slot still in use drops the entry instead of waiting.
+ */
+final class AuditRingBuffer {
+    private final int mask, textCapacity;
+    private final AtomicLongArray sequences;
+    private final long[] timestamps, guildIds, channelIds, userIds;
+    private final byte[] flags;
+    private final int[] textLengths;
+    private final byte[] text;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    // Only accessed by the consumer thread.
+    private long head;
+
+    /**
+     * @param capacity     The number of slots, rounded up to a power of two.
+     * @param textCapacity The maximum number of UTF-8 bytes of the command text of an entry. Longer texts are truncated.
+     */
+    AuditRingBuffer(int capacity, int textCapacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = size - 1;
+        this.textCapacity = textCapacity;
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+        timestamps = new long[size];
+        guildIds = new long[size];
+        channelIds = new long[size];
+        userIds = new long[size];
+        flags = new byte[size];
+        textLengths = new int[size];
+        text = new byte[size * textCapacity];
+    }
+
+    /**
+     * Method used to add an entry. Never blocks: if the buffer is full the entry is dropped and counted.
+     *
+     * @return Whether or not the entry was added.
+     */
+    boolean offer(long timestamp, long guildId, long channelId, long userId, byte entryFlags, String name, String[] args) {
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+                position = tail.get();
+            } else if (difference < 0) {
+                // The consumer did not free the slot yet, the buffer is full.
+                dropped.increment();
+                return false;
+            } else position = tail.get();
+        }
+
+        timestamps[index] = timestamp;
+        guildIds[index] = guildId;
+        channelIds[index] = channelId;
+        userIds[index] = userId;
+        flags[index] = entryFlags;
+        int offset = index * textCapacity, end = offset + textCapacity;
+        int written = encode(name, offset, end);
+        if (args != null) {
+            for (String arg : args) {
+                if (written >= end) break;
+                text[written++] = ' ';
+                written = encode(arg, written, end);
+            }
+        }
+        textLengths[index] = written - offset;
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    // Encodes the string as UTF-8 without allocating, stopping before a character that does not fit.
+    private int encode(String value, int position, int end) {
+        for (int i = 0; i < value.length(); i++) {
+            int c = value.charAt(i);
+            if (Character.isHighSurrogate((char) c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                if (position + 4 > end) return position;
+                int codePoint = Character.toCodePoint((char) c, value.charAt(++i));
+                text[position++] = (byte) (0xF0 | codePoint >> 18);
+                text[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                text[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                text[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (c < 0x80) {
+                if (position + 1 > end) return position;
+                text[position++] = (byte) c;
+            } else if (c < 0x800) {
+                if (position + 2 > end) return position;
+                text[position++] = (byte) (0xC0 | c >> 6);
+                text[position++] = (byte) (0x80 | c & 0x3F);
+            } else {
+                if (position + 3 > end) return position;
+                // Unpaired surrogates are written as the replacement character.
+                if (Character.isSurrogate((char) c)) c = 0xFFFD;
+                text[position++] = (byte) (0xE0 | c >> 12);
+                text[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                text[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Method used by the consumer thread to move up to the given number of entries to the segment writer.
+     *
+     * @return The number of entries moved.
+     */
+    int drainTo(AuditSegmentWriter writer, int maxEntries) throws IOException {
+        int count = 0;
+        while (count < maxEntries) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) break;
+            writer.writeInvocation(timestamps[index], guildIds[index], channelIds[index], userIds[index], flags[index],
+                    text, index * textCapacity, textLengths[index]);
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Method used by the consumer thread to give up the published entries, when they can no longer be written.
+     *
+     * @return The number of entries given up.
+     */
+    int discard() {
+        int count = 0;
+        while (true) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) return count;
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            count++;
+        }
+    }
+
+    /**
+     * @return Whether or not the consumer has no published entry left to read.
+     */
+    boolean isEmpty() {
+        return sequences.get((int) (head & mask)) != head + 1;
+    }
+
+    int getTextCapacity() {
+        return textCapacity;
+    }
+
+    /**
+     * @return The number of entries dropped because the buffer was full.
+     */
+    long getDropped() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes the audit entries into memory-mapped segment files of a fixed size, starting a new segment when the current one is full.
+ * <p>
+ * A segment starts with a 16 bytes header (magic, version, creation time) followed by the records. Every record starts with its
+ * type byte, written after the rest of the record so a record cut by a crash reads as the end of the segment:
+ * <ul>
+ * <li>INVOCATION: timestamp, guild ID, channel ID, user ID (longs), flags (byte), text length (unsigned short), UTF-8 text.</li>
+ * <li>DROPPED: timestamp, number of entries dropped since the previous DROPPED record (longs).</li>
+ * </ul>
+ * The unused end of a segment is left zeroed, which reads as END.
+ */
+final class AuditSegmentWriter implements Closeable {
+    static final int MAGIC = 0x44434D41;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final byte END = 0, INVOCATION = 1, DROPPED = 2;
+    static final int INVOCATION_SIZE = 1 + 4 * Long.BYTES + 1 + Short.BYTES, DROPPED_SIZE = 1 + 2 * Long.BYTES;
+    static final String SEGMENT_PREFIX = "audit-", SEGMENT_SUFFIX = ".dcma";
+
+    private final Path directory;
+    private final int segmentSize, maxSegments;
+    private long segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    /**
+     * @param directory   The directory of the segment files. New segments continue the numbering of the existing ones.
+     * @param segmentSize The size of a segment file in bytes.
+     * @param maxSegments The number of segments kept, older segments are deleted. Zero or less keeps every segment.
+     */
+    AuditSegmentWriter(Path directory, int segmentSize, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        List<Path> existing = segments(directory);
+        segmentIndex = existing.isEmpty() ? 0 : segmentIndex(existing.get(existing.size() - 1));
+        openNext();
+    }
+
+    void writeInvocation(long timestamp, long guildId, long channelId, long userId, byte flags, byte[] text, int offset, int length)
+            throws IOException {
+        ensureRemaining(INVOCATION_SIZE + length);
+        int start = buffer.position();
+        buffer.position(start + 1);
+        buffer.putLong(timestamp).putLong(guildId).putLong(channelId).putLong(userId).put(flags).putShort((short) length);
+        buffer.put(text, offset, length);
+        buffer.put(start, INVOCATION);
+    }
+
+    void writeDropped(long timestamp, long count) throws IOException {
+        ensureRemaining(DROPPED_SIZE);
+        int start = buffer.position();
+        buffer.position(start + 1);
+        buffer.putLong(timestamp).putLong(count);
+        buffer.put(start, DROPPED);
+    }
+
+    /**
+     * Method used to write the modified pages of the current segment to the storage.
+     */
+    void flush() {
+        buffer.force();
+    }
+
+    private void ensureRemaining(int size) throws IOException {
+        if (buffer.remaining() >= size) return;
+        buffer.force();
+        channel.close();
+        openNext();
+    }
+
+    private void openNext() throws IOException {
+        Path path = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, ++segmentIndex, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(System.currentTimeMillis());
+
+        if (maxSegments <= 0) return;
+        List<Path> segments = segments(directory);
+        for (int i = 0; i < segments.size() - maxSegments; i++) Files.deleteIfExists(segments.get(i));
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * @param directory The directory of the segment files.
+     * @return The segment files of the directory, oldest first.
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(AuditSegmentWriter::isSegment)
+                    .sorted(Comparator.comparingLong(AuditSegmentWriter::segmentIndex))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) return false;
+        String index = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+        return !index.isEmpty() && index.chars().allMatch(Character::isDigit);
+    }
+
+    private static long segmentIndex(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
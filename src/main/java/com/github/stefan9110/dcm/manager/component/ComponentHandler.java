@@ -0,0 +1,36 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.component;
+
+import net.dv8tion.jda.api.events.interaction.GenericComponentInteractionCreateEvent;
+
+/**
+ * Handler of the component interactions (buttons or selection menus) whose custom ID starts with the prefix the handler was registered with.
+ *
+ * @param <E> The type of the component interaction event.
+ */
+@FunctionalInterface
+public interface ComponentHandler<E extends GenericComponentInteractionCreateEvent> {
+
+    /**
+     * Method called when a component matching the handler is used.
+     *
+     * @param event The interaction event.
+     * @param data  The part of the custom ID following the prefix of the handler.
+     */
+    void onInteraction(E event, String data);
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.component;
+
+import com.github.stefan9110.dcm.command.Command;
+import com.github.stefan9110.dcm.core.PrefixTrie;
+import net.dv8tion.jda.api.events.interaction.ButtonClickEvent;
+import net.dv8tion.jda.api.events.interaction.GenericComponentInteractionCreateEvent;
+import net.dv8tion.jda.api.events.interaction.SelectionMenuEvent;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Router of the button and selection menu interactions.
+ * <p>
+ * Handlers are registered against a custom ID prefix and are tied to the command that created the components. Every interaction is
+ * matched against the registered prefixes in a single pass over its custom ID, the handler of the longest matching prefix being called.
+ * Handlers may expire: expired handlers are never called and are removed from memory by the periodic sweep of the router.
+ */
+public class ComponentRouter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ComponentRouter.class);
+    private static final long SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(30);
+
+    private final PrefixTrie<Registration<ButtonClickEvent>> buttons = new PrefixTrie<>();
+    private final PrefixTrie<Registration<SelectionMenuEvent>> menus = new PrefixTrie<>();
+    private final Predicate<Registration<?>> notExpired = registration -> !registration.isExpired(System.nanoTime());
+    private volatile long lastSweep = System.nanoTime();
+
+    /**
+     * Method used to register the handler of the buttons whose custom ID starts with the given prefix.
+     *
+     * @param prefix  The custom ID prefix.
+     * @param owner   The command that creates the buttons, may be null.
+     * @param handler The handler called when a matching button is clicked.
+     * @return The same ComponentRouter instance.
+     */
+    public ComponentRouter registerButton(@NotNull String prefix, Command owner, @NotNull ComponentHandler<ButtonClickEvent> handler) {
+        return registerButton(prefix, owner, handler, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Method used to register the handler of the buttons whose custom ID starts with the given prefix for a limited time.
+     *
+     * @param prefix  The custom ID prefix.
+     * @param owner   The command that creates the buttons, may be null.
+     * @param handler The handler called when a matching button is clicked.
+     * @param ttl     The time after which the handler expires, 0 for a handler that never expires.
+     * @param unit    The TimeUnit of the ttl parameter.
+     * @return The same ComponentRouter instance.
+     */
+    public ComponentRouter registerButton(@NotNull String prefix, Command owner, @NotNull ComponentHandler<ButtonClickEvent> handler,
+                                          long ttl, @NotNull TimeUnit unit) {
+        buttons.put(prefix, new Registration<>(prefix, owner, handler, ttl, unit));
+        sweepIfDue();
+        return this;
+    }
+
+    /**
+     * Method used to register the handler of the selection menus whose custom ID starts with the given prefix.
+     *
+     * @param prefix  The custom ID prefix.
+     * @param owner   The command that creates the selection menus, may be null.
+     * @param handler The handler called when an option of a matching selection menu is selected.
+     * @return The same ComponentRouter instance.
+     */
+    public ComponentRouter registerSelectionMenu(@NotNull String prefix, Command owner, @NotNull ComponentHandler<SelectionMenuEvent> handler) {
+        return registerSelectionMenu(prefix, owner, handler, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Method used to register the handler of the selection menus whose custom ID starts with the given prefix for a limited time.
+     *
+     * @param prefix  The custom ID prefix.
+     * @param owner   The command that creates the selection menus, may be null.
+     * @param handler The handler called when an option of a matching selection menu is selected.
+     * @param ttl     The time after which the handler expires, 0 for a handler that never expires.
+     * @param unit    The TimeUnit of the ttl parameter.
+     * @return The same ComponentRouter instance.
+     */
+    public ComponentRouter registerSelectionMenu(@NotNull String prefix, Command owner, @NotNull ComponentHandler<SelectionMenuEvent> handler,
+                                                 long ttl, @NotNull TimeUnit unit) {
+        menus.put(prefix, new Registration<>(prefix, owner, handler, ttl, unit));
+        sweepIfDue();
+        return this;
+    }
+
+    /**
+     * Method used to remove the button and selection menu handlers registered with the given prefix.
+     *
+     * @param prefix The custom ID prefix.
+     */
+    public void unregister(@NotNull String prefix) {
+        buttons.remove(prefix);
+        menus.remove(prefix);
+    }
+
+    /**
+     * Method used to remove all the handlers tied to a command.
+     *
+     * @param owner The command the handlers were registered for.
+     */
+    public void unregisterAll(@NotNull Command owner) {
+        buttons.removeIf(registration -> registration.owner == owner);
+        menus.removeIf(registration -> registration.owner == owner);
+    }
+
+    /**
+     * Method used to remove the expired handlers from memory. The method is called periodically by the router itself.
+     *
+     * @return The number of removed handlers.
+     */
+    public int purgeExpired() {
+        long now = System.nanoTime();
+        lastSweep = now;
+        return buttons.removeIf(registration -> registration.isExpired(now)) + menus.removeIf(registration -> registration.isExpired(now));
+    }
+
+    /**
+     * @return The number of registered handlers, including the expired handlers that were not removed yet.
+     */
+    public int size() {
+        return buttons.size() + menus.size();
+    }
+
+    /**
+     * Method used to find the handler of a button click.
+     *
+     * @param customId The custom ID of the button.
+     * @return The registration of the handler or null if no handler matches the custom ID.
+     */
+    public Registration<ButtonClickEvent> findButton(@NotNull String customId) {
+        return buttons.longestMatch(customId, notExpired);
+    }
+
+    /**
+     * Method used to find the handler of a selection menu.
+     *
+     * @param customId The custom ID of the selection menu.
+     * @return The registration of the handler or null if no handler matches the custom ID.
+     */
+    public Registration<SelectionMenuEvent> findSelectionMenu(@NotNull String customId) {
+        return menus.longestMatch(customId, notExpired);
+    }
+
+    /**
+     * Method used to call the handler of a component interaction.
+     *
+     * @param registration The registration of the handler.
+     * @param event        The interaction event.
+     */
+    public <E extends GenericComponentInteractionCreateEvent> void handle(@NotNull Registration<E> registration, @NotNull E event) {
+        try {
+            registration.handler.onInteraction(event, event.getComponentId().substring(registration.prefix.length()));
+        } catch (Throwable t) {
+            LOGGER.error("Uncaught exception while handling the component " + event.getComponentId(), t);
+        }
+        sweepIfDue();
+    }
+
+    private void sweepIfDue() {
+        if (System.nanoTime() - lastSweep > SWEEP_INTERVAL) purgeExpired();
+    }
+
+    /**
+     * A handler registered in the ComponentRouter.
+     *
+     * @param <E> The type of the component interaction event.
+     */
+    public static final class Registration<E extends GenericComponentInteractionCreateEvent> {
+        private final String prefix;
+        private final Command owner;
+        private final ComponentHandler<E> handler;
+        // System#nanoTime() value after which the handler is expired, 0 if the handler never expires.
+        private final long expiresAt;
+
+        private Registration(String prefix, Command owner, ComponentHandler<E> handler, long ttl, TimeUnit unit) {
+            this.prefix = prefix;
+            this.owner = owner;
+            this.handler = handler;
+            long expiry = System.nanoTime() + unit.toNanos(ttl);
+            this.expiresAt = ttl <= 0 ? 0 : expiry == 0 ? 1 : expiry;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt != 0 && now - expiresAt > 0;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        /**
+         * @return The command the handler was registered for or null.
+         */
+        public Command getOwner() {
+            return owner;
+        }
+    }
+}
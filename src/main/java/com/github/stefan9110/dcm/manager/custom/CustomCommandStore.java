@@ -0,0 +1,301 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.custom;
+
+import com.github.stefan9110.dcm.core.collection.ConcurrentLongMap;
+import com.github.stefan9110.dcm.core.collection.ConcurrentLongSet;
+import com.github.stefan9110.dcm.core.collection.LongHashMap;
+import com.github.stefan9110.dcm.manager.executor.reply.ResponseTemplate;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Store of the custom text commands created by the guilds.
+ * <p>
+ * The commands of every guild are kept in their own file of the store directory and loaded lazily, the first time a guild needs them.
+ * Loaded guilds are kept in an LRU cache bounded by the total number of loaded commands, so the memory used does not depend on the
+ * total number of custom commands and looking up a command only depends on the commands of the calling guild.
+ * A guild whose file cannot be read is not read again for a minute, its commands are not found in the meantime.
+ * <p>
+ * File format: magic (int), version (byte), number of commands (int), followed by the name (UTF) and the template (UTF) of every command.
+ * A guild holds at most 65536 custom commands.
+ */
+public class CustomCommandStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CustomCommandStore.class);
+    private static final long RETRY_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+    private static final int MAGIC = 0x44434d43; // "DCMC"
+    private static final byte VERSION = 1;
+    private static final String EXTENSION = ".dcc";
+    private static final int MAX_GUILD_COMMANDS = 65536;
+
+    private final Path directory;
+    private final int maxLoadedCommands;
+    // IDs of the guilds that have a file in the store directory. Guilds without custom commands never touch the disk.
+    private final ConcurrentLongSet storedGuilds = new ConcurrentLongSet();
+    // Loaded guilds, also linked from the least (after the sentinel) to the most recently used. Guarded by the lock of the map.
+    private final LongHashMap<LoadedGuild> loaded = new LongHashMap<>();
+    private final LoadedGuild recency = new LoadedGuild(0);
+    private int loadedCommands;
+    // Guilds whose file could not be read, kept until the retry interval passed or the commands of the guild are written.
+    private final ConcurrentLongMap<Failure> failures = new ConcurrentLongMap<>();
+
+    /**
+     * @param directory         The directory the custom commands are stored in. It is created if it does not exist.
+     * @param maxLoadedCommands The maximum number of custom commands kept in memory.
+     * @throws IOException if the directory cannot be read.
+     */
+    public CustomCommandStore(@NotNull Path directory, int maxLoadedCommands) throws IOException {
+        this.directory = directory;
+        this.maxLoadedCommands = maxLoadedCommands;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    storedGuilds.add(Long.parseLong(name.substring(0, name.length() - EXTENSION.length())));
+                } catch (NumberFormatException ignored) {
+                    // Not a file of the store.
+                }
+            }
+        }
+    }
+
+    /**
+     * Method used to check, without reading the disk, whether or not a guild may have custom commands.
+     *
+     * @param guildId The ID of the guild.
+     * @return Whether or not the guild has a file in the store.
+     */
+    public boolean hasCommands(long guildId) {
+        return storedGuilds.contains(guildId);
+    }
+
+    /**
+     * Method used to find the custom command of a guild. The commands of the guild are read from the disk if they are not loaded,
+     * so the method should not be called on a JDA event thread.
+     *
+     * @param guildId The ID of the guild.
+     * @param name    The name of the custom command. The name is case insensitive.
+     * @return The compiled template of the command or null if the guild has no such custom command or its commands cannot be loaded.
+     */
+    public ResponseTemplate find(long guildId, @NotNull String name) {
+        if (!storedGuilds.contains(guildId)) return null;
+        try {
+            return commands(guildId).get(name.toLowerCase());
+        } catch (UncheckedIOException e) {
+            // Logged when the file was read.
+            return null;
+        }
+    }
+
+    /**
+     * @param guildId The ID of the guild.
+     * @return The names and compiled templates of the custom commands of the guild.
+     * @throws UncheckedIOException if the commands of the guild cannot be loaded.
+     */
+    public Map<String, ResponseTemplate> getCommands(long guildId) {
+        if (!storedGuilds.contains(guildId)) return Collections.emptyMap();
+        return Collections.unmodifiableMap(commands(guildId));
+    }
+
+    /**
+     * Method used to create or replace a custom command of a guild. The change is written to the disk before the method returns.
+     *
+     * @param guildId  The ID of the guild.
+     * @param name     The name of the custom command.
+     * @param template The response template of the command. See ResponseTemplate for the supported placeholders.
+     * @throws IOException           if the commands of the guild cannot be written.
+     * @throws IllegalStateException if the guild already holds the maximum number of custom commands.
+     */
+    public synchronized void put(long guildId, @NotNull String name, @NotNull String template) throws IOException {
+        Map<String, ResponseTemplate> commands = new HashMap<>(storedGuilds.contains(guildId) ? checkedCommands(guildId)
+                : Collections.emptyMap());
+        commands.put(name.toLowerCase(), ResponseTemplate.compile(template));
+        if (commands.size() > MAX_GUILD_COMMANDS)
+            throw new IllegalStateException("A guild can have at most " + MAX_GUILD_COMMANDS + " custom commands.");
+        write(guildId, commands);
+    }
+
+    /**
+     * Method used to delete a custom command of a guild. The change is written to the disk before the method returns.
+     *
+     * @param guildId The ID of the guild.
+     * @param name    The name of the custom command.
+     * @return Whether or not the command existed.
+     * @throws IOException if the commands of the guild cannot be written.
+     */
+    public synchronized boolean remove(long guildId, @NotNull String name) throws IOException {
+        if (!storedGuilds.contains(guildId) || !checkedCommands(guildId).containsKey(name.toLowerCase())) return false;
+        Map<String, ResponseTemplate> commands = new HashMap<>(checkedCommands(guildId));
+        commands.remove(name.toLowerCase());
+        write(guildId, commands);
+        return true;
+    }
+
+    private Map<String, ResponseTemplate> commands(long guildId) {
+        synchronized (loaded) {
+            LoadedGuild guild = loaded.get(guildId);
+            if (guild != null) {
+                guild.moveBefore(recency);
+                return guild.commands;
+            }
+        }
+        Failure failure = failures.get(guildId);
+        if (failure != null && System.nanoTime() - failure.failedAt < RETRY_INTERVAL) throw new UncheckedIOException(failure.error);
+
+        // Loading outside of the lock so that other guilds are not blocked by the disk.
+        Map<String, ResponseTemplate> commands;
+        try {
+            commands = read(file(guildId));
+        } catch (IOException e) {
+            failures.put(guildId, new Failure(e, System.nanoTime()));
+            LOGGER.warn("Could not load the custom commands of the guild " + guildId, e);
+            throw new UncheckedIOException(e);
+        }
+        failures.remove(guildId);
+        return cache(guildId, commands, false);
+    }
+
+    // The commands of a guild whose file cannot be read are not replaced, the file has to be repaired or deleted first.
+    private Map<String, ResponseTemplate> checkedCommands(long guildId) throws IOException {
+        try {
+            return commands(guildId);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Map<String, ResponseTemplate> cache(long guildId, Map<String, ResponseTemplate> commands, boolean replace) {
+        synchronized (loaded) {
+            LoadedGuild guild = loaded.get(guildId);
+            if (guild == null) {
+                guild = new LoadedGuild(guildId);
+                loaded.put(guildId, guild);
+            } else if (!replace) {
+                // A guild loaded concurrently or written in the meantime keeps its current commands.
+                guild.moveBefore(recency);
+                return guild.commands;
+            }
+            loadedCommands += commands.size() - guild.commands.size();
+            guild.commands = commands;
+            guild.moveBefore(recency);
+            // Evicting the least recently used guilds, the guild that was just loaded is always kept.
+            while (loadedCommands > maxLoadedCommands && loaded.size() > 1) {
+                LoadedGuild eldest = recency.next;
+                eldest.unlink();
+                loaded.remove(eldest.guildId);
+                loadedCommands -= eldest.commands.size();
+            }
+            return commands;
+        }
+    }
+
+    private void write(long guildId, Map<String, ResponseTemplate> commands) throws IOException {
+        Path file = file(guildId);
+        if (commands.isEmpty()) {
+            Files.deleteIfExists(file);
+            storedGuilds.remove(guildId);
+            synchronized (loaded) {
+                LoadedGuild previous = loaded.remove(guildId);
+                if (previous != null) {
+                    previous.unlink();
+                    loadedCommands -= previous.commands.size();
+                }
+            }
+            return;
+        }
+
+        Path temporary = directory.resolve(guildId + EXTENSION + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(commands.size());
+            for (Map.Entry<String, ResponseTemplate> entry : commands.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue().getSource());
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        storedGuilds.add(guildId);
+        failures.remove(guildId);
+        cache(guildId, commands, true);
+    }
+
+    private static Map<String, ResponseTemplate> read(Path file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readByte() != VERSION)
+                throw new IOException("The file " + file + " is not a custom commands file.");
+            int count = input.readInt();
+            if (count < 0 || count > MAX_GUILD_COMMANDS) throw new IOException("The file " + file + " is damaged: " + count + " commands.");
+            Map<String, ResponseTemplate> commands = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) commands.put(input.readUTF(), ResponseTemplate.compile(input.readUTF()));
+            return commands;
+        } catch (NoSuchFileException e) {
+            return new HashMap<>();
+        }
+    }
+
+    private Path file(long guildId) {
+        return directory.resolve(guildId + EXTENSION);
+    }
+
+    // Loaded commands of a guild, linked in the recency list of the store. The sentinel of the list links to itself when it is empty.
+    private static final class LoadedGuild {
+        private final long guildId;
+        private Map<String, ResponseTemplate> commands = Collections.emptyMap();
+        private LoadedGuild previous = this, next = this;
+
+        private LoadedGuild(long guildId) {
+            this.guildId = guildId;
+        }
+
+        private void unlink() {
+            previous.next = next;
+            next.previous = previous;
+            previous = next = this;
+        }
+
+        // Links the guild at the end of the list of the sentinel, as its most recently used guild.
+        private void moveBefore(LoadedGuild sentinel) {
+            unlink();
+            previous = sentinel.previous;
+            next = sentinel;
+            sentinel.previous.next = this;
+            sentinel.previous = this;
+        }
+    }
+
+    private static final class Failure {
+        private final IOException error;
+        private final long failedAt;
+
+        private Failure(IOException error, long failedAt) {
+            this.error = error;
+            this.failedAt = failedAt;
+        }
+    }
+}
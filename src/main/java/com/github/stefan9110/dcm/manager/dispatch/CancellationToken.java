@@ -0,0 +1,128 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.dispatch;
+
+import com.github.stefan9110.dcm.exceptions.CommandCancelledException;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancellation state of a command invocation, cancelled by the CommandDispatcher when the invocation runs past its CommandTimeout.
+ * Executors obtain the token of the invocation they run in through CancellationToken#current() and may check it between steps of
+ * long work, pass the remaining time to their blocking calls or register a callback releasing the resources they wait on.
+ */
+public final class CancellationToken {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CancellationToken.class);
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The token of the code running outside of a dispatched invocation. It is never cancelled.
+     */
+    public static final CancellationToken NONE = new CancellationToken(0);
+
+    // System#nanoTime() value of the timeout or 0 if the invocation has no timeout.
+    private final long deadline;
+    private volatile boolean cancelled;
+    private List<Runnable> callbacks;
+
+    CancellationToken(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * @return The CancellationToken of the invocation running on the current thread or CancellationToken#NONE.
+     */
+    @NotNull
+    public static CancellationToken current() {
+        CancellationToken token = CURRENT.get();
+        return token == null ? NONE : token;
+    }
+
+    static void bind(CancellationToken token) {
+        CURRENT.set(token);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return Whether or not the invocation was cancelled.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Method used to stop an executor at a point where it is safe to stop.
+     *
+     * @throws CommandCancelledException if the invocation was cancelled.
+     */
+    public void throwIfCancelled() {
+        if (cancelled) throw new CommandCancelledException();
+    }
+
+    /**
+     * @param unit The TimeUnit of the result.
+     * @return The time left before the invocation is cancelled, zero once it was, or Long#MAX_VALUE if the invocation has no timeout.
+     */
+    public long getRemaining(@NotNull TimeUnit unit) {
+        if (deadline == 0 && !cancelled) return Long.MAX_VALUE;
+        return cancelled ? 0 : unit.convert(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Method used to register a callback called when the invocation is cancelled, for example closing the connection a blocking call
+     * waits on. The callback is called on the thread cancelling the invocation, or right away if the invocation was already cancelled.
+     *
+     * @param callback The callback.
+     */
+    public void onCancel(@NotNull Runnable callback) {
+        synchronized (this) {
+            if (!cancelled) {
+                if (callbacks == null) callbacks = new ArrayList<>(2);
+                callbacks.add(callback);
+                return;
+            }
+        }
+        run(callback);
+    }
+
+    void cancel() {
+        List<Runnable> pending;
+        synchronized (this) {
+            if (cancelled) return;
+            cancelled = true;
+            pending = callbacks;
+            callbacks = null;
+        }
+        if (pending != null) pending.forEach(CancellationToken::run);
+    }
+
+    private static void run(Runnable callback) {
+        try {
+            callback.run();
+        } catch (Throwable t) {
+            LOGGER.error("Uncaught exception in a cancellation callback", t);
+        }
+    }
+}
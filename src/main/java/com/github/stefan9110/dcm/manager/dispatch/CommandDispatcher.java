@@ -0,0 +1,341 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.dispatch;
+
+import com.github.stefan9110.dcm.core.dispatch.ResourceAccounting;
+import com.github.stefan9110.dcm.core.dispatch.ResourceQuota;
+import com.github.stefan9110.dcm.core.dispatch.ShedStatistics;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The CommandDispatcher runs command calls on its own worker threads, away from the JDA event thread.
+ * The order in which the admitted calls are executed is decided by the CommandScheduler of the dispatcher.
+ * Calls are only admitted while the queue is below its maximum depth and while the estimated waiting time still allows the
+ * call to be executed before its deadline. Calls that can no longer meet their deadline are dropped (shed):
+ * SlashCommand calls are answered with an ephemeral busy message while message calls are silently dropped.
+ * <p>
+ * The running calls are watched by an ExecutionWatchdog: calls running past their CommandTimeout are cancelled and the stack traces of
+ * the calls running past the stall threshold are logged.
+ * <p>
+ * Component and session callbacks are run on separate single-threaded lanes, so that they do not block the JDA event thread either.
+ * The callbacks of a key (such as a user ID) always run on the same lane, in the order they were submitted.
+ */
+public class CommandDispatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommandDispatcher.class);
+    // Maximum number of callbacks waiting on a single lane.
+    private static final int LANE_CAPACITY = 1000;
+
+    private final CommandScheduler scheduler;
+    private final ShedStatistics shedStatistics;
+    private final ResourceAccounting accounting;
+    private final Thread[] workers;
+    private final ExecutionWatchdog watchdog;
+    private final ThreadPoolExecutor[] lanes;
+    private volatile boolean running = true;
+    // Dispatcher the admitted calls are handed to once this dispatcher was replaced, see CommandDispatcher#handOff().
+    private volatile CommandDispatcher successor;
+
+    private volatile int maxQueueDepth = 1000;
+    private volatile String busyMessage = "The bot is currently busy, please try again in a moment.";
+    // Exponentially weighted moving average of the time spent executing a task, in nanoseconds, updated by all the workers.
+    private final AtomicLong averageServiceTime = new AtomicLong();
+
+    /**
+     * @param threads        The number of worker threads executing the commands.
+     * @param scheduler      The CommandScheduler ordering the admitted calls.
+     * @param shedStatistics The statistics dropped calls are recorded in.
+     */
+    public CommandDispatcher(int threads, @NotNull CommandScheduler scheduler, @NotNull ShedStatistics shedStatistics) {
+        this(threads, scheduler, shedStatistics, null);
+    }
+
+    /**
+     * @param threads        The number of worker threads executing the commands.
+     * @param scheduler      The CommandScheduler ordering the admitted calls.
+     * @param shedStatistics The statistics dropped calls are recorded in.
+     * @param accounting     The ResourceAccounting measuring the executed calls and enforcing the guild quotas, may be null.
+     */
+    public CommandDispatcher(int threads, @NotNull CommandScheduler scheduler, @NotNull ShedStatistics shedStatistics,
+                             ResourceAccounting accounting) {
+        if (threads < 1) throw new IllegalArgumentException("The dispatcher requires at least one worker thread.");
+        this.scheduler = scheduler;
+        this.shedStatistics = shedStatistics;
+        this.accounting = accounting;
+        workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            int index = i;
+            workers[i] = new Thread(() -> work(index), "DCM-Dispatcher-" + i);
+            workers[i].setDaemon(true);
+        }
+        watchdog = new ExecutionWatchdog(workers);
+        for (Thread worker : workers) worker.start();
+        watchdog.start();
+
+        lanes = new ThreadPoolExecutor[threads];
+        for (int i = 0; i < threads; i++) {
+            String name = "DCM-Callback-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.NANOSECONDS, new LinkedBlockingQueue<>(LANE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Method used to run a component or session callback away from the JDA event thread.
+     * The callbacks submitted with the same key run one after the other, in the order they were submitted.
+     *
+     * @param key      The key ordering the callback, usually the ID of the user of the interaction.
+     * @param callback The callback.
+     * @return Whether or not the callback was accepted. Callbacks are rejected once the dispatcher is shut down or the lane is full.
+     */
+    public boolean execute(long key, @NotNull Runnable callback) {
+        if (!running) return false;
+        try {
+            lanes[(int) Long.remainderUnsigned(key, lanes.length)].execute(() -> {
+                try {
+                    callback.run();
+                } catch (Throwable t) {
+                    LOGGER.error("Uncaught exception while running a callback", t);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Method used to submit a command call for execution.
+     * The call is rejected if the queue is saturated or if the call is estimated to wait past its deadline.
+     * Calls of guilds over their ResourceQuota are rejected or deprioritized depending on the action of the quota.
+     *
+     * @param task The command call.
+     * @return Whether or not the call was admitted.
+     */
+    public boolean submit(@NotNull DispatchTask task) {
+        int depth = scheduler.size();
+        // Multiplying first: the wait is not estimated as zero while the queue holds fewer calls than there are workers.
+        long estimatedWait = depth * averageServiceTime.get() / workers.length;
+        if (!running || depth >= maxQueueDepth || System.nanoTime() + estimatedWait > task.getDeadline()) {
+            shed(task);
+            return false;
+        }
+        ResourceQuota.Action quotaAction = accounting == null ? null : accounting.checkQuota(task.getGuildId());
+        if (quotaAction == ResourceQuota.Action.THROTTLE) {
+            shed(task);
+            return false;
+        }
+        if (quotaAction == ResourceQuota.Action.DEPRIORITIZE) task.deprioritize();
+        if (task.getStatistics() != null) task.getStatistics().recordDispatched();
+        accept(task);
+        return true;
+    }
+
+    // Method used to add an admitted call. A call added while the dispatcher is handed off is moved to the successor.
+    private void accept(DispatchTask task) {
+        scheduler.add(task);
+        if (!running) transfer();
+    }
+
+    private void transfer() {
+        CommandDispatcher next = successor;
+        if (next == null || next.scheduler == scheduler) return;
+        // Interrupts are kept for the caller, the tasks are polled without waiting.
+        boolean interrupted = Thread.interrupted();
+        try {
+            DispatchTask task;
+            while ((task = scheduler.poll(0, TimeUnit.NANOSECONDS)) != null) next.accept(task);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private void work(int index) {
+        ResourceAccounting.Probe probe = accounting == null ? null : accounting.newProbe();
+        // A replaced dispatcher stops right away, the calls it still holds are executed by its successor.
+        while (successor == null && (running || scheduler.size() > 0)) {
+            DispatchTask task;
+            try {
+                task = scheduler.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (task == null) continue;
+            CommandDispatcher next = successor;
+            if (next != null) {
+                next.accept(task);
+                break;
+            }
+
+            // The call waited in the queue for too long, executing it is no longer useful.
+            long start = System.nanoTime();
+            if (start > task.getDeadline()) {
+                shed(task);
+                continue;
+            }
+
+            boolean failed = false;
+            if (probe != null) probe.start();
+            ExecutionWatchdog.Invocation invocation = watchdog.begin(index, task);
+            try {
+                task.run();
+            } catch (Throwable t) {
+                failed = true;
+                // The timeout was already reported by the watchdog, the exception is the expected outcome of the cancellation.
+                if (invocation.isTimedOut()) LOGGER.debug("Command " + task.getCommand().getName() + " ended after timing out", t);
+                else LOGGER.error("Uncaught exception while executing the command " + task.getCommand().getName(), t);
+            } finally {
+                watchdog.end(index, invocation);
+            }
+            if (probe != null) probe.stop(task.getCommand().getName(), task.getGuildId());
+            long serviceTime = System.nanoTime() - start;
+            if (task.getStatistics() != null) task.getStatistics().recordExecuted(serviceTime, failed);
+            recordServiceTime(serviceTime);
+        }
+    }
+
+    private void recordServiceTime(long serviceTime) {
+        long average;
+        do {
+            average = averageServiceTime.get();
+        } while (!averageServiceTime.compareAndSet(average, average + ((serviceTime - average) >> 3)));
+    }
+
+    private void shed(DispatchTask task) {
+        shedStatistics.record(task.getCommand().getName());
+        if (task.getStatistics() != null) task.getStatistics().recordShed();
+        if (task.isSlashCommand())
+            ((SlashCommandEvent) task.getEvent()).reply(busyMessage).setEphemeral(true).queue();
+    }
+
+    /**
+     * Stops the dispatcher from accepting new calls. Calls that were already admitted are still executed.
+     */
+    public void shutdown() {
+        running = false;
+        for (ThreadPoolExecutor lane : lanes) lane.shutdown();
+    }
+
+    /**
+     * Method used to replace the dispatcher by another one. The dispatcher stops accepting new calls and its workers stop once their
+     * current call ends, so that the two dispatchers never run more calls than the workers of the successor, except for these calls.
+     * The calls waiting in the CommandScheduler of the dispatcher are moved to the scheduler of the successor, unless they share it.
+     * The callbacks already submitted are still run.
+     *
+     * @param successor The dispatcher executing the calls admitted by this dispatcher.
+     */
+    public void handOff(@NotNull CommandDispatcher successor) {
+        if (successor == this) throw new IllegalArgumentException("A dispatcher cannot be handed off to itself.");
+        this.successor = successor;
+        shutdown();
+        transfer();
+    }
+
+    /**
+     * @return The number of calls waiting to be executed.
+     */
+    public int getQueueDepth() {
+        return scheduler.size();
+    }
+
+    /**
+     * @return The maximum number of calls that may wait in the queue before new calls are dropped.
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public void setMaxQueueDepth(int maxQueueDepth) {
+        this.maxQueueDepth = maxQueueDepth;
+    }
+
+    /**
+     * @return The ephemeral message dropped SlashCommand calls are replied with.
+     */
+    public String getBusyMessage() {
+        return busyMessage;
+    }
+
+    public void setBusyMessage(@NotNull String busyMessage) {
+        this.busyMessage = busyMessage;
+    }
+
+    /**
+     * @param unit The TimeUnit of the result.
+     * @return The execution time after which the stack trace of a running call is logged.
+     */
+    public long getStallThreshold(@NotNull TimeUnit unit) {
+        return unit.convert(watchdog.getStallThresholdNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Method used to set the execution time after which the stack trace of a running call is logged, once per call.
+     * Calls are reported whether or not their command has a CommandTimeout. The threshold is 10 seconds by default.
+     *
+     * @param stallThreshold The stall threshold.
+     * @param unit           The TimeUnit of the threshold.
+     */
+    public void setStallThreshold(long stallThreshold, @NotNull TimeUnit unit) {
+        if (stallThreshold <= 0) throw new IllegalArgumentException("The stall threshold must be positive.");
+        watchdog.setStallThresholdNanos(unit.toNanos(stallThreshold));
+    }
+
+    /**
+     * @return The number of calls cancelled after running past their CommandTimeout.
+     */
+    public long getTimedOutCount() {
+        return watchdog.getTimedOutCount();
+    }
+
+    /**
+     * @return The number of calls reported for running past the stall threshold.
+     */
+    public long getStalledCount() {
+        return watchdog.getStalledCount();
+    }
+
+    /**
+     * @return The ResourceAccounting of the dispatcher or null if the executed calls are not measured.
+     */
+    public ResourceAccounting getAccounting() {
+        return accounting;
+    }
+
+    public CommandScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return The number of worker threads executing the commands.
+     */
+    public int getThreadCount() {
+        return workers.length;
+    }
+}
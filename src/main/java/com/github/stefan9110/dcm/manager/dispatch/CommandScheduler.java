@@ -0,0 +1,49 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.dispatch;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CommandScheduler decides the order in which the admitted command calls are executed by the CommandDispatcher workers.
+ * Implementations must be thread-safe: calls are added from the JDA event threads and polled from the worker threads.
+ */
+public interface CommandScheduler {
+    /**
+     * Method used to add an admitted command call to the scheduler.
+     *
+     * @param task The command call.
+     */
+    void add(@NotNull DispatchTask task);
+
+    /**
+     * Method used to obtain the next command call that should be executed, waiting if there is none.
+     *
+     * @param timeout The maximum time to wait.
+     * @param unit    The TimeUnit of the timeout parameter.
+     * @return The next command call or null if the waiting time elapsed.
+     * @throws InterruptedException if the waiting thread is interrupted.
+     */
+    DispatchTask poll(long timeout, @NotNull TimeUnit unit) throws InterruptedException;
+
+    /**
+     * @return The number of command calls waiting in the scheduler.
+     */
+    int size();
+}
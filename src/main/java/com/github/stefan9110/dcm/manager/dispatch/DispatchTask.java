@@ -0,0 +1,182 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.dispatch;
+
+import com.github.stefan9110.dcm.command.Command;
+import com.github.stefan9110.dcm.command.ParentCommand;
+import com.github.stefan9110.dcm.core.CommandNode;
+import com.github.stefan9110.dcm.core.CommandPriority;
+import com.github.stefan9110.dcm.core.CommandTimeout;
+import com.github.stefan9110.dcm.core.dispatch.ShardStatistics;
+import com.github.stefan9110.dcm.manager.jfr.ExecutorEvent;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.Event;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A single command invocation waiting to be executed by the CommandDispatcher.
+ * The task keeps the time it was received at and the deadline after which executing it is no longer useful.
+ */
+public class DispatchTask {
+    private final ParentCommand command;
+    private final Member member;
+    private final String[] args;
+    private final Event event;
+    private final long receivedAt, deadline, guildId;
+    private CommandPriority priority;
+    private final ShardStatistics statistics;
+
+    /**
+     * @param command    The top of the hierarchy ParentCommand that was called.
+     * @param member     The JDA Member that called the command.
+     * @param args       The arguments presented in the initial call.
+     * @param event      The event that registered the call (GuildMessageReceivedEvent or SlashCommandEvent).
+     * @param receivedAt The System#nanoTime() value at which the call was received.
+     * @param deadline   The System#nanoTime() value after which the call should no longer be executed.
+     */
+    public DispatchTask(@NotNull ParentCommand command, Member member, String[] args, @NotNull Event event, long receivedAt, long deadline) {
+        this(command, member, args, event, receivedAt, deadline, null);
+    }
+
+    /**
+     * @param command    The top of the hierarchy ParentCommand that was called.
+     * @param member     The JDA Member that called the command.
+     * @param args       The arguments presented in the initial call.
+     * @param event      The event that registered the call (GuildMessageReceivedEvent or SlashCommandEvent).
+     * @param receivedAt The System#nanoTime() value at which the call was received.
+     * @param deadline   The System#nanoTime() value after which the call should no longer be executed.
+     * @param statistics The statistics of the shard that received the call, may be null.
+     */
+    public DispatchTask(@NotNull ParentCommand command, Member member, String[] args, @NotNull Event event, long receivedAt, long deadline,
+                        ShardStatistics statistics) {
+        this.command = command;
+        this.member = member;
+        this.args = args;
+        this.event = event;
+        this.receivedAt = receivedAt;
+        this.deadline = deadline;
+        this.guildId = member == null ? 0 : member.getGuild().getIdLong();
+        this.priority = command.resolvePriority(args);
+        this.statistics = statistics;
+    }
+
+    /**
+     * Executes the command hierarchy for this task.
+     */
+    public void run() {
+        ExecutorEvent executorEvent = new ExecutorEvent();
+        executorEvent.begin();
+        boolean failed = true;
+        try {
+            command.execute(member, args, event);
+            failed = false;
+        } finally {
+            // The command path is only resolved while the event is recorded.
+            executorEvent.setOutcome(isSlashCommand(), failed).complete(executorEvent.isEnabled() ? getCommandPath() : null, guildId);
+        }
+    }
+
+    /**
+     * @return The names of the commands of the hierarchy selected by the arguments of the call, separated by spaces.
+     */
+    public String getCommandPath() {
+        StringBuilder path = new StringBuilder(command.getName());
+        CommandNode current = command;
+        for (String arg : args) {
+            current = current.getChild(arg);
+            if (current == null) break;
+            path.append(' ').append(current.getName());
+        }
+        return path.toString();
+    }
+
+    /**
+     * @return The CommandTimeout of the command selected by the arguments of the call, or of its closest parent command with one,
+     * or null if the call has no timeout.
+     */
+    public CommandTimeout getTimeout() {
+        CommandTimeout timeout = command.getTimeout();
+        CommandNode current = command;
+        for (String arg : args) {
+            current = current.getChild(arg);
+            if (!(current instanceof Command)) break;
+            CommandTimeout own = ((Command) current).getTimeout();
+            if (own != null) timeout = own;
+        }
+        return timeout;
+    }
+
+    public @NotNull ParentCommand getCommand() {
+        return command;
+    }
+
+    public Member getMember() {
+        return member;
+    }
+
+    public String[] getArgs() {
+        return args;
+    }
+
+    public @NotNull Event getEvent() {
+        return event;
+    }
+
+    /**
+     * @return Whether or not the task was triggered by a SlashCommandEvent.
+     */
+    public boolean isSlashCommand() {
+        return event instanceof SlashCommandEvent;
+    }
+
+    /**
+     * @return The ID of the guild the call was made in.
+     */
+    public long getGuildId() {
+        return guildId;
+    }
+
+    /**
+     * @return The CommandPriority the call is scheduled with.
+     */
+    public @NotNull CommandPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Schedules the task with the lowest CommandPriority. Used by the CommandDispatcher for the calls of guilds over their ResourceQuota.
+     */
+    void deprioritize() {
+        priority = CommandPriority.LOW;
+    }
+
+    /**
+     * @return The statistics of the shard that received the call or null if the call is not recorded per shard.
+     */
+    public ShardStatistics getStatistics() {
+        return statistics;
+    }
+
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.dispatch;
+
+import com.github.stefan9110.dcm.core.CommandTimeout;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Watches the invocations running on the worker threads of a CommandDispatcher from a single background thread.
+ * Invocations running past their CommandTimeout are cancelled and invocations running past the stall threshold have the stack trace
+ * of their thread logged once, whether or not they have a timeout. The watchdog stops once all the workers of its dispatcher ended.
+ */
+final class ExecutionWatchdog {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutionWatchdog.class);
+    private static final long CHECK_INTERVAL_MILLIS = 50;
+
+    private final Thread[] workers;
+    // The invocation running on every worker, null while the worker waits for a task.
+    private final AtomicReferenceArray<Invocation> running;
+    private final LongAdder timedOut = new LongAdder(), stalled = new LongAdder();
+    private volatile long stallThresholdNanos = TimeUnit.SECONDS.toNanos(10);
+
+    ExecutionWatchdog(Thread[] workers) {
+        this.workers = workers;
+        this.running = new AtomicReferenceArray<>(workers.length);
+    }
+
+    /**
+     * Starts the thread of the watchdog. Shall be called once the workers were started.
+     */
+    void start() {
+        Thread thread = new Thread(this::watch, "DCM-Watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Method called by a worker before running a task. Binds the CancellationToken of the invocation to the worker thread.
+     */
+    Invocation begin(int worker, DispatchTask task) {
+        long now = System.nanoTime();
+        CommandTimeout timeout = task.getTimeout();
+        Invocation invocation = new Invocation(task, Thread.currentThread(), now, timeout);
+        CancellationToken.bind(invocation.token);
+        running.set(worker, invocation);
+        return invocation;
+    }
+
+    /**
+     * Method called by a worker after running a task, whether or not it failed.
+     */
+    void end(int worker, Invocation invocation) {
+        synchronized (invocation) {
+            invocation.finished = true;
+        }
+        running.set(worker, null);
+        CancellationToken.unbind();
+        // No interrupt can be delivered once the invocation finished, the one meant for the timed out task must not reach the next one.
+        if (invocation.timedOut) Thread.interrupted();
+    }
+
+    private void watch() {
+        while (isDispatcherAlive()) {
+            try {
+                Thread.sleep(CHECK_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.nanoTime();
+            for (int i = 0; i < running.length(); i++) {
+                Invocation invocation = running.get(i);
+                if (invocation == null) continue;
+                try {
+                    check(i, invocation, now);
+                } catch (Throwable t) {
+                    LOGGER.error("Uncaught exception while watching the command " + invocation.task.getCommand().getName(), t);
+                }
+            }
+        }
+    }
+
+    private boolean isDispatcherAlive() {
+        for (Thread worker : workers) if (worker.isAlive()) return true;
+        return false;
+    }
+
+    private void check(int worker, Invocation invocation, long now) {
+        long elapsed = now - invocation.startedAt;
+        if (invocation.timeout != null && !invocation.timedOut && elapsed > invocation.timeout.getTimeoutNanos()) timeOut(invocation, elapsed);
+
+        if (!invocation.stallReported && elapsed > stallThresholdNanos) {
+            invocation.stallReported = true;
+            StackTraceElement[] stackTrace = invocation.thread.getStackTrace();
+            // The worker moved on to another task while the stack trace was taken.
+            if (running.get(worker) != invocation) return;
+            stalled.increment();
+            Throwable trace = new Throwable("Stack trace of " + invocation.thread.getName());
+            trace.setStackTrace(stackTrace);
+            LOGGER.warn("The command {} has been running for {} ms", invocation.task.getCommandPath(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), trace);
+        }
+    }
+
+    private void timeOut(Invocation invocation, long elapsed) {
+        CommandTimeout timeout = invocation.timeout;
+        synchronized (invocation) {
+            if (invocation.finished) return;
+            invocation.timedOut = true;
+        }
+        // The token is cancelled first so that the interrupted executor sees why it was interrupted.
+        invocation.token.cancel();
+        if (timeout.isInterrupt()) {
+            synchronized (invocation) {
+                if (!invocation.finished) invocation.thread.interrupt();
+            }
+        }
+        timedOut.increment();
+        LOGGER.warn("The command {} timed out after {} ms", invocation.task.getCommandPath(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+
+        if (!invocation.task.isSlashCommand()) return;
+        // The timeout message replaces the response of the call, or answers the call if the executor did not.
+        SlashCommandEvent event = (SlashCommandEvent) invocation.task.getEvent();
+        if (event.isAcknowledged()) event.getHook().editOriginal(timeout.getMessage()).queue(null, failure -> {
+        });
+        else event.reply(timeout.getMessage()).setEphemeral(true).queue(null, failure -> {
+        });
+    }
+
+    long getStallThresholdNanos() {
+        return stallThresholdNanos;
+    }
+
+    void setStallThresholdNanos(long stallThresholdNanos) {
+        this.stallThresholdNanos = stallThresholdNanos;
+    }
+
+    long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    long getStalledCount() {
+        return stalled.sum();
+    }
+
+    static final class Invocation {
+        private final DispatchTask task;
+        private final Thread thread;
+        private final long startedAt;
+        private final CommandTimeout timeout;
+        private final CancellationToken token;
+        // Guarded by the invocation: the watchdog only interrupts the thread while the invocation did not finish.
+        private boolean finished;
+        private volatile boolean timedOut;
+        private boolean stallReported;
+
+        private Invocation(DispatchTask task, Thread thread, long startedAt, CommandTimeout timeout) {
+            this.task = task;
+            this.thread = thread;
+            this.startedAt = startedAt;
+            this.timeout = timeout;
+            this.token = timeout == null ? new CancellationToken(0) : new CancellationToken(startedAt + timeout.getTimeoutNanos());
+        }
+
+        /**
+         * @return Whether or not the invocation was cancelled after running past its timeout.
+         */
+        boolean isTimedOut() {
+            return timedOut;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.dispatch;
+
+import com.github.stefan9110.dcm.core.collection.LongDoubleHashMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CommandScheduler serving the guilds through weighted fair queueing.
+ * <p>
+ * Every admitted call receives a virtual finish time: the later of the current virtual time and the finish time of the previous
+ * call of the same guild, increased by the inverse of the guild weight. Calls are executed in the order of their finish times, so a
+ * guild flooding the manager only delays its own calls while the calls of the other guilds keep being served.
+ * Calls of a higher CommandPriority are always executed before the calls of a lower priority.
+ */
+public class FairCommandScheduler implements CommandScheduler {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    // Virtual finish time of the last queued call of every guild that still has calls waiting.
+    private final LongDoubleHashMap guildFinishTimes = new LongDoubleHashMap();
+    // Weights other than 1, guarded by the lock like the finish times.
+    private final LongDoubleHashMap guildWeights = new LongDoubleHashMap();
+    private double virtualTime;
+    private long sequence;
+
+    /**
+     * Method used to set the share of the execution time a guild receives relative to the other guilds.
+     * Guilds have a weight of 1 by default.
+     *
+     * @param guildId The ID of the guild.
+     * @param weight  The positive weight of the guild.
+     */
+    public void setGuildWeight(long guildId, double weight) {
+        if (weight <= 0) throw new IllegalArgumentException("The weight of a guild must be positive.");
+        lock.lock();
+        try {
+            if (weight == 1) guildWeights.remove(guildId);
+            else guildWeights.put(guildId, weight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param guildId The ID of the guild.
+     * @return The weight of the guild.
+     */
+    public double getGuildWeight(long guildId) {
+        lock.lock();
+        try {
+            return guildWeights.get(guildId, 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void add(@NotNull DispatchTask task) {
+        lock.lock();
+        try {
+            double weight = guildWeights.get(task.getGuildId(), 1);
+            double finishTime = Math.max(virtualTime, guildFinishTimes.get(task.getGuildId(), 0)) + 1 / weight;
+            guildFinishTimes.put(task.getGuildId(), finishTime);
+            queue.add(new Entry(task, task.getPriority().ordinal(), finishTime, sequence++));
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public DispatchTask poll(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                if (nanos <= 0) return null;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            Entry entry = queue.poll();
+            virtualTime = Math.max(virtualTime, entry.finishTime);
+            // The guild has no other calls waiting, its finish time is no longer needed.
+            long guildId = entry.task.getGuildId();
+            if (guildFinishTimes.get(guildId, Double.NaN) == entry.finishTime) guildFinishTimes.remove(guildId);
+            return entry.task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final DispatchTask task;
+        private final int priority;
+        private final double finishTime;
+        private final long sequence;
+
+        private Entry(DispatchTask task, int priority, double finishTime, long sequence) {
+            this.task = task;
+            this.priority = priority;
+            this.finishTime = finishTime;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(@NotNull Entry other) {
+            if (priority != other.priority) return Integer.compare(other.priority, priority);
+            if (finishTime != other.finishTime) return Double.compare(finishTime, other.finishTime);
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
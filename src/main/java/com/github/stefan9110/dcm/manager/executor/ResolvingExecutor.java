@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.executor;
+
+import com.github.stefan9110.dcm.command.CommandArgument;
+import com.github.stefan9110.dcm.exceptions.InvalidArgumentException;
+import com.github.stefan9110.dcm.manager.executor.argument.ArgumentResolver;
+import com.github.stefan9110.dcm.manager.executor.argument.ResolvedArguments;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.Event;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Executor of message commands receiving their arguments parsed by type and with the referenced members, roles and channels resolved.
+ * The arguments are the CommandArguments of the called command, unless they are given to the constructor.
+ * All the members referenced by a call are resolved together: from the cache first, then with a single request per 100 missing ones.
+ *
+ * @see ArgumentResolver
+ */
+public abstract class ResolvingExecutor implements Executor {
+    // The arguments given to the constructor, null if the executor uses the arguments of its command.
+    private final List<CommandArgument> arguments;
+
+    /**
+     * Constructor of an executor using the arguments of the command it is called for.
+     * The same executor can be set on several commands, each call is parsed with the arguments of its own command.
+     */
+    protected ResolvingExecutor() {
+        this.arguments = null;
+    }
+
+    /**
+     * @param arguments The arguments of the message call, in order. They are used instead of the arguments of the command.
+     */
+    protected ResolvingExecutor(@NotNull CommandArgument... arguments) {
+        this.arguments = Collections.unmodifiableList(Arrays.asList(arguments));
+    }
+
+    public abstract void execute(Member member, ResolvedArguments args, GuildMessageReceivedEvent event);
+
+    /**
+     * Method called instead of ResolvingExecutor#execute() when the arguments of the call are invalid.
+     * By default, the reason is sent in the channel of the call.
+     *
+     * @param member    The Member that called the command
+     * @param exception The reason the arguments are invalid
+     * @param event     The event where the command was triggered
+     */
+    public void onInvalidArguments(Member member, InvalidArgumentException exception, GuildMessageReceivedEvent event) {
+        event.getChannel().sendMessage(exception.getMessage()).queue();
+    }
+
+    /**
+     * @return The arguments given to the constructor, or an empty list if the executor uses the arguments of its command.
+     */
+    public List<CommandArgument> getArguments() {
+        return arguments == null ? Collections.emptyList() : arguments;
+    }
+
+    /* Cast Event -> GuildMessageReceivedEvent
+     * ResolvingExecutor#onCommand() is only called with GuildMessageReceivedEvent as parameter */
+    @Override
+    public final void onCommand(Member member, String[] args, Event event) {
+        onCommand(member, Collections.emptyList(), args, event);
+    }
+
+    /**
+     * Method used by the commands to call the executor with their own arguments.
+     *
+     * @param member           The Member that called the command
+     * @param commandArguments The CommandArguments of the called command, used unless arguments were given to the constructor
+     * @param args             List of arguments provided by the member
+     * @param event            The event where the command was triggered
+     */
+    public final void onCommand(Member member, @NotNull List<CommandArgument> commandArguments, String[] args, Event event) {
+        GuildMessageReceivedEvent messageEvent = (GuildMessageReceivedEvent) event;
+        ResolvedArguments resolved;
+        try {
+            resolved = ArgumentResolver.resolve(messageEvent.getGuild(), arguments == null ? commandArguments : arguments, args);
+        } catch (InvalidArgumentException e) {
+            onInvalidArguments(member, e, messageEvent);
+            return;
+        }
+        execute(member, resolved, messageEvent);
+    }
+}
@@ -17,12 +17,17 @@
 package com.github.stefan9110.dcm.manager.executor;
 
 import com.github.stefan9110.dcm.manager.executor.reply.InteractionResponse;
+import com.github.stefan9110.dcm.manager.executor.reply.TemplateContext;
+import com.github.stefan9110.dcm.manager.jfr.ReplyEvent;
 import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.events.Event;
 import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
 import net.dv8tion.jda.api.interactions.InteractionHook;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.List;
+
 public abstract class SlashExecutor implements Executor {
     public void execute(Member member, String[] args, SlashCommandEvent event, InteractionHook hook) {
 
@@ -47,24 +52,40 @@ public abstract class SlashExecutor implements Executor {
 
         InteractionResponse response = reply(member, args, slashEvent);
         InteractionHook responseHook = null;
+        ReplyEvent replyEvent = new ReplyEvent();
+        replyEvent.begin();
         switch (response.getResponseType()) {
             case STRING: {
-                responseHook = slashEvent.reply(response.getStringResponse()).setEphemeral(response.isEphemeral()).complete();
+                // Interactions may come from channels other than TextChannels (news channels, threads), getTextChannel() would throw.
+                String text = response.isTemplate()
+                        ? response.getStringResponse(TemplateContext.of(member, slashEvent.getChannel(), args))
+                        : response.getStringResponse();
+                responseHook = slashEvent.reply(text).setEphemeral(response.isEphemeral()).complete();
                 break;
             }
             case EMBED: {
-                responseHook = slashEvent.replyEmbeds(response.getEmbedResponse()).setEphemeral(response.isEphemeral()).complete();
+                List<MessageEmbed> embeds = response.isTemplate()
+                        ? response.getEmbedResponse(TemplateContext.of(member, slashEvent.getChannel(), args))
+                        : response.getEmbedResponse();
+                responseHook = slashEvent.replyEmbeds(embeds).setEphemeral(response.isEphemeral()).complete();
                 break;
             }
             case MESSAGE: {
                 responseHook = slashEvent.reply(response.getMessageResponse()).setEphemeral(response.isEphemeral()).complete();
                 break;
             }
+            case PAGINATED: {
+                responseHook = response.getPaginatorResponse().reply(slashEvent, response.isEphemeral());
+                break;
+            }
             case DEFFER: {
                 responseHook = slashEvent.deferReply().setEphemeral(response.isEphemeral()).complete();
                 break;
             }
         }
+        replyEvent.setResponseType(response.getResponseType().name()).complete(
+                replyEvent.isEnabled() ? slashEvent.getCommandPath().replace('/', ' ') : null,
+                slashEvent.getGuild() == null ? 0 : slashEvent.getGuild().getIdLong());
 
         execute(member, args, slashEvent, responseHook);
     }
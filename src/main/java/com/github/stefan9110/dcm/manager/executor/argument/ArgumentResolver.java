@@ -0,0 +1,240 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.executor.argument;
+
+import com.github.stefan9110.dcm.command.CommandArgument;
+import com.github.stefan9110.dcm.core.collection.LongHashMap;
+import com.github.stefan9110.dcm.core.collection.LongHashSet;
+import com.github.stefan9110.dcm.exceptions.CommandCancelledException;
+import com.github.stefan9110.dcm.exceptions.InvalidArgumentException;
+import com.github.stefan9110.dcm.manager.dispatch.CancellationToken;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.utils.concurrent.Task;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Parser of the arguments of a message call, driven by the CommandArguments of the command.
+ * <p>
+ * User references (mentions or IDs) are collected over all the arguments before being resolved: the members found in the cache are
+ * used directly and all the other ones are retrieved with a single request per 100 members. Roles and channels are always resolved
+ * from the cache.
+ * <p>
+ * The retrieval waits at most until the CancellationToken of the invocation is cancelled, and at most 10 seconds. The requests
+ * still pending are then cancelled.
+ */
+public class ArgumentResolver {
+    // Discord answers member requests of at most 100 IDs.
+    private static final int MEMBER_REQUEST_LIMIT = 100;
+    private static final long MEMBER_REQUEST_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+
+    // Placeholder of a user reference until the members are resolved.
+    private static final class UserReference {
+        private final long id;
+
+        private UserReference(long id) {
+            this.id = id;
+        }
+    }
+
+    private ArgumentResolver() {
+    }
+
+    /**
+     * Method used to parse and resolve the arguments of a message call.
+     * The method may block while the members missing from the cache are retrieved, it should not be called on a JDA event thread.
+     *
+     * @param guild     The guild the call was made in.
+     * @param arguments The arguments of the command, in order. The last argument receives all the remaining values of the call.
+     * @param args      The arguments of the call, as split by the CommandManager.
+     * @return The typed values of the arguments.
+     * @throws InvalidArgumentException  if a value cannot be parsed, a referenced entity does not exist or a required argument is missing,
+     *                                   or if the members could not be retrieved in time.
+     * @throws CommandCancelledException if the invocation was cancelled while the members were retrieved.
+     */
+    public static ResolvedArguments resolve(@NotNull Guild guild, @NotNull List<CommandArgument> arguments, @NotNull String[] args) {
+        ResolvedArguments result = new ResolvedArguments();
+        List<List<Object>> parsed = new ArrayList<>(arguments.size());
+        LongHashSet userIds = new LongHashSet();
+        String userArgument = null;
+
+        for (int i = 0; i < arguments.size(); i++) {
+            CommandArgument argument = arguments.get(i);
+            if (i >= args.length) {
+                if (argument.isRequired()) throw new InvalidArgumentException(argument.getName(), "a value is required.");
+                parsed.add(null);
+                continue;
+            }
+            boolean last = i == arguments.size() - 1;
+            List<Object> values = new ArrayList<>(last ? args.length - i : 1);
+            if (last && argument.getType() == OptionType.STRING)
+                values.add(String.join(" ", Arrays.asList(args).subList(i, args.length)));
+            else for (int j = i; j < (last ? args.length : i + 1); j++) values.add(parse(guild, argument, args[j], userIds));
+            if (userArgument == null && !userIds.isEmpty()) userArgument = argument.getName();
+            parsed.add(values);
+        }
+
+        LongHashMap<Member> members;
+        try {
+            members = userIds.isEmpty() ? new LongHashMap<>(0) : members(guild, userIds);
+        } catch (CommandCancelledException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new InvalidArgumentException(userArgument, "the members could not be retrieved, please try again later.");
+        }
+        for (int i = 0; i < arguments.size(); i++) {
+            List<Object> values = parsed.get(i);
+            if (values == null) continue;
+            for (int j = 0; j < values.size(); j++) {
+                if (!(values.get(j) instanceof UserReference)) continue;
+                Member member = members.get(((UserReference) values.get(j)).id);
+                if (member == null) throw new InvalidArgumentException(arguments.get(i).getName(), "the member does not exist.");
+                values.set(j, member);
+            }
+            result.put(arguments.get(i).getName(), values);
+        }
+        return result;
+    }
+
+    private static Object parse(Guild guild, CommandArgument argument, String value, LongHashSet userIds) {
+        switch (argument.getType()) {
+            case INTEGER:
+                try {
+                    return Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    throw new InvalidArgumentException(argument.getName(), "`" + value + "` is not an integer.");
+                }
+            case NUMBER:
+                try {
+                    return Double.parseDouble(value);
+                } catch (NumberFormatException e) {
+                    throw new InvalidArgumentException(argument.getName(), "`" + value + "` is not a number.");
+                }
+            case BOOLEAN:
+                if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("yes")) return true;
+                if (value.equalsIgnoreCase("false") || value.equalsIgnoreCase("no")) return false;
+                throw new InvalidArgumentException(argument.getName(), "`" + value + "` is not true or false.");
+            case USER:
+                return user(argument, value, userIds);
+            case ROLE:
+                return role(guild, argument, value);
+            case CHANNEL: {
+                long id = id(value, "<#");
+                GuildChannel channel = id < 0 ? null : guild.getGuildChannelById(id);
+                if (channel == null) throw new InvalidArgumentException(argument.getName(), "`" + value + "` is not a channel of this server.");
+                return channel;
+            }
+            case MENTIONABLE:
+                // Raw IDs are checked against the roles first, as the roles are always cached.
+                if (value.startsWith("<@&") || (id(value, "") >= 0 && guild.getRoleById(id(value, "")) != null))
+                    return role(guild, argument, value);
+                return user(argument, value, userIds);
+            default:
+                return value;
+        }
+    }
+
+    private static UserReference user(CommandArgument argument, String value, LongHashSet userIds) {
+        long id = value.startsWith("<@!") ? id(value, "<@!") : id(value, "<@");
+        if (id < 0) throw new InvalidArgumentException(argument.getName(), "`" + value + "` is not a member mention or ID.");
+        userIds.add(id);
+        return new UserReference(id);
+    }
+
+    private static Role role(Guild guild, CommandArgument argument, String value) {
+        long id = id(value, "<@&");
+        Role role = id < 0 ? null : guild.getRoleById(id);
+        if (role == null) throw new InvalidArgumentException(argument.getName(), "`" + value + "` is not a role of this server.");
+        return role;
+    }
+
+    // Method used to read a snowflake given either as a raw ID or as a mention starting with the given prefix and ending with '>'.
+    private static long id(String value, String mentionPrefix) {
+        int start = 0, end = value.length();
+        if (!mentionPrefix.isEmpty() && value.startsWith(mentionPrefix) && value.endsWith(">")) {
+            start = mentionPrefix.length();
+            end--;
+        }
+        if (start == end || end - start > 19) return -1;
+        long id = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            id = id * 10 + (c - '0');
+        }
+        return id < 0 ? -1 : id;
+    }
+
+    // Members found in the cache are used directly, the other ones are retrieved with one request per 100 members.
+    private static LongHashMap<Member> members(Guild guild, LongHashSet userIds) {
+        LongHashMap<Member> members = new LongHashMap<>(userIds.size());
+        LongHashSet missing = new LongHashSet(userIds.size());
+        userIds.forEach(id -> {
+            Member member = guild.getMemberById(id);
+            if (member != null) members.put(id, member);
+            else missing.add(id);
+        });
+        if (missing.isEmpty()) return members;
+
+        // All the requests are sent before waiting for the first one. Task#get() cannot time out, the results are awaited through futures.
+        long[] ids = missing.toArray();
+        int count = (ids.length + MEMBER_REQUEST_LIMIT - 1) / MEMBER_REQUEST_LIMIT;
+        List<Task<List<Member>>> requests = new ArrayList<>(count);
+        List<CompletableFuture<List<Member>>> results = new ArrayList<>(count);
+        CancellationToken token = CancellationToken.current();
+        boolean completed = false;
+        try {
+            for (int start = 0; start < ids.length; start += MEMBER_REQUEST_LIMIT) {
+                CompletableFuture<List<Member>> result = new CompletableFuture<>();
+                long[] batch = Arrays.copyOfRange(ids, start, Math.min(ids.length, start + MEMBER_REQUEST_LIMIT));
+                requests.add(guild.retrieveMembersByIds(false, batch)
+                        .onSuccess(result::complete)
+                        .onError(result::completeExceptionally));
+                results.add(result);
+            }
+            // Executors that are not interrupted on timeout stop waiting as soon as their invocation is cancelled.
+            token.onCancel(() -> results.forEach(result -> result.cancel(false)));
+            long timeout = Math.min(MEMBER_REQUEST_TIMEOUT, token.getRemaining(TimeUnit.NANOSECONDS));
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(timeout, TimeUnit.NANOSECONDS);
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            token.throwIfCancelled();
+            throw new IllegalStateException("Interrupted while retrieving the members", e);
+        } catch (ExecutionException | CancellationException e) {
+            token.throwIfCancelled();
+            throw new IllegalStateException("Could not retrieve the members", e);
+        } catch (TimeoutException e) {
+            token.throwIfCancelled();
+            throw new IllegalStateException("Timed out while retrieving the members", e);
+        } finally {
+            if (!completed) requests.forEach(Task::cancel);
+        }
+        for (CompletableFuture<List<Member>> result : results) result.join().forEach(member -> members.put(member.getIdLong(), member));
+        return members;
+    }
+}
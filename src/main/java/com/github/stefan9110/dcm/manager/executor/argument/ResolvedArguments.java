@@ -0,0 +1,110 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.executor.argument;
+
+import net.dv8tion.jda.api.entities.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The typed values of the arguments of a message call, mapped by the argument name.
+ * Arguments of the USER type are resolved to Members, ROLE arguments to Roles, CHANNEL arguments to GuildChannels and MENTIONABLE
+ * arguments to Members or Roles. The last argument of a command receives all the remaining values of the call.
+ */
+public class ResolvedArguments {
+    private final Map<String, List<Object>> values = new HashMap<>();
+
+    void put(String name, List<Object> argumentValues) {
+        values.put(name, argumentValues);
+    }
+
+    /**
+     * @param name The name of the argument.
+     * @return Whether or not the call provided a value for the argument.
+     */
+    public boolean has(@NotNull String name) {
+        return values.containsKey(name.toLowerCase());
+    }
+
+    /**
+     * @param name The name of the argument.
+     * @param type The class of the values.
+     * @return All the values given to the argument or an empty List if the argument was not given.
+     * @throws ClassCastException if the values are not instances of the given class.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getAll(@NotNull String name, @NotNull Class<T> type) {
+        List<Object> argumentValues = values.get(name.toLowerCase());
+        if (argumentValues == null) return Collections.emptyList();
+        for (Object value : argumentValues) type.cast(value);
+        return (List<T>) Collections.unmodifiableList(argumentValues);
+    }
+
+    private <T> T get(String name, Class<T> type) {
+        List<Object> argumentValues = values.get(name.toLowerCase());
+        return argumentValues == null ? null : type.cast(argumentValues.get(0));
+    }
+
+    public String getString(@NotNull String name) {
+        return get(name, String.class);
+    }
+
+    public Long getLong(@NotNull String name) {
+        return get(name, Long.class);
+    }
+
+    public Double getDouble(@NotNull String name) {
+        return get(name, Double.class);
+    }
+
+    public Boolean getBoolean(@NotNull String name) {
+        return get(name, Boolean.class);
+    }
+
+    public Member getMember(@NotNull String name) {
+        return get(name, Member.class);
+    }
+
+    public List<Member> getMembers(@NotNull String name) {
+        return getAll(name, Member.class);
+    }
+
+    public User getUser(@NotNull String name) {
+        Member member = getMember(name);
+        return member == null ? null : member.getUser();
+    }
+
+    public Role getRole(@NotNull String name) {
+        return get(name, Role.class);
+    }
+
+    public List<Role> getRoles(@NotNull String name) {
+        return getAll(name, Role.class);
+    }
+
+    public GuildChannel getChannel(@NotNull String name) {
+        return get(name, GuildChannel.class);
+    }
+
+    public IMentionable getMentionable(@NotNull String name) {
+        return get(name, IMentionable.class);
+    }
+}
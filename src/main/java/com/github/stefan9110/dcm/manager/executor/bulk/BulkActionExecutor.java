@@ -0,0 +1,341 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.executor.bulk;
+
+import com.github.stefan9110.dcm.core.collection.LongHashSet;
+import com.github.stefan9110.dcm.manager.executor.reply.ResponseTemplate;
+import com.github.stefan9110.dcm.manager.executor.reply.TemplateContext;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.ISnowflake;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.utils.TimeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Helper used by the executors of mass moderation commands (mass bans, role changes, purges) to send many requests without
+ * using up the rate limits the rest of the bot depends on.
+ * <p>
+ * Requests are merged into the bulk endpoints of Discord where they exist: the messages younger than two weeks are deleted
+ * 100 at a time and the role changes of a member are sent as a single request, skipping the members that already have the
+ * wanted roles. The remaining requests are sent with bounded concurrency and a minimum interval between two requests, so that
+ * the replies of the other commands are not queued behind them.
+ * <p>
+ * The executor runs in the background: #start(InteractionHook) returns right away and the progress is reported by editing the
+ * original response of the hook. Cancelling the returned future stops sending the requests that were not sent yet.
+ */
+public class BulkActionExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkActionExecutor.class);
+    /**
+     * The maximum number of messages deleted by a single bulk delete request.
+     */
+    public static final int BULK_DELETE_LIMIT = 100;
+    // Discord refuses to bulk delete messages older than two weeks, the margin covers the time the request waits in the queue.
+    private static final long BULK_DELETE_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(14) - TimeUnit.MINUTES.toMillis(10);
+
+    private final List<Unit> units = new ArrayList<>();
+    private int total, skipped;
+    private int concurrency = 2;
+    private long intervalNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    private long progressIntervalNanos = TimeUnit.SECONDS.toNanos(2);
+    private ResponseTemplate progressMessage = ResponseTemplate.compile("Working... {done}/{total}");
+    private ResponseTemplate completionMessage = ResponseTemplate.compile("Done: {succeeded}/{total} succeeded, {failed} failed.");
+
+    // Run state, guarded by the instance lock.
+    private CompletableFuture<BulkResult> result;
+    private InteractionHook hook;
+    private final List<Throwable> failures = new ArrayList<>();
+    private int next, inFlight, succeeded, failed;
+    private long nextStartNanos, lastProgressNanos;
+
+    /**
+     * @param concurrency The maximum number of requests waiting for a response at the same time, 2 by default.
+     * @return The same BulkActionExecutor instance.
+     */
+    public BulkActionExecutor setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+        return this;
+    }
+
+    /**
+     * Method used to set the minimum time between the start of two requests, 100 milliseconds by default. Together with the
+     * concurrency it bounds the share of the global rate limit of the bot taken by the executor.
+     *
+     * @param interval The minimum time between two requests, 0 to only bound the concurrency.
+     * @param unit     The TimeUnit of the interval.
+     * @return The same BulkActionExecutor instance.
+     */
+    public BulkActionExecutor setMinInterval(long interval, @NotNull TimeUnit unit) {
+        this.intervalNanos = Math.max(0, unit.toNanos(interval));
+        return this;
+    }
+
+    /**
+     * @param interval The minimum time between two progress edits of the original response, 2 seconds by default.
+     * @param unit     The TimeUnit of the interval.
+     * @return The same BulkActionExecutor instance.
+     */
+    public BulkActionExecutor setProgressInterval(long interval, @NotNull TimeUnit unit) {
+        this.progressIntervalNanos = Math.max(0, unit.toNanos(interval));
+        return this;
+    }
+
+    /**
+     * @param progressMessage The template of the progress message. Placeholders: {done}, {total}, {succeeded}, {failed}, {skipped}.
+     * @return The same BulkActionExecutor instance.
+     */
+    public BulkActionExecutor setProgressMessage(@NotNull String progressMessage) {
+        this.progressMessage = ResponseTemplate.compile(progressMessage);
+        return this;
+    }
+
+    /**
+     * @param completionMessage The template of the message shown once all the requests completed, with the same placeholders
+     *                          as the progress message.
+     * @return The same BulkActionExecutor instance.
+     */
+    public BulkActionExecutor setCompletionMessage(@NotNull String completionMessage) {
+        this.completionMessage = ResponseTemplate.compile(completionMessage);
+        return this;
+    }
+
+    /**
+     * Method used to add a request without a bulk endpoint.
+     *
+     * @param action The request.
+     * @return The same BulkActionExecutor instance.
+     */
+    public BulkActionExecutor add(@NotNull RestAction<?> action) {
+        return add(action, 1);
+    }
+
+    /**
+     * @param action The request.
+     * @param items  The number of items handled by the request, counted in the progress.
+     * @return The same BulkActionExecutor instance.
+     */
+    public synchronized BulkActionExecutor add(@NotNull RestAction<?> action, int items) {
+        if (result != null) throw new IllegalStateException("The BulkActionExecutor was already started.");
+        units.add(new Unit(action, Math.max(1, items)));
+        total += Math.max(1, items);
+        return this;
+    }
+
+    /**
+     * Method used to delete messages of a channel. The messages younger than two weeks are deleted with bulk delete requests
+     * of up to 100 messages, the older ones one by one.
+     *
+     * @param channel    The channel the messages were sent in.
+     * @param messageIds The IDs of the messages.
+     * @return The same BulkActionExecutor instance.
+     */
+    public BulkActionExecutor deleteMessages(@NotNull TextChannel channel, long... messageIds) {
+        LongHashSet unique = new LongHashSet();
+        for (long id : messageIds) unique.add(id);
+
+        long bulkLimit = System.currentTimeMillis() - BULK_DELETE_MAX_AGE_MILLIS;
+        List<String> batch = new ArrayList<>(BULK_DELETE_LIMIT);
+        for (long id : unique.toArray()) {
+            if (TimeUtil.getTimeCreated(id).toInstant().toEpochMilli() < bulkLimit) {
+                add(channel.deleteMessageById(id));
+                continue;
+            }
+            batch.add(Long.toUnsignedString(id));
+            if (batch.size() == BULK_DELETE_LIMIT) {
+                addDeleteBatch(channel, batch);
+                batch = new ArrayList<>(BULK_DELETE_LIMIT);
+            }
+        }
+        if (!batch.isEmpty()) addDeleteBatch(channel, batch);
+        return this;
+    }
+
+    /**
+     * @param channel  The channel the messages were sent in.
+     * @param messages The messages.
+     * @return The same BulkActionExecutor instance.
+     * @see #deleteMessages(TextChannel, long...)
+     */
+    public BulkActionExecutor deleteMessages(@NotNull TextChannel channel, @NotNull Collection<? extends ISnowflake> messages) {
+        return deleteMessages(channel, messages.stream().mapToLong(ISnowflake::getIdLong).toArray());
+    }
+
+    private void addDeleteBatch(TextChannel channel, List<String> batch) {
+        // Bulk delete requests need at least two messages.
+        if (batch.size() == 1) add(channel.deleteMessageById(batch.get(0)));
+        else add(channel.deleteMessagesByIds(batch), batch.size());
+    }
+
+    /**
+     * Method used to ban users from a guild. Discord has no bulk endpoint for bans, every user is banned by its own request.
+     *
+     * @param guild   The guild.
+     * @param userIds The IDs of the users.
+     * @param delDays The number of days of messages of the users to delete, between 0 and 7.
+     * @param reason  The reason shown in the audit log, may be null.
+     * @return The same BulkActionExecutor instance.
+     */
+    public BulkActionExecutor ban(@NotNull Guild guild, @NotNull Collection<Long> userIds, int delDays, @Nullable String reason) {
+        LongHashSet unique = new LongHashSet();
+        for (Long id : userIds) unique.add(id);
+        for (long id : unique.toArray()) add(guild.ban(Long.toUnsignedString(id), delDays, reason));
+        return this;
+    }
+
+    /**
+     * Method used to add and remove roles of members. All the changes of a member are sent as a single request, and the members
+     * already having the wanted roles are skipped.
+     *
+     * @param guild   The guild of the members.
+     * @param members The members.
+     * @param add     The roles added to the members, may be null.
+     * @param remove  The roles removed from the members, may be null.
+     * @return The same BulkActionExecutor instance.
+     */
+    public BulkActionExecutor modifyRoles(@NotNull Guild guild, @NotNull Collection<Member> members, @Nullable Collection<Role> add,
+                                          @Nullable Collection<Role> remove) {
+        Collection<Role> toAdd = add == null ? Collections.emptyList() : add;
+        Collection<Role> toRemove = remove == null ? Collections.emptyList() : remove;
+        for (Member member : members) {
+            List<Role> roles = member.getRoles();
+            if (roles.containsAll(toAdd) && Collections.disjoint(roles, toRemove)) {
+                synchronized (this) {
+                    skipped++;
+                }
+                continue;
+            }
+            add(guild.modifyMemberRoles(member, toAdd, toRemove));
+        }
+        return this;
+    }
+
+    /**
+     * @return The number of items added to the executor, excluding the skipped ones.
+     */
+    public synchronized int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return The future completed with the result once all the requests completed.
+     * @see #start(InteractionHook)
+     */
+    public CompletableFuture<BulkResult> start() {
+        return start(null);
+    }
+
+    /**
+     * Method used to start sending the requests. The method does not wait for them: the returned future is completed once all
+     * the requests completed, and cancelling it stops sending the remaining ones.
+     *
+     * @param hook The acknowledged InteractionHook whose original response shows the progress, may be null.
+     * @return The future completed with the result once all the requests completed.
+     */
+    public synchronized CompletableFuture<BulkResult> start(@Nullable InteractionHook hook) {
+        if (result != null) throw new IllegalStateException("The BulkActionExecutor was already started.");
+        this.result = new CompletableFuture<>();
+        this.hook = hook;
+        this.lastProgressNanos = System.nanoTime();
+        if (units.isEmpty()) finish();
+        else pump();
+        return result;
+    }
+
+    // Sends requests until the concurrency limit is reached, spacing their start by the minimum interval.
+    private synchronized void pump() {
+        while (!result.isDone() && inFlight < concurrency && next < units.size()) {
+            Unit unit = units.get(next);
+            units.set(next++, null);
+            inFlight++;
+
+            long now = System.nanoTime();
+            long delay = Math.max(0, nextStartNanos - now);
+            nextStartNanos = Math.max(now, nextStartNanos) + intervalNanos;
+
+            Consumer<Object> success = ignored -> complete(unit, null);
+            Consumer<Throwable> failure = error -> complete(unit, error);
+            try {
+                if (delay == 0) unit.action.queue(success, failure);
+                else unit.action.queueAfter(delay, TimeUnit.NANOSECONDS, success, failure);
+            } catch (RuntimeException e) {
+                complete(unit, e);
+            }
+        }
+    }
+
+    private synchronized void complete(Unit unit, Throwable error) {
+        inFlight--;
+        if (error == null) {
+            succeeded += unit.items;
+        } else {
+            failed += unit.items;
+            failures.add(error);
+        }
+        if (result.isDone()) return;
+
+        if (succeeded + failed == total) {
+            finish();
+            return;
+        }
+        long now = System.nanoTime();
+        if (hook != null && now - lastProgressNanos >= progressIntervalNanos) {
+            lastProgressNanos = now;
+            edit(progressMessage);
+        }
+        pump();
+    }
+
+    private void finish() {
+        if (hook != null) edit(completionMessage);
+        result.complete(new BulkResult(total, succeeded, failed, skipped, new ArrayList<>(failures)));
+    }
+
+    private void edit(ResponseTemplate template) {
+        TemplateContext context = TemplateContext.of(null, null, null)
+                .with("done", Integer.toString(succeeded + failed))
+                .with("total", Integer.toString(total))
+                .with("succeeded", Integer.toString(succeeded))
+                .with("failed", Integer.toString(failed))
+                .with("skipped", Integer.toString(skipped));
+        // The interaction token expires after 15 minutes, the requests are not affected when the edits start failing.
+        hook.editOriginal(template.render(context)).queue(null, e -> LOGGER.debug("Could not edit the bulk action progress message", e));
+    }
+
+    private static final class Unit {
+        private final RestAction<?> action;
+        private final int items;
+
+        private Unit(RestAction<?> action, int items) {
+            this.action = action;
+            this.items = items;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.executor.bulk;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a BulkActionExecutor run. All the counts are in items (messages, users, members), not in requests.
+ */
+public final class BulkResult {
+    private final int total, succeeded, failed, skipped;
+    private final List<Throwable> failures;
+
+    BulkResult(int total, int succeeded, int failed, int skipped, List<Throwable> failures) {
+        this.total = total;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.skipped = skipped;
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * @return The number of items the requests were sent for.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return The number of items whose request succeeded.
+     */
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * @return The number of items whose request failed.
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return The number of items no request was needed for, such as the members already having the wanted roles.
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return The errors of the failed requests, in the order they failed.
+     */
+    public @NotNull List<Throwable> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult{total=" + total + ", succeeded=" + succeeded + ", failed=" + failed + ", skipped=" + skipped + "}";
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.executor.reply;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embed made of ResponseTemplates. The title, description, footer and fields are compiled once, when they are set,
+ * and rendered from a TemplateContext every time the embed is sent.
+ */
+public class EmbedTemplate {
+    private ResponseTemplate title, description, footer;
+    private Color color;
+    private final List<Field> fields = new ArrayList<>();
+
+    private EmbedTemplate() {
+    }
+
+    /**
+     * @return A new empty EmbedTemplate.
+     */
+    public static EmbedTemplate create() {
+        return new EmbedTemplate();
+    }
+
+    public EmbedTemplate setTitle(String title) {
+        this.title = title == null ? null : ResponseTemplate.compile(title);
+        return this;
+    }
+
+    public EmbedTemplate setDescription(String description) {
+        this.description = description == null ? null : ResponseTemplate.compile(description);
+        return this;
+    }
+
+    public EmbedTemplate setFooter(String footer) {
+        this.footer = footer == null ? null : ResponseTemplate.compile(footer);
+        return this;
+    }
+
+    public EmbedTemplate setColor(Color color) {
+        this.color = color;
+        return this;
+    }
+
+    public EmbedTemplate addField(@NotNull String name, @NotNull String value, boolean inline) {
+        fields.add(new Field(ResponseTemplate.compile(name), ResponseTemplate.compile(value), inline));
+        return this;
+    }
+
+    /**
+     * Method used to render the embed.
+     *
+     * @param context The values of the placeholders.
+     * @return The rendered MessageEmbed.
+     */
+    public MessageEmbed render(@NotNull TemplateContext context) {
+        EmbedBuilder embed = new EmbedBuilder();
+        if (title != null) embed.setTitle(title.render(context));
+        if (description != null) description.renderTo(context, embed.getDescriptionBuilder());
+        if (footer != null) embed.setFooter(footer.render(context));
+        if (color != null) embed.setColor(color);
+        for (Field field : fields) embed.addField(field.name.render(context), field.value.render(context), field.inline);
+        return embed.build();
+    }
+
+    private static final class Field {
+        private final ResponseTemplate name, value;
+        private final boolean inline;
+
+        private Field(ResponseTemplate name, ResponseTemplate value, boolean inline) {
+            this.name = name;
+            this.value = value;
+            this.inline = inline;
+        }
+    }
+}
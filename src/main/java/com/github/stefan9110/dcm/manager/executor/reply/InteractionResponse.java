@@ -27,12 +27,15 @@ import static com.github.stefan9110.dcm.manager.executor.reply.InteractionRespon
 
 public class InteractionResponse {
     public enum ResponseType {
-        STRING, MESSAGE, EMBED, DEFFER
+        STRING, MESSAGE, EMBED, DEFFER, PAGINATED
     }
 
     private String stringResponse;
     private Message messageResponse;
     private List<MessageEmbed> embedResponse;
+    private ResponseTemplate stringTemplate;
+    private EmbedTemplate[] embedTemplates;
+    private Paginator paginatorResponse;
     private boolean ephemeral = false;
 
     @NotNull
@@ -53,6 +56,21 @@ public class InteractionResponse {
         responseType = EMBED;
     }
 
+    private InteractionResponse(ResponseTemplate template) {
+        stringTemplate = template;
+        responseType = STRING;
+    }
+
+    private InteractionResponse(EmbedTemplate... templates) {
+        embedTemplates = templates;
+        responseType = EMBED;
+    }
+
+    private InteractionResponse(Paginator paginator) {
+        paginatorResponse = paginator;
+        responseType = PAGINATED;
+    }
+
     private InteractionResponse() {
         responseType = DEFFER;
     }
@@ -74,6 +92,30 @@ public class InteractionResponse {
         return new InteractionResponse(embeds);
     }
 
+    /**
+     * @param template The precompiled text template, rendered with the member, channel and arguments of the call.
+     * @return A STRING InteractionResponse.
+     */
+    public static InteractionResponse of(@NotNull ResponseTemplate template) {
+        return new InteractionResponse(template);
+    }
+
+    /**
+     * @param templates The precompiled embed templates, rendered with the member, channel and arguments of the call.
+     * @return An EMBED InteractionResponse.
+     */
+    public static InteractionResponse of(@NotNull EmbedTemplate... templates) {
+        return new InteractionResponse(templates);
+    }
+
+    /**
+     * @param paginator The Paginator rendering the pages of the reply on demand.
+     * @return A PAGINATED InteractionResponse.
+     */
+    public static InteractionResponse of(@NotNull Paginator paginator) {
+        return new InteractionResponse(paginator);
+    }
+
     public static InteractionResponse deferInteraction() {
         return new InteractionResponse();
     }
@@ -86,10 +128,40 @@ public class InteractionResponse {
         return embedResponse;
     }
 
+    /**
+     * @param context The values of the template placeholders.
+     * @return The String response, rendered from its template if the response was created from a ResponseTemplate.
+     */
+    public String getStringResponse(@NotNull TemplateContext context) {
+        return stringTemplate != null ? stringTemplate.render(context) : stringResponse;
+    }
+
+    /**
+     * @param context The values of the template placeholders.
+     * @return The embeds of the response, rendered from their templates if the response was created from EmbedTemplates.
+     */
+    public List<MessageEmbed> getEmbedResponse(@NotNull TemplateContext context) {
+        if (embedTemplates == null) return embedResponse;
+        MessageEmbed[] embeds = new MessageEmbed[embedTemplates.length];
+        for (int i = 0; i < embeds.length; i++) embeds[i] = embedTemplates[i].render(context);
+        return Arrays.asList(embeds);
+    }
+
+    /**
+     * @return Whether or not the response was created from templates that need a TemplateContext to be rendered.
+     */
+    public boolean isTemplate() {
+        return stringTemplate != null || embedTemplates != null;
+    }
+
     public Message getMessageResponse() {
         return messageResponse;
     }
 
+    public Paginator getPaginatorResponse() {
+        return paginatorResponse;
+    }
+
     public @NotNull ResponseType getResponseType() {
         return responseType;
     }
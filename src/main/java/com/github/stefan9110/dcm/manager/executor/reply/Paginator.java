@@ -0,0 +1,224 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.executor.reply;
+
+import com.github.stefan9110.dcm.CommandManagerAPI;
+import com.github.stefan9110.dcm.manager.component.ComponentRouter;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.events.interaction.ButtonClickEvent;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.components.Button;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Paginated embed reply rendering its pages on demand.
+ * <p>
+ * Only the first page is rendered when the reply is sent. The other pages are rendered through the page supplier when the member
+ * navigates to them with the previous and next buttons, and the last rendered pages are kept in a small LRU cache.
+ * The buttons are handled through the ComponentRouter of the API; the paginator expires once it was not used for its timeout,
+ * after which its buttons no longer respond.
+ * <p>
+ * SlashExecutors return a paginator through InteractionResponse#of(Paginator), message executors send it through
+ * Paginator#send(GuildMessageReceivedEvent).
+ */
+public class Paginator {
+    private static final String ID_PREFIX = "dcm-page:";
+    // Seeded with the start time so that the buttons of the messages sent before a restart never match a new paginator.
+    private static final AtomicLong IDS = new AtomicLong(System.currentTimeMillis());
+
+    private final IntFunction<MessageEmbed> pageSupplier;
+    private final String prefix = ID_PREFIX + Long.toString(IDS.incrementAndGet(), 36) + ":";
+    private int pageCount;
+    private int cacheSize = 3;
+    private long timeoutNanos = TimeUnit.MINUTES.toNanos(5);
+    private boolean ownerOnly = true;
+    private String notOwnerMessage = "Only the member that called the command can change the pages.";
+
+    // Navigation state, guarded by the instance lock.
+    private final LinkedHashMap<Integer, MessageEmbed> cache = new LinkedHashMap<Integer, MessageEmbed>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, MessageEmbed> eldest) {
+            return size() > cacheSize;
+        }
+    };
+    private int currentPage;
+    private long ownerId;
+    private ComponentRouter router;
+
+    /**
+     * @param pageCount    The number of pages. Zero or less if the number of pages is not known: the pages are then requested
+     *                     until the supplier returns null.
+     * @param pageSupplier The function rendering the page of the given index, starting at 0.
+     */
+    public Paginator(int pageCount, @NotNull IntFunction<MessageEmbed> pageSupplier) {
+        this.pageCount = Math.max(0, pageCount);
+        this.pageSupplier = pageSupplier;
+    }
+
+    /**
+     * @param cacheSize The number of rendered pages kept in memory, 3 by default.
+     * @return The same Paginator instance.
+     */
+    public Paginator setCacheSize(int cacheSize) {
+        this.cacheSize = Math.max(1, cacheSize);
+        return this;
+    }
+
+    /**
+     * @param timeout The time after the last use the paginator expires, 5 minutes by default.
+     * @param unit    The TimeUnit of the timeout.
+     * @return The same Paginator instance.
+     */
+    public Paginator setTimeout(long timeout, @NotNull TimeUnit unit) {
+        this.timeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    /**
+     * @param ownerOnly Whether or not only the member that called the command may change the pages, true by default.
+     * @return The same Paginator instance.
+     */
+    public Paginator setOwnerOnly(boolean ownerOnly) {
+        this.ownerOnly = ownerOnly;
+        return this;
+    }
+
+    /**
+     * @param notOwnerMessage The ephemeral message replied to the other members using the buttons.
+     * @return The same Paginator instance.
+     */
+    public Paginator setNotOwnerMessage(@NotNull String notOwnerMessage) {
+        this.notOwnerMessage = notOwnerMessage;
+        return this;
+    }
+
+    /**
+     * Method used to reply to a SlashCommand interaction with the first page. Called by the SlashExecutor for PAGINATED responses.
+     *
+     * @param event     The SlashCommand interaction.
+     * @param ephemeral Whether or not the reply is ephemeral.
+     * @return The InteractionHook of the reply.
+     */
+    public InteractionHook reply(@NotNull SlashCommandEvent event, boolean ephemeral) {
+        MessageEmbed first = start(event.getUser().getIdLong());
+        if (!hasMultiplePages()) return event.replyEmbeds(first).setEphemeral(ephemeral).complete();
+        return event.replyEmbeds(first).addActionRow(buttons(0)).setEphemeral(ephemeral).complete();
+    }
+
+    /**
+     * Method used to send the first page in the channel of a message command call.
+     *
+     * @param event The event of the command call. The author of the message owns the paginator.
+     */
+    public void send(@NotNull GuildMessageReceivedEvent event) {
+        send(event.getChannel(), event.getAuthor().getIdLong());
+    }
+
+    /**
+     * Method used to send the first page in a channel.
+     *
+     * @param channel The channel the pages are sent in.
+     * @param ownerId The ID of the user allowed to change the pages.
+     */
+    public void send(@NotNull MessageChannel channel, long ownerId) {
+        MessageEmbed first = start(ownerId);
+        if (!hasMultiplePages()) channel.sendMessageEmbeds(first).queue();
+        else channel.sendMessageEmbeds(first).setActionRow(buttons(0)).queue();
+    }
+
+    private synchronized MessageEmbed start(long ownerId) {
+        if (router != null) throw new IllegalStateException("The paginator was already sent.");
+        CommandManagerAPI api = CommandManagerAPI.getAPI();
+        if (api == null) throw new IllegalStateException("The CommandManagerAPI is not registered.");
+        MessageEmbed first = page(0);
+        if (first == null) throw new IllegalStateException("The paginator has no pages.");
+        this.ownerId = ownerId;
+        this.router = api.getComponentRouter();
+        // Knowing the second page exists is enough to show the buttons.
+        if (pageCount == 0 && page(1) == null) pageCount = 1;
+        if (hasMultiplePages()) register();
+        return first;
+    }
+
+    private void register() {
+        router.registerButton(prefix, null, this::onButton, timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void onButton(ButtonClickEvent event, String action) {
+        if (ownerOnly && event.getUser().getIdLong() != ownerId) {
+            event.reply(notOwnerMessage).setEphemeral(true).queue();
+            return;
+        }
+        MessageEmbed page;
+        Button[] buttons;
+        synchronized (this) {
+            int target = currentPage + ("next".equals(action) ? 1 : "prev".equals(action) ? -1 : 0);
+            page = target >= 0 ? page(target) : null;
+            if (page == null) {
+                // The end of a list of unknown length was reached.
+                if (target > 0 && pageCount == 0) pageCount = target;
+                target = currentPage;
+                page = page(target);
+            }
+            currentPage = target;
+            buttons = buttons(target);
+        }
+        // Using the paginator extends it by its timeout.
+        register();
+        event.editMessageEmbeds(page).setActionRow(buttons).queue();
+    }
+
+    // Called with the instance lock held.
+    private MessageEmbed page(int index) {
+        if (pageCount > 0 && index >= pageCount) return null;
+        MessageEmbed page = cache.get(index);
+        if (page == null) {
+            page = pageSupplier.apply(index);
+            if (page != null) cache.put(index, page);
+        }
+        return page;
+    }
+
+    private boolean hasMultiplePages() {
+        return pageCount != 1;
+    }
+
+    private Button[] buttons(int page) {
+        String indicator = pageCount > 0 ? (page + 1) + "/" + pageCount : String.valueOf(page + 1);
+        return new Button[]{
+                Button.secondary(prefix + "prev", "\u25C0").withDisabled(page == 0),
+                Button.secondary(prefix + "page", indicator).asDisabled(),
+                Button.secondary(prefix + "next", "\u25B6").withDisabled(pageCount > 0 && page + 1 >= pageCount)
+        };
+    }
+
+    /**
+     * @return The index of the page currently shown, starting at 0.
+     */
+    public synchronized int getCurrentPage() {
+        return currentPage;
+    }
+}
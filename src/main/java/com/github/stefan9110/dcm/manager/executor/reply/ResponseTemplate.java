@@ -0,0 +1,256 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.executor.reply;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text template parsed once into literal and placeholder segments, rendered from a TemplateContext.
+ * <p>
+ * Supported placeholders: {user} (mention of the member), {user.name} (effective name of the member), {user.id}, {guild} (name of
+ * the guild), {guild.id}, {channel} (mention of the channel), {args} (all the arguments), {arg1} to {arg9} (a single argument).
+ * Any other {name} placeholder is replaced with the value set through TemplateContext#with(String, String), or kept as written
+ * if the context does not contain it.
+ * <p>
+ * Rendering appends directly to the output builder and does not allocate anything else.
+ */
+public final class ResponseTemplate {
+    private static final int LITERAL = 0, USER = 1, USER_NAME = 2, USER_ID = 3, GUILD = 4, GUILD_ID = 5, CHANNEL = 6, ARGS = 7, NAMED = 8,
+            ARG = 16;
+
+    private final String source;
+    // Segment i is of type codes[i]. Literal segments hold their text in texts[i], named placeholders hold their name.
+    private final int[] codes;
+    private final String[] texts;
+    private final int literalLength;
+    // Whether or not the template contains placeholders read from the member, channel or arguments of the context.
+    private final boolean needsContext;
+
+    private ResponseTemplate(String source, int[] codes, String[] texts) {
+        this.source = source;
+        this.codes = codes;
+        this.texts = texts;
+        int length = 0;
+        boolean context = false;
+        for (int i = 0; i < codes.length; i++) {
+            if (codes[i] == LITERAL) length += texts[i].length();
+            else if (codes[i] != NAMED) context = true;
+        }
+        this.literalLength = length;
+        this.needsContext = context;
+    }
+
+    /**
+     * Method used to parse a template.
+     *
+     * @param source The template text.
+     * @return The compiled template.
+     */
+    public static ResponseTemplate compile(@NotNull String source) {
+        List<Integer> codes = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < source.length()) {
+            int end = source.charAt(i) == '{' ? source.indexOf('}', i) : -1;
+            String name = end < 0 ? null : source.substring(i + 1, end);
+            if (name == null || name.isEmpty() || name.indexOf('{') >= 0) {
+                literal.append(source.charAt(i++));
+                continue;
+            }
+            if (literal.length() > 0) {
+                codes.add(LITERAL);
+                texts.add(literal.toString());
+                literal.setLength(0);
+            }
+            codes.add(code(name));
+            texts.add(name);
+            i = end + 1;
+        }
+        if (literal.length() > 0) {
+            codes.add(LITERAL);
+            texts.add(literal.toString());
+        }
+
+        int[] codeArray = new int[codes.size()];
+        for (int j = 0; j < codeArray.length; j++) codeArray[j] = codes.get(j);
+        return new ResponseTemplate(source, codeArray, texts.toArray(new String[0]));
+    }
+
+    /**
+     * Method used to compile a text in which a single token is a placeholder, for example the %perm% of the no-permission
+     * messages written before templates were supported. Everything else, braces included, is kept as written.
+     *
+     * @param source The text.
+     * @param token  The token replaced when rendering, such as %perm%.
+     * @param name   The name of the named placeholder the token is replaced with, such as perm.
+     * @return The compiled template.
+     */
+    public static ResponseTemplate compileLiteral(@NotNull String source, @NotNull String token, @NotNull String name) {
+        List<Integer> codes = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        int start = 0;
+        for (int index = source.indexOf(token); index >= 0; index = source.indexOf(token, start)) {
+            if (index > start) {
+                codes.add(LITERAL);
+                texts.add(source.substring(start, index));
+            }
+            codes.add(NAMED);
+            texts.add(name);
+            start = index + token.length();
+        }
+        if (start < source.length()) {
+            codes.add(LITERAL);
+            texts.add(source.substring(start));
+        }
+
+        int[] codeArray = new int[codes.size()];
+        for (int j = 0; j < codeArray.length; j++) codeArray[j] = codes.get(j);
+        return new ResponseTemplate(source, codeArray, texts.toArray(new String[0]));
+    }
+
+    private static int code(String name) {
+        switch (name) {
+            case "user": return USER;
+            case "user.name": return USER_NAME;
+            case "user.id": return USER_ID;
+            case "guild": return GUILD;
+            case "guild.id": return GUILD_ID;
+            case "channel": return CHANNEL;
+            case "args": return ARGS;
+            default:
+                if (name.length() == 4 && name.startsWith("arg") && name.charAt(3) >= '1' && name.charAt(3) <= '9') return ARG + name.charAt(3) - '1';
+                return NAMED;
+        }
+    }
+
+    /**
+     * Method used to render the template into a new String.
+     *
+     * @param context The values of the placeholders.
+     * @return The rendered text.
+     */
+    public String render(@NotNull TemplateContext context) {
+        return renderTo(context, new StringBuilder(literalLength + 32)).toString();
+    }
+
+    /**
+     * Method used to render the template at the end of the given builder.
+     *
+     * @param context The values of the placeholders.
+     * @param out     The builder the rendered text is appended to.
+     * @return The given builder.
+     */
+    public StringBuilder renderTo(@NotNull TemplateContext context, @NotNull StringBuilder out) {
+        return renderTo(context, null, null, out);
+    }
+
+    /**
+     * Method used to render the template with a single named value, without a TemplateContext. Placeholders read from the
+     * member, channel or arguments, {args} and {arg1} to {arg9} included, are kept as written.
+     *
+     * @param name  The name of the placeholder, without braces.
+     * @param value The value the placeholder is replaced with.
+     * @return The rendered text.
+     * @see #needsContext()
+     */
+    public String render(@NotNull String name, String value) {
+        return renderTo(null, name, value, new StringBuilder(literalLength + 32)).toString();
+    }
+
+    // Renders from the context, or from the single named value if the context is null.
+    private StringBuilder renderTo(TemplateContext context, String name, String namedValue, StringBuilder out) {
+        if (context == null) {
+            for (int i = 0; i < codes.length; i++) {
+                if (codes[i] == LITERAL) out.append(texts[i]);
+                else if (codes[i] == NAMED && namedValue != null && texts[i].equals(name)) out.append(namedValue);
+                else placeholder(out, i);
+            }
+            return out;
+        }
+        String[] args = context.getArgs();
+        for (int i = 0; i < codes.length; i++) {
+            switch (codes[i]) {
+                case LITERAL:
+                    out.append(texts[i]);
+                    break;
+                case USER:
+                    if (context.getMember() == null) placeholder(out, i);
+                    else out.append("<@").append(context.getMember().getIdLong()).append('>');
+                    break;
+                case USER_NAME:
+                    if (context.getMember() == null) placeholder(out, i);
+                    else out.append(context.getMember().getEffectiveName());
+                    break;
+                case USER_ID:
+                    if (context.getMember() == null) placeholder(out, i);
+                    else out.append(context.getMember().getIdLong());
+                    break;
+                case GUILD:
+                    if (context.getMember() == null) placeholder(out, i);
+                    else out.append(context.getMember().getGuild().getName());
+                    break;
+                case GUILD_ID:
+                    if (context.getMember() == null) placeholder(out, i);
+                    else out.append(context.getMember().getGuild().getIdLong());
+                    break;
+                case CHANNEL:
+                    if (context.getChannel() == null) placeholder(out, i);
+                    else out.append("<#").append(context.getChannel().getIdLong()).append('>');
+                    break;
+                case ARGS:
+                    for (int j = 0; j < args.length; j++) {
+                        if (j > 0) out.append(' ');
+                        out.append(args[j]);
+                    }
+                    break;
+                case NAMED:
+                    String value = context.get(texts[i]);
+                    if (value == null) placeholder(out, i);
+                    else out.append(value);
+                    break;
+                default:
+                    int arg = codes[i] - ARG;
+                    if (arg < args.length) out.append(args[arg]);
+            }
+        }
+        return out;
+    }
+
+    // Placeholders without a value are kept as written.
+    private void placeholder(StringBuilder out, int segment) {
+        out.append('{').append(texts[segment]).append('}');
+    }
+
+    /**
+     * @return Whether or not the template contains placeholders rendered from the member, channel or arguments of a
+     * TemplateContext. Templates without them can be rendered with #render(String, String).
+     */
+    public boolean needsContext() {
+        return needsContext;
+    }
+
+    /**
+     * @return The text the template was compiled from.
+     */
+    public String getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.executor.reply;
+
+import net.dv8tion.jda.api.entities.Channel;
+import net.dv8tion.jda.api.entities.Member;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * The values a ResponseTemplate is rendered with: the calling member, the channel, the arguments of the call and up to
+ * eight named values for the placeholders specific to a template (for example {perm} in the no-permission messages).
+ */
+public class TemplateContext {
+    private static final String[] NO_ARGS = new String[0];
+    private static final String[] NO_VALUES = new String[0];
+    private static final int MAX_VALUES = 8;
+
+    private final Member member;
+    private final Channel channel;
+    private final String[] args;
+    // Allocated on the first named value and grown as needed, most contexts hold a single value or none at all.
+    private String[] names = NO_VALUES, values = NO_VALUES;
+    private int valueCount;
+
+    private TemplateContext(Member member, Channel channel, String[] args) {
+        this.member = member;
+        this.channel = channel;
+        this.args = args == null ? NO_ARGS : args;
+    }
+
+    /**
+     * @param member  The Member that called the command, may be null.
+     * @param channel The channel the command was called in, may be null.
+     * @param args    The arguments of the call, may be null.
+     * @return A new TemplateContext.
+     */
+    public static TemplateContext of(Member member, Channel channel, String[] args) {
+        return new TemplateContext(member, channel, args);
+    }
+
+    /**
+     * Method used to set the value of a named placeholder.
+     *
+     * @param name  The name of the placeholder, without braces.
+     * @param value The value the placeholder is replaced with.
+     * @return The same TemplateContext instance containing the modified data.
+     */
+    public TemplateContext with(@NotNull String name, String value) {
+        for (int i = 0; i < valueCount; i++) {
+            if (names[i].equals(name)) {
+                values[i] = value;
+                return this;
+            }
+        }
+        if (valueCount == MAX_VALUES) throw new IllegalStateException("A TemplateContext holds at most " + MAX_VALUES + " named values.");
+        if (valueCount == names.length) {
+            int length = Math.min(MAX_VALUES, Math.max(2, valueCount * 2));
+            names = Arrays.copyOf(names, length);
+            values = Arrays.copyOf(values, length);
+        }
+        names[valueCount] = name;
+        values[valueCount++] = value;
+        return this;
+    }
+
+    /**
+     * @param name The name of the placeholder.
+     * @return The value of the named placeholder or null if the context does not contain it.
+     */
+    public String get(@NotNull String name) {
+        for (int i = 0; i < valueCount; i++) if (names[i].equals(name)) return values[i];
+        return null;
+    }
+
+    public Member getMember() {
+        return member;
+    }
+
+    public Channel getChannel() {
+        return channel;
+    }
+
+    public @NotNull String[] getArgs() {
+        return args;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base of the JDK Flight Recorder events emitted for the stages of a command call.
+ * The events are enabled and disabled through the usual JFR settings, for example {@code dcm.Routing#enabled=false}.
+ * While an event type is disabled, creating and completing its events does nothing besides the allocation,
+ * which the JIT compiler usually removes.
+ */
+@Category({"Discord Command Manager", "Commands"})
+@StackTrace(false)
+public abstract class CommandStageEvent extends Event {
+    @Label("Command Path")
+    protected String commandPath;
+
+    @Label("Guild ID")
+    protected long guildId;
+
+    /**
+     * Method used to end the event and commit it if its type is enabled and it passed the threshold of the recording.
+     *
+     * @param commandPath The command path of the call, the names of the commands separated by spaces.
+     * @param guildId     The ID of the guild the call was made in.
+     */
+    public void complete(String commandPath, long guildId) {
+        end();
+        if (!shouldCommit()) return;
+        this.commandPath = commandPath;
+        this.guildId = guildId;
+        commit();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("dcm.Executor")
+@Label("Command Execution")
+@Description("Execution of a command hierarchy by a dispatcher worker, including the permission checks and the executor")
+public final class ExecutorEvent extends CommandStageEvent {
+    @Label("Slash Command")
+    private boolean slashCommand;
+
+    @Label("Failed")
+    private boolean failed;
+
+    /**
+     * @param slashCommand Whether or not the call was made through a SlashCommand.
+     * @param failed       Whether or not the execution threw an exception.
+     * @return The same event.
+     */
+    public ExecutorEvent setOutcome(boolean slashCommand, boolean failed) {
+        this.slashCommand = slashCommand;
+        this.failed = failed;
+        return this;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("dcm.PermissionCheck")
+@Label("Permission Check")
+@Description("Check of the permission required by a command of the hierarchy, the command path is the name of the checked command")
+public final class PermissionCheckEvent extends CommandStageEvent {
+    @Label("Granted")
+    private boolean granted;
+
+    /**
+     * @param granted Whether or not the member had the required permission.
+     * @return The same event.
+     */
+    public PermissionCheckEvent setGranted(boolean granted) {
+        this.granted = granted;
+        return this;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.session;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * State of a multi-step conversation with a member (setup wizard, confirmation, form), bound to a guild, a channel and a user.
+ * Sessions are opened through the SessionStore and expire once their time to live passes without activity.
+ */
+public final class Session {
+    private final SessionStore store;
+    private final long guildId, channelId, userId, ttlNanos;
+    private final SessionHandler handler;
+    private volatile Object state;
+    private volatile long expiresAt;
+    private volatile boolean active = true;
+
+    Session(SessionStore store, long guildId, long channelId, long userId, SessionHandler handler, long ttlNanos) {
+        this.store = store;
+        this.guildId = guildId;
+        this.channelId = channelId;
+        this.userId = userId;
+        this.handler = handler;
+        this.ttlNanos = ttlNanos;
+        this.expiresAt = System.nanoTime() + ttlNanos;
+    }
+
+    public long getGuildId() {
+        return guildId;
+    }
+
+    public long getChannelId() {
+        return channelId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    @NotNull
+    public SessionHandler getHandler() {
+        return handler;
+    }
+
+    /**
+     * @return The state stored in the Session or null if none was stored.
+     */
+    public Object getState() {
+        return state;
+    }
+
+    /**
+     * @param type The class of the stored state.
+     * @param <T>  The type of the stored state.
+     * @return The state stored in the Session or null if none was stored.
+     * @throws ClassCastException if the stored state is not of the given type.
+     */
+    public <T> T getState(@NotNull Class<T> type) {
+        return type.cast(state);
+    }
+
+    /**
+     * Method used to replace the state stored in the Session.
+     *
+     * @param state The new state.
+     * @return The same Session instance.
+     */
+    public Session setState(Object state) {
+        this.state = state;
+        return this;
+    }
+
+    /**
+     * Method used to extend the Session by its time to live, counted from now.
+     * Sessions are extended automatically every time a follow-up interaction is routed to them.
+     */
+    public void touch() {
+        expiresAt = System.nanoTime() + ttlNanos;
+    }
+
+    /**
+     * Method used to end the conversation. The Session no longer receives follow-up interactions.
+     */
+    public void end() {
+        store.end(this);
+    }
+
+    /**
+     * @return Whether or not the Session is still open.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    long getExpiresAt() {
+        return expiresAt;
+    }
+
+    // Returns false if the Session was already closed.
+    boolean close() {
+        if (!active) return false;
+        synchronized (this) {
+            if (!active) return false;
+            active = false;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.session;
+
+import net.dv8tion.jda.api.events.interaction.GenericComponentInteractionCreateEvent;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives the follow-up interactions of the member owning a Session, in the channel the Session was opened in.
+ * <p>
+ * The messages and component interactions are handled on the callback lanes of the CommandDispatcher, not on the JDA event thread:
+ * the interactions of a member are handled one at a time, in the order they were received. Handlers may block briefly, for example
+ * to call an external service, but every member sharing the lane waits meanwhile. Interactions received while the dispatcher is
+ * saturated are not passed to the handler, and those not yet acknowledged are answered with the busy message.
+ * <p>
+ * SessionHandler#onExpire(Session) is called on the expiry thread of the SessionStore.
+ */
+public interface SessionHandler {
+    /**
+     * Method called for every message of the member that is not a command call.
+     *
+     * @param session The Session of the member.
+     * @param event   The event of the message.
+     */
+    void onMessage(@NotNull Session session, @NotNull GuildMessageReceivedEvent event);
+
+    /**
+     * Method called for the button clicks and selection menu interactions of the member that no handler of the
+     * ComponentRouter accepted. The other JDA listeners already received the event when this method is called, the handler
+     * shall not acknowledge interactions that another listener answers.
+     *
+     * @param session The Session of the member.
+     * @param event   The event of the interaction.
+     */
+    default void onComponent(@NotNull Session session, @NotNull GenericComponentInteractionCreateEvent event) {
+    }
+
+    /**
+     * Method called once the Session expired without being ended.
+     *
+     * @param session The expired Session.
+     */
+    default void onExpire(@NotNull Session session) {
+    }
+}
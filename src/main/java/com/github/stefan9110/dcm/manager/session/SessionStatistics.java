@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.session;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the sessions of a SessionStore.
+ */
+public class SessionStatistics {
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder opened = new LongAdder(), ended = new LongAdder(), expired = new LongAdder(), rejected = new LongAdder(),
+            messages = new LongAdder(), components = new LongAdder();
+
+    AtomicInteger active() {
+        return active;
+    }
+
+    void recordOpened() {
+        opened.increment();
+    }
+
+    void recordEnded() {
+        ended.increment();
+    }
+
+    void recordExpired() {
+        expired.increment();
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    void recordMessage() {
+        messages.increment();
+    }
+
+    void recordComponent() {
+        components.increment();
+    }
+
+    /**
+     * @return The number of open sessions.
+     */
+    public int getActiveSessions() {
+        return active.get();
+    }
+
+    public long getOpenedSessions() {
+        return opened.sum();
+    }
+
+    /**
+     * @return The number of sessions ended through Session#end(), including the sessions replaced by a newer one.
+     */
+    public long getEndedSessions() {
+        return ended.sum();
+    }
+
+    public long getExpiredSessions() {
+        return expired.sum();
+    }
+
+    /**
+     * @return The number of sessions that could not be opened because the store was full.
+     */
+    public long getRejectedSessions() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return The number of follow-up messages routed to a session.
+     */
+    public long getRoutedMessages() {
+        return messages.sum();
+    }
+
+    /**
+     * @return The number of button and selection menu interactions routed to a session.
+     */
+    public long getRoutedComponents() {
+        return components.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "SessionStatistics{active=" + getActiveSessions() + ", opened=" + getOpenedSessions() + ", ended=" + getEndedSessions()
+                + ", expired=" + getExpiredSessions() + ", rejected=" + getRejectedSessions() + ", messages=" + getRoutedMessages()
+                + ", components=" + getRoutedComponents() + "}";
+    }
+}
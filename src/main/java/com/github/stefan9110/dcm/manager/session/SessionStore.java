@@ -0,0 +1,255 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.session;
+
+import com.github.stefan9110.dcm.core.TimerWheel;
+import com.github.stefan9110.dcm.core.collection.ConcurrentLongMap;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.events.interaction.GenericComponentInteractionCreateEvent;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Store of the conversation Sessions of multi-step commands, keyed by guild, channel and user.
+ * The CommandManager routes the messages that are not command calls, as well as the component interactions no handler of the
+ * ComponentRouter accepted, to the Session of their author.
+ * <p>
+ * Sessions expire once their time to live passes without activity. Expiration is driven by a TimerWheel advanced every second by a
+ * single background thread, started when the first Session is opened. The number of open sessions is capped: when the store is
+ * full new sessions are rejected instead of evicting the conversations already in progress.
+ */
+public class SessionStore implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionStore.class);
+
+    // The sessions of every user, one per channel (usually a single one). Keyed by user ID so that looking up the session of a
+    // message does not allocate.
+    private final ConcurrentLongMap<Session[]> sessions = new ConcurrentLongMap<>();
+    private final TimerWheel<Session> wheel = new TimerWheel<>(512, 1, TimeUnit.SECONDS, Session::getExpiresAt);
+    private final SessionStatistics statistics = new SessionStatistics();
+    private final int maxSessions;
+    private ScheduledExecutorService expiry;
+
+    /**
+     * Creates a store holding at most 10000 open sessions.
+     */
+    public SessionStore() {
+        this(10000);
+    }
+
+    /**
+     * @param maxSessions The maximum number of open sessions.
+     */
+    public SessionStore(int maxSessions) {
+        if (maxSessions < 1) throw new IllegalArgumentException("The store must allow at least one session.");
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * Method used to open a Session, ending the Session the user had in the channel, if any.
+     *
+     * @param guildId   The ID of the guild.
+     * @param channelId The ID of the channel the follow-up messages are expected in.
+     * @param userId    The ID of the user.
+     * @param handler   The SessionHandler receiving the follow-up interactions.
+     * @param ttl       The time the Session is kept without activity.
+     * @param unit      The TimeUnit of the time to live.
+     * @return The new Session or null if the store is full.
+     */
+    public Session open(long guildId, long channelId, long userId, @NotNull SessionHandler handler, long ttl, @NotNull TimeUnit unit) {
+        if (ttl <= 0) throw new IllegalArgumentException("The time to live of a session must be positive.");
+        if (statistics.active().incrementAndGet() > maxSessions) {
+            statistics.active().decrementAndGet();
+            statistics.recordRejected();
+            return null;
+        }
+        startExpiry();
+
+        Session session = new Session(this, guildId, channelId, userId, handler, unit.toNanos(ttl));
+        Session[] previous = new Session[1];
+        sessions.compute(userId, (id, current) -> {
+            int index = current == null ? -1 : indexOf(current, guildId, channelId);
+            if (index < 0) {
+                Session[] updated = current == null ? new Session[1] : Arrays.copyOf(current, current.length + 1);
+                updated[updated.length - 1] = session;
+                return updated;
+            }
+            previous[0] = current[index];
+            Session[] updated = current.clone();
+            updated[index] = session;
+            return updated;
+        });
+        if (previous[0] != null && previous[0].close()) {
+            wheel.remove(previous[0]);
+            statistics.active().decrementAndGet();
+            statistics.recordEnded();
+        }
+        wheel.schedule(session);
+        statistics.recordOpened();
+        return session;
+    }
+
+    /**
+     * Method used to open a Session for a member in a channel.
+     *
+     * @see SessionStore#open(long, long, long, SessionHandler, long, TimeUnit)
+     */
+    public Session open(@NotNull Member member, @NotNull MessageChannel channel, @NotNull SessionHandler handler, long ttl,
+                        @NotNull TimeUnit unit) {
+        return open(member.getGuild().getIdLong(), channel.getIdLong(), member.getIdLong(), handler, ttl, unit);
+    }
+
+    /**
+     * @param guildId   The ID of the guild.
+     * @param channelId The ID of the channel.
+     * @param userId    The ID of the user.
+     * @return The open Session of the user in the channel or null if there is none.
+     */
+    public Session get(long guildId, long channelId, long userId) {
+        if (statistics.getActiveSessions() == 0) return null;
+        Session[] userSessions = sessions.get(userId);
+        int index = userSessions == null ? -1 : indexOf(userSessions, guildId, channelId);
+        if (index < 0) return null;
+        Session session = userSessions[index];
+        // The session expired since the last tick of the wheel.
+        if (session.getExpiresAt() - System.nanoTime() <= 0) {
+            expire(session);
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * Method used to route a follow-up message to a Session, extending the Session.
+     *
+     * @param session The Session of the author of the message.
+     * @param event   The event of the message.
+     */
+    public void handleMessage(@NotNull Session session, @NotNull GuildMessageReceivedEvent event) {
+        session.touch();
+        statistics.recordMessage();
+        try {
+            session.getHandler().onMessage(session, event);
+        } catch (Throwable t) {
+            LOGGER.error("Uncaught exception while handling a session message", t);
+        }
+    }
+
+    /**
+     * Method used to route a component interaction to a Session, extending the Session.
+     *
+     * @param session The Session of the user of the interaction.
+     * @param event   The event of the interaction.
+     */
+    public void handleComponent(@NotNull Session session, @NotNull GenericComponentInteractionCreateEvent event) {
+        session.touch();
+        statistics.recordComponent();
+        try {
+            session.getHandler().onComponent(session, event);
+        } catch (Throwable t) {
+            LOGGER.error("Uncaught exception while handling a session component", t);
+        }
+    }
+
+    void end(Session session) {
+        if (remove(session) && session.close()) {
+            // Removed from the wheel so that the Session and its state are not kept until its deadline.
+            wheel.remove(session);
+            statistics.active().decrementAndGet();
+            statistics.recordEnded();
+        }
+    }
+
+    // Called by the wheel for every session whose deadline passed.
+    private void expire(Session session) {
+        if (!remove(session) || !session.close()) return;
+        statistics.active().decrementAndGet();
+        statistics.recordExpired();
+        try {
+            session.getHandler().onExpire(session);
+        } catch (Throwable t) {
+            LOGGER.error("Uncaught exception while expiring a session", t);
+        }
+    }
+
+    // Removes the given Session instance from the sessions of its user, returns false if it was not stored.
+    private boolean remove(Session session) {
+        boolean[] removed = new boolean[1];
+        sessions.compute(session.getUserId(), (id, current) -> {
+            int index = current == null ? -1 : indexOf(current, session.getGuildId(), session.getChannelId());
+            if (index < 0 || current[index] != session) return current;
+            removed[0] = true;
+            if (current.length == 1) return null;
+            Session[] updated = new Session[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, updated.length - index);
+            return updated;
+        });
+        return removed[0];
+    }
+
+    private static int indexOf(Session[] userSessions, long guildId, long channelId) {
+        for (int i = 0; i < userSessions.length; i++) {
+            if (userSessions[i].getChannelId() == channelId && userSessions[i].getGuildId() == guildId) return i;
+        }
+        return -1;
+    }
+
+    private synchronized void startExpiry() {
+        if (expiry != null) return;
+        expiry = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DCM-Session-Expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiry.scheduleAtFixedRate(() -> wheel.advance(System.nanoTime(), this::expire), 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return The number of open sessions.
+     */
+    public int size() {
+        return statistics.getActiveSessions();
+    }
+
+    /**
+     * @return The maximum number of open sessions.
+     */
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    public SessionStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Stops the expiration of the sessions. Open sessions are kept but no longer expire.
+     */
+    @Override
+    public synchronized void close() {
+        if (expiry != null) expiry.shutdown();
+    }
+}
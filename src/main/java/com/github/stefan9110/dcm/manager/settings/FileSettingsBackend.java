@@ -0,0 +1,195 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.settings;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * SettingsBackend storing the guild settings in a local append-only file.
+ * Every batch of changes is appended to the end of the file and the last record of a guild wins when the file is loaded.
+ * The file is compacted on load once it contains many more records than guilds.
+ * <p>
+ * Every record is framed by its length (int) and the CRC32 of its content (int). Loading stops at the first frame that is
+ * incomplete or does not match its checksum, and the file is then compacted without it. A batch that fails to be written is
+ * truncated away, so that the next batch is appended after the last complete record.
+ * <p>
+ * Record format: guild ID (long), flags (byte), prefix (UTF, if flag 1), no-permission message (UTF, if flag 2),
+ * number of disabled commands (short) followed by their names (UTF).
+ */
+public class FileSettingsBackend implements SettingsBackend {
+    private static final int MAGIC = 0x44434d53; // "DCMS"
+    private static final byte VERSION = 2;
+    private static final int FLAG_PREFIX = 1, FLAG_MESSAGE = 2;
+    private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+    private final Path file;
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream(1024), record = new ByteArrayOutputStream(256);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    // Offset of the end of the last completely written batch.
+    private long end;
+
+    /**
+     * @param file The path of the settings file. The file is created if it does not exist.
+     */
+    public FileSettingsBackend(@NotNull Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public @NotNull Map<Long, GuildSettings> load() throws IOException {
+        Map<Long, GuildSettings> settings = new HashMap<>();
+        int records = 0;
+        boolean truncated = false;
+        if (Files.exists(file)) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                if (input.readInt() != MAGIC || input.readByte() != VERSION) throw new IOException("The file " + file + " is not a settings file.");
+                while (input.available() > 0) {
+                    DataInput recordInput = readFrame(input);
+                    if (recordInput == null) {
+                        // The record was not completely written or was damaged, the records following it cannot be trusted.
+                        truncated = true;
+                        break;
+                    }
+                    long guildId;
+                    GuildSettings guildSettings;
+                    try {
+                        guildId = recordInput.readLong();
+                        guildSettings = readSettings(recordInput);
+                    } catch (EOFException | UTFDataFormatException e) {
+                        // The last record was not completely written before the process stopped.
+                        truncated = true;
+                        break;
+                    }
+                    if (guildSettings.isEmpty()) settings.remove(guildId);
+                    else settings.put(guildId, guildSettings);
+                    records++;
+                }
+            }
+        }
+
+        // Rewriting the file without the outdated records (or creating it if it does not exist).
+        if (truncated || records == 0 || records > settings.size() * 2 + 1024) compact(settings);
+        channel = openChannel(file);
+        end = channel.size();
+        return settings;
+    }
+
+    // Opens the channel the batches are written through.
+    FileChannel openChannel(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.WRITE);
+    }
+
+    // Reads the next frame, or returns null if the frame is incomplete or damaged.
+    private DataInput readFrame(DataInputStream input) throws IOException {
+        byte[] content;
+        int checksum;
+        try {
+            int length = input.readInt();
+            checksum = input.readInt();
+            if (length < 0 || length > MAX_RECORD_LENGTH) return null;
+            content = new byte[length];
+            input.readFully(content);
+        } catch (EOFException e) {
+            return null;
+        }
+        crc.reset();
+        crc.update(content, 0, content.length);
+        return (int) crc.getValue() == checksum ? new DataInputStream(new ByteArrayInputStream(content)) : null;
+    }
+
+    @Override
+    public void write(@NotNull Map<Long, GuildSettings> changes) throws IOException {
+        batch.reset();
+        DataOutputStream out = new DataOutputStream(batch);
+        for (Map.Entry<Long, GuildSettings> entry : changes.entrySet()) writeFrame(out, entry.getKey(), entry.getValue());
+
+        ByteBuffer data = ByteBuffer.wrap(batch.toByteArray());
+        try {
+            // Positional writes: after a failed batch the next one overwrites its partial records.
+            long position = end;
+            while (data.hasRemaining()) position += channel.write(data, position);
+            channel.force(false);
+            end = position;
+        } catch (IOException e) {
+            try {
+                channel.truncate(end);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+
+    private void compact(Map<Long, GuildSettings> settings) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            for (Map.Entry<Long, GuildSettings> entry : settings.entrySet()) writeFrame(out, entry.getKey(), entry.getValue());
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeFrame(DataOutputStream out, long guildId, GuildSettings settings) throws IOException {
+        record.reset();
+        writeRecord(new DataOutputStream(record), guildId, settings);
+        byte[] content = record.toByteArray();
+        crc.reset();
+        crc.update(content, 0, content.length);
+        out.writeInt(content.length);
+        out.writeInt((int) crc.getValue());
+        out.write(content);
+    }
+
+    private static GuildSettings readSettings(DataInput input) throws IOException {
+        byte flags = input.readByte();
+        String prefix = (flags & FLAG_PREFIX) != 0 ? input.readUTF() : null;
+        String message = (flags & FLAG_MESSAGE) != 0 ? input.readUTF() : null;
+        int count = input.readUnsignedShort();
+        Set<String> disabled = new HashSet<>();
+        for (int i = 0; i < count; i++) disabled.add(input.readUTF());
+        return new GuildSettings(prefix, message, disabled);
+    }
+
+    private static void writeRecord(DataOutput out, long guildId, GuildSettings settings) throws IOException {
+        out.writeLong(guildId);
+        out.writeByte((settings.getPrefix() != null ? FLAG_PREFIX : 0) | (settings.getNoPermissionMessage() != null ? FLAG_MESSAGE : 0));
+        if (settings.getPrefix() != null) out.writeUTF(settings.getPrefix());
+        if (settings.getNoPermissionMessage() != null) out.writeUTF(settings.getNoPermissionMessage());
+        out.writeShort(settings.getDisabledCommands().size());
+        for (String command : settings.getDisabledCommands()) out.writeUTF(command);
+    }
+}
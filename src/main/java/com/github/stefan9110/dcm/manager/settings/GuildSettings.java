@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.settings;
+
+import com.github.stefan9110.dcm.manager.executor.reply.ResponseTemplate;
+import com.github.stefan9110.dcm.permission.DiscordPermission;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable settings of a single guild. Values that are null fall back to the global configuration of the API.
+ */
+public final class GuildSettings {
+    /**
+     * Settings of a guild that did not change anything.
+     */
+    public static final GuildSettings EMPTY = new GuildSettings(null, null, Collections.emptySet());
+
+    private final String prefix, noPermissionMessage;
+    private final ResponseTemplate noPermissionTemplate;
+    private final Set<String> disabledCommands;
+
+    /**
+     * @param prefix              The command prefix of the guild or null for the global prefix.
+     * @param noPermissionMessage The DiscordPermission no-permission message of the guild or null for the global message.
+     * @param disabledCommands    The name identifiers of the top of the hierarchy commands disabled in the guild.
+     */
+    public GuildSettings(String prefix, String noPermissionMessage, @NotNull Set<String> disabledCommands) {
+        this.prefix = prefix == null ? null : prefix.toLowerCase();
+        this.noPermissionMessage = noPermissionMessage;
+        this.noPermissionTemplate = noPermissionMessage == null ? null : DiscordPermission.compileNoPermissionMessage(noPermissionMessage);
+        this.disabledCommands = disabledCommands.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(disabledCommands));
+    }
+
+    /**
+     * @return The lowercase command prefix of the guild or null if the guild uses the global prefix.
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * @return The no-permission message of the guild (may contain the %perm% placeholder) or null if the guild uses the global message.
+     */
+    public String getNoPermissionMessage() {
+        return noPermissionMessage;
+    }
+
+    /**
+     * @return The compiled no-permission message of the guild or null if the guild uses the global message.
+     */
+    public ResponseTemplate getNoPermissionTemplate() {
+        return noPermissionTemplate;
+    }
+
+    /**
+     * @return The unmodifiable Set of the name identifiers of the commands disabled in the guild.
+     */
+    public @NotNull Set<String> getDisabledCommands() {
+        return disabledCommands;
+    }
+
+    /**
+     * @return Whether or not the settings are identical to the global configuration.
+     */
+    public boolean isEmpty() {
+        return prefix == null && noPermissionMessage == null && disabledCommands.isEmpty();
+    }
+
+    public GuildSettings withPrefix(String prefix) {
+        return new GuildSettings(prefix, noPermissionMessage, disabledCommands);
+    }
+
+    public GuildSettings withNoPermissionMessage(String noPermissionMessage) {
+        return new GuildSettings(prefix, noPermissionMessage, disabledCommands);
+    }
+
+    public GuildSettings withCommandDisabled(@NotNull String commandName, boolean disabled) {
+        if (disabledCommands.contains(commandName.toLowerCase()) == disabled) return this;
+        Set<String> commands = new HashSet<>(disabledCommands);
+        if (disabled) commands.add(commandName.toLowerCase());
+        else commands.remove(commandName.toLowerCase());
+        return new GuildSettings(prefix, noPermissionMessage, commands);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.settings;
+
+import com.github.stefan9110.dcm.core.collection.ConcurrentLongMap;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory store of the per-guild settings used by the command dispatch.
+ * Reads are always served from memory. Changes are applied in memory immediately and written to the SettingsBackend
+ * in batches by a background thread (write-behind), so changing a setting never waits for the storage.
+ */
+public class GuildSettingsStore implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GuildSettingsStore.class);
+
+    private final SettingsBackend backend;
+    private final ConcurrentLongMap<GuildSettings> settings = new ConcurrentLongMap<>();
+    // Changes not yet written to the backend.
+    private final ConcurrentLongMap<GuildSettings> pending = new ConcurrentLongMap<>();
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Creates a store keeping the settings in memory only. The settings are lost when the bot stops.
+     */
+    public GuildSettingsStore() {
+        backend = null;
+        flusher = null;
+    }
+
+    /**
+     * Creates a store persisting the settings through the given backend, writing the changes every second.
+     *
+     * @param backend The SettingsBackend the settings are loaded from and written to.
+     * @throws IOException if the settings cannot be loaded.
+     */
+    public GuildSettingsStore(@NotNull SettingsBackend backend) throws IOException {
+        this(backend, 1000);
+    }
+
+    /**
+     * Creates a store persisting the settings through the given backend.
+     *
+     * @param backend             The SettingsBackend the settings are loaded from and written to.
+     * @param flushIntervalMillis The interval between two batches of changes written to the backend, in milliseconds.
+     * @throws IOException if the settings cannot be loaded.
+     */
+    public GuildSettingsStore(@NotNull SettingsBackend backend, long flushIntervalMillis) throws IOException {
+        this.backend = backend;
+        backend.load().forEach(settings::put);
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DCM-Settings-Flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param guildId The ID of the guild.
+     * @return The settings of the guild. Guilds that did not change any setting return GuildSettings#EMPTY.
+     */
+    public @NotNull GuildSettings get(long guildId) {
+        return settings.getOrDefault(guildId, GuildSettings.EMPTY);
+    }
+
+    /**
+     * @param guildId The ID of the guild.
+     * @return The lowercase command prefix of the guild or null if the guild uses the global prefix.
+     */
+    public String getPrefix(long guildId) {
+        GuildSettings guildSettings = settings.get(guildId);
+        return guildSettings == null ? null : guildSettings.getPrefix();
+    }
+
+    /**
+     * Method used to change the settings of a guild. The change is visible immediately and persisted with the next batch.
+     *
+     * @param guildId The ID of the guild.
+     * @param change  Function receiving the current settings of the guild and returning the new ones.
+     * @return The new settings of the guild.
+     */
+    public GuildSettings update(long guildId, @NotNull UnaryOperator<GuildSettings> change) {
+        GuildSettings result = settings.compute(guildId, (id, current) -> {
+            GuildSettings updated = change.apply(current == null ? GuildSettings.EMPTY : current);
+            // Queued under the lock of the guild, so that concurrent changes are queued in the order they were applied.
+            if (backend != null) pending.put(id, updated);
+            return updated.isEmpty() ? null : updated;
+        });
+        return result == null ? GuildSettings.EMPTY : result;
+    }
+
+    /**
+     * Method used to iterate over the settings of every guild that changed at least one setting.
+     *
+     * @param action The action called for every guild ID and its settings.
+     */
+    public void forEach(@NotNull BiConsumer<Long, GuildSettings> action) {
+        settings.forEach(action::accept);
+    }
+
+    /**
+     * Method used to write all the pending changes to the backend immediately.
+     */
+    public synchronized void flush() {
+        if (backend == null || pending.isEmpty()) return;
+        Map<Long, GuildSettings> batch = pending.toMap();
+        try {
+            backend.write(batch);
+        } catch (IOException e) {
+            // The changes stay pending and are written with the next batch.
+            LOGGER.error("Could not write the guild settings", e);
+            return;
+        }
+        // Guilds changed again while the batch was written stay pending.
+        batch.forEach(pending::remove);
+    }
+
+    /**
+     * Writes the pending changes and releases the backend.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (backend == null) return;
+        flusher.shutdown();
+        flush();
+        backend.close();
+    }
+}
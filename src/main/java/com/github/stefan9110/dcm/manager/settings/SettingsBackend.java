@@ -0,0 +1,54 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.manager.settings;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Storage used by the GuildSettingsStore to persist the guild settings.
+ * Implement this interface to keep the settings in your own storage (for example a database).
+ * The methods are never called concurrently by the GuildSettingsStore.
+ */
+public interface SettingsBackend {
+    /**
+     * Method called once, when the GuildSettingsStore is created, to load all the persisted settings.
+     *
+     * @return The settings of every guild, mapped by the guild ID.
+     * @throws IOException if the settings cannot be read.
+     */
+    @NotNull
+    Map<Long, GuildSettings> load() throws IOException;
+
+    /**
+     * Method used to persist a batch of changed settings.
+     * Settings for which GuildSettings#isEmpty() returns true should be removed from the storage.
+     *
+     * @param changes The new settings of the changed guilds, mapped by the guild ID.
+     * @throws IOException if the settings cannot be written.
+     */
+    void write(@NotNull Map<Long, GuildSettings> changes) throws IOException;
+
+    /**
+     * Method used to release the resources of the backend. No other method is called afterwards.
+     *
+     * @throws IOException if the storage cannot be closed properly.
+     */
+    void close() throws IOException;
+}
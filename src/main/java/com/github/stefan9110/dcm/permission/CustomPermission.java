@@ -35,4 +35,15 @@ public interface CustomPermission {
      * @return The String containing the no permission message
      */
     String noPermissionMessage();
+
+    /**
+     * Method used to obtain the no-permission message for the permission found at this instance, shown to the given member.
+     * Implementations may override this method to return a message depending on the member or its guild.
+     *
+     * @param member The member that does not have the permission
+     * @return The String containing the no permission message
+     */
+    default String noPermissionMessage(Member member) {
+        return noPermissionMessage();
+    }
 }
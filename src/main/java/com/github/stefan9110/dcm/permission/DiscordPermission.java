@@ -16,35 +16,43 @@
 
 package com.github.stefan9110.dcm.permission;
 
+import com.github.stefan9110.dcm.manager.executor.reply.ResponseTemplate;
+import com.github.stefan9110.dcm.manager.executor.reply.TemplateContext;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Member;
 
-import java.util.HashMap;
+import java.util.function.LongFunction;
 
 public class DiscordPermission implements CustomPermission {
-    private static final HashMap<Permission, DiscordPermission> permissionCache = new HashMap<>();
-    private static String noPermissionMessage = "";
+    /* One instance per JDA Permission, indexed by the ordinal of the Permission. Unlike a HashMap keyed by the enum constants, whose
+     * identity hash codes change between the image build and the run time, the array stays valid when the class is initialized
+     * at native-image build time. */
+    private static final DiscordPermission[] permissions = createPermissions();
+    private static ResponseTemplate noPermissionMessage = ResponseTemplate.compile("");
+    private static LongFunction<ResponseTemplate> guildNoPermissionMessages = guildId -> null;
     private final Permission discordPerm;
 
     private DiscordPermission(Permission perm) {
         this.discordPerm = perm;
     }
 
+    private static DiscordPermission[] createPermissions() {
+        Permission[] values = Permission.values();
+        DiscordPermission[] result = new DiscordPermission[values.length];
+        for (Permission permission : values) result[permission.ordinal()] = new DiscordPermission(permission);
+        return result;
+    }
+
     /**
      * Method used to obtain a DiscordPermission instance of a given JDA Permission
-     * Permissions are cached after the first request
+     * The same instance is returned for every request of a Permission
      *
      * @param permission The requested JDA Permission
      * @return DiscordPermission instance of the requested Permission
      * @see CustomPermission
      */
     public static DiscordPermission of(Permission permission) {
-        if (!permissionCache.containsKey(permission)) {
-            DiscordPermission result = new DiscordPermission(permission);
-            permissionCache.put(permission, result);
-            return result;
-        }
-        return permissionCache.get(permission);
+        return permissions[permission.ordinal()];
     }
 
     @Override
@@ -54,16 +62,55 @@ public class DiscordPermission implements CustomPermission {
 
     @Override
     public String noPermissionMessage() {
-        return noPermissionMessage.replace("%perm%", discordPerm.toString());
+        return noPermissionMessage.render("perm", discordPerm.toString());
+    }
+
+    @Override
+    public String noPermissionMessage(Member member) {
+        ResponseTemplate guildMessage = member == null ? null : guildNoPermissionMessages.apply(member.getGuild().getIdLong());
+        ResponseTemplate message = guildMessage == null ? noPermissionMessage : guildMessage;
+        // Messages only using {perm} are rendered without allocating a TemplateContext.
+        if (member == null || !message.needsContext()) return message.render("perm", discordPerm.toString());
+        return message.render(TemplateContext.of(member, null, null).with("perm", discordPerm.toString()));
+    }
+
+    /**
+     * Method used to compile a no permission message.
+     * Messages containing the %perm% placeholder are read as before templates were supported: %perm% is the only placeholder
+     * and braces are kept as written. Other messages are compiled as a ResponseTemplate, in which {perm}, {user} and the other
+     * template placeholders are replaced.
+     *
+     * @param message The no permission message
+     * @return The compiled message
+     * @see ResponseTemplate
+     */
+    public static ResponseTemplate compileNoPermissionMessage(String message) {
+        if (message.contains("%perm%")) return ResponseTemplate.compileLiteral(message, "%perm%", "perm");
+        return ResponseTemplate.compile(message);
+    }
+
+    /**
+     * Method used to set the source of the per-guild no permission messages.
+     * Guilds for which the function returns null use the global no permission message.
+     * The source is shared by the whole JVM: the CommandManager installs the lookup of its settings store when it is created, so
+     * the per-guild messages follow the last CommandManager created.
+     *
+     * @param messages Function returning the compiled no permission message of a guild ID
+     * @see #compileNoPermissionMessage(String)
+     */
+    public static void setGuildNoPermissionMessages(LongFunction<ResponseTemplate> messages) {
+        guildNoPermissionMessages = messages;
     }
 
     /**
      * Method used to set the no permission message for all the DiscordPermission instances
      *
-     * @param noPermMessage The no permission message (may contain %perm% placeholder that will be replaced with the JDA Permission name on call)
+     * @param noPermMessage The no permission message (may contain the {perm} placeholder, or the %perm% placeholder of the messages
+     *                      written before templates were supported, that will be replaced with the JDA Permission name on call)
+     * @see #compileNoPermissionMessage(String)
      * @see CustomPermission#noPermissionMessage()
      */
     public static void setNoPermissionMessage(String noPermMessage) {
-        noPermissionMessage = noPermMessage;
+        noPermissionMessage = compileNoPermissionMessage(noPermMessage);
     }
 }
@@ -0,0 +1,431 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Annotation processor generating the registration code of the methods annotated with Command and SubCommand.
+ * For every class containing annotated methods a {@code <ClassName>Registration} class is generated in the same package. It contains
+ * dedicated ParentCommand, SubCommand and Executor classes calling the annotated methods directly, so no reflection is used at runtime.
+ * <p>
+ * Invalid command trees (duplicate names or aliases, missing parents, invalid arguments, wrong method signatures) are reported
+ * as compilation errors.
+ */
+@SupportedAnnotationTypes({CommandProcessor.COMMAND, CommandProcessor.SUB_COMMAND})
+public class CommandProcessor extends AbstractProcessor {
+    static final String COMMAND = "com.github.stefan9110.dcm.annotation.Command";
+    static final String SUB_COMMAND = "com.github.stefan9110.dcm.annotation.SubCommand";
+    private static final String ARG = "com.github.stefan9110.dcm.annotation.Arg";
+    private static final String ARGS = "com.github.stefan9110.dcm.annotation.Args";
+
+    private static final String MEMBER = "net.dv8tion.jda.api.entities.Member";
+    private static final String MESSAGE_EVENT = "net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent";
+    private static final String SLASH_EVENT = "net.dv8tion.jda.api.events.interaction.SlashCommandEvent";
+    private static final String INTERACTION_RESPONSE = "com.github.stefan9110.dcm.manager.executor.reply.InteractionResponse";
+
+    // SlashCommand implementation limitations of names and descriptions.
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[\\w-]{1,32}$");
+    private static final int MAX_DESCRIPTION_LENGTH = 100, MAX_ARGUMENTS = 25;
+
+    // Top of the hierarchy names and aliases of all the classes processed in the compilation, used to find duplicates across classes.
+    private final Map<String, Element> topLevelNames = new HashMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Map<TypeElement, List<ExecutableElement>> methodsByClass = new LinkedHashMap<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.METHOD) continue;
+                TypeElement owner = (TypeElement) element.getEnclosingElement();
+                List<ExecutableElement> methods = methodsByClass.computeIfAbsent(owner, key -> new ArrayList<>());
+                if (!methods.contains(element)) methods.add((ExecutableElement) element);
+            }
+        }
+
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : methodsByClass.entrySet()) {
+            List<Node> roots = buildTree(entry.getValue());
+            if (roots == null) continue;
+            try {
+                generate(entry.getKey(), roots);
+            } catch (IOException e) {
+                error(entry.getKey(), "Could not generate the command registration: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /* Building and validating the command tree of a class. Returns null if the tree contains errors. */
+    private List<Node> buildTree(List<ExecutableElement> methods) {
+        boolean valid = true;
+        List<Node> roots = new ArrayList<>();
+        List<Node> children = new ArrayList<>();
+        for (ExecutableElement method : methods) {
+            AnnotationMirror command = findAnnotation(method, COMMAND), subCommand = findAnnotation(method, SUB_COMMAND);
+            if (command != null && subCommand != null) {
+                error(method, "A method cannot be annotated with both @Command and @SubCommand.");
+                valid = false;
+                continue;
+            }
+            Node node = readNode(method, command != null ? command : subCommand);
+            if (node == null) {
+                valid = false;
+                continue;
+            }
+            if (command != null) roots.add(node);
+            else children.add(node);
+        }
+
+        // Top of the hierarchy names and aliases must be unique in the whole compilation.
+        for (Node root : roots) {
+            for (String key : root.keys()) {
+                Element previous = topLevelNames.putIfAbsent(key, root.method);
+                if (previous != null && previous != root.method) {
+                    error(root.method, "The parent command " + key + " already exists (declared by " + previous.getEnclosingElement() + "#" + previous + ").");
+                    valid = false;
+                }
+            }
+        }
+
+        // Sub-commands are attached by the length of their parent path so that parents are always attached before their children.
+        children.sort(Comparator.comparingInt(node -> node.parentPath.length));
+        for (Node child : children) {
+            Node parent = null;
+            for (Node root : roots) if (root.name.equals(child.parentPath[0])) parent = root;
+            for (int i = 1; parent != null && i < child.parentPath.length; i++) parent = parent.children.get(child.parentPath[i]);
+            if (parent == null) {
+                error(child.method, "The parent command " + String.join(" ", child.parentPath) + " is not declared in " + child.method.getEnclosingElement() + ".");
+                valid = false;
+                continue;
+            }
+            if (parent.slash != child.slash) {
+                error(child.method, "The sub-command " + child.name + " must use the same executor type (message or SlashCommand) as its parent.");
+                valid = false;
+                continue;
+            }
+            for (String key : child.keys()) {
+                for (Node sibling : parent.children.values()) {
+                    if (sibling.keys().contains(key)) {
+                        error(child.method, "The command " + key + " already exists in parent command " + parent.name + ".");
+                        valid = false;
+                    }
+                }
+            }
+            parent.children.put(child.name, child);
+        }
+        return valid ? roots : null;
+    }
+
+    private Node readNode(ExecutableElement method, AnnotationMirror annotation) {
+        boolean valid = true;
+        if (method.getModifiers().contains(Modifier.PRIVATE)) {
+            error(method, "Command methods must not be private.");
+            valid = false;
+        }
+
+        // Checking the signature of the method and identifying the type of the executor.
+        List<? extends VariableElement> params = method.getParameters();
+        boolean slash = params.size() == 3 && params.get(2).asType().toString().equals(SLASH_EVENT);
+        boolean signature = params.size() == 3
+                && params.get(0).asType().toString().equals(MEMBER)
+                && params.get(1).asType().toString().equals("java.lang.String[]")
+                && (slash ? method.getReturnType().toString().equals(INTERACTION_RESPONSE)
+                : params.get(2).asType().toString().equals(MESSAGE_EVENT) && method.getReturnType().getKind() == TypeKind.VOID);
+        if (!signature) {
+            error(method, "Command methods must be declared as void name(Member, String[], GuildMessageReceivedEvent) "
+                    + "or InteractionResponse name(Member, String[], SlashCommandEvent).");
+            valid = false;
+        }
+
+        Map<String, AnnotationValue> values = values(annotation);
+        Node node = new Node(method, slash);
+        node.name = ((String) values.get("name").getValue()).toLowerCase();
+        node.description = (String) values.get("description").getValue();
+        node.usage = (String) values.get("usage").getValue();
+        node.priority = enumName(values.get("priority"));
+        for (AnnotationValue alias : list(values.get("aliases"))) node.aliases.add(((String) alias.getValue()).toLowerCase());
+        List<AnnotationValue> permissions = list(values.get("permission"));
+        if (!permissions.isEmpty()) node.permission = enumName(permissions.get(0));
+        if (values.containsKey("parent")) {
+            node.parentPath = ((String) values.get("parent").getValue()).trim().toLowerCase().split("\\s+");
+        }
+
+        if (!NAME_PATTERN.matcher(node.name).matches()) {
+            error(method, "Invalid command name " + node.name + ": names must contain 1 to 32 letters, digits, - or _.");
+            valid = false;
+        }
+        if (new HashSet<>(node.keys()).size() != node.keys().size()) {
+            error(method, "The command " + node.name + " declares the same name or alias more than once.");
+            valid = false;
+        }
+        if (slash && node.parentPath != null && node.description.isEmpty()) {
+            error(method, "The SlashCommand sub-command " + node.name + " requires a description.");
+            valid = false;
+        }
+        if (node.description.length() > MAX_DESCRIPTION_LENGTH) {
+            error(method, "The description of the command " + node.name + " is longer than " + MAX_DESCRIPTION_LENGTH + " characters.");
+            valid = false;
+        }
+
+        // Reading the arguments, declared either directly or through the @Args container.
+        List<AnnotationMirror> arguments = new ArrayList<>();
+        AnnotationMirror single = findAnnotation(method, ARG), container = findAnnotation(method, ARGS);
+        if (single != null) arguments.add(single);
+        if (container != null)
+            for (AnnotationValue value : list(values(container).get("value"))) arguments.add((AnnotationMirror) value.getValue());
+        if (arguments.size() > MAX_ARGUMENTS) {
+            error(method, "A command cannot have more than " + MAX_ARGUMENTS + " arguments.");
+            valid = false;
+        }
+        Set<String> argumentNames = new HashSet<>();
+        boolean optionalFound = false;
+        for (AnnotationMirror argument : arguments) {
+            Map<String, AnnotationValue> argumentValues = values(argument);
+            Argument arg = new Argument(enumName(argumentValues.get("type")), ((String) argumentValues.get("name").getValue()).toLowerCase(),
+                    (String) argumentValues.get("description").getValue(), (Boolean) argumentValues.get("required").getValue());
+            if (!NAME_PATTERN.matcher(arg.name).matches()) {
+                error(method, "Invalid argument name " + arg.name + ": names must contain 1 to 32 letters, digits, - or _.");
+                valid = false;
+            }
+            if (!argumentNames.add(arg.name)) {
+                error(method, "The argument " + arg.name + " is declared more than once.");
+                valid = false;
+            }
+            if (arg.description.isEmpty() || arg.description.length() > MAX_DESCRIPTION_LENGTH) {
+                error(method, "The description of the argument " + arg.name + " must contain 1 to " + MAX_DESCRIPTION_LENGTH + " characters.");
+                valid = false;
+            }
+            if (arg.required && optionalFound) {
+                error(method, "The required argument " + arg.name + " cannot be declared after an optional argument.");
+                valid = false;
+            }
+            optionalFound |= !arg.required;
+            node.arguments.add(arg);
+        }
+        return valid ? node : null;
+    }
+
+    /* Generating the <ClassName>Registration source file */
+    private void generate(TypeElement owner, List<Node> roots) throws IOException {
+        String packageName = processingEnv.getElementUtils().getPackageOf(owner).getQualifiedName().toString();
+        String ownerName = owner.getQualifiedName().toString();
+        String className = owner.getSimpleName() + "Registration";
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) source.append("package ").append(packageName).append(";\n\n");
+        source.append("import com.github.stefan9110.dcm.CommandManagerAPI;\n")
+                .append("import com.github.stefan9110.dcm.command.CommandArgument;\n")
+                .append("import com.github.stefan9110.dcm.command.ParentCommand;\n")
+                .append("import com.github.stefan9110.dcm.command.SubCommand;\n")
+                .append("import com.github.stefan9110.dcm.core.CommandPriority;\n")
+                .append("import com.github.stefan9110.dcm.manager.executor.CommandExecutor;\n")
+                .append("import com.github.stefan9110.dcm.manager.executor.Executor;\n")
+                .append("import com.github.stefan9110.dcm.manager.executor.SlashExecutor;\n")
+                .append("import com.github.stefan9110.dcm.manager.executor.reply.InteractionResponse;\n")
+                .append("import com.github.stefan9110.dcm.permission.CustomPermission;\n")
+                .append("import com.github.stefan9110.dcm.permission.DiscordPermission;\n")
+                .append("import net.dv8tion.jda.api.Permission;\n")
+                .append("import net.dv8tion.jda.api.entities.Member;\n")
+                .append("import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;\n")
+                .append("import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;\n")
+                .append("import net.dv8tion.jda.api.interactions.commands.OptionType;\n")
+                .append("import org.jetbrains.annotations.NotNull;\n\n")
+                .append("import java.util.*;\n\n")
+                .append("/**\n * Generated by the Discord Command Manager CommandProcessor from the annotated methods of ")
+                .append(ownerName).append(". Do not edit.\n */\n")
+                .append("public final class ").append(className).append(" {\n")
+                .append("    private ").append(className).append("() {\n    }\n\n")
+                .append("    /**\n     * @param instance The instance the annotated methods are called on.\n")
+                .append("     * @return The top of the hierarchy ParentCommands declared in ").append(owner.getSimpleName()).append(".\n     */\n")
+                .append("    public static List<ParentCommand> build(final ").append(ownerName).append(" instance) {\n")
+                .append("        List<ParentCommand> commands = new ArrayList<>(").append(roots.size()).append(");\n");
+        Map<Node, String> classNames = new LinkedHashMap<>();
+        for (Node root : roots) assignClassNames(root, "", classNames);
+        for (Node root : roots) source.append("        commands.add(new ").append(classNames.get(root)).append("(instance));\n");
+        source.append("        return commands;\n    }\n\n")
+                .append("    /**\n     * Builds and registers the ParentCommands declared in ").append(owner.getSimpleName()).append(".\n")
+                .append("     *\n     * @param api      The initialized CommandManagerAPI.\n")
+                .append("     * @param instance The instance the annotated methods are called on.\n     */\n")
+                .append("    public static void register(CommandManagerAPI api, final ").append(ownerName).append(" instance) {\n")
+                .append("        for (ParentCommand command : build(instance)) api.registerCommand(command);\n    }\n");
+
+        for (Map.Entry<Node, String> entry : classNames.entrySet()) generateCommand(source, entry.getKey(), entry.getValue(), ownerName, classNames);
+        source.append("}\n");
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile((packageName.isEmpty() ? "" : packageName + ".") + className, owner);
+        try (Writer writer = file.openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    private void assignClassNames(Node node, String prefix, Map<Node, String> classNames) {
+        String name = prefix + "_" + node.name.replaceAll("[^A-Za-z0-9_]", "_");
+        String className = "Command" + name;
+        for (int i = 2; classNames.containsValue(className); i++) className = "Command" + name + "_" + i;
+        classNames.put(node, className);
+        for (Node child : node.children.values()) assignClassNames(child, name, classNames);
+    }
+
+    private void generateCommand(StringBuilder source, Node node, String className, String ownerName, Map<Node, String> classNames) {
+        boolean parent = node.parentPath == null || !node.children.isEmpty();
+        String indent = "        ";
+        source.append("\n    private static final class ").append(className).append(" extends ").append(parent ? "ParentCommand" : "SubCommand").append(" {\n");
+        source.append(indent).append("private static final List<String> ALIASES = ").append(stringList(node.aliases)).append(";\n");
+        source.append(indent).append("private static final CustomPermission PERMISSION = ")
+                .append(node.permission == null ? "null" : "DiscordPermission.of(Permission." + node.permission + ")").append(";\n");
+        source.append(indent).append("private final Executor executor;\n\n");
+
+        source.append(indent).append(className).append("(final ").append(ownerName).append(" instance) {\n");
+        source.append(indent).append("    super(").append(literal(node.name)).append(", ").append(parent ? "new HashMap<>(), " : "").append("new ArrayList<>(")
+                .append(node.arguments.isEmpty() ? "0" : "Arrays.asList(" + argumentList(node.arguments) + ")").append("));\n");
+        String call = (node.method.getModifiers().contains(Modifier.STATIC) ? ownerName : "instance") + "." + node.method.getSimpleName() + "(member, args, event)";
+        if (node.slash) {
+            source.append(indent).append("    executor = new SlashExecutor() {\n")
+                    .append(indent).append("        @Override\n")
+                    .append(indent).append("        public @NotNull InteractionResponse reply(Member member, String[] args, SlashCommandEvent event) {\n")
+                    .append(indent).append("            return ").append(call).append(";\n");
+        } else {
+            source.append(indent).append("    executor = new CommandExecutor() {\n")
+                    .append(indent).append("        @Override\n")
+                    .append(indent).append("        public void execute(Member member, String[] args, GuildMessageReceivedEvent event) {\n")
+                    .append(indent).append("            ").append(call).append(";\n");
+        }
+        source.append(indent).append("        }\n").append(indent).append("    };\n");
+        for (Node child : node.children.values())
+            source.append(indent).append("    addSubCommand(new ").append(classNames.get(child)).append("(instance));\n");
+        source.append(indent).append("}\n");
+
+        source.append("\n").append(indent).append("@Override\n").append(indent).append("public CustomPermission getRequiredPermission() {\n")
+                .append(indent).append("    return PERMISSION;\n").append(indent).append("}\n");
+        source.append("\n").append(indent).append("@Override\n").append(indent).append("public List<String> getAliases() {\n")
+                .append(indent).append("    return ALIASES;\n").append(indent).append("}\n");
+        source.append("\n").append(indent).append("@Override\n").append(indent).append("public String getDescription() {\n")
+                .append(indent).append("    return ").append(node.description.isEmpty() ? "null" : literal(node.description)).append(";\n").append(indent).append("}\n");
+        source.append("\n").append(indent).append("@Override\n").append(indent).append("public String getUsage() {\n")
+                .append(indent).append("    return ").append(node.usage.isEmpty() ? "null" : literal(node.usage)).append(";\n").append(indent).append("}\n");
+        source.append("\n").append(indent).append("@Override\n").append(indent).append("public @NotNull Executor getExecutor() {\n")
+                .append(indent).append("    return executor;\n").append(indent).append("}\n");
+        source.append("\n").append(indent).append("@Override\n").append(indent).append("public @NotNull CommandPriority getPriority() {\n")
+                .append(indent).append("    return CommandPriority.").append(node.priority).append(";\n").append(indent).append("}\n");
+        source.append("    }\n");
+    }
+
+    private static String stringList(List<String> values) {
+        if (values.isEmpty()) return "Collections.emptyList()";
+        StringJoiner joiner = new StringJoiner(", ", "Collections.unmodifiableList(Arrays.asList(", "))");
+        for (String value : values) joiner.add(literal(value));
+        return joiner.toString();
+    }
+
+    private static String argumentList(List<Argument> arguments) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (Argument arg : arguments)
+            joiner.add("new CommandArgument(OptionType." + arg.type + ", " + literal(arg.name) + ", " + literal(arg.description) + ", " + arg.required + ")");
+        return joiner.toString();
+    }
+
+    private static String literal(String value) {
+        StringBuilder result = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"': result.append("\\\""); break;
+                case '\\': result.append("\\\\"); break;
+                case '\n': result.append("\\n"); break;
+                case '\r': result.append("\\r"); break;
+                case '\t': result.append("\\t"); break;
+                default:
+                    if (c < 0x20) result.append(String.format("\\u%04x", (int) c));
+                    else result.append(c);
+            }
+        }
+        return result.append('"').toString();
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String type) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors())
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(type)) return mirror;
+        return null;
+    }
+
+    private Map<String, AnnotationValue> values(AnnotationMirror mirror) {
+        Map<String, AnnotationValue> result = new HashMap<>();
+        processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).forEach((key, value) -> result.put(key.getSimpleName().toString(), value));
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<AnnotationValue> list(AnnotationValue value) {
+        return (List<AnnotationValue>) value.getValue();
+    }
+
+    private static String enumName(AnnotationValue value) {
+        return ((VariableElement) value.getValue()).getSimpleName().toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class Node {
+        private final ExecutableElement method;
+        private final boolean slash;
+        private final List<String> aliases = new ArrayList<>();
+        private final List<Argument> arguments = new ArrayList<>();
+        private final Map<String, Node> children = new LinkedHashMap<>();
+        private String name, description, usage, permission, priority;
+        private String[] parentPath;
+
+        private Node(ExecutableElement method, boolean slash) {
+            this.method = method;
+            this.slash = slash;
+        }
+
+        private List<String> keys() {
+            List<String> keys = new ArrayList<>(aliases);
+            keys.add(0, name);
+            return keys;
+        }
+    }
+
+    private static final class Argument {
+        private final String type, name, description;
+        private final boolean required;
+
+        private Argument(String type, String name, String description, boolean required) {
+            this.type = type;
+            this.name = name;
+            this.description = description;
+            this.required = required;
+        }
+    }
+}
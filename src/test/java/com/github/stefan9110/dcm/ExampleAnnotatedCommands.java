@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.stefan9110.dcm;
+
+import com.github.stefan9110.dcm.annotation.Arg;
+import com.github.stefan9110.dcm.annotation.Command;
+import com.github.stefan9110.dcm.annotation.SubCommand;
+import com.github.stefan9110.dcm.core.CommandPriority;
+import com.github.stefan9110.dcm.manager.executor.reply.InteractionResponse;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+
+public class ExampleAnnotatedCommands {
+    // Executor of the "say" parent command, called when no sub command is given
+    @Command(name = "say", description = "Send a greeting or a farewell message to the executor!", usage = "s!say <greetings / farewell>")
+    public void say(Member member, String[] args, GuildMessageReceivedEvent event) {
+        event.getMessage().reply("You must specify a sub command: `greetings` or `farewell`").queue();
+    }
+
+    @SubCommand(parent = "say", name = "greetings", aliases = "hi")
+    public void greetings(Member member, String[] args, GuildMessageReceivedEvent event) {
+        event.getMessage().reply("Greetings " + member.getAsMention()).queue();
+    }
+
+    @SubCommand(parent = "say", name = "farewell")
+    public void farewell(Member member, String[] args, GuildMessageReceivedEvent event) {
+        event.getMessage().reply("Farewell " + member.getAsMention()).queue();
+    }
+
+    // SlashCommand with a predefined argument, a permission requirement and a priority
+    @Command(name = "kick", description = "Kick a member", permission = Permission.KICK_MEMBERS, priority = CommandPriority.MODERATION)
+    @Arg(type = OptionType.USER, name = "member", description = "The member you want to kick")
+    public InteractionResponse kick(Member member, String[] args, SlashCommandEvent event) {
+        return InteractionResponse.of("Kicking " + args[0]).setEphemeral();
+    }
+
+    // The ExampleAnnotatedCommandsRegistration class is generated by the annotation processor at compile time
+    public void register() {
+        ExampleAnnotatedCommandsRegistration.register(CommandManagerAPI.getAPI(), this);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.command.compact;
+
+import com.github.stefan9110.dcm.builder.CommandBuilder;
+import com.github.stefan9110.dcm.command.Command;
+import com.github.stefan9110.dcm.command.CommandArgument;
+import com.github.stefan9110.dcm.manager.executor.CommandExecutor;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Measures the heap retained by a parent command holding a large number of sub-commands, built with CommandBuilder#build(boolean)
+ * and with CommandBuilder#buildCompact(boolean). Every sub-command has one alias, one argument and a description.
+ * <p>
+ * Run with ./gradlew compactFootprint, which uses the serial collector so that the heap used after a full collection is the live
+ * data. The number of sub-commands may be given as the first argument.
+ */
+public class CompactCommandFootprint {
+    private static final int DEFAULT_SUB_COMMANDS = 50_000;
+    private static final CommandExecutor EXECUTOR = new CommandExecutor() {
+        @Override
+        public void execute(Member member, String[] args, GuildMessageReceivedEvent event) {
+        }
+    };
+
+    // Keeps the measured command reachable while the heap is measured.
+    private static volatile Command retained;
+
+    public static void main(String[] args) {
+        int subCommands = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SUB_COMMANDS;
+        // A first round loads and initializes the classes involved, so that they are not counted in the measured rounds.
+        measure(() -> hierarchy(100).build(true));
+        measure(() -> hierarchy(100).buildCompact(true));
+
+        long regular = measure(() -> hierarchy(subCommands).build(true));
+        long compact = measure(() -> hierarchy(subCommands).buildCompact(true));
+        System.out.printf("%,d sub-commands, retained heap:%n", subCommands);
+        System.out.printf("  build(true):        %,d KiB (%d B per sub-command)%n", regular / 1024, regular / subCommands);
+        System.out.printf("  buildCompact(true): %,d KiB (%d B per sub-command)%n", compact / 1024, compact / subCommands);
+    }
+
+    private static CommandBuilder hierarchy(int subCommands) {
+        CommandBuilder parent = CommandBuilder.create("stats").setDescription("Shows the statistics of the server.")
+                .setCommandExecutor(EXECUTOR);
+        for (int i = 0; i < subCommands; i++) {
+            parent.addSubCommand(CommandBuilder.create("stat" + i)
+                    .addAlias("s" + i)
+                    .addArgument(new CommandArgument(OptionType.STRING, "period", "The period of the statistic.", false))
+                    .setDescription("Shows the statistic number " + i + ".")
+                    .setCommandExecutor(EXECUTOR)
+                    .build(false));
+        }
+        return parent;
+    }
+
+    private static long measure(Supplier<Command> factory) {
+        long before = usedHeap();
+        retained = factory.get();
+        long after = usedHeap();
+        retained = null;
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
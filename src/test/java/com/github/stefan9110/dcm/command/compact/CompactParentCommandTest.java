@@ -0,0 +1,74 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.command.compact;
+
+import com.github.stefan9110.dcm.builder.CommandBuilder;
+import com.github.stefan9110.dcm.command.Command;
+import com.github.stefan9110.dcm.command.ParentCommand;
+import com.github.stefan9110.dcm.manager.executor.CommandExecutor;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactParentCommandTest {
+    private static final CommandExecutor EXECUTOR = new CommandExecutor() {
+        @Override
+        public void execute(Member member, String[] args, GuildMessageReceivedEvent event) {
+        }
+    };
+
+    private static CommandBuilder hierarchy() {
+        return CommandBuilder.create("stats").setCommandExecutor(EXECUTOR)
+                .addSubCommand(CommandBuilder.create("daily").setCommandExecutor(EXECUTOR).build(false))
+                .addSubCommand(CommandBuilder.create("weekly").setCommandExecutor(EXECUTOR).build(false));
+    }
+
+    @Test
+    void subCommandsAreCopiedIntoAHashMap() {
+        ParentCommand command = (ParentCommand) hierarchy().buildCompact(true);
+        HashMap<String, Command> copy = command.getSubCommands();
+        assertEquals(2, copy.size());
+        copy.remove("daily");
+        assertNotNull(command.getSubCommand("daily"));
+        assertEquals(2, command.getSubCommands().size());
+    }
+
+    @Test
+    void subCommandViewIsReadOnlyAndShared() {
+        ParentCommand command = (ParentCommand) hierarchy().buildCompact(true);
+        Map<String, Command> view = command.getSubCommandView();
+        assertSame(view, command.getSubCommandView());
+        assertEquals(command.getSubCommand("weekly"), view.get("weekly"));
+        assertThrows(UnsupportedOperationException.class, () -> view.remove("daily"));
+    }
+
+    @Test
+    void regularViewFollowsTheSubCommands() {
+        ParentCommand command = (ParentCommand) hierarchy().build(true);
+        Map<String, Command> view = command.getSubCommandView();
+        command.addSubCommand(CommandBuilder.create("monthly").setCommandExecutor(EXECUTOR).build(false));
+        assertEquals(3, view.size());
+        assertSame(command.getSubCommands().get("monthly"), view.get("monthly"));
+        assertThrows(UnsupportedOperationException.class, () -> view.remove("daily"));
+    }
+}
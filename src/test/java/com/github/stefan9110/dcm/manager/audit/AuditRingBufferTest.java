@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.manager.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditRingBufferTest {
+    @TempDir
+    Path directory;
+
+    private List<AuditRecord> read() throws IOException {
+        List<AuditRecord> records = new ArrayList<>();
+        AuditLogReader.read(directory, records::add);
+        return records;
+    }
+
+    private List<AuditRecord> drainAndRead(AuditRingBuffer buffer) throws IOException {
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(directory, 1 << 16, 0)) {
+            buffer.drainTo(writer, Integer.MAX_VALUE);
+        }
+        return read();
+    }
+
+    @Test
+    void entriesWrapAroundTheRing() throws IOException {
+        AuditRingBuffer buffer = new AuditRingBuffer(4, 32);
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(directory, 1 << 16, 0)) {
+            // Ten rounds of three entries go around the four slots several times.
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < 3; i++) {
+                    long id = round * 3L + i;
+                    assertTrue(buffer.offer(id, id + 1, id + 2, id + 3, AuditLog.FLAG_SLASH_COMMAND, "cmd", new String[]{"arg" + id}));
+                }
+                assertEquals(3, buffer.drainTo(writer, Integer.MAX_VALUE));
+                assertTrue(buffer.isEmpty());
+            }
+        }
+
+        List<AuditRecord> records = read();
+        assertEquals(30, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            AuditRecord record = records.get(i);
+            assertEquals(AuditRecord.Type.INVOCATION, record.getType());
+            assertEquals(i, record.getTimestamp());
+            assertEquals(i + 1, record.getGuildId());
+            assertEquals(i + 2, record.getChannelId());
+            assertEquals(i + 3, record.getUserId());
+            assertTrue(record.isSlashCommand());
+            assertEquals("cmd arg" + i, record.getCommand());
+        }
+        assertEquals(0, buffer.getDropped());
+    }
+
+    @Test
+    void fullBufferDropsAndCountsEntries() throws IOException {
+        AuditRingBuffer buffer = new AuditRingBuffer(4, 16);
+        for (int i = 0; i < 4; i++) assertTrue(buffer.offer(i, 1, 1, 1, (byte) 0, "cmd", null));
+        assertFalse(buffer.offer(4, 1, 1, 1, (byte) 0, "cmd", null));
+        assertFalse(buffer.offer(5, 1, 1, 1, (byte) 0, "cmd", null));
+        assertEquals(2, buffer.getDropped());
+
+        // Draining frees the slots again.
+        assertEquals(4, drainAndRead(buffer).size());
+        assertTrue(buffer.offer(6, 1, 1, 1, (byte) 0, "cmd", null));
+        assertEquals(2, buffer.getDropped());
+        assertEquals(1, buffer.discard());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void longTextsAreTruncatedOnCharacterBoundaries() throws IOException {
+        AuditRingBuffer buffer = new AuditRingBuffer(2, 8);
+        // "\u00e9" takes two bytes: the second one would need the eighth and ninth bytes of the eight available.
+        assertTrue(buffer.offer(0, 1, 1, 1, (byte) 0, "abcde\u00e9\u00e9", null));
+        assertEquals("abcde\u00e9", drainAndRead(buffer).get(0).getCommand());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.manager.custom;
+
+import com.github.stefan9110.dcm.manager.executor.reply.ResponseTemplate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomCommandStoreTest {
+    @TempDir
+    Path directory;
+
+    private static String source(ResponseTemplate template) {
+        return template == null ? null : template.getSource();
+    }
+
+    @Test
+    void commandsAreReadBack() throws IOException {
+        CustomCommandStore store = new CustomCommandStore(directory, 100);
+        store.put(1, "Hello", "Hi {user}");
+        store.put(1, "bye", "Bye");
+        store.put(2, "hello", "Hey");
+        assertTrue(store.remove(1, "bye"));
+
+        CustomCommandStore reopened = new CustomCommandStore(directory, 100);
+        assertTrue(reopened.hasCommands(1));
+        assertEquals("Hi {user}", source(reopened.find(1, "HELLO")));
+        assertNull(reopened.find(1, "bye"));
+        assertEquals("Hey", source(reopened.find(2, "hello")));
+        assertEquals(1, reopened.getCommands(1).size());
+    }
+
+    @Test
+    void invalidCommandCountIsAFailure() throws IOException {
+        for (int count : new int[]{-1, Integer.MAX_VALUE}) {
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(directory.resolve("7.dcc")))) {
+                out.writeInt(0x44434d43);
+                out.writeByte(1);
+                out.writeInt(count);
+            }
+            CustomCommandStore store = new CustomCommandStore(directory, 100);
+            assertNull(store.find(7, "hello"));
+            UncheckedIOException failure = assertThrows(UncheckedIOException.class, () -> store.getCommands(7));
+            assertTrue(failure.getCause().getMessage().contains(Integer.toString(count)), failure.getCause().getMessage());
+            // The damaged file is not replaced by a write.
+            assertThrows(IOException.class, () -> store.put(7, "hello", "Hi"));
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedGuildIsEvicted() throws IOException {
+        CustomCommandStore store = new CustomCommandStore(directory, 2);
+        store.put(1, "a", "one");
+        store.put(2, "b", "two");
+        assertEquals("one", source(store.find(1, "a")));
+        store.put(3, "c", "three");
+
+        // Changing the files behind the store, only the evicted guild is read again.
+        CustomCommandStore other = new CustomCommandStore(directory, 100);
+        other.put(1, "a", "changed");
+        other.put(2, "b", "changed");
+        other.put(3, "c", "changed");
+        assertEquals("one", source(store.find(1, "a")));
+        assertEquals("three", source(store.find(3, "c")));
+        assertEquals("changed", source(store.find(2, "b")));
+    }
+
+    @Test
+    void emptiedGuildIsForgotten() throws IOException {
+        CustomCommandStore store = new CustomCommandStore(directory, 1);
+        store.put(1, "a", "one");
+        assertTrue(store.remove(1, "a"));
+        assertFalse(store.hasCommands(1));
+        assertFalse(Files.exists(directory.resolve("1.dcc")));
+        // The removed guild does not count against the loaded commands, so both guilds stay loaded.
+        store.put(2, "b", "two");
+        new CustomCommandStore(directory, 100).put(2, "b", "changed");
+        assertEquals("two", source(store.find(2, "b")));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.manager.dispatch;
+
+import com.github.stefan9110.dcm.builder.CommandBuilder;
+import com.github.stefan9110.dcm.command.ParentCommand;
+import com.github.stefan9110.dcm.core.dispatch.ShedStatistics;
+import net.dv8tion.jda.api.events.Event;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandDispatcherTest {
+    private static final Event EVENT = new Event(null, 0) {
+    };
+
+    private final List<Thread> executedOn = new CopyOnWriteArrayList<>();
+    private final ShedStatistics shedStatistics = new ShedStatistics();
+
+    // Command recording the threads it runs on, blocking until the given latch is released.
+    private ParentCommand command(CountDownLatch started, CountDownLatch release) {
+        return (ParentCommand) CommandBuilder.create("test").setCommandExecutor((member, args, event) -> {
+            executedOn.add(Thread.currentThread());
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }).build(true);
+    }
+
+    private static DispatchTask task(ParentCommand command) {
+        long now = System.nanoTime();
+        return new DispatchTask(command, null, new String[0], EVENT, now, now + TimeUnit.MINUTES.toNanos(1));
+    }
+
+    // Occupies the single worker of the dispatcher and returns its thread.
+    private Thread occupy(CommandDispatcher dispatcher, CountDownLatch release) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        assertTrue(dispatcher.submit(task(command(started, release))));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return executedOn.get(0);
+    }
+
+    @Test
+    void replacedWorkersStopPollingASharedScheduler() throws InterruptedException {
+        CommandDispatcher previous = new CommandDispatcher(1, new FifoCommandScheduler(), shedStatistics);
+        CountDownLatch releasePrevious = new CountDownLatch(1);
+        Thread previousWorker = occupy(previous, releasePrevious);
+
+        CommandDispatcher dispatcher = new CommandDispatcher(1, previous.getScheduler(), shedStatistics);
+        previous.handOff(dispatcher);
+        assertFalse(previous.submit(task(command(new CountDownLatch(0), releasePrevious))));
+        // The new worker is busy, so that calls are waiting in the shared scheduler when the previous worker is released.
+        CountDownLatch release = new CountDownLatch(1), started = new CountDownLatch(6);
+        assertTrue(dispatcher.submit(task(command(started, release))));
+        for (int i = 0; i < 5; i++) assertTrue(dispatcher.submit(task(command(started, release))));
+        releasePrevious.countDown();
+        previousWorker.join(5000);
+        assertFalse(previousWorker.isAlive());
+
+        release.countDown();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(1, executedOn.stream().filter(thread -> thread == previousWorker).count());
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void waitingCallsAreMovedToTheNewScheduler() throws InterruptedException {
+        CommandDispatcher previous = new CommandDispatcher(1, new FifoCommandScheduler(), shedStatistics);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread previousWorker = occupy(previous, release);
+        CountDownLatch started = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) assertTrue(previous.submit(task(command(started, release))));
+
+        CommandDispatcher dispatcher = new CommandDispatcher(2, new FifoCommandScheduler(), shedStatistics);
+        previous.handOff(dispatcher);
+        assertEquals(0, previous.getQueueDepth());
+        release.countDown();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        previousWorker.join(5000);
+        assertFalse(previousWorker.isAlive());
+        assertEquals(1, executedOn.stream().filter(thread -> thread == previousWorker).count());
+        dispatcher.shutdown();
+    }
+}
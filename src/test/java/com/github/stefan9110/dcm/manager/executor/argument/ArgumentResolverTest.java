@@ -0,0 +1,182 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.manager.executor.argument;
+
+import com.github.stefan9110.dcm.command.CommandArgument;
+import com.github.stefan9110.dcm.exceptions.CommandCancelledException;
+import com.github.stefan9110.dcm.exceptions.InvalidArgumentException;
+import com.github.stefan9110.dcm.manager.dispatch.CancellationToken;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.utils.concurrent.Task;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArgumentResolverTest {
+    private static final List<CommandArgument> USERS =
+            Collections.singletonList(new CommandArgument(OptionType.USER, "users", "The users.", true));
+
+    // Member retrieval answered right away with the given members, or never if they are null.
+    private static final class PendingTask implements Task<List<Member>> {
+        private final List<Member> answer;
+        private volatile boolean cancelled;
+
+        private PendingTask(List<Member> answer) {
+            this.answer = answer;
+        }
+
+        @Override
+        public boolean isStarted() {
+            return true;
+        }
+
+        @Override
+        public Task<List<Member>> onError(Consumer<? super Throwable> callback) {
+            return this;
+        }
+
+        @Override
+        public Task<List<Member>> onSuccess(Consumer<? super List<Member>> callback) {
+            if (answer != null) callback.accept(answer);
+            return this;
+        }
+
+        @Override
+        public List<Member> get() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private static Member member(long id) {
+        return (Member) Proxy.newProxyInstance(Member.class.getClassLoader(), new Class<?>[]{Member.class}, (proxy, method, args) -> {
+            if (method.getName().equals("getIdLong")) return id;
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    // Guild without cached members, whose member requests are answered right away if answered is true.
+    private static Guild guild(List<PendingTask> requests, boolean answered) {
+        return (Guild) Proxy.newProxyInstance(Guild.class.getClassLoader(), new Class<?>[]{Guild.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getMemberById":
+                    return null;
+                case "retrieveMembersByIds": {
+                    List<Member> members = null;
+                    if (answered) {
+                        members = new ArrayList<>();
+                        for (long id : (long[]) args[1]) members.add(member(id));
+                    }
+                    PendingTask task = new PendingTask(members);
+                    requests.add(task);
+                    return task;
+                }
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static String[] ids(int count) {
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) ids[i] = Long.toString(1000 + i);
+        return ids;
+    }
+
+    // The tokens of the invocations are created and bound by the dispatcher, which is not involved in these tests.
+    private static CancellationToken bind(long timeoutNanos) throws ReflectiveOperationException {
+        Constructor<CancellationToken> constructor = CancellationToken.class.getDeclaredConstructor(long.class);
+        constructor.setAccessible(true);
+        CancellationToken token = constructor.newInstance(System.nanoTime() + timeoutNanos);
+        Method bind = CancellationToken.class.getDeclaredMethod("bind", CancellationToken.class);
+        bind.setAccessible(true);
+        bind.invoke(null, token);
+        return token;
+    }
+
+    private static void unbind() throws ReflectiveOperationException {
+        Method unbind = CancellationToken.class.getDeclaredMethod("unbind");
+        unbind.setAccessible(true);
+        unbind.invoke(null);
+    }
+
+    @Test
+    void missingMembersAreRetrievedInBatches() {
+        List<PendingTask> requests = new ArrayList<>();
+        ResolvedArguments resolved = ArgumentResolver.resolve(guild(requests, true), USERS, ids(250));
+        assertEquals(3, requests.size());
+        assertEquals(250, resolved.getMembers("users").size());
+        assertFalse(requests.get(0).cancelled);
+    }
+
+    @Test
+    void retrievalStopsAtTheTimeoutOfTheInvocation() throws ReflectiveOperationException {
+        List<PendingTask> requests = new ArrayList<>();
+        bind(TimeUnit.MILLISECONDS.toNanos(200));
+        long start = System.nanoTime();
+        try {
+            assertThrows(InvalidArgumentException.class, () -> ArgumentResolver.resolve(guild(requests, false), USERS, ids(150)));
+        } finally {
+            unbind();
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(2, requests.size());
+        for (PendingTask request : requests) assertTrue(request.cancelled);
+    }
+
+    @Test
+    void cancelledInvocationStopsWaiting() throws Exception {
+        List<PendingTask> requests = new ArrayList<>();
+        CancellationToken token = bind(TimeUnit.MINUTES.toNanos(1));
+        Method cancel = CancellationToken.class.getDeclaredMethod("cancel");
+        cancel.setAccessible(true);
+        Thread canceller = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+                cancel.invoke(token);
+            } catch (ReflectiveOperationException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        long start = System.nanoTime();
+        canceller.start();
+        try {
+            assertThrows(CommandCancelledException.class, () -> ArgumentResolver.resolve(guild(requests, false), USERS, ids(1)));
+        } finally {
+            unbind();
+            canceller.join();
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(requests.get(0).cancelled);
+    }
+}
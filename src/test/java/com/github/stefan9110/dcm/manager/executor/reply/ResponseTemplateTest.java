@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.manager.executor.reply;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseTemplateTest {
+    @Test
+    void argumentsAreRenderedFromTheContext() {
+        ResponseTemplate template = ResponseTemplate.compile("{arg2} then {arg1}: {args}{arg9}");
+        assertEquals("b then a: a b c", template.render(TemplateContext.of(null, null, new String[]{"a", "b", "c"})));
+    }
+
+    @Test
+    void renderingWithoutContextKeepsThePlaceholders() {
+        ResponseTemplate template = ResponseTemplate.compile("{user} needs {perm} for {args} and {arg1}");
+        assertTrue(template.needsContext());
+        assertEquals("{user} needs ADMINISTRATOR for {args} and {arg1}", template.render("perm", "ADMINISTRATOR"));
+    }
+
+    @Test
+    void unknownNamedPlaceholdersAreKept() {
+        ResponseTemplate template = ResponseTemplate.compile("{a}{b}{} {c");
+        assertFalse(template.needsContext());
+        assertEquals("1{b}{} {c", template.render(TemplateContext.of(null, null, null).with("a", "1")));
+    }
+
+    @Test
+    void contextHoldsUpToEightNamedValues() {
+        TemplateContext context = TemplateContext.of(null, null, null);
+        for (int i = 0; i < 8; i++) context.with("v" + i, String.valueOf(i));
+        context.with("v3", "three");
+        for (int i = 0; i < 8; i++) assertEquals(i == 3 ? "three" : String.valueOf(i), context.get("v" + i));
+        assertNull(context.get("v8"));
+        assertThrows(IllegalStateException.class, () -> context.with("v8", "8"));
+    }
+
+    @Test
+    void literalTemplateReplacesOnlyTheToken() {
+        ResponseTemplate template = ResponseTemplate.compileLiteral("{user} lacks %perm% (%perm%)", "%perm%", "perm");
+        assertFalse(template.needsContext());
+        assertEquals("{user} lacks MANAGE_SERVER (MANAGE_SERVER)", template.render("perm", "MANAGE_SERVER"));
+    }
+}
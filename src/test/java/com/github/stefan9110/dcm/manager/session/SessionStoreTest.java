@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.manager.session;
+
+import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionStoreTest {
+    private static final SessionHandler HANDLER = new SessionHandler() {
+        @Override
+        public void onMessage(@NotNull Session session, @NotNull GuildMessageReceivedEvent event) {
+        }
+    };
+
+    private final SessionStore store = new SessionStore(3);
+
+    @Test
+    void sessionsAreKeyedByGuildChannelAndUser() {
+        Session first = store.open(1, 10, 100, HANDLER, 1, TimeUnit.MINUTES);
+        Session otherChannel = store.open(1, 11, 100, HANDLER, 1, TimeUnit.MINUTES);
+        Session otherUser = store.open(1, 10, 101, HANDLER, 1, TimeUnit.MINUTES);
+        assertSame(first, store.get(1, 10, 100));
+        assertSame(otherChannel, store.get(1, 11, 100));
+        assertSame(otherUser, store.get(1, 10, 101));
+        assertNull(store.get(2, 10, 100));
+        assertEquals(3, store.size());
+        store.close();
+    }
+
+    @Test
+    void openingReplacesTheSessionOfTheChannel() {
+        Session first = store.open(1, 10, 100, HANDLER, 1, TimeUnit.MINUTES);
+        Session second = store.open(1, 10, 100, HANDLER, 1, TimeUnit.MINUTES);
+        assertFalse(first.isActive());
+        assertSame(second, store.get(1, 10, 100));
+        assertEquals(1, store.size());
+        store.close();
+    }
+
+    @Test
+    void endedSessionsAreRemoved() {
+        Session session = store.open(1, 10, 100, HANDLER, 1, TimeUnit.MINUTES);
+        Session kept = store.open(1, 11, 100, HANDLER, 1, TimeUnit.MINUTES);
+        session.end();
+        assertFalse(session.isActive());
+        assertNull(store.get(1, 10, 100));
+        assertSame(kept, store.get(1, 11, 100));
+        assertEquals(1, store.size());
+        // Ending a Session twice does not count it twice.
+        session.end();
+        assertEquals(1, store.size());
+        store.close();
+    }
+
+    @Test
+    void fullStoreRejectsNewSessions() {
+        for (int i = 0; i < 3; i++) assertNotNull(store.open(1, 10, i, HANDLER, 1, TimeUnit.MINUTES));
+        assertNull(store.open(1, 10, 3, HANDLER, 1, TimeUnit.MINUTES));
+        assertEquals(1, store.getStatistics().getRejectedSessions());
+        store.close();
+    }
+}
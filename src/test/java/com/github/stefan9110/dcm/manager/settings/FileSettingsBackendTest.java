@@ -0,0 +1,266 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.manager.settings;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSettingsBackendTest {
+    @TempDir
+    Path directory;
+
+    private static Map<Long, GuildSettings> changes(long guildId, String prefix) {
+        Map<Long, GuildSettings> changes = new LinkedHashMap<>();
+        changes.put(guildId, new GuildSettings(prefix, null, Collections.emptySet()));
+        return changes;
+    }
+
+    private static void assertPrefix(Map<Long, GuildSettings> settings, long guildId, String prefix) {
+        GuildSettings guildSettings = settings.get(guildId);
+        assertNotNull(guildSettings, "Missing the settings of guild " + guildId);
+        assertEquals(prefix, guildSettings.getPrefix());
+    }
+
+    @Test
+    void batchesAreReadBack() throws IOException {
+        Path file = directory.resolve("settings.dcm");
+        FileSettingsBackend backend = new FileSettingsBackend(file);
+        assertTrue(backend.load().isEmpty());
+        backend.write(changes(1, "!"));
+        backend.write(changes(2, "?"));
+        backend.write(changes(1, "$"));
+        backend.write(changes(2, null));
+        backend.close();
+
+        Map<Long, GuildSettings> settings = new FileSettingsBackend(file).load();
+        assertEquals(1, settings.size());
+        assertPrefix(settings, 1, "$");
+    }
+
+    @Test
+    void damagedRecordAndFollowingRecordsAreDropped() throws IOException {
+        Path file = directory.resolve("settings.dcm");
+        FileSettingsBackend backend = new FileSettingsBackend(file);
+        backend.load();
+        backend.write(changes(1, "!"));
+        long damaged = Files.size(file);
+        backend.write(changes(2, "?"));
+        backend.write(changes(3, "$"));
+        backend.close();
+
+        // Flipping the last byte of the content of the second record, its length is still valid but its checksum is not.
+        long contentEnd = damaged + (Files.size(file) - damaged) / 2;
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(contentEnd - 1);
+            int value = raf.read();
+            raf.seek(contentEnd - 1);
+            raf.write(value ^ 0xff);
+        }
+
+        backend = new FileSettingsBackend(file);
+        Map<Long, GuildSettings> settings = backend.load();
+        assertEquals(1, settings.size());
+        assertPrefix(settings, 1, "!");
+        // The file was compacted without the damaged records, so the next batches are read back.
+        backend.write(changes(4, "%"));
+        backend.close();
+
+        settings = new FileSettingsBackend(file).load();
+        assertEquals(2, settings.size());
+        assertPrefix(settings, 1, "!");
+        assertPrefix(settings, 4, "%");
+    }
+
+    @Test
+    void incompleteRecordIsDropped() throws IOException {
+        Path file = directory.resolve("settings.dcm");
+        FileSettingsBackend backend = new FileSettingsBackend(file);
+        backend.load();
+        backend.write(changes(1, "!"));
+        backend.write(changes(2, "?"));
+        backend.close();
+
+        // Cutting the last record as if the process stopped while writing it.
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        Map<Long, GuildSettings> settings = new FileSettingsBackend(file).load();
+        assertEquals(1, settings.size());
+        assertPrefix(settings, 1, "!");
+    }
+
+    @Test
+    void failedBatchIsTruncated() throws IOException {
+        Path file = directory.resolve("settings.dcm");
+        FailingBackend backend = new FailingBackend(file);
+        backend.load();
+        backend.write(changes(1, "!"));
+        long size = Files.size(file);
+
+        // Half of the batch reaches the file before the write fails.
+        backend.channel.fail = true;
+        assertThrows(IOException.class, () -> backend.write(changes(2, "?")));
+        assertEquals(size, Files.size(file));
+
+        backend.write(changes(3, "$"));
+        backend.close();
+
+        Map<Long, GuildSettings> settings = new FileSettingsBackend(file).load();
+        assertEquals(2, settings.size());
+        assertPrefix(settings, 1, "!");
+        assertPrefix(settings, 3, "$");
+    }
+
+    private static final class FailingBackend extends FileSettingsBackend {
+        private FailingChannel channel;
+
+        private FailingBackend(Path file) {
+            super(file);
+        }
+
+        @Override
+        FileChannel openChannel(Path file) throws IOException {
+            return channel = new FailingChannel(super.openChannel(file));
+        }
+    }
+
+    // Channel writing half of the next buffer and then failing, once fail is set.
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        private boolean fail, partial;
+
+        private FailingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            if (!fail) return delegate.write(src, position);
+            if (partial) {
+                fail = partial = false;
+                throw new IOException("No space left on device");
+            }
+            partial = true;
+            ByteBuffer half = src.duplicate();
+            half.limit(half.position() + half.remaining() / 2);
+            int written = delegate.write(half, position);
+            src.position(src.position() + written);
+            return written;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
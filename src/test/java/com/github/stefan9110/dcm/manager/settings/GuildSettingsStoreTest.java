@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.manager.settings;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GuildSettingsStoreTest {
+    private static final long GUILD = 1;
+    private static final int UPDATERS = 4, ROUNDS = 20_000;
+
+    // Backend keeping the written settings in memory, by the identity of the written instances.
+    private static final class MemoryBackend implements SettingsBackend {
+        private final Map<Long, GuildSettings> persisted = new ConcurrentHashMap<>();
+
+        @Override
+        public @NotNull Map<Long, GuildSettings> load() {
+            return new HashMap<>();
+        }
+
+        @Override
+        public void write(@NotNull Map<Long, GuildSettings> changes) {
+            persisted.putAll(changes);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    void concurrentUpdatesPersistTheLastValue() throws Exception {
+        MemoryBackend backend = new MemoryBackend();
+        // The scheduled batches are not used, the test flushes between the rounds itself.
+        GuildSettingsStore store = new GuildSettingsStore(backend, Long.MAX_VALUE);
+        // Every round the updaters change the settings of the same guild at the same time.
+        CyclicBarrier start = new CyclicBarrier(UPDATERS + 1), end = new CyclicBarrier(UPDATERS + 1);
+        Thread[] updaters = new Thread[UPDATERS];
+        for (int t = 0; t < UPDATERS; t++) {
+            int thread = t;
+            updaters[t] = new Thread(() -> {
+                try {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        String prefix = thread + "-" + round;
+                        start.await();
+                        store.update(GUILD, settings -> settings.withPrefix(prefix));
+                        end.await();
+                    }
+                } catch (InterruptedException | BrokenBarrierException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            updaters[t].start();
+        }
+
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                start.await();
+                end.await();
+                store.flush();
+                // The persisted settings must be the ones visible in memory, not an older change queued late.
+                assertSame(store.get(GUILD), backend.persisted.get(GUILD), "round " + round);
+            }
+        } finally {
+            for (Thread updater : updaters) updater.interrupt();
+            store.close();
+        }
+    }
+
+    @Test
+    void emptySettingsArePersistedAsRemovals() throws Exception {
+        MemoryBackend backend = new MemoryBackend();
+        GuildSettingsStore store = new GuildSettingsStore(backend, Long.MAX_VALUE);
+        store.update(GUILD, settings -> settings.withPrefix("!"));
+        store.update(GUILD, settings -> settings.withPrefix(null));
+        store.flush();
+        assertSame(GuildSettings.EMPTY, store.get(GUILD));
+        assertTrue(backend.persisted.get(GUILD).isEmpty());
+        store.close();
+    }
+}
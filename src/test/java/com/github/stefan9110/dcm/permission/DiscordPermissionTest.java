@@ -0,0 +1,40 @@
+/*
+ * Copyright 2021 Stefan9110
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.stefan9110.dcm.permission;
+
+import net.dv8tion.jda.api.Permission;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscordPermissionTest {
+    @Test
+    void legacyMessagesOnlyReplacePerm() {
+        // Messages written before templates were supported keep their braces as written.
+        DiscordPermission.setNoPermissionMessage("{user}: you need %perm% {args}");
+        assertEquals("{user}: you need " + Permission.ADMINISTRATOR + " {args}", DiscordPermission.of(Permission.ADMINISTRATOR).noPermissionMessage());
+        assertFalse(DiscordPermission.compileNoPermissionMessage("{user} %perm%").needsContext());
+    }
+
+    @Test
+    void templateMessagesReplacePerm() {
+        DiscordPermission.setNoPermissionMessage("You need {perm}, not %permission%.");
+        assertEquals("You need " + Permission.BAN_MEMBERS + ", not %permission%.", DiscordPermission.of(Permission.BAN_MEMBERS).noPermissionMessage());
+        assertTrue(DiscordPermission.compileNoPermissionMessage("{user} {perm}").needsContext());
+    }
+}